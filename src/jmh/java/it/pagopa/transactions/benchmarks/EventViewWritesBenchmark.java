@@ -0,0 +1,130 @@
+package it.pagopa.transactions.benchmarks;
+
+import com.azure.core.util.serializer.JsonSerializer;
+import com.mongodb.reactivestreams.client.ClientSession;
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent;
+import it.pagopa.ecommerce.commons.queues.QueueEvent;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import it.pagopa.transactions.repositories.QueueOutboxRepository;
+import it.pagopa.transactions.repositories.TransactionsEventStoreRepositoryCustomImpl;
+import it.pagopa.transactions.utils.EventViewWrites;
+import it.pagopa.transactions.utils.QueueOutbox;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency benchmark of a user cancellation state transition (event save, queue
+ * outbox write and view update) for each event and view write mode. Mongo is
+ * replaced by stubs answering each command after a simulated round trip, so
+ * that results show how many round trips are on the request critical path for
+ * each mode rather than Mongo server side costs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventViewWritesBenchmark {
+
+    @Param(
+        {
+                "SEQUENTIAL",
+                "CONCURRENT",
+                "TRANSACTION"
+        }
+    )
+    public EventViewWrites.Mode mode;
+
+    @Param(
+        {
+                "2"
+        }
+    )
+    public long roundTripMillis;
+
+    private EventViewWrites eventViewWrites;
+
+    private TransactionsEventStoreRepositoryCustomImpl<BaseTransactionEvent<Void>> eventStoreRepository;
+
+    private QueueAsyncClient queueClient;
+
+    private Duration roundTrip;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        roundTrip = Duration.ofMillis(roundTripMillis);
+        ReactiveMongoTemplate reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+        ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory = Mockito.mock(ReactiveMongoDatabaseFactory.class);
+        ClientSession clientSession = Mockito.mock(ClientSession.class);
+        when(reactiveMongoTemplate.getMongoDatabaseFactory()).thenReturn(reactiveMongoDatabaseFactory);
+        when(reactiveMongoTemplate.getCollectionName(BaseTransactionEvent.class)).thenReturn("eventstore");
+        when(reactiveMongoTemplate.getCollectionName(QueueOutboxMessage.class)).thenReturn("queue-outbox");
+        when(reactiveMongoTemplate.save(any(BaseTransactionEvent.class), anyString()))
+                .thenAnswer(invocation -> roundTrip().thenReturn(invocation.getArgument(0)));
+        when(reactiveMongoTemplate.insert(anyCollection(), anyString()))
+                .thenAnswer(
+                        invocation -> roundTrip()
+                                .thenMany(Flux.fromIterable((Collection<Object>) invocation.getArgument(0)))
+                );
+        when(reactiveMongoDatabaseFactory.getSession(any())).thenReturn(Mono.just(clientSession));
+        when(clientSession.commitTransaction()).thenAnswer(invocation -> roundTrip().then());
+
+        QueueOutboxRepository queueOutboxRepository = Mockito.mock(QueueOutboxRepository.class);
+        when(queueOutboxRepository.save(any()))
+                .thenAnswer(invocation -> roundTrip().thenReturn(invocation.getArgument(0)));
+        QueueOutbox queueOutbox = new QueueOutbox(
+                queueOutboxRepository,
+                true,
+                OpenTelemetry.noop().getMeter("benchmark")
+        );
+        queueClient = queueOutbox.queueAsyncClient(
+                "transactionClosureQueueAsyncClientV2",
+                Mockito.mock(com.azure.storage.queue.QueueAsyncClient.class),
+                Mockito.mock(JsonSerializer.class)
+        );
+
+        eventStoreRepository = new TransactionsEventStoreRepositoryCustomImpl<>(reactiveMongoTemplate);
+        eventViewWrites = new EventViewWrites(reactiveMongoTemplate, mode, true);
+    }
+
+    @Benchmark
+    public Object userCancelTransition() {
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        return eventViewWrites.write(
+                eventStoreRepository.save(event)
+                        .flatMap(
+                                savedEvent -> queueClient.sendMessageWithResponse(
+                                        new QueueEvent<>(savedEvent, null),
+                                        Duration.ZERO,
+                                        Duration.ofHours(1)
+                                )
+                                        .thenReturn(savedEvent)
+                        ),
+                // view update
+                savedEvent -> roundTrip().thenReturn(savedEvent)
+        ).block();
+    }
+
+    private Mono<Long> roundTrip() {
+        return Mono.delay(roundTrip);
+    }
+}
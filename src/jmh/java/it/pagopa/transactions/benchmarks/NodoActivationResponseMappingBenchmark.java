@@ -0,0 +1,129 @@
+package it.pagopa.transactions.benchmarks;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.documents.v2.Transaction;
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import it.pagopa.ecommerce.commons.utils.OpenTelemetryUtils;
+import it.pagopa.generated.transactions.model.ActivatePaymentNoticeV2Request;
+import it.pagopa.generated.transactions.model.ActivatePaymentNoticeV2Response;
+import it.pagopa.generated.transactions.model.ObjectFactory;
+import it.pagopa.transactions.client.NodeForPspClient;
+import it.pagopa.transactions.configurations.NodoConfig;
+import it.pagopa.transactions.utils.NodoActivationCoalescer;
+import it.pagopa.transactions.utils.NodoConcurrencyLimiter;
+import it.pagopa.transactions.utils.NodoOperations;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+import javax.xml.bind.JAXBElement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the mapping of an activatePaymentNoticeV2 response into
+ * {@link PaymentRequestInfo} performed by {@link NodoOperations}, including
+ * allCCP evaluation and payment transfer list building. The Nodo client is
+ * stubbed so that only the mapping logic is measured
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodoActivationResponseMappingBenchmark {
+
+    @Param(
+        {
+                "1",
+                "2",
+                "3",
+                "4",
+                "5"
+        }
+    )
+    public int transfers;
+
+    @Param(
+        {
+                "false",
+                "true"
+        }
+    )
+    public boolean withMetadata;
+
+    @Param(
+        {
+                "false",
+                "true"
+        }
+    )
+    public boolean allCCPOnTransferIbanEnabled;
+
+    private final RptId rptId = new RptId(NodoBenchmarkFixtures.FISCAL_CODE + NodoBenchmarkFixtures.NOTICE_NUMBER);
+
+    private final IdempotencyKey idempotencyKey = new IdempotencyKey(NodoBenchmarkFixtures.IDEMPOTENCY_KEY);
+
+    private NodoOperations nodoOperations;
+
+    @Setup
+    public void setup() {
+        ActivatePaymentNoticeV2Response response = NodoBenchmarkFixtures
+                .activateResponse(transfers, withMetadata, false);
+        NodeForPspClient nodeForPspClient = new NodeForPspClient(null, "", "", "", null) {
+            @Override
+            public Mono<ActivatePaymentNoticeV2Response> activatePaymentNoticeV2(
+                                                                                 JAXBElement<ActivatePaymentNoticeV2Request> request
+            ) {
+                return Mono.just(response);
+            }
+        };
+        NodoConfig nodoConfig = new NodoConfig() {
+            @Override
+            public ActivatePaymentNoticeV2Request baseActivatePaymentNoticeV2Request() {
+                return new ActivatePaymentNoticeV2Request();
+            }
+        };
+        nodoOperations = new NodoOperations(
+                nodeForPspClient,
+                new ObjectFactory(),
+                nodoConfig,
+                allCCPOnTransferIbanEnabled,
+                new OpenTelemetryUtils(OpenTelemetry.noop().getTracer("benchmark")),
+                new NodoActivationCoalescer(
+                        false,
+                        false,
+                        0,
+                        0,
+                        null,
+                        null,
+                        OpenTelemetry.noop().getMeter("benchmark")
+                ),
+                new NodoConcurrencyLimiter(
+                        100,
+                        1,
+                        100,
+                        0.9,
+                        10000,
+                        100,
+                        1000,
+                        OpenTelemetry.noop().getMeter("benchmark")
+                )
+        );
+    }
+
+    @Benchmark
+    public PaymentRequestInfo mapActivatePaymentNoticeV2Response() {
+        return nodoOperations.activatePaymentRequest(
+                rptId,
+                idempotencyKey,
+                12015,
+                "transactionId",
+                900,
+                "idCart",
+                null,
+                Transaction.ClientId.CHECKOUT
+        ).block();
+    }
+}
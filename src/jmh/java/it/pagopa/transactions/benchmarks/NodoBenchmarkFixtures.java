@@ -0,0 +1,104 @@
+package it.pagopa.transactions.benchmarks;
+
+import it.pagopa.generated.transactions.model.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Nodo activatePaymentNoticeV2 payloads shared by benchmarks
+ */
+final class NodoBenchmarkFixtures {
+
+    static final String FISCAL_CODE = "77777777777";
+
+    static final String NOTICE_NUMBER = "302000100000009424";
+
+    static final String IDEMPOTENCY_KEY = "00000000000_1234567890";
+
+    private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
+
+    private NodoBenchmarkFixtures() {
+    }
+
+    static ActivatePaymentNoticeV2Request activateRequest() {
+        ActivatePaymentNoticeV2Request request = OBJECT_FACTORY.createActivatePaymentNoticeV2Request();
+        CtQrCode qrCode = new CtQrCode();
+        qrCode.setFiscalCode(FISCAL_CODE);
+        qrCode.setNoticeNumber(NOTICE_NUMBER);
+        request.setIdPSP("idPsp");
+        request.setIdBrokerPSP("idBrokerPsp");
+        request.setIdChannel("idChannel");
+        request.setPassword("password");
+        request.setIdempotencyKey(IDEMPOTENCY_KEY);
+        request.setQrCode(qrCode);
+        request.setAmount(BigDecimal.valueOf(120.15));
+        request.setExpirationTime(BigInteger.valueOf(900000));
+        request.setPaymentNote("idCart");
+        return request;
+    }
+
+    /**
+     * Build an activation response
+     *
+     * @param transfers     number of transfers into the transfer list
+     * @param withMetadata  whether payment and transfers metadata are valued
+     * @param faultResponse whether to build a KO response with fault bean instead
+     *                      of an OK one
+     * @return the built response
+     */
+    static ActivatePaymentNoticeV2Response activateResponse(
+                                                            int transfers,
+                                                            boolean withMetadata,
+                                                            boolean faultResponse
+    ) {
+        ActivatePaymentNoticeV2Response response = OBJECT_FACTORY.createActivatePaymentNoticeV2Response();
+        if (faultResponse) {
+            CtFaultBean fault = OBJECT_FACTORY.createCtFaultBean();
+            fault.setFaultCode("PPT_PAGAMENTO_IN_CORSO");
+            fault.setFaultString("Pagamento in attesa risulta in corso al sistema pagoPA");
+            fault.setId("NodoDeiPagamentiSPC");
+            fault.setDescription("Pagamento in attesa risulta in corso al sistema pagoPA");
+            response.setOutcome(StOutcome.KO);
+            response.setFault(fault);
+            return response;
+        }
+        CtTransferListPSPV2 transferList = OBJECT_FACTORY.createCtTransferListPSPV2();
+        for (int i = 0; i < transfers; i++) {
+            CtTransferPSPV2 transfer = OBJECT_FACTORY.createCtTransferPSPV2();
+            transfer.setFiscalCodePA(FISCAL_CODE);
+            transfer.setIBAN(i % 2 == 0 ? "IT20U0760100899876113235567" : "IT41B0000100899876113235567");
+            transfer.setTransferAmount(BigDecimal.valueOf(24.03));
+            transfer.setRemittanceInformation("/RFB/00202200000217527/5.00/TXT/remittance information " + i);
+            transfer.setTransferCategory("9/0101100IM/");
+            if (withMetadata) {
+                transfer.setMetadata(metadata("IBANAPPOGGIO", "IT20U0760100899876113235567"));
+            }
+            transferList.getTransfer().add(transfer);
+        }
+        response.setOutcome(StOutcome.OK);
+        response.setTotalAmount(BigDecimal.valueOf(24.03).multiply(BigDecimal.valueOf(transfers)));
+        response.setPaymentDescription("TARI 2024 - rata unica");
+        response.setFiscalCodePA(FISCAL_CODE);
+        response.setCompanyName("Comune di Test");
+        response.setPaymentToken("ee2e5ac7b7f24f1a8b7c8a2d3f7d4f0b");
+        response.setCreditorReferenceId("02000100000009424");
+        response.setTransferList(transferList);
+        if (withMetadata) {
+            response.setMetadata(metadata("codiceConvenzione", "CONV01"));
+        }
+        return response;
+    }
+
+    private static CtMetadata metadata(
+                                       String key,
+                                       String value
+    ) {
+        CtMetadata metadata = new CtMetadata();
+        CtMapEntry mapEntry = new CtMapEntry();
+        mapEntry.setKey(key);
+        mapEntry.setValue(value);
+        metadata.getMapEntry().add(mapEntry);
+        return metadata;
+    }
+}
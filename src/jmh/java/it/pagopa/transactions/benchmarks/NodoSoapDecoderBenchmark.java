@@ -0,0 +1,122 @@
+package it.pagopa.transactions.benchmarks;
+
+import it.pagopa.generated.transactions.model.ActivatePaymentNoticeV2Response;
+import it.pagopa.generated.transactions.model.ObjectFactory;
+import it.pagopa.transactions.utils.soap.Jaxb2SoapDecoder;
+import it.pagopa.transactions.utils.soap.Jaxb2SoapEncoder;
+import it.pagopa.transactions.utils.soap.SoapEnvelope;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the SOAP decoding of activatePaymentNoticeV2 responses received
+ * from Nodo: OK responses for different transfer list sizes, with or without
+ * metadata, and KO responses carrying a fault, whose size does not depend on
+ * those parameters
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodoSoapDecoderBenchmark {
+
+    private static final ResolvableType RESPONSE_TYPE = ResolvableType
+            .forClass(ActivatePaymentNoticeV2Response.class);
+
+    private final Jaxb2SoapDecoder decoder = new Jaxb2SoapDecoder();
+
+    /**
+     * Encoded OK response
+     */
+    @State(Scope.Benchmark)
+    public static class OkResponse {
+
+        @Param(
+            {
+                    "1",
+                    "2",
+                    "3",
+                    "4",
+                    "5"
+            }
+        )
+        public int transfers;
+
+        @Param(
+            {
+                    "false",
+                    "true"
+            }
+        )
+        public boolean withMetadata;
+
+        private byte[] soapResponse;
+
+        @Setup
+        public void setup() {
+            soapResponse = encode(NodoBenchmarkFixtures.activateResponse(transfers, withMetadata, false));
+        }
+    }
+
+    /**
+     * Encoded KO response carrying a fault
+     */
+    @State(Scope.Benchmark)
+    public static class FaultResponse {
+
+        private byte[] soapResponse;
+
+        @Setup
+        public void setup() {
+            soapResponse = encode(NodoBenchmarkFixtures.activateResponse(0, false, true));
+        }
+    }
+
+    @Benchmark
+    public Object decodeActivatePaymentNoticeV2Response(OkResponse response) {
+        return decode(response.soapResponse);
+    }
+
+    @Benchmark
+    public Object decodeActivatePaymentNoticeV2FaultResponse(FaultResponse response) {
+        return decode(response.soapResponse);
+    }
+
+    private Object decode(byte[] soapResponse) {
+        return decoder.decode(
+                DefaultDataBufferFactory.sharedInstance.wrap(soapResponse),
+                RESPONSE_TYPE,
+                MimeTypeUtils.TEXT_XML,
+                Map.of()
+        );
+    }
+
+    private static byte[] encode(ActivatePaymentNoticeV2Response activateResponse) {
+        DataBuffer encoded = new Jaxb2SoapEncoder().encode(
+                Mono.just(
+                        new SoapEnvelope(
+                                "",
+                                new ObjectFactory().createActivatePaymentNoticeV2Response(activateResponse)
+                        )
+                ),
+                DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forClass(SoapEnvelope.class),
+                MimeTypeUtils.TEXT_XML,
+                Map.of()
+        ).blockLast();
+        byte[] soapResponse = new byte[encoded.readableByteCount()];
+        encoded.read(soapResponse);
+        DataBufferUtils.release(encoded);
+        return soapResponse;
+    }
+}
@@ -0,0 +1,59 @@
+package it.pagopa.transactions.benchmarks;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import it.pagopa.generated.transactions.model.ObjectFactory;
+import it.pagopa.transactions.utils.soap.Jaxb2SoapEncoder;
+import it.pagopa.transactions.utils.soap.SoapEnvelope;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the SOAP encoding of the activatePaymentNoticeV2 request sent
+ * to Nodo, using the same pooled Netty buffers used by the Nodo web client
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodoSoapEncoderBenchmark {
+
+    private static final ResolvableType SOAP_ENVELOPE_TYPE = ResolvableType.forClass(SoapEnvelope.class);
+
+    private final Jaxb2SoapEncoder encoder = new Jaxb2SoapEncoder();
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private SoapEnvelope soapEnvelope;
+
+    @Setup
+    public void setup() {
+        soapEnvelope = new SoapEnvelope(
+                "",
+                new ObjectFactory().createActivatePaymentNoticeV2Request(NodoBenchmarkFixtures.activateRequest())
+        );
+    }
+
+    @Benchmark
+    public int encodeActivatePaymentNoticeV2Request() {
+        DataBuffer dataBuffer = encoder.encode(
+                Mono.just(soapEnvelope),
+                bufferFactory,
+                SOAP_ENVELOPE_TYPE,
+                MimeTypeUtils.TEXT_XML,
+                Map.of()
+        ).blockLast();
+        int encodedBytes = dataBuffer.readableByteCount();
+        DataBufferUtils.release(dataBuffer);
+        return encodedBytes;
+    }
+}
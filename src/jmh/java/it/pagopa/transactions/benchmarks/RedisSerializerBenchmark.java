@@ -0,0 +1,92 @@
+package it.pagopa.transactions.benchmarks;
+
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.PaymentTransferInfo;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import it.pagopa.transactions.utils.redis.RedisSerializationFormat;
+import it.pagopa.transactions.utils.redis.VersionedRedisSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the encoding and decoding of PaymentRequestInfo documents
+ * stored in Redis, for each supported serialization format and different
+ * transfer list sizes. Encoded payload sizes are printed during setup
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    @Param(
+        {
+                "JSON",
+                "SMILE"
+        }
+    )
+    public RedisSerializationFormat format;
+
+    @Param(
+        {
+                "1",
+                "5"
+        }
+    )
+    public int transfers;
+
+    private VersionedRedisSerializer<PaymentRequestInfo> serializer;
+
+    private PaymentRequestInfo paymentRequestInfo;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        serializer = new VersionedRedisSerializer<>(PaymentRequestInfo.class, format);
+        List<PaymentTransferInfo> transferList = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            transferList.add(
+                    new PaymentTransferInfo(NodoBenchmarkFixtures.FISCAL_CODE, false, 2403, "9/0101100IM/")
+            );
+        }
+        paymentRequestInfo = new PaymentRequestInfo(
+                new RptId(NodoBenchmarkFixtures.FISCAL_CODE + NodoBenchmarkFixtures.NOTICE_NUMBER),
+                NodoBenchmarkFixtures.FISCAL_CODE,
+                "Ente creditore",
+                "Pagamento tassa rifiuti anno 2023 - rata unica",
+                2403 * transfers,
+                "2030-12-31",
+                "a4a9dbbb6a0b4c9ab5ae82c9ad5e8d1f",
+                ZonedDateTime.now().toString(),
+                new IdempotencyKey(NodoBenchmarkFixtures.IDEMPOTENCY_KEY),
+                transferList,
+                false,
+                "02000100000009424"
+        );
+        encoded = serializer.serialize(paymentRequestInfo);
+        System.out.printf(
+                "%nEncoded PaymentRequestInfo size, format [%s], transfers [%s]: [%s] bytes%n",
+                format,
+                transfers,
+                encoded.length
+        );
+    }
+
+    @Benchmark
+    public byte[] serializePaymentRequestInfo() {
+        return serializer.serialize(paymentRequestInfo);
+    }
+
+    @Benchmark
+    public PaymentRequestInfo deserializePaymentRequestInfo() {
+        return serializer.deserialize(encoded);
+    }
+}
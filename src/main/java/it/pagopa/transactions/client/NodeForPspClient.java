@@ -7,7 +7,9 @@ import it.pagopa.generated.ecommerce.nodo.v2.dto.ClosePaymentResponseDto;
 import it.pagopa.generated.ecommerce.nodo.v2.dto.ErrorDto;
 import it.pagopa.generated.transactions.model.ActivatePaymentNoticeV2Request;
 import it.pagopa.generated.transactions.model.ActivatePaymentNoticeV2Response;
+import it.pagopa.generated.transactions.model.StOutcome;
 import it.pagopa.transactions.exceptions.BadGatewayException;
+import it.pagopa.transactions.utils.NodoActivationHedger;
 import it.pagopa.transactions.utils.soap.SoapEnvelope;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +35,8 @@ public class NodeForPspClient {
 
     private final String nodoPerPmUri;
 
+    private final NodoActivationHedger nodoActivationHedger;
+
     /**
      * ObjectMapper instance used to decode JSON string http response
      */
@@ -43,16 +47,33 @@ public class NodeForPspClient {
             @Qualifier("nodoWebClient") WebClient nodoWebClient,
             @Value("${nodo.nodeforpsp.uri}") String nodoPerPspUri,
             @Value("${nodo.ecommerce.clientId}") String ecommerceClientId,
-            @Value("${nodo.nodoperpm.uri}") String nodoPerPmUri
+            @Value("${nodo.nodoperpm.uri}") String nodoPerPmUri,
+            NodoActivationHedger nodoActivationHedger
     ) {
         this.nodoWebClient = nodoWebClient;
         this.nodoPerPspUri = nodoPerPspUri;
         this.ecommerceClientId = ecommerceClientId;
         this.nodoPerPmUri = nodoPerPmUri;
+        this.nodoActivationHedger = nodoActivationHedger;
     }
 
     public Mono<ActivatePaymentNoticeV2Response> activatePaymentNoticeV2(
                                                                          JAXBElement<ActivatePaymentNoticeV2Request> request
+    ) {
+        if (!nodoActivationHedger.isEnabled()) {
+            return sendActivatePaymentNoticeV2(request);
+        }
+        // hedged requests are sent with the same idempotency key, so only an OK
+        // response can win the race: KO responses (e.g. activation still in progress
+        // for the primary request) are discarded in favour of the primary one
+        return nodoActivationHedger.hedge(
+                () -> sendActivatePaymentNoticeV2(request),
+                response -> StOutcome.OK.equals(response.getOutcome())
+        );
+    }
+
+    private Mono<ActivatePaymentNoticeV2Response> sendActivatePaymentNoticeV2(
+                                                                              JAXBElement<ActivatePaymentNoticeV2Request> request
     ) {
         log.info(
                 "ActivatePaymentNoticeV2 init for noticeNumber [{}]; idPSP: [{}], IdemPK: [{}]",
@@ -23,7 +23,6 @@ public abstract class TransactionActivateHandlerCommon
     protected final ConfidentialMailUtils confidentialMailUtils;
 
     protected final int transientQueuesTTLSeconds;
-    protected final int nodoParallelRequests;
 
     protected final TracingUtils tracingUtils;
     protected final OpenTelemetryUtils openTelemetryUtils;
@@ -37,7 +36,6 @@ public abstract class TransactionActivateHandlerCommon
             JwtTokenUtils jwtTokenUtils,
             ConfidentialMailUtils confidentialMailUtils,
             int transientQueuesTTLSeconds,
-            int nodoParallelRequests,
             TracingUtils tracingUtils,
             OpenTelemetryUtils openTelemetryUtils,
             SecretKey ecommerceSigningKey,
@@ -48,7 +46,6 @@ public abstract class TransactionActivateHandlerCommon
         this.jwtTokenUtils = jwtTokenUtils;
         this.confidentialMailUtils = confidentialMailUtils;
         this.transientQueuesTTLSeconds = transientQueuesTTLSeconds;
-        this.nodoParallelRequests = nodoParallelRequests;
         this.tracingUtils = tracingUtils;
         this.openTelemetryUtils = openTelemetryUtils;
         this.ecommerceSigningKey = ecommerceSigningKey;
@@ -9,13 +9,13 @@ import it.pagopa.ecommerce.commons.documents.v2.Transaction;
 import it.pagopa.ecommerce.commons.domain.*;
 import it.pagopa.ecommerce.commons.queues.QueueEvent;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
 import it.pagopa.ecommerce.commons.utils.JwtTokenUtils;
 import it.pagopa.ecommerce.commons.utils.OpenTelemetryUtils;
 import it.pagopa.transactions.commands.TransactionActivateCommand;
 import it.pagopa.transactions.commands.data.NewTransactionRequestData;
 import it.pagopa.transactions.commands.handlers.TransactionActivateHandlerCommon;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.utils.ConfidentialMailUtils;
 import it.pagopa.transactions.utils.NodoOperations;
@@ -27,7 +27,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
@@ -35,7 +34,9 @@ import javax.crypto.SecretKey;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -43,7 +44,7 @@ import java.util.Optional;
 public class TransactionActivateHandler extends TransactionActivateHandlerCommon {
 
     public static final String QUALIFIER_NAME = "TransactionActivateHandlerV1";
-    private final PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper;
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper;
 
     private final TransactionsEventStoreRepository<it.pagopa.ecommerce.commons.documents.v1.TransactionActivatedData> transactionEventActivatedStoreRepository;
 
@@ -53,7 +54,7 @@ public class TransactionActivateHandler extends TransactionActivateHandlerCommon
 
     @Autowired
     public TransactionActivateHandler(
-            PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper,
+            PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper,
             TransactionsEventStoreRepository<it.pagopa.ecommerce.commons.documents.v1.TransactionActivatedData> transactionEventActivatedStoreRepository,
             NodoOperations nodoOperations,
             JwtTokenUtils jwtTokenUtils,
@@ -63,7 +64,6 @@ public class TransactionActivateHandler extends TransactionActivateHandlerCommon
             @Value("${payment.token.validity}") Integer paymentTokenTimeout,
             ConfidentialMailUtils confidentialMailUtils,
             @Value("${azurestorage.queues.transientQueues.ttlSeconds}") int transientQueuesTTLSeconds,
-            @Value("${nodo.parallelRequests}") int nodoParallelRequests,
             TracingUtils tracingUtils,
             OpenTelemetryUtils openTelemetryUtils,
             @Qualifier("ecommerceSigningKey") SecretKey ecommerceSigningKey,
@@ -74,13 +74,12 @@ public class TransactionActivateHandler extends TransactionActivateHandlerCommon
                 jwtTokenUtils,
                 confidentialMailUtils,
                 transientQueuesTTLSeconds,
-                nodoParallelRequests,
                 tracingUtils,
                 openTelemetryUtils,
                 ecommerceSigningKey,
                 jwtEcommerceValidityTimeInSeconds
         );
-        this.paymentRequestInfoRedisTemplateWrapper = paymentRequestInfoRedisTemplateWrapper;
+        this.paymentRequestInfoReactiveRedisTemplateWrapper = paymentRequestInfoReactiveRedisTemplateWrapper;
         this.transactionEventActivatedStoreRepository = transactionEventActivatedStoreRepository;
         this.nodoOperations = nodoOperations;
         this.transactionActivatedQueueAsyncClientV1 = transactionActivatedQueueAsyncClientV1;
@@ -95,122 +94,87 @@ public class TransactionActivateHandler extends TransactionActivateHandlerCommon
                 .paymentNoticeList();
         final boolean multiplePaymentNotices = paymentNotices.size() > 1;
         log.info(
-                "Parallel processed Nodo activation requests : [{}]. Multiple payment notices: [{}]. Id cart: [{}]",
-                nodoParallelRequests,
+                "Multiple payment notices: [{}]. Id cart: [{}]",
                 multiplePaymentNotices,
                 Optional.ofNullable(newTransactionRequestDto.idCard()).orElse("id cart not found")
         );
         return Mono.defer(
-                () -> Flux.fromIterable(paymentNotices)
-                        .parallel(nodoParallelRequests)
-                        .runOn(Schedulers.parallel())
+                () -> getPaymentRequestInfosFromCache(paymentNotices)
                         .flatMap(
-                                paymentNotice -> Mono.just(
-                                        Tuples.of(
-                                                paymentNotice,
-                                                getPaymentRequestInfoFromCache(paymentNotice.rptId())
-                                        )
+                                cachedPaymentRequestInfos -> cacheIdempotencyKeyPlaceholders(
+                                        paymentNotices,
+                                        cachedPaymentRequestInfos
                                 )
-                        ).flatMap(
-                                paymentRequest -> {
-                                    final it.pagopa.ecommerce.commons.domain.PaymentNotice paymentNotice = paymentRequest
-                                            .getT1();
-                                    final Optional<PaymentRequestInfo> maybePaymentRequestInfo = paymentRequest
-                                            .getT2();
-                                    final String dueDate = maybePaymentRequestInfo.map(PaymentRequestInfo::dueDate)
-                                            .orElse(null);
-                                    return Mono.just(
-                                            Tuples.of(
-                                                    paymentNotice,
-                                                    maybePaymentRequestInfo
+                        )
+                        .flatMapMany(
+                                paymentRequestInfos -> Flux.fromIterable(paymentNotices)
+                                        // Nodo concurrency is bounded by the NodoConcurrencyLimiter
+                                        .flatMap(
+                                                paymentNotice -> {
+                                                    /* @formatter:off
+                                                     *
+                                                     * There are three possible cases here:
+                                                     *  - Cache hit with payment token => Return the cached value
+                                                     *  - Cache hit without payment token => Activate payment
+                                                     *  - Cache miss => Activate payment
+                                                     *
+                                                     * New activations are cached as soon as they succeed, so that a failure
+                                                     * of another payment notice of the cart does not discard them
+                                                     *
+                                                     * @formatter:on
+                                                     */
+                                                    final RptId rptId = paymentNotice.rptId();
+                                                    final PaymentRequestInfo partialPaymentRequestInfo = paymentRequestInfos
+                                                            .get(rptId.value());
+                                                    final IdempotencyKey idempotencyKey = partialPaymentRequestInfo
+                                                            .idempotencyKey();
+
+                                                    return Optional.of(partialPaymentRequestInfo)
                                                             .filter(
-                                                                    requestInfo -> isValidIdempotencyKey(
-                                                                            requestInfo.idempotencyKey()
+                                                                    requestInfo -> isValidPaymentToken(
+                                                                            requestInfo.paymentToken()
                                                                     )
                                                             )
-                                                            .orElseGet(
-                                                                    () -> {
-                                                                        PaymentRequestInfo paymentRequestWithOnlyIdempotencyKey = new PaymentRequestInfo(
-                                                                                paymentNotice.rptId(),
-                                                                                null,
-                                                                                null,
-                                                                                null,
-                                                                                null,
-                                                                                dueDate,
-                                                                                null,
-                                                                                null,
-                                                                                new IdempotencyKey(
-                                                                                        nodoOperations
-                                                                                                .getEcommerceFiscalCode(),
-                                                                                        nodoOperations
-                                                                                                .generateRandomStringToIdempotencyKey()
-                                                                                ),
-                                                                                new ArrayList<>(TRANSFER_LIST_MAX_SIZE),
-                                                                                null,
-                                                                                null
-                                                                        );
-                                                                        paymentRequestInfoRedisTemplateWrapper
-                                                                                .save(
-                                                                                        paymentRequestWithOnlyIdempotencyKey
-                                                                                );
-                                                                        return paymentRequestWithOnlyIdempotencyKey;
-                                                                    }
-                                                            )
-                                            )
-                                    );
-                                }
-                        ).flatMap(
-                                cacheResult -> {
-                                    /* @formatter:off
-                                     *
-                                     * There are three possible cases here:
-                                     *  - Cache hit with payment token => Return the cached value
-                                     *  - Cache hit without payment token => Activate payment
-                                     *  - Cache miss => Activate payment
-                                     *
-                                     * @formatter:on
-                                     */
-
-                                    final it.pagopa.ecommerce.commons.domain.PaymentNotice paymentNotice = cacheResult
-                                            .getT1();
-                                    final PaymentRequestInfo partialPaymentRequestInfo = cacheResult.getT2();
-                                    final IdempotencyKey idempotencyKey = partialPaymentRequestInfo.idempotencyKey();
-                                    final RptId rptId = paymentNotice.rptId();
-
-                                    return Optional.of(partialPaymentRequestInfo)
-                                            .filter(requestInfo -> isValidPaymentToken(requestInfo.paymentToken()))
-                                            .map(
-                                                    requestInfo -> Mono.just(requestInfo)
-                                                            .doOnSuccess(
-                                                                    this::traceRepeatedActivation
-                                                            )
-                                            )
-                                            .orElseGet(
-                                                    () -> nodoOperations
-                                                            .activatePaymentRequest(
-                                                                    rptId,
-                                                                    idempotencyKey,
-                                                                    paymentNotice.transactionAmount().value(),
-                                                                    transactionId.value(),
-                                                                    paymentTokenTimeout,
-                                                                    newTransactionRequestDto.idCard(),
-                                                                    partialPaymentRequestInfo.dueDate(),
-                                                                    Transaction.ClientId.valueOf(command.getClientId())
-                                                            )
-                                                            .doOnSuccess(
-                                                                    p -> {
-                                                                        log.debug(
-                                                                                "PaymentRequestInfo cache update for rptdId [{}] with paymentToken [{}]",
-                                                                                p.id(),
-                                                                                p.paymentToken()
-                                                                        );
-                                                                        paymentRequestInfoRedisTemplateWrapper.save(p);
-                                                                    }
+                                                            .map(
+                                                                    requestInfo -> Mono
+                                                                            .just(requestInfo)
+                                                                            .doOnSuccess(
+                                                                                    ignored -> traceRepeatedActivation(
+                                                                                            requestInfo
+                                                                                    )
+                                                                            )
                                                             )
-                                            );
-                                }
+                                                            .orElseGet(
+                                                                    () -> nodoOperations
+                                                                            .activatePaymentRequest(
+                                                                                    rptId,
+                                                                                    idempotencyKey,
+                                                                                    paymentNotice.transactionAmount()
+                                                                                            .value(),
+                                                                                    transactionId.value(),
+                                                                                    paymentTokenTimeout,
+                                                                                    newTransactionRequestDto.idCard(),
+                                                                                    partialPaymentRequestInfo.dueDate(),
+                                                                                    Transaction.ClientId.valueOf(
+                                                                                            command.getClientId()
+                                                                                    )
+                                                                            )
+                                                                            .flatMap(
+                                                                                    p -> {
+                                                                                        log.debug(
+                                                                                                "PaymentRequestInfo cache update for rptdId [{}] with paymentToken [{}]",
+                                                                                                p.id(),
+                                                                                                p.paymentToken()
+                                                                                        );
+                                                                                        return paymentRequestInfoReactiveRedisTemplateWrapper
+                                                                                                .save(p)
+                                                                                                .thenReturn(p);
+                                                                                    }
+                                                                            )
+                                                            );
+                                                }
+                                        )
                         )
-                        .sequential()
                         .collectList()
                         .flatMap(
                                 paymentRequestInfos -> jwtTokenUtils
@@ -294,11 +258,69 @@ public class TransactionActivateHandler extends TransactionActivateHandlerCommon
 
     }
 
-    private Optional<PaymentRequestInfo> getPaymentRequestInfoFromCache(RptId rptId) {
-        Optional<PaymentRequestInfo> paymentInfofromCache = paymentRequestInfoRedisTemplateWrapper
-                .findById(rptId.value());
-        log.info("PaymentRequestInfo cache hit for {}: {}", rptId, paymentInfofromCache.isPresent());
-        return paymentInfofromCache;
+    private Mono<Map<String, PaymentRequestInfo>> getPaymentRequestInfosFromCache(
+                                                                                  List<it.pagopa.ecommerce.commons.domain.PaymentNotice> paymentNotices
+    ) {
+        return paymentRequestInfoReactiveRedisTemplateWrapper
+                .findAllById(paymentNotices.stream().map(paymentNotice -> paymentNotice.rptId().value()).toList())
+                .doOnNext(
+                        paymentInfosFromCache -> paymentNotices.forEach(
+                                paymentNotice -> log.info(
+                                        "PaymentRequestInfo cache hit for {}: {}",
+                                        paymentNotice.rptId(),
+                                        paymentInfosFromCache.containsKey(paymentNotice.rptId().value())
+                                )
+                        )
+                );
+    }
+
+    /**
+     * Build a payment request info containing only a new idempotency key for each
+     * payment notice without a valid cached one, caching all of them with a single
+     * batched write
+     *
+     * @param paymentNotices            the payment notices to be activated
+     * @param cachedPaymentRequestInfos the cached payment request infos, by RPT id
+     * @return the payment request infos to be used for activation, by RPT id
+     */
+    private Mono<Map<String, PaymentRequestInfo>> cacheIdempotencyKeyPlaceholders(
+                                                                                  List<it.pagopa.ecommerce.commons.domain.PaymentNotice> paymentNotices,
+                                                                                  Map<String, PaymentRequestInfo> cachedPaymentRequestInfos
+    ) {
+        List<PaymentRequestInfo> paymentRequestsWithOnlyIdempotencyKey = paymentNotices.stream()
+                .filter(
+                        paymentNotice -> Optional
+                                .ofNullable(cachedPaymentRequestInfos.get(paymentNotice.rptId().value()))
+                                .filter(requestInfo -> isValidIdempotencyKey(requestInfo.idempotencyKey()))
+                                .isEmpty()
+                )
+                .map(
+                        paymentNotice -> new PaymentRequestInfo(
+                                paymentNotice.rptId(),
+                                null,
+                                null,
+                                null,
+                                null,
+                                Optional.ofNullable(cachedPaymentRequestInfos.get(paymentNotice.rptId().value()))
+                                        .map(PaymentRequestInfo::dueDate)
+                                        .orElse(null),
+                                null,
+                                null,
+                                new IdempotencyKey(
+                                        nodoOperations.getEcommerceFiscalCode(),
+                                        nodoOperations.generateRandomStringToIdempotencyKey()
+                                ),
+                                new ArrayList<>(TRANSFER_LIST_MAX_SIZE),
+                                null,
+                                null
+                        )
+                )
+                .toList();
+        Map<String, PaymentRequestInfo> paymentRequestInfos = new HashMap<>(cachedPaymentRequestInfos);
+        paymentRequestsWithOnlyIdempotencyKey
+                .forEach(requestInfo -> paymentRequestInfos.put(requestInfo.id().value(), requestInfo));
+        return paymentRequestInfoReactiveRedisTemplateWrapper.saveAll(paymentRequestsWithOnlyIdempotencyKey)
+                .thenReturn(paymentRequestInfos);
     }
 
     private boolean isValidPaymentToken(String paymentToken) {
@@ -17,7 +17,6 @@ import it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction;
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
 import it.pagopa.ecommerce.commons.queues.QueueEvent;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.ExclusiveLockDocumentWrapper;
 import it.pagopa.ecommerce.commons.repositories.ExclusiveLockDocument;
 import it.pagopa.ecommerce.commons.utils.JwtTokenUtils;
 import it.pagopa.ecommerce.commons.utils.OpenTelemetryUtils;
@@ -34,6 +33,7 @@ import it.pagopa.transactions.exceptions.AlreadyProcessedException;
 import it.pagopa.transactions.exceptions.BadGatewayException;
 import it.pagopa.transactions.exceptions.InvalidRequestException;
 import it.pagopa.transactions.exceptions.LockNotAcquiredException;
+import it.pagopa.transactions.repositories.ReactiveExclusiveLockDocumentWrapper;
 import it.pagopa.transactions.repositories.TransactionTemplateWrapper;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.utils.TransactionsUtils;
@@ -72,7 +72,7 @@ public class TransactionRequestAuthorizationHandler extends TransactionRequestAu
 
     private final UpdateTransactionStatusTracerUtils updateTransactionStatusTracerUtils;
 
-    private final ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
+    private final ReactiveExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
 
     @Autowired
     public TransactionRequestAuthorizationHandler(
@@ -95,7 +95,7 @@ public class TransactionRequestAuthorizationHandler extends TransactionRequestAu
             @Qualifier("ecommerceWebViewSigningKey") SecretKey ecommerceWebViewSigningKey,
             @Value("${npg.notification.jwt.validity.time}") int jwtWebviewValidityTimeInSeconds,
             UpdateTransactionStatusTracerUtils updateTransactionStatusTracerUtils,
-            ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper
+            ReactiveExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper
     ) {
         super(
                 paymentGatewayClient,
@@ -123,9 +123,11 @@ public class TransactionRequestAuthorizationHandler extends TransactionRequestAu
     public Mono<RequestAuthorizationResponseDto> handle(TransactionRequestAuthorizationCommand command) {
         AuthorizationRequestData authorizationRequestData = command.getData();
         URI logo = getLogo(command.getData());
-        Mono<BaseTransaction> transaction = transactionsUtils.reduceEventsV2(
+        // the aggregate is shared by the status checks and the gateway pipelines
+        // below, so that the event store is queried only once per request
+        Mono<BaseTransaction> transaction = transactionsUtils.aggregateLoader(
                 command.getData().transactionId()
-        );
+        ).transactionV2();
         Mono<? extends BaseTransaction> alreadyProcessedError = transaction
                 .cast(BaseTransaction.class)
                 .doOnNext(
@@ -193,7 +195,7 @@ public class TransactionRequestAuthorizationHandler extends TransactionRequestAu
                     ).thenReturn(t);
                     default -> Mono.just(t);
                 })
-                .map(t -> {
+                .flatMap(t -> {
                     TransactionId transactionId = t.getTransactionId();
                     ExclusiveLockDocument lockDocument = new ExclusiveLockDocument(
                             "POST-auth-request-%s".formatted(transactionId.value()),
@@ -205,20 +207,21 @@ public class TransactionRequestAuthorizationHandler extends TransactionRequestAu
                     // the payment token validity time in order to make this API call performable
                     // only once per transaction (further attempts will find the transaction in an
                     // expired status and return an error)
-                    boolean lockAcquired = exclusiveLockDocumentWrapper.saveIfAbsent(
+                    return exclusiveLockDocumentWrapper.saveIfAbsent(
                             lockDocument,
                             Duration.ofSeconds(t.getTransactionActivatedData().getPaymentTokenValiditySeconds())
-                    );
-                    log.info(
-                            "requestTransactionAuthorization lock acquired for transactionId: [{}] with key: [{}]: [{}]",
-                            transactionId,
-                            lockDocument.id(),
-                            lockAcquired
-                    );
-                    if (!lockAcquired) {
-                        throw new LockNotAcquiredException(transactionId, lockDocument);
-                    }
-                    return t;
+                    ).flatMap(lockAcquired -> {
+                        log.info(
+                                "requestTransactionAuthorization lock acquired for transactionId: [{}] with key: [{}]: [{}]",
+                                transactionId,
+                                lockDocument.id(),
+                                lockAcquired
+                        );
+                        if (!lockAcquired) {
+                            return Mono.error(new LockNotAcquiredException(transactionId, lockDocument));
+                        }
+                        return Mono.just(t);
+                    });
                 })
                 .flatMap(
                         t -> gatewayAttempts.switchIfEmpty(Mono.error(new InvalidRequestException("No gateway matched")))
@@ -8,6 +8,7 @@ import it.pagopa.ecommerce.commons.queues.QueueEvent;
 import it.pagopa.ecommerce.commons.queues.StrictJsonSerializerProvider;
 import it.pagopa.ecommerce.commons.queues.mixin.serialization.v1.QueueEventMixInEventCodeFieldDiscriminator;
 import it.pagopa.ecommerce.commons.queues.mixin.serialization.v2.QueueEventMixInClassFieldDiscriminator;
+import it.pagopa.transactions.utils.QueueOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -45,9 +46,16 @@ public class AzureStorageConfig {
                                                                    @Value(
                                                                        "${azurestorage.queues.transactionexpiration.name}"
                                                                    ) String queueName,
-                                                                   JsonSerializer jsonSerializerV1
+                                                                   JsonSerializer jsonSerializerV1,
+                                                                   QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV1);
+        return buildQueueAsyncClient(
+                "transactionActivatedQueueAsyncClientV1",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV1,
+                queueOutbox
+        );
     }
 
     @Bean("transactionActivatedQueueAsyncClientV2")
@@ -60,9 +68,16 @@ public class AzureStorageConfig {
                                                                    @Value(
                                                                        "${azurestorage.queues.transactionexpiration.name}"
                                                                    ) String queueName,
-                                                                   JsonSerializer jsonSerializerV2
+                                                                   JsonSerializer jsonSerializerV2,
+                                                                   QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV2);
+        return buildQueueAsyncClient(
+                "transactionActivatedQueueAsyncClientV2",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV2,
+                queueOutbox
+        );
     }
 
     @Bean("transactionRefundQueueAsyncClientV1")
@@ -74,9 +89,16 @@ public class AzureStorageConfig {
                                                                 @Value(
                                                                     "${azurestorage.queues.transactionrefund.name}"
                                                                 ) String queueName,
-                                                                JsonSerializer jsonSerializerV1
+                                                                JsonSerializer jsonSerializerV1,
+                                                                QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV1);
+        return buildQueueAsyncClient(
+                "transactionRefundQueueAsyncClientV1",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV1,
+                queueOutbox
+        );
     }
 
     @Bean("transactionClosureRetryQueueAsyncClientV1")
@@ -87,9 +109,16 @@ public class AzureStorageConfig {
                                                                       @Value(
                                                                           "${azurestorage.queues.transactionclosepaymentretry.name}"
                                                                       ) String queueName,
-                                                                      JsonSerializer jsonSerializerV1
+                                                                      JsonSerializer jsonSerializerV1,
+                                                                      QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV1);
+        return buildQueueAsyncClient(
+                "transactionClosureRetryQueueAsyncClientV1",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV1,
+                queueOutbox
+        );
     }
 
     @Bean("transactionClosureRetryQueueAsyncClientV2")
@@ -100,9 +129,16 @@ public class AzureStorageConfig {
                                                                       @Value(
                                                                           "${azurestorage.queues.transactionclosepaymentretry.name}"
                                                                       ) String queueName,
-                                                                      JsonSerializer jsonSerializerV2
+                                                                      JsonSerializer jsonSerializerV2,
+                                                                      QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV2);
+        return buildQueueAsyncClient(
+                "transactionClosureRetryQueueAsyncClientV2",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV2,
+                queueOutbox
+        );
     }
 
     @Bean("transactionClosureQueueAsyncClientV1")
@@ -113,9 +149,16 @@ public class AzureStorageConfig {
                                                                  @Value(
                                                                      "${azurestorage.queues.transactionclosepayment.name}"
                                                                  ) String queueName,
-                                                                 JsonSerializer jsonSerializerV1
+                                                                 JsonSerializer jsonSerializerV1,
+                                                                 QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV1);
+        return buildQueueAsyncClient(
+                "transactionClosureQueueAsyncClientV1",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV1,
+                queueOutbox
+        );
     }
 
     @Bean("transactionClosureQueueAsyncClientV2")
@@ -126,9 +169,16 @@ public class AzureStorageConfig {
                                                                  @Value(
                                                                      "${azurestorage.queues.transactionclosepayment.name}"
                                                                  ) String queueName,
-                                                                 JsonSerializer jsonSerializerV2
+                                                                 JsonSerializer jsonSerializerV2,
+                                                                 QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV2);
+        return buildQueueAsyncClient(
+                "transactionClosureQueueAsyncClientV2",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV2,
+                queueOutbox
+        );
     }
 
     @Bean("transactionNotificationRequestedQueueAsyncClientV1")
@@ -139,9 +189,16 @@ public class AzureStorageConfig {
                                                                                @Value(
                                                                                    "${azurestorage.queues.transactionnotificationrequested.name}"
                                                                                ) String queueName,
-                                                                               JsonSerializer jsonSerializerV1
+                                                                               JsonSerializer jsonSerializerV1,
+                                                                               QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV1);
+        return buildQueueAsyncClient(
+                "transactionNotificationRequestedQueueAsyncClientV1",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV1,
+                queueOutbox
+        );
     }
 
     @Bean("transactionNotificationRequestedQueueAsyncClientV2")
@@ -152,9 +209,16 @@ public class AzureStorageConfig {
                                                                                @Value(
                                                                                    "${azurestorage.queues.transactionnotificationrequested.name}"
                                                                                ) String queueName,
-                                                                               JsonSerializer jsonSerializerV2
+                                                                               JsonSerializer jsonSerializerV2,
+                                                                               QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV2);
+        return buildQueueAsyncClient(
+                "transactionNotificationRequestedQueueAsyncClientV2",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV2,
+                queueOutbox
+        );
     }
 
     @Bean("transactionAuthorizationRequestedQueueAsyncClientV2")
@@ -165,15 +229,24 @@ public class AzureStorageConfig {
                                                                                 @Value(
                                                                                     "${azurestorage.queues.transactionauthorizationrequested.name}"
                                                                                 ) String queueName,
-                                                                                JsonSerializer jsonSerializerV2
+                                                                                JsonSerializer jsonSerializerV2,
+                                                                                QueueOutbox queueOutbox
     ) {
-        return buildQueueAsyncClient(storageConnectionString, queueName, jsonSerializerV2);
+        return buildQueueAsyncClient(
+                "transactionAuthorizationRequestedQueueAsyncClientV2",
+                storageConnectionString,
+                queueName,
+                jsonSerializerV2,
+                queueOutbox
+        );
     }
 
     private QueueAsyncClient buildQueueAsyncClient(
+                                                   String queueClientName,
                                                    String storageConnectionString,
                                                    String queueName,
-                                                   JsonSerializer jsonSerializer
+                                                   JsonSerializer jsonSerializer,
+                                                   QueueOutbox queueOutbox
     ) {
         com.azure.storage.queue.QueueAsyncClient queueAsyncClient = new QueueClientBuilder()
                 .connectionString(storageConnectionString)
@@ -186,6 +259,6 @@ public class AzureStorageConfig {
                 .buildAsyncClient();
         queueAsyncClient.createIfNotExists().block();
 
-        return new QueueAsyncClient(queueAsyncClient, jsonSerializer);
+        return queueOutbox.queueAsyncClient(queueClientName, queueAsyncClient, jsonSerializer);
     }
 }
@@ -2,6 +2,7 @@ package it.pagopa.transactions.configurations;
 
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.trace.Tracer;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
 import it.pagopa.ecommerce.commons.utils.OpenTelemetryUtils;
@@ -21,6 +22,11 @@ public class OpenTelemetryConfiguration {
         return openTelemetry.getTracer("pagopa-ecommerce-transactions-service");
     }
 
+    @Bean
+    public Meter openTelemetryMeter(OpenTelemetry openTelemetry) {
+        return openTelemetry.getMeter("pagopa-ecommerce-transactions-service");
+    }
+
     @Bean
     public TracingUtils tracingUtils(
                                      OpenTelemetry openTelemetry,
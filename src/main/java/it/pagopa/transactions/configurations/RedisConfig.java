@@ -1,17 +1,27 @@
 package it.pagopa.transactions.configurations;
 
+import io.opentelemetry.api.metrics.Meter;
 import it.pagopa.ecommerce.commons.redis.templatewrappers.ExclusiveLockDocumentWrapper;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.RedisTemplateWrapperBuilder;
 import it.pagopa.ecommerce.commons.repositories.ExclusiveLockDocument;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import it.pagopa.transactions.repositories.NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.ReactiveExclusiveLockDocumentWrapper;
 import it.pagopa.transactions.repositories.TransactionCacheInfo;
 import it.pagopa.transactions.repositories.TransactionTemplateWrapper;
+import it.pagopa.transactions.repositories.TransactionViewVersion;
+import it.pagopa.transactions.repositories.TransactionViewVersionTemplateWrapper;
+import it.pagopa.transactions.utils.redis.RedisSerializationFormat;
+import it.pagopa.transactions.utils.redis.VersionedRedisSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -20,44 +30,97 @@ import java.time.Duration;
 public class RedisConfig {
 
     @Bean
-    public PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoWrapper(
-                                                                            RedisConnectionFactory redisConnectionFactory,
-                                                                            @Value(
-                                                                                "${payment.token.validity}"
-                                                                            ) Integer paymentTokenTimeout
+    public PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveWrapper(
+                                                                                            ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                                            @Value(
+                                                                                                "${payment.token.validity}"
+                                                                                            ) Integer paymentTokenTimeout,
+                                                                                            @Value(
+                                                                                                "${paymentRequestInfo.nearCache.enabled}"
+                                                                                            ) boolean nearCacheEnabled,
+                                                                                            @Value(
+                                                                                                "${paymentRequestInfo.nearCache.maxSize}"
+                                                                                            ) long nearCacheMaxSize,
+                                                                                            @Value(
+                                                                                                "${paymentRequestInfo.nearCache.maxTtlSeconds}"
+                                                                                            ) long nearCacheMaxTtlSeconds,
+                                                                                            Meter openTelemetryMeter
     ) {
         // PaymentRequestInfo entities will have the same TTL as paymentTokenTimeout
-        // value
-        return RedisTemplateWrapperBuilder.buildPaymentRequestInfoRedisTemplateWrapper(
-                redisConnectionFactory,
-                Duration.ofSeconds(paymentTokenTimeout)
+        // value. Keyspace is the one used by the commons
+        // PaymentRequestInfoRedisTemplateWrapper: documents are shared with other
+        // services, so they are always written as plain JSON
+        ReactiveRedisTemplate<String, PaymentRequestInfo> reactiveRedisTemplate = buildReactiveRedisTemplate(
+                reactiveRedisConnectionFactory,
+                PaymentRequestInfo.class,
+                RedisSerializationFormat.JSON
         );
+        if (!nearCacheEnabled) {
+            return new PaymentRequestInfoReactiveRedisTemplateWrapper(
+                    reactiveRedisTemplate,
+                    "keys",
+                    Duration.ofSeconds(paymentTokenTimeout)
+            );
+        }
+        NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper nearCachedWrapper = new NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper(
+                reactiveRedisTemplate,
+                new ReactiveStringRedisTemplate(reactiveRedisConnectionFactory),
+                "keys",
+                Duration.ofSeconds(paymentTokenTimeout),
+                nearCacheMaxSize,
+                Duration.ofSeconds(nearCacheMaxTtlSeconds),
+                openTelemetryMeter
+        );
+        nearCachedWrapper.subscribeToInvalidations();
+        return nearCachedWrapper;
     }
 
     @Bean
     public TransactionTemplateWrapper transactionTemplateWrapper(
-                                                                 RedisConnectionFactory redisConnectionFactory,
+                                                                 ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
                                                                  @Value(
                                                                      "${transactionDocument.ttl}"
-                                                                 ) int transactionDocumentTtl
+                                                                 ) int transactionDocumentTtl,
+                                                                 @Value(
+                                                                     "${redis.serialization.transactionFormat}"
+                                                                 ) RedisSerializationFormat serializationFormat
     ) {
-        RedisTemplate<String, TransactionCacheInfo> redisTemplate = new RedisTemplate<>();
-        Jackson2JsonRedisSerializer<TransactionCacheInfo> jacksonRedisSerializer = new Jackson2JsonRedisSerializer<>(
-                TransactionCacheInfo.class
-        );
-
-        redisTemplate.setConnectionFactory(redisConnectionFactory);
-        redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(jacksonRedisSerializer);
-        redisTemplate.afterPropertiesSet();
-
+        // transaction documents are private to this service, so they can be written
+        // in a binary format
         return new TransactionTemplateWrapper(
-                redisTemplate,
+                buildReactiveRedisTemplate(
+                        reactiveRedisConnectionFactory,
+                        TransactionCacheInfo.class,
+                        serializationFormat
+                ),
                 "transaction",
                 Duration.ofSeconds(transactionDocumentTtl)
         );
     }
 
+    @Bean
+    public TransactionViewVersionTemplateWrapper transactionViewVersionTemplateWrapper(
+                                                                                       ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                                       @Value(
+                                                                                           "${transactionViewCache.writeThroughTtlSeconds}"
+                                                                                       ) long writeThroughTtlSeconds,
+                                                                                       @Value(
+                                                                                           "${redis.serialization.transactionFormat}"
+                                                                                       ) RedisSerializationFormat serializationFormat
+    ) {
+        // view versions share the keyspace (and then the format) of the transaction
+        // documents
+        return new TransactionViewVersionTemplateWrapper(
+                buildReactiveRedisTemplate(
+                        reactiveRedisConnectionFactory,
+                        TransactionViewVersion.class,
+                        serializationFormat
+                ),
+                "transaction",
+                Duration.ofSeconds(writeThroughTtlSeconds)
+        );
+    }
+
     @Bean
     public ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper(
                                                                      RedisConnectionFactory redisConnectionFactory,
@@ -66,13 +129,14 @@ public class RedisConfig {
                                                                      ) int exclusiveLockTtlSeconds
     ) {
         RedisTemplate<String, ExclusiveLockDocument> redisTemplate = new RedisTemplate<>();
-        Jackson2JsonRedisSerializer<ExclusiveLockDocument> jacksonRedisSerializer = new Jackson2JsonRedisSerializer<>(
-                ExclusiveLockDocument.class
-        );
 
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(jacksonRedisSerializer);
+        // locks are shared with other services, so they are always written as plain
+        // JSON
+        redisTemplate.setValueSerializer(
+                new VersionedRedisSerializer<>(ExclusiveLockDocument.class, RedisSerializationFormat.JSON)
+        );
         redisTemplate.afterPropertiesSet();
 
         return new ExclusiveLockDocumentWrapper(
@@ -82,4 +146,38 @@ public class RedisConfig {
         );
     }
 
+    @Bean
+    public ReactiveExclusiveLockDocumentWrapper reactiveExclusiveLockDocumentWrapper(
+                                                                                     ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                                     @Value(
+                                                                                         "${exclusiveLockDocument.ttlSeconds}"
+                                                                                     ) int exclusiveLockTtlSeconds,
+                                                                                     Meter openTelemetryMeter
+    ) {
+        // same keyspace and format as the blocking ExclusiveLockDocumentWrapper, so
+        // that locks are shared between the two wrappers
+        return new ReactiveExclusiveLockDocumentWrapper(
+                buildReactiveRedisTemplate(
+                        reactiveRedisConnectionFactory,
+                        ExclusiveLockDocument.class,
+                        RedisSerializationFormat.JSON
+                ),
+                "exclusiveLocks",
+                Duration.ofSeconds(exclusiveLockTtlSeconds),
+                openTelemetryMeter
+        );
+    }
+
+    private static <T> ReactiveRedisTemplate<String, T> buildReactiveRedisTemplate(
+                                                                                   ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                                   Class<T> valueClass,
+                                                                                   RedisSerializationFormat serializationFormat
+    ) {
+        RedisSerializationContext<String, T> serializationContext = RedisSerializationContext
+                .<String, T>newSerializationContext(new StringRedisSerializer())
+                .value(new VersionedRedisSerializer<>(valueClass, serializationFormat))
+                .build();
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
+    }
+
 }
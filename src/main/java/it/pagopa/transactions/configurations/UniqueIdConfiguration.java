@@ -1,13 +1,19 @@
 package it.pagopa.transactions.configurations;
 
+import io.opentelemetry.api.metrics.Meter;
 import it.pagopa.ecommerce.commons.redis.templatewrappers.UniqueIdTemplateWrapper;
 import it.pagopa.ecommerce.commons.repositories.UniqueIdDocument;
 import it.pagopa.ecommerce.commons.utils.UniqueIdUtils;
+import it.pagopa.transactions.utils.BlockAllocatedUniqueIdUtils;
+import it.pagopa.transactions.utils.redis.RedisSerializationFormat;
+import it.pagopa.transactions.utils.redis.VersionedRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -20,13 +26,15 @@ public class UniqueIdConfiguration {
                                                            RedisConnectionFactory redisConnectionFactory
     ) {
         RedisTemplate<String, UniqueIdDocument> redisTemplate = new RedisTemplate<>();
-        Jackson2JsonRedisSerializer<UniqueIdDocument> jacksonRedisSerializer = new Jackson2JsonRedisSerializer<>(
-                UniqueIdDocument.class
-        );
 
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(jacksonRedisSerializer);
+        // unique ids are shared with other services, so they are always written as
+        // plain JSON
+        redisTemplate
+                .setValueSerializer(
+                        new VersionedRedisSerializer<>(UniqueIdDocument.class, RedisSerializationFormat.JSON)
+                );
         redisTemplate.afterPropertiesSet();
 
         return new UniqueIdTemplateWrapper(
@@ -37,7 +45,25 @@ public class UniqueIdConfiguration {
     }
 
     @Bean
-    public UniqueIdUtils uniqueIdUtils(UniqueIdTemplateWrapper uniqueIdTemplateWrapper) {
-        return new UniqueIdUtils(uniqueIdTemplateWrapper);
+    public UniqueIdUtils uniqueIdUtils(
+                                       UniqueIdTemplateWrapper uniqueIdTemplateWrapper,
+                                       ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                       @Value(
+                                           "${uniqueId.blockAllocation.enabled}"
+                                       ) boolean blockAllocationEnabled,
+                                       @Value(
+                                           "${uniqueId.blockAllocation.blockSize}"
+                                       ) long blockSize,
+                                       Meter openTelemetryMeter
+    ) {
+        if (!blockAllocationEnabled) {
+            return new UniqueIdUtils(uniqueIdTemplateWrapper);
+        }
+        return new BlockAllocatedUniqueIdUtils(
+                uniqueIdTemplateWrapper,
+                new ReactiveStringRedisTemplate(reactiveRedisConnectionFactory),
+                blockSize,
+                openTelemetryMeter
+        );
     }
 }
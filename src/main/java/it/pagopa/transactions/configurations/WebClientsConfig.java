@@ -6,11 +6,13 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.opentelemetry.api.metrics.Meter;
 import it.pagopa.ecommerce.commons.client.NodeForwarderClient;
 import it.pagopa.generated.ecommerce.redirect.v1.dto.RedirectUrlRequestDto;
 import it.pagopa.generated.ecommerce.redirect.v1.dto.RedirectUrlResponseDto;
 import it.pagopa.transactions.utils.soap.Jaxb2SoapDecoder;
 import it.pagopa.transactions.utils.soap.Jaxb2SoapEncoder;
+import it.pagopa.transactions.utils.soap.JaxbContextContainer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,11 +30,20 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class WebClientsConfig {
 
+    @Bean
+    public JaxbContextContainer nodoJaxbContextContainer(
+                                                         @Value("${nodo.jaxb.poolSize}") int jaxbPoolSize,
+                                                         Meter openTelemetryMeter
+    ) {
+        return new JaxbContextContainer(jaxbPoolSize, openTelemetryMeter);
+    }
+
     @Bean(name = "nodoWebClient")
     public WebClient nodoWebClient(
                                    @Value("${nodo.hostname}") String nodoHostname,
                                    @Value("${nodo.readTimeout}") int nodoReadTimeout,
-                                   @Value("${nodo.connectionTimeout}") int nodoConnectionTimeout
+                                   @Value("${nodo.connectionTimeout}") int nodoConnectionTimeout,
+                                   JaxbContextContainer nodoJaxbContextContainer
     ) {
 
         HttpClient httpClient = HttpClient.create().option(ChannelOption.CONNECT_TIMEOUT_MILLIS, nodoConnectionTimeout)
@@ -47,8 +58,8 @@ public class WebClientsConfig {
             ObjectMapper mapper = getNodeObjectMapper();
             clientCodecConfigurer.registerDefaults(false);
             clientCodecConfigurer.customCodecs().register(StringDecoder.allMimeTypes());
-            clientCodecConfigurer.customCodecs().register(new Jaxb2SoapDecoder());
-            clientCodecConfigurer.customCodecs().register(new Jaxb2SoapEncoder());
+            clientCodecConfigurer.customCodecs().register(new Jaxb2SoapDecoder(nodoJaxbContextContainer));
+            clientCodecConfigurer.customCodecs().register(new Jaxb2SoapEncoder(nodoJaxbContextContainer));
             clientCodecConfigurer.customCodecs().register(new Jackson2JsonDecoder(mapper, MediaType.APPLICATION_JSON));
             clientCodecConfigurer.customCodecs().register(new Jackson2JsonEncoder(mapper, MediaType.APPLICATION_JSON));
         }).build();
@@ -15,6 +15,9 @@ import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.mdcutilities.TransactionTracingUtils;
 import it.pagopa.transactions.services.v1.TransactionsService;
 import it.pagopa.transactions.utils.SpanLabelOpenTelemetry;
+import it.pagopa.transactions.utils.TransactionInfoETags;
+import it.pagopa.transactions.utils.TransactionInfoResponseCache;
+import it.pagopa.transactions.utils.TransactionStatusChanges;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import it.pagopa.transactions.utils.UUIDUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +33,7 @@ import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.ConstraintViolationException;
@@ -58,6 +62,15 @@ public class TransactionsController implements TransactionsApi {
     @Autowired
     private OpenTelemetryUtils openTelemetryUtils;
 
+    @Autowired
+    private TransactionInfoResponseCache transactionInfoResponseCache;
+
+    @Autowired
+    private TransactionInfoETags transactionInfoETags;
+
+    @Autowired
+    private TransactionStatusChanges transactionStatusChanges;
+
     @Autowired
     private ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
 
@@ -114,8 +127,97 @@ public class TransactionsController implements TransactionsApi {
                                                                        UUID xUserId,
                                                                        ServerWebExchange exchange
     ) {
-        return transactionsService.getTransactionInfo(transactionId, xUserId)
-                .doOnNext(t -> log.info("GetTransactionInfo for transactionId completed: [{}]", transactionId))
+        return transactionInfoETags.conditionalGet(
+                exchange,
+                () -> transactionsService.getTransactionETag(transactionId, xUserId),
+                () -> transactionsService.getTransactionInfo(transactionId, xUserId)
+                        .doOnNext(t -> log.info("GetTransactionInfo for transactionId completed: [{}]", transactionId))
+        )
+                .doOnNext(
+                        response -> {
+                            // not modified responses carry no body
+                            if (response.getBody() != null) {
+                                transactionInfoResponseCache.putIfFinal(
+                                        exchange.getRequest(),
+                                        xUserId,
+                                        response.getBody().getStatus(),
+                                        response.getBody(),
+                                        response.getHeaders().getETag()
+                                );
+                            }
+                        }
+                )
+                .contextWrite(
+                        context -> TransactionTracingUtils.setTransactionInfoIntoReactorContext(
+                                new TransactionTracingUtils.TransactionInfo(
+                                        new TransactionId(transactionId),
+                                        new HashSet<>(),
+                                        exchange.getRequest().getMethodValue(),
+                                        exchange.getRequest().getURI().getPath()
+                                ),
+                                context
+                        )
+                );
+    }
+
+    @Override
+    public Mono<ResponseEntity<TransactionStatusInfoDto>> getTransactionStatus(
+                                                                               String transactionId,
+                                                                               UUID xUserId,
+                                                                               ServerWebExchange exchange
+    ) {
+        return transactionInfoETags.conditionalGet(
+                exchange,
+                () -> transactionsService.getTransactionETag(transactionId, xUserId),
+                () -> transactionsService.getTransactionStatus(transactionId, xUserId)
+                        .doOnNext(
+                                t -> log.info("GetTransactionStatus for transactionId completed: [{}]", transactionId)
+                        )
+        )
+                .doOnNext(
+                        response -> {
+                            // not modified responses carry no body
+                            if (response.getBody() != null) {
+                                transactionInfoResponseCache.putIfFinal(
+                                        exchange.getRequest(),
+                                        xUserId,
+                                        response.getBody().getStatus(),
+                                        response.getBody(),
+                                        response.getHeaders().getETag()
+                                );
+                            }
+                        }
+                )
+                .contextWrite(
+                        context -> TransactionTracingUtils.setTransactionInfoIntoReactorContext(
+                                new TransactionTracingUtils.TransactionInfo(
+                                        new TransactionId(transactionId),
+                                        new HashSet<>(),
+                                        exchange.getRequest().getMethodValue(),
+                                        exchange.getRequest().getURI().getPath()
+                                ),
+                                context
+                        )
+                );
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<TransactionStatusInfoDto>>> getTransactionStatusEvents(
+                                                                                           String transactionId,
+                                                                                           UUID xUserId,
+                                                                                           ServerWebExchange exchange
+    ) {
+        return transactionStatusChanges.checkCapacity()
+                .then(transactionsService.getTransactionStatus(transactionId, xUserId))
+                .doOnNext(t -> log.info("GetTransactionStatusEvents for transactionId started: [{}]", transactionId))
+                .map(
+                        currentStatus -> transactionStatusChanges.stream(
+                                transactionId,
+                                currentStatus,
+                                () -> transactionsService.getTransactionStatus(transactionId, xUserId),
+                                TransactionStatusInfoDto::getStatus
+                        )
+                )
                 .map(ResponseEntity::ok)
                 .contextWrite(
                         context -> TransactionTracingUtils.setTransactionInfoIntoReactorContext(
@@ -416,6 +518,18 @@ public class TransactionsController implements TransactionsApi {
         );
     }
 
+    @ExceptionHandler(TooManySubscriptionsException.class)
+    ResponseEntity<ProblemJsonDto> tooManySubscriptionsHandler(TooManySubscriptionsException exception) {
+        log.warn(exception.getMessage());
+        return new ResponseEntity<>(
+                new ProblemJsonDto()
+                        .status(503)
+                        .title("Service unavailable")
+                        .detail("Too many transaction status subscriptions, poll the transaction status instead"),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     @ExceptionHandler(GatewayTimeoutException.class)
     ResponseEntity<ProblemJsonDto> gatewayTimeoutHandler(GatewayTimeoutException exception) {
         return new ResponseEntity<>(
@@ -12,6 +12,8 @@ import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.mdcutilities.TransactionTracingUtils;
 import it.pagopa.transactions.services.v2.TransactionsService;
 import it.pagopa.transactions.utils.SpanLabelOpenTelemetry;
+import it.pagopa.transactions.utils.TransactionInfoETags;
+import it.pagopa.transactions.utils.TransactionInfoResponseCache;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +51,12 @@ public class TransactionsController implements V2Api {
     @Autowired
     private OpenTelemetryUtils openTelemetryUtils;
 
+    @Autowired
+    private TransactionInfoResponseCache transactionInfoResponseCache;
+
+    @Autowired
+    private TransactionInfoETags transactionInfoETags;
+
     @ExceptionHandler(
         {
                 CallNotPermittedException.class
@@ -79,9 +87,26 @@ public class TransactionsController implements V2Api {
                                                                                                                         UUID xUserId,
                                                                                                                         ServerWebExchange exchange
     ) {
-        return transactionsService.getTransactionInfo(transactionId, xUserId)
-                .doOnNext(t -> log.info("GetTransactionInfo for transactionId completed: [{}]", transactionId))
-                .map(ResponseEntity::ok)
+        return transactionInfoETags.conditionalGet(
+                exchange,
+                () -> transactionsService.getTransactionETag(transactionId, xUserId),
+                () -> transactionsService.getTransactionInfo(transactionId, xUserId)
+                        .doOnNext(t -> log.info("GetTransactionInfo for transactionId completed: [{}]", transactionId))
+        )
+                .doOnNext(
+                        response -> {
+                            // not modified responses carry no body
+                            if (response.getBody() != null) {
+                                transactionInfoResponseCache.putIfFinal(
+                                        exchange.getRequest(),
+                                        xUserId,
+                                        response.getBody().getStatus(),
+                                        response.getBody(),
+                                        response.getHeaders().getETag()
+                                );
+                            }
+                        }
+                )
                 .contextWrite(
                         context -> TransactionTracingUtils.setTransactionInfoIntoReactorContext(
                                 new TransactionTracingUtils.TransactionInfo(
@@ -0,0 +1,15 @@
+package it.pagopa.transactions.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class TooManySubscriptionsException extends RuntimeException {
+
+    private final int maxSubscriptions;
+
+    public TooManySubscriptionsException(int maxSubscriptions) {
+        super("Transaction status subscriptions limit reached: [%s]".formatted(maxSubscriptions));
+        this.maxSubscriptions = maxSubscriptions;
+    }
+
+}
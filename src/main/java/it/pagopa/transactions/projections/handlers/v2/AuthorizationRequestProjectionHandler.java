@@ -3,8 +3,8 @@ package it.pagopa.transactions.projections.handlers.v2;
 import it.pagopa.ecommerce.commons.documents.v2.Transaction;
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
 import it.pagopa.transactions.commands.data.AuthorizationRequestData;
-import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.projections.handlers.ProjectionHandler;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,20 +25,15 @@ public class AuthorizationRequestProjectionHandler
 
     @Override
     public Mono<Transaction> handle(AuthorizationRequestData data) {
-        return transactionsViewRepository.findById(data.transactionId().value())
-                .cast(Transaction.class)
-                .switchIfEmpty(
-                        Mono.error(
-                                new TransactionNotFoundException(
-                                        data.transactionId().value()
-                                )
+        return transactionsViewRepository.updateFields(
+                TransactionViewUpdate.forTransaction(data.transactionId().value())
+                        .status(TransactionStatusDto.AUTHORIZATION_REQUESTED)
+                        .set("paymentGateway", data.paymentGatewayId())
+                        .onlyFromStatuses(
+                                TransactionStatusDto.ACTIVATED,
+                                TransactionStatusDto.AUTHORIZATION_REQUESTED
                         )
-                )
-                .flatMap(transactionDocument -> {
-                    transactionDocument.setStatus(TransactionStatusDto.AUTHORIZATION_REQUESTED);
-                    transactionDocument.setPaymentGateway(data.paymentGatewayId());
-
-                    return transactionsViewRepository.save(transactionDocument);
-                });
+        )
+                .cast(Transaction.class);
     }
 }
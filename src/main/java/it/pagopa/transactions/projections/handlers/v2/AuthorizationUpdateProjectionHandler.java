@@ -9,8 +9,8 @@ import it.pagopa.ecommerce.commons.documents.v2.authorization.RedirectTransactio
 import it.pagopa.ecommerce.commons.domain.*;
 import it.pagopa.ecommerce.commons.domain.v2.TransactionActivated;
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
-import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.projections.handlers.ProjectionHandler;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,32 +46,32 @@ public class AuthorizationUpdateProjectionHandler
 
     @Override
     public Mono<TransactionActivated> handle(TransactionAuthorizationCompletedEvent data) {
-        return transactionsViewRepository.findById(data.getTransactionId())
-                .switchIfEmpty(
-                        Mono.error(new TransactionNotFoundException(data.getTransactionId()))
-                )
+        return Mono.defer(() -> {
+            Tuple2<String, Optional<String>> gatewayStatusAndErrorCode = switch (data.getData().getTransactionGatewayAuthorizationData()) {
+                case NpgTransactionGatewayAuthorizationData npgData -> Tuples.of(
+                        npgData.getOperationResult().toString(),
+                        Optional.ofNullable(npgData.getErrorCode())
+                );
+                case RedirectTransactionGatewayAuthorizationData redirectData -> Tuples.of(
+                        redirectData.getOutcome().toString(),
+                        Optional.ofNullable(redirectData.getErrorCode())
+                );
+                case PgsTransactionGatewayAuthorizationData pgsData -> throw new IllegalArgumentException("Pgs authorization complete data not handled!");
+            };
+            return transactionsViewRepository.updateFields(
+                    TransactionViewUpdate.forTransaction(data.getTransactionId())
+                            .status(TransactionStatusDto.AUTHORIZATION_COMPLETED)
+                            .set("rrn", data.getData().getRrn())
+                            .set("authorizationCode", data.getData().getAuthorizationCode())
+                            .set("authorizationErrorCode", gatewayStatusAndErrorCode.getT2().orElse(null))
+                            .set("gatewayAuthorizationStatus", gatewayStatusAndErrorCode.getT1())
+                            .onlyFromStatuses(
+                                    TransactionStatusDto.AUTHORIZATION_REQUESTED,
+                                    TransactionStatusDto.AUTHORIZATION_COMPLETED
+                            )
+            );
+        })
                 .cast(Transaction.class)
-                .flatMap(transactionDocument -> {
-                    transactionDocument.setRrn(data.getData().getRrn());
-                    transactionDocument.setStatus(TransactionStatusDto.AUTHORIZATION_COMPLETED);
-                    transactionDocument.setAuthorizationCode(data.getData().getAuthorizationCode());
-
-                    Tuple2<String, Optional<String>> gatewayStatusAndErrorCode = switch (data.getData().getTransactionGatewayAuthorizationData()) {
-                        case NpgTransactionGatewayAuthorizationData npgData -> Tuples.of(
-                                npgData.getOperationResult().toString(),
-                                Optional.ofNullable(npgData.getErrorCode())
-                        );
-                        case RedirectTransactionGatewayAuthorizationData redirectData -> Tuples.of(
-                                redirectData.getOutcome().toString(),
-                                Optional.ofNullable(redirectData.getErrorCode())
-                        );
-                        case PgsTransactionGatewayAuthorizationData pgsData -> throw new IllegalArgumentException("Pgs authorization complete data not handled!");
-                    };
-                    transactionDocument.setAuthorizationErrorCode(gatewayStatusAndErrorCode.getT2().orElse(null));
-                    transactionDocument.setGatewayAuthorizationStatus(gatewayStatusAndErrorCode.getT1());
-
-                    return transactionsViewRepository.save(transactionDocument);
-                })
                 .map(
                         transactionDocument -> new TransactionActivated(
                                 new TransactionId(transactionDocument.getTransactionId()),
@@ -1,8 +1,8 @@
 package it.pagopa.transactions.projections.handlers.v2;
 
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
-import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.projections.handlers.ProjectionHandler;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,18 +23,14 @@ public class CancellationRequestProjectionHandler
     public Mono<it.pagopa.ecommerce.commons.documents.v2.Transaction> handle(
                                                                              it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent transactionUserCanceledEvent
     ) {
-        return transactionsViewRepository.findById(transactionUserCanceledEvent.getTransactionId())
-                .cast(it.pagopa.ecommerce.commons.documents.v2.Transaction.class)
-                .switchIfEmpty(
-                        Mono.error(
-                                new TransactionNotFoundException(
-                                        transactionUserCanceledEvent.getTransactionId()
-                                )
+        return transactionsViewRepository.updateFields(
+                TransactionViewUpdate.forTransaction(transactionUserCanceledEvent.getTransactionId())
+                        .status(TransactionStatusDto.CANCELLATION_REQUESTED)
+                        .onlyFromStatuses(
+                                TransactionStatusDto.ACTIVATED,
+                                TransactionStatusDto.CANCELLATION_REQUESTED
                         )
-                )
-                .flatMap(transactionDocument -> {
-                    transactionDocument.setStatus(TransactionStatusDto.CANCELLATION_REQUESTED);
-                    return transactionsViewRepository.save(transactionDocument);
-                });
+        )
+                .cast(it.pagopa.ecommerce.commons.documents.v2.Transaction.class);
     }
 }
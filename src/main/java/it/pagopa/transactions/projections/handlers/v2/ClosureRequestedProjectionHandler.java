@@ -1,8 +1,8 @@
 package it.pagopa.transactions.projections.handlers.v2;
 
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
-import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.projections.handlers.ProjectionHandler;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,19 +20,15 @@ public class ClosureRequestedProjectionHandler implements
     public Mono<it.pagopa.ecommerce.commons.documents.v2.Transaction> handle(
                                                                              it.pagopa.ecommerce.commons.documents.v2.TransactionClosureRequestedEvent transactionClosureRequestedEvent
     ) {
-        return transactionsViewRepository.findById(transactionClosureRequestedEvent.getTransactionId())
-                .cast(it.pagopa.ecommerce.commons.documents.v2.Transaction.class)
-                .switchIfEmpty(
-                        Mono.error(
-                                new TransactionNotFoundException(
-                                        transactionClosureRequestedEvent.getTransactionId()
-                                )
+        return transactionsViewRepository.updateFields(
+                TransactionViewUpdate.forTransaction(transactionClosureRequestedEvent.getTransactionId())
+                        .status(TransactionStatusDto.CLOSURE_REQUESTED)
+                        .onlyFromStatuses(
+                                TransactionStatusDto.AUTHORIZATION_COMPLETED,
+                                TransactionStatusDto.CLOSURE_REQUESTED
                         )
-                )
-                .flatMap(transactionDocument -> {
-                    transactionDocument.setStatus(TransactionStatusDto.CLOSURE_REQUESTED);
-                    return transactionsViewRepository.save(transactionDocument);
-                });
+        )
+                .cast(it.pagopa.ecommerce.commons.documents.v2.Transaction.class);
     }
 
 }
@@ -1,8 +1,8 @@
 package it.pagopa.transactions.projections.handlers.v2;
 
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
-import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.projections.handlers.ProjectionHandler;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,14 +23,18 @@ public class TransactionUserReceiptProjectionHandler
     public Mono<it.pagopa.ecommerce.commons.documents.v2.Transaction> handle(
                                                                              it.pagopa.ecommerce.commons.documents.v2.TransactionUserReceiptRequestedEvent data
     ) {
-        return transactionsViewRepository.findById(data.getTransactionId())
-                .switchIfEmpty(Mono.error(new TransactionNotFoundException(data.getTransactionId())))
-                .cast(it.pagopa.ecommerce.commons.documents.v2.Transaction.class)
-                .flatMap(transactionDocument -> {
-                    TransactionStatusDto newStatus = TransactionStatusDto.NOTIFICATION_REQUESTED;
-                    transactionDocument.setStatus(newStatus);
-                    transactionDocument.setSendPaymentResultOutcome(data.getData().getResponseOutcome());
-                    return transactionsViewRepository.save(transactionDocument);
-                });
+        return transactionsViewRepository.updateFields(
+                TransactionViewUpdate.forTransaction(data.getTransactionId())
+                        .status(TransactionStatusDto.NOTIFICATION_REQUESTED)
+                        .set("sendPaymentResultOutcome", data.getData().getResponseOutcome())
+                        // expired transactions are accepted as well when closed before expiration, see
+                        // TransactionRequestUserReceiptHandler
+                        .onlyFromStatuses(
+                                TransactionStatusDto.CLOSED,
+                                TransactionStatusDto.EXPIRED,
+                                TransactionStatusDto.NOTIFICATION_REQUESTED
+                        )
+        )
+                .cast(it.pagopa.ecommerce.commons.documents.v2.Transaction.class);
     }
 }
@@ -0,0 +1,387 @@
+package it.pagopa.transactions.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link PaymentRequestInfoReactiveRedisTemplateWrapper} with an in-process,
+ * size bounded near cache in front of Redis.
+ * <p>
+ * Only activated payment request infos (the ones with a payment token) are kept
+ * in the near cache. Writes and deletions are broadcast to all the replicas
+ * through a Redis pub/sub channel to evict the written key from every near
+ * cache. Entries expire when their payment token or their Redis key does,
+ * whichever comes first, and anyway after the configured max TTL. If the
+ * invalidation subscription breaks, the whole near cache is cleared since
+ * invalidations may have been missed.
+ */
+@Slf4j
+public class NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper
+        extends PaymentRequestInfoReactiveRedisTemplateWrapper implements AutoCloseable {
+
+    /**
+     * Pub/sub channel used to broadcast near cache invalidations
+     */
+    public static final String INVALIDATION_CHANNEL = "payment-request-info-invalidations";
+
+    private static final String INVALIDATION_MESSAGE_SEPARATOR = "|";
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private static final AttributeKey<String> CAUSE_ATTRIBUTE_KEY = AttributeKey.stringKey("cause");
+
+    private static final AttributeKey<String> SOURCE_ATTRIBUTE_KEY = AttributeKey.stringKey("source");
+
+    private static final Attributes HIT_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "hit");
+
+    private static final Attributes MISS_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "miss");
+
+    private static final Attributes LOCAL_INVALIDATION_ATTRIBUTES = Attributes.of(SOURCE_ATTRIBUTE_KEY, "local");
+
+    private static final Attributes REMOTE_INVALIDATION_ATTRIBUTES = Attributes.of(SOURCE_ATTRIBUTE_KEY, "remote");
+
+    private final ReactiveRedisTemplate<String, String> invalidationRedisTemplate;
+
+    private final Duration paymentTokenValidity;
+
+    private final Duration maxTtl;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Cache<String, NearCacheEntry> nearCache;
+
+    /**
+     * Incremented on each invalidation, used to discard Redis reads that raced with
+     * an invalidation
+     */
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final LongCounter requests;
+
+    private final LongCounter evictions;
+
+    private final LongCounter invalidations;
+
+    private final DoubleHistogram invalidationLag;
+
+    private Disposable invalidationSubscription;
+
+    /**
+     * Near cache entry, holding the Redis key time to live left when the entry is
+     * created
+     *
+     * @param value    the cached payment request info
+     * @param redisTtl the Redis key remaining time to live
+     */
+    private record NearCacheEntry(
+            PaymentRequestInfo value,
+            Duration redisTtl
+    ) {
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveRedisTemplate     inner reactive redis template
+     * @param invalidationRedisTemplate template used for invalidation pub/sub
+     * @param keyspace                  keyspace associated to this wrapper
+     * @param paymentTokenValidity      payment token validity, used as Redis TTL
+     * @param maxSize                   max number of near cache entries
+     * @param maxTtl                    max near cache entries time to live
+     * @param openTelemetryMeter        meter used to record near cache metrics
+     */
+    public NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper(
+            ReactiveRedisTemplate<String, PaymentRequestInfo> reactiveRedisTemplate,
+            ReactiveRedisTemplate<String, String> invalidationRedisTemplate,
+            String keyspace,
+            Duration paymentTokenValidity,
+            long maxSize,
+            Duration maxTtl,
+            Meter openTelemetryMeter
+    ) {
+        super(reactiveRedisTemplate, keyspace, paymentTokenValidity);
+        this.invalidationRedisTemplate = invalidationRedisTemplate;
+        this.paymentTokenValidity = paymentTokenValidity;
+        this.maxTtl = maxTtl;
+        this.requests = openTelemetryMeter.counterBuilder("ecommerce.paymentrequestinfo.nearcache.requests")
+                .setDescription("Payment request info near cache lookups, by result")
+                .build();
+        this.evictions = openTelemetryMeter.counterBuilder("ecommerce.paymentrequestinfo.nearcache.evictions")
+                .setDescription("Payment request info near cache evictions, by cause")
+                .build();
+        this.invalidations = openTelemetryMeter.counterBuilder("ecommerce.paymentrequestinfo.nearcache.invalidations")
+                .setDescription("Payment request info near cache invalidations, by source")
+                .build();
+        this.invalidationLag = openTelemetryMeter
+                .histogramBuilder("ecommerce.paymentrequestinfo.nearcache.invalidation.lag")
+                .setDescription("Time elapsed between an invalidation publication and its processing")
+                .setUnit("ms")
+                .build();
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PaymentTokenExpiry())
+                .removalListener(
+                        (
+                         String key,
+                         NearCacheEntry value,
+                         RemovalCause cause
+                        ) -> {
+                            if (cause.wasEvicted()) {
+                                evictions.add(1, Attributes.of(CAUSE_ATTRIBUTE_KEY, cause.name().toLowerCase()));
+                            }
+                        }
+                )
+                .build();
+        openTelemetryMeter.gaugeBuilder("ecommerce.paymentrequestinfo.nearcache.size")
+                .setDescription("Payment request info near cache estimated size")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(nearCache.estimatedSize()));
+    }
+
+    /**
+     * Start listening for invalidations published by the other replicas
+     */
+    public synchronized void subscribeToInvalidations() {
+        if (invalidationSubscription != null) {
+            return;
+        }
+        invalidationSubscription = invalidationRedisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onInvalidationMessage)
+                .doOnError(exception -> {
+                    log.warn("Payment request info near cache invalidation subscription error", exception);
+                    nearCache.invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+            invalidationSubscription = null;
+        }
+    }
+
+    @Override
+    public Mono<PaymentRequestInfo> findById(String key) {
+        return Mono.defer(() -> {
+            NearCacheEntry cached = nearCache.getIfPresent(key);
+            if (cached != null) {
+                requests.add(1, HIT_ATTRIBUTES);
+                return Mono.just(cached.value());
+            }
+            requests.add(1, MISS_ATTRIBUTES);
+            long generation = invalidationGeneration.get();
+            return super.findById(key).flatMap(value -> cacheIfActivated(key, value, generation).thenReturn(value));
+        });
+    }
+
+    @Override
+    public Mono<Map<String, PaymentRequestInfo>> findAllById(List<String> keys) {
+        return Mono.defer(() -> {
+            Map<String, PaymentRequestInfo> found = new HashMap<>();
+            List<String> misses = new ArrayList<>();
+            for (String key : keys) {
+                NearCacheEntry cached = nearCache.getIfPresent(key);
+                if (cached != null) {
+                    found.put(key, cached.value());
+                } else {
+                    misses.add(key);
+                }
+            }
+            requests.add(found.size(), HIT_ATTRIBUTES);
+            requests.add(misses.size(), MISS_ATTRIBUTES);
+            if (misses.isEmpty()) {
+                return Mono.just(found);
+            }
+            long generation = invalidationGeneration.get();
+            return super.findAllById(misses).flatMap(
+                    fromRedis -> Flux.fromIterable(fromRedis.entrySet())
+                            .flatMap(entry -> cacheIfActivated(entry.getKey(), entry.getValue(), generation))
+                            .then(Mono.fromSupplier(() -> {
+                                found.putAll(fromRedis);
+                                return found;
+                            }))
+            );
+        });
+    }
+
+    @Override
+    public Mono<Boolean> save(
+                              PaymentRequestInfo value,
+                              Duration ttl
+    ) {
+        return Mono.defer(() -> {
+            String key = getKeyFromEntity(value);
+            invalidateLocally(key);
+            return super.save(value, ttl)
+                    .doOnNext(saved -> {
+                        // discard Redis reads that raced with this write
+                        invalidationGeneration.incrementAndGet();
+                        if (Boolean.TRUE.equals(saved) && isActivated(value)) {
+                            nearCache.put(key, new NearCacheEntry(value, ttl));
+                        } else {
+                            nearCache.invalidate(key);
+                        }
+                    })
+                    .flatMap(saved -> publishInvalidation(key).thenReturn(saved));
+        });
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(String key) {
+        return Mono.defer(() -> {
+            invalidateLocally(key);
+            return super.deleteById(key).flatMap(deleted -> publishInvalidation(key).thenReturn(deleted));
+        });
+    }
+
+    private Mono<Void> publishInvalidation(String key) {
+        return invalidationRedisTemplate.convertAndSend(
+                INVALIDATION_CHANNEL,
+                String.join(
+                        INVALIDATION_MESSAGE_SEPARATOR,
+                        instanceId,
+                        Long.toString(Instant.now().toEpochMilli()),
+                        key
+                )
+        )
+                .onErrorResume(exception -> {
+                    // other replicas near cache entries will expire with the Redis key
+                    log.warn("Error publishing near cache invalidation for key: [{}]", key, exception);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void onInvalidationMessage(String message) {
+        String[] fields = message.split("\\" + INVALIDATION_MESSAGE_SEPARATOR, 3);
+        if (fields.length != 3) {
+            log.warn("Discarding malformed near cache invalidation message: [{}]", message);
+            return;
+        }
+        if (instanceId.equals(fields[0])) {
+            // already invalidated locally
+            return;
+        }
+        invalidationGeneration.incrementAndGet();
+        nearCache.invalidate(fields[2]);
+        invalidations.add(1, REMOTE_INVALIDATION_ATTRIBUTES);
+        try {
+            invalidationLag.record(Math.max(0, Instant.now().toEpochMilli() - Long.parseLong(fields[1])));
+        } catch (NumberFormatException exception) {
+            log.warn("Invalid near cache invalidation timestamp: [{}]", fields[1]);
+        }
+    }
+
+    private void invalidateLocally(String key) {
+        invalidationGeneration.incrementAndGet();
+        nearCache.invalidate(key);
+        invalidations.add(1, LOCAL_INVALIDATION_ATTRIBUTES);
+    }
+
+    private Mono<Void> cacheIfActivated(
+                                        String key,
+                                        PaymentRequestInfo value,
+                                        long generation
+    ) {
+        if (!isActivated(value)) {
+            return Mono.empty();
+        }
+        return getExpire(key)
+                .doOnNext(redisTtl -> {
+                    // a value read while an invalidation was processed may be stale
+                    if (invalidationGeneration.get() == generation) {
+                        nearCache.put(key, new NearCacheEntry(value, redisTtl));
+                    }
+                })
+                .onErrorResume(exception -> {
+                    log.warn("Error reading Redis TTL for near cache key: [{}]", key, exception);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static boolean isActivated(PaymentRequestInfo value) {
+        return value.paymentToken() != null && !value.paymentToken().isBlank();
+    }
+
+    private Duration remainingValidity(NearCacheEntry entry) {
+        PaymentRequestInfo value = entry.value();
+        // a Redis key without expiration has a zero TTL: such entries are not kept
+        Duration remaining = entry.redisTtl().compareTo(maxTtl) < 0 ? entry.redisTtl() : maxTtl;
+        if (value.activationDate() != null) {
+            try {
+                Duration tokenValidityLeft = Duration.between(
+                        ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.activationDate()).plus(paymentTokenValidity)
+                );
+                if (tokenValidityLeft.compareTo(remaining) < 0) {
+                    remaining = tokenValidityLeft.isNegative() ? Duration.ZERO : tokenValidityLeft;
+                }
+            } catch (DateTimeParseException exception) {
+                log.warn("Invalid activation date for payment request info: [{}]", value.id());
+            }
+        }
+        return remaining;
+    }
+
+    private final class PaymentTokenExpiry implements Expiry<String, NearCacheEntry> {
+        @Override
+        public long expireAfterCreate(
+                                      String key,
+                                      NearCacheEntry value,
+                                      long currentTime
+        ) {
+            return remainingValidity(value).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                                      String key,
+                                      NearCacheEntry value,
+                                      long currentTime,
+                                      long currentDuration
+        ) {
+            return remainingValidity(value).toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(
+                                    String key,
+                                    NearCacheEntry value,
+                                    long currentTime,
+                                    long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import java.time.Duration;
+
+public class PaymentRequestInfoReactiveRedisTemplateWrapper extends ReactiveRedisTemplateWrapper<PaymentRequestInfo> {
+    /**
+     * Primary constructor
+     *
+     * @param reactiveRedisTemplate inner reactive redis template
+     * @param keyspace              keyspace associated to this wrapper
+     * @param ttl                   time to live for keys
+     */
+    public PaymentRequestInfoReactiveRedisTemplateWrapper(
+            ReactiveRedisTemplate<String, PaymentRequestInfo> reactiveRedisTemplate,
+            String keyspace,
+            Duration ttl
+    ) {
+        super(reactiveRedisTemplate, keyspace, ttl);
+    }
+
+    @Override
+    protected String getKeyFromEntity(PaymentRequestInfo value) {
+        return value.id().value();
+    }
+}
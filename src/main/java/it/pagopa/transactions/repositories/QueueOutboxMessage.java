@@ -0,0 +1,61 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.queues.TracingInfo;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+/**
+ * Queue message waiting to be published by the outbox relay.
+ * <p>
+ * Visibility timeout and time to live are stored as absolute instants, so that
+ * the relay can send the message with the residual durations and the message
+ * becomes visible (and expires) when it would have if sent by the command
+ * handler itself.
+ *
+ * @param id              the outbox message id
+ * @param queueClientName name of the queue client bean the message is sent with
+ * @param event           the event to be sent
+ * @param tracingInfo     tracing info captured when the message has been
+ *                        enqueued
+ * @param createdAt       when the message has been written to the outbox
+ * @param visibleAt       when the message has to become visible to queue
+ *                        consumers
+ * @param expiresAt       when the message expires, null for the queue default
+ *                        time to live
+ * @param attempts        number of failed publishing attempts
+ * @param nextAttemptAt   when the message can be (re)claimed by the relay, null
+ *                        for messages that exhausted their publishing attempts
+ */
+@Document(collection = "queue-outbox")
+public record QueueOutboxMessage(
+        @NonNull @Id String id,
+        @NonNull String queueClientName,
+        @NonNull BaseTransactionEvent<Object> event,
+        @Nullable TracingInfo tracingInfo,
+        @NonNull Instant createdAt,
+        @NonNull Instant visibleAt,
+        @Nullable Instant expiresAt,
+        int attempts,
+        @Nullable Instant nextAttemptAt
+) {
+    /*
+     * @formatter:off
+     *
+     * Warning java:S6207 - Redundant constructors/methods should be avoided in records
+     * Suppressed because this constructor is just to add the `@PersistenceConstructor` annotation
+     * and is currently the canonical way to add annotations to record constructors
+     *
+     * @formatter:on
+     */
+    @SuppressWarnings("java:S6207")
+    @PersistenceConstructor
+    public QueueOutboxMessage {
+        // Do nothing
+    }
+}
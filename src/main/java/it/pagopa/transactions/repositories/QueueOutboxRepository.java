@@ -0,0 +1,7 @@
+package it.pagopa.transactions.repositories;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface QueueOutboxRepository
+        extends ReactiveCrudRepository<QueueOutboxMessage, String>, QueueOutboxRepositoryCustom {
+}
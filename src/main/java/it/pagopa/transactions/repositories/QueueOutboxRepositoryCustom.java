@@ -0,0 +1,40 @@
+package it.pagopa.transactions.repositories;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public interface QueueOutboxRepositoryCustom {
+
+    /**
+     * Claim outbox messages due for publishing, postponing their next attempt by
+     * the given lease so that they are not claimed by other relay instances while
+     * being published. Messages whose publishing is interrupted (e.g. by an
+     * instance shutdown) are claimed again once the lease expires
+     *
+     * @param now       the current instant
+     * @param lease     how long claimed messages are reserved to the caller
+     * @param batchSize max number of messages to be claimed
+     * @return the claimed messages
+     */
+    Flux<QueueOutboxMessage> claimPending(
+                                          Instant now,
+                                          Duration lease,
+                                          int batchSize
+    );
+
+    /**
+     * Record a failed publishing attempt for an outbox message
+     *
+     * @param id            the outbox message id
+     * @param nextAttemptAt when the message can be claimed again, null to stop
+     *                      retrying it
+     * @return a Mono completing once the attempt has been recorded
+     */
+    Mono<Void> recordFailedAttempt(
+                                   String id,
+                                   Instant nextAttemptAt
+    );
+}
@@ -0,0 +1,76 @@
+package it.pagopa.transactions.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link QueueOutboxRepositoryCustom} implementation based on
+ * {@link ReactiveMongoTemplate}, picked up by Spring Data as a fragment of
+ * {@link QueueOutboxRepository}
+ */
+public class QueueOutboxRepositoryCustomImpl implements QueueOutboxRepositoryCustom {
+
+    static final String NEXT_ATTEMPT_AT_FIELD = "nextAttemptAt";
+
+    static final String ATTEMPTS_FIELD = "attempts";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    public QueueOutboxRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<QueueOutboxMessage> claimPending(
+                                                 Instant now,
+                                                 Duration lease,
+                                                 int batchSize
+    ) {
+        Query pendingMessages = Query.query(Criteria.where(NEXT_ATTEMPT_AT_FIELD).lte(now))
+                .with(Sort.by(NEXT_ATTEMPT_AT_FIELD))
+                .limit(batchSize);
+        return reactiveMongoTemplate.find(pendingMessages, QueueOutboxMessage.class)
+                // the claim only succeeds if no other relay instance has claimed the message
+                // in the meantime, moving its next attempt instant forward
+                .flatMap(
+                        message -> reactiveMongoTemplate.findAndModify(
+                                Query.query(
+                                        Criteria.where("_id").is(message.id())
+                                                .and(NEXT_ATTEMPT_AT_FIELD).is(message.nextAttemptAt())
+                                ),
+                                new Update().set(NEXT_ATTEMPT_AT_FIELD, now.plus(lease)),
+                                FindAndModifyOptions.options().returnNew(true),
+                                QueueOutboxMessage.class
+                        )
+                );
+    }
+
+    @Override
+    public Mono<Void> recordFailedAttempt(
+                                          String id,
+                                          Instant nextAttemptAt
+    ) {
+        Update update = new Update().inc(ATTEMPTS_FIELD, 1);
+        if (nextAttemptAt == null) {
+            update.unset(NEXT_ATTEMPT_AT_FIELD);
+        } else {
+            update.set(NEXT_ATTEMPT_AT_FIELD, nextAttemptAt);
+        }
+        return reactiveMongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(id)),
+                update,
+                QueueOutboxMessage.class
+        ).then();
+    }
+}
@@ -0,0 +1,186 @@
+package it.pagopa.transactions.repositories;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive counterpart of the commons {@code RedisTemplateWrapper}: entities
+ * are stored as values under {@code <keyspace>:<entity key>} keys with a fixed
+ * TTL, using the same key layout as the blocking wrapper so that both can
+ * operate on the same documents.
+ * <p>
+ * Batch operations ({@link #findAllById(List)}, {@link #saveAll(List)}) are
+ * meant for callers handling several entities at once (e.g. the payment notices
+ * of a cart): lookups are performed with a single MGET, while writes are
+ * dispatched without waiting for each other's replies, so that they are
+ * pipelined on the shared connection instead of costing one round trip each.
+ *
+ * @param <V> the wrapped entity type
+ */
+public abstract class ReactiveRedisTemplateWrapper<V> {
+
+    private final ReactiveRedisTemplate<String, V> reactiveRedisTemplate;
+
+    private final String keyspace;
+
+    private final Duration ttl;
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveRedisTemplate inner reactive redis template
+     * @param keyspace              keyspace associated to this wrapper
+     * @param ttl                   time to live for keys
+     */
+    protected ReactiveRedisTemplateWrapper(
+            ReactiveRedisTemplate<String, V> reactiveRedisTemplate,
+            String keyspace,
+            Duration ttl
+    ) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.keyspace = keyspace;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Save the input entity with the default TTL
+     *
+     * @param value the entity to be saved
+     * @return true iff the entity has been saved
+     */
+    public Mono<Boolean> save(V value) {
+        return save(value, ttl);
+    }
+
+    /**
+     * Save the input entity with a custom TTL
+     *
+     * @param value the entity to be saved
+     * @param ttl   the entity time to live
+     * @return true iff the entity has been saved
+     */
+    public Mono<Boolean> save(
+                              V value,
+                              Duration ttl
+    ) {
+        return reactiveRedisTemplate.opsForValue().set(compoundKeyWithKeyspace(getKeyFromEntity(value)), value, ttl);
+    }
+
+    /**
+     * Save the input entity with a custom TTL only if no entity is stored under the
+     * same key, with a single {@code SET NX PX} command
+     *
+     * @param value the entity to be saved
+     * @param ttl   the entity time to live
+     * @return true iff the entity has been saved
+     */
+    public Mono<Boolean> saveIfAbsent(
+                                      V value,
+                                      Duration ttl
+    ) {
+        return reactiveRedisTemplate.opsForValue()
+                .setIfAbsent(compoundKeyWithKeyspace(getKeyFromEntity(value)), value, ttl);
+    }
+
+    /**
+     * Save all the input entities with the default TTL
+     *
+     * @param values the entities to be saved
+     * @return true iff all the entities have been saved
+     */
+    public Mono<Boolean> saveAll(List<V> values) {
+        return saveAll(values, ttl);
+    }
+
+    /**
+     * Save all the input entities with a custom TTL. Each entity is written with a
+     * single SET command carrying its expiration, and all the commands are
+     * pipelined.
+     *
+     * @param values the entities to be saved
+     * @param ttl    the entities time to live
+     * @return true iff all the entities have been saved
+     */
+    public Mono<Boolean> saveAll(
+                                 List<V> values,
+                                 Duration ttl
+    ) {
+        return Flux.fromIterable(values)
+                .flatMap(value -> save(value, ttl))
+                .all(Boolean::booleanValue);
+    }
+
+    /**
+     * Find the entity with the given key
+     *
+     * @param key the entity key
+     * @return the found entity, or an empty Mono if no entity is found
+     */
+    public Mono<V> findById(String key) {
+        return reactiveRedisTemplate.opsForValue().get(compoundKeyWithKeyspace(key));
+    }
+
+    /**
+     * Find all the entities with the given keys with a single MGET command
+     *
+     * @param keys the entity keys
+     * @return the found entities, indexed by key. Keys without an associated entity
+     *         are not present in the returned map
+     */
+    public Mono<Map<String, V>> findAllById(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return reactiveRedisTemplate.opsForValue()
+                .multiGet(keys.stream().map(this::compoundKeyWithKeyspace).toList())
+                .map(values -> {
+                    Map<String, V> found = new HashMap<>();
+                    for (int i = 0; i < keys.size(); i++) {
+                        V value = values.get(i);
+                        if (value != null) {
+                            found.put(keys.get(i), value);
+                        }
+                    }
+                    return found;
+                });
+    }
+
+    /**
+     * Get the remaining time to live of the entity with the given key
+     *
+     * @param key the entity key
+     * @return the entity remaining time to live ({@link Duration#ZERO} if the
+     *         entity has no expiration), or an empty Mono if no entity is found
+     */
+    public Mono<Duration> getExpire(String key) {
+        return reactiveRedisTemplate.getExpire(compoundKeyWithKeyspace(key));
+    }
+
+    /**
+     * Delete the entity with the given key
+     *
+     * @param key the entity key
+     * @return true iff an entity has been deleted
+     */
+    public Mono<Boolean> deleteById(String key) {
+        return reactiveRedisTemplate.delete(compoundKeyWithKeyspace(key)).map(deleted -> deleted > 0);
+    }
+
+    /**
+     * Get the key under which the input entity is stored, without keyspace
+     *
+     * @param value the entity
+     * @return the entity key
+     */
+    protected abstract String getKeyFromEntity(V value);
+
+    protected String compoundKeyWithKeyspace(String key) {
+        return "%s:%s".formatted(keyspace, key);
+    }
+}
@@ -0,0 +1,46 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Snapshot of the event stream of a transaction, taken up to the event with the
+ * given creation date and compacted to the events the transaction state depends
+ * on
+ *
+ * @param transactionId         the transaction id
+ * @param snapshotVersion       the snapshot format version
+ * @param domainVersion         the version of the domain model the snapshot has
+ *                              been taken with
+ * @param lastEventCreationDate creation date of the last event included into
+ *                              the snapshot
+ * @param events                the snapshot events, ordered by creation date
+ */
+@Document(collection = "eventstore-snapshots")
+public record TransactionEventsSnapshot(
+        @NonNull @Id String transactionId,
+        int snapshotVersion,
+        @NonNull String domainVersion,
+        @NonNull String lastEventCreationDate,
+        @NonNull List<BaseTransactionEvent<Object>> events
+) {
+    /*
+     * @formatter:off
+     *
+     * Warning java:S6207 - Redundant constructors/methods should be avoided in records
+     * Suppressed because this constructor is just to add the `@PersistenceConstructor` annotation
+     * and is currently the canonical way to add annotations to record constructors
+     *
+     * @formatter:on
+     */
+    @SuppressWarnings("java:S6207")
+    @PersistenceConstructor
+    public TransactionEventsSnapshot {
+        // Do nothing
+    }
+}
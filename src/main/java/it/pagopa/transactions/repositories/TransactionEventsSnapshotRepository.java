@@ -0,0 +1,6 @@
+package it.pagopa.transactions.repositories;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface TransactionEventsSnapshotRepository extends ReactiveCrudRepository<TransactionEventsSnapshot, String> {
+}
@@ -1,24 +1,23 @@
 package it.pagopa.transactions.repositories;
 
-import it.pagopa.ecommerce.commons.redis.templatewrappers.RedisTemplateWrapper;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 
 import java.time.Duration;
 
-public class TransactionTemplateWrapper extends RedisTemplateWrapper<TransactionCacheInfo> {
+public class TransactionTemplateWrapper extends ReactiveRedisTemplateWrapper<TransactionCacheInfo> {
     /**
      * Primary constructor
      *
-     * @param redisTemplate inner redis template
-     * @param keyspace      keyspace associated to this wrapper
-     * @param ttl           time to live for keys
+     * @param reactiveRedisTemplate inner reactive redis template
+     * @param keyspace              keyspace associated to this wrapper
+     * @param ttl                   time to live for keys
      */
     public TransactionTemplateWrapper(
-            RedisTemplate<String, TransactionCacheInfo> redisTemplate,
+            ReactiveRedisTemplate<String, TransactionCacheInfo> reactiveRedisTemplate,
             String keyspace,
             Duration ttl
     ) {
-        super(redisTemplate, keyspace, ttl);
+        super(reactiveRedisTemplate, keyspace, ttl);
     }
 
     @Override
@@ -0,0 +1,80 @@
+package it.pagopa.transactions.repositories;
+
+import java.util.Set;
+
+/**
+ * Subsets of the transaction view fields read to build API responses.
+ * <p>
+ * Fields are named after the view document properties. The fields the
+ * transaction ownership check relies on (see {@link #OWNERSHIP_FIELDS}) and the
+ * view id are always read.
+ */
+public enum TransactionViewProjection {
+
+    /**
+     * Fields needed to build transaction info responses
+     */
+    TRANSACTION_INFO(
+            Set.of(
+                    "paymentNotices",
+                    "feeTotal",
+                    "clientId",
+                    TransactionViewUpdate.STATUS_FIELD,
+                    "idCart",
+                    "paymentGateway",
+                    "sendPaymentResultOutcome",
+                    "authorizationCode",
+                    "authorizationErrorCode",
+                    "gatewayAuthorizationStatus",
+                    "closureErrorData"
+            )
+    ),
+
+    /**
+     * Fields needed to build transaction status responses, used for status polling
+     */
+    STATUS(
+            Set.of(
+                    TransactionViewUpdate.STATUS_FIELD,
+                    "sendPaymentResultOutcome",
+                    "gatewayAuthorizationStatus"
+            )
+    ),
+
+    /**
+     * Fields that can change after the transaction activation, used to compute the
+     * transaction ETag for conditional requests
+     */
+    VERSION(
+            Set.of(
+                    TransactionViewUpdate.STATUS_FIELD,
+                    "feeTotal",
+                    "paymentGateway",
+                    "sendPaymentResultOutcome",
+                    "authorizationCode",
+                    "authorizationErrorCode",
+                    "gatewayAuthorizationStatus",
+                    "closureErrorData"
+            )
+    );
+
+    /**
+     * Fields needed to check that a transaction is owned by the requesting user
+     */
+    public static final Set<String> OWNERSHIP_FIELDS = Set.of("userId");
+
+    private final Set<String> fields;
+
+    TransactionViewProjection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Fields included by this projection, ownership fields excluded
+     *
+     * @return the included fields
+     */
+    public Set<String> fields() {
+        return fields;
+    }
+}
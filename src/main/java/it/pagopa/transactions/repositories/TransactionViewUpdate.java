@@ -0,0 +1,106 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field level update of a transaction view document.
+ * <p>
+ * Only the fields set into this update are written, so that a state transition
+ * does not need to read and rewrite the whole view document. An optional
+ * precondition on the current view status can be added to reject out of order
+ * transitions instead of overwriting the view (last write wins).
+ */
+public final class TransactionViewUpdate {
+
+    public static final String STATUS_FIELD = "status";
+
+    private final String transactionId;
+
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    private final Set<TransactionStatusDto> expectedStatuses = EnumSet.noneOf(TransactionStatusDto.class);
+
+    private TransactionViewUpdate(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    /**
+     * Create a new update for the given transaction view
+     *
+     * @param transactionId the transaction id
+     * @return the view update
+     */
+    public static TransactionViewUpdate forTransaction(String transactionId) {
+        return new TransactionViewUpdate(transactionId);
+    }
+
+    /**
+     * Set the view status
+     *
+     * @param status the new status
+     * @return this update
+     */
+    public TransactionViewUpdate status(TransactionStatusDto status) {
+        return set(STATUS_FIELD, status);
+    }
+
+    /**
+     * Set a view field. Null values remove the field from the view document, as
+     * done when saving a document with a null field
+     *
+     * @param field the field name
+     * @param value the field value
+     * @return this update
+     */
+    public TransactionViewUpdate set(
+                                     String field,
+                                     Object value
+    ) {
+        fields.put(field, value);
+        return this;
+    }
+
+    /**
+     * Apply the update only if the view is currently in one of the given statuses
+     *
+     * @param statuses the statuses the view is allowed to be updated from
+     * @return this update
+     */
+    public TransactionViewUpdate onlyFromStatuses(TransactionStatusDto... statuses) {
+        Collections.addAll(expectedStatuses, statuses);
+        return this;
+    }
+
+    /**
+     * The id of the view to be updated
+     *
+     * @return the transaction id
+     */
+    public String transactionId() {
+        return transactionId;
+    }
+
+    /**
+     * The fields to be written
+     *
+     * @return the updated fields, by field name
+     */
+    public Map<String, Object> fields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * The statuses the view is allowed to be updated from
+     *
+     * @return the expected statuses, empty if any status is allowed
+     */
+    public Set<TransactionStatusDto> expectedStatuses() {
+        return Collections.unmodifiableSet(expectedStatuses);
+    }
+}
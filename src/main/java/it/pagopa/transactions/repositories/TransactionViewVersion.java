@@ -0,0 +1,40 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.lang.NonNull;
+
+/**
+ * Version of a transaction view, shared through Redis by all the replicas to
+ * validate their in-process copies of the view.
+ * <p>
+ * A new version is written each time the view is updated by this service, so
+ * that in-process copies read with a previous version are discarded.
+ *
+ * @param transactionId the transaction id
+ * @param version       the view version, unique for each view write
+ * @param status        the view status when the version has been written
+ * @param writtenAt     when the version has been written, as epoch millis
+ */
+public record TransactionViewVersion(
+        @NonNull @Id String transactionId,
+        @NonNull String version,
+        @NonNull TransactionStatusDto status,
+        long writtenAt
+) {
+    /*
+     * @formatter:off
+     *
+     * Warning java:S6207 - Redundant constructors/methods should be avoided in records
+     * Suppressed because this constructor is just to add the `@PersistenceConstructor` annotation
+     * and is currently the canonical way to add annotations to record constructors
+     *
+     * @formatter:on
+     */
+    @SuppressWarnings("java:S6207")
+    @PersistenceConstructor
+    public TransactionViewVersion {
+        // Do nothing
+    }
+}
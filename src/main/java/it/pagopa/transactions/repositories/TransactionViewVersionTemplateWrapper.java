@@ -0,0 +1,46 @@
+package it.pagopa.transactions.repositories;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Redis wrapper for {@link TransactionViewVersion} entities. Versions are
+ * stored in the same keyspace as {@link TransactionTemplateWrapper} documents,
+ * under a per transaction key suffix so that the two never overwrite each other
+ */
+public class TransactionViewVersionTemplateWrapper extends ReactiveRedisTemplateWrapper<TransactionViewVersion> {
+
+    private static final String KEY_SUFFIX = ":view-version";
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveRedisTemplate inner reactive redis template
+     * @param keyspace              keyspace associated to this wrapper
+     * @param ttl                   time to live for keys
+     */
+    public TransactionViewVersionTemplateWrapper(
+            ReactiveRedisTemplate<String, TransactionViewVersion> reactiveRedisTemplate,
+            String keyspace,
+            Duration ttl
+    ) {
+        super(reactiveRedisTemplate, keyspace, ttl);
+    }
+
+    /**
+     * Find the view version of the given transaction
+     *
+     * @param transactionId the transaction id
+     * @return the view version, or an empty Mono if no version is stored
+     */
+    public Mono<TransactionViewVersion> findByTransactionId(String transactionId) {
+        return findById(transactionId + KEY_SUFFIX);
+    }
+
+    @Override
+    protected String getKeyFromEntity(TransactionViewVersion value) {
+        return value.transactionId() + KEY_SUFFIX;
+    }
+}
@@ -5,11 +5,18 @@ import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface TransactionsEventStoreRepository<T> extends ReactiveCrudRepository<BaseTransactionEvent<T>, String> {
+public interface TransactionsEventStoreRepository<T>
+        extends ReactiveCrudRepository<BaseTransactionEvent<T>, String>,
+        TransactionsEventStoreRepositoryCustom<BaseTransactionEvent<T>> {
     Mono<BaseTransactionEvent<T>> findByTransactionIdAndEventCode(
                                                                   String idTransaction,
                                                                   String transactionEventCode
     );
 
     Flux<BaseTransactionEvent<T>> findByTransactionIdOrderByCreationDateAsc(String transactionId);
+
+    Flux<BaseTransactionEvent<T>> findByTransactionIdAndCreationDateGreaterThanEqualOrderByCreationDateAsc(
+                                                                                                           String transactionId,
+                                                                                                           String creationDate
+    );
 }
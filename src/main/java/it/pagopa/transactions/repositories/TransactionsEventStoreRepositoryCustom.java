@@ -0,0 +1,25 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.transactions.utils.EventViewWrites;
+import reactor.core.publisher.Mono;
+
+/**
+ * Event store repository fragment overriding the default {@code save} so that
+ * event writes can be combined with the transaction view update
+ *
+ * @param <T> the event document type
+ */
+public interface TransactionsEventStoreRepositoryCustom<T> {
+
+    /**
+     * Save the input event. When called by a command pipeline run through
+     * {@link EventViewWrites} in a combined write mode the write is deferred and
+     * performed together with the transaction view update, otherwise the event is
+     * saved right away
+     *
+     * @param event the event to be saved
+     * @param <S>   the event type
+     * @return the event
+     */
+    <S extends T> Mono<S> save(S event);
+}
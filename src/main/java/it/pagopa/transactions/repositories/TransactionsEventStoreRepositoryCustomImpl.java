@@ -0,0 +1,56 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.transactions.utils.PendingEventWrites;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link TransactionsEventStoreRepositoryCustom} implementation based on
+ * {@link ReactiveMongoTemplate}, picked up by Spring Data as a fragment of
+ * {@link TransactionsEventStoreRepository}
+ *
+ * @param <T> the event document type
+ */
+public class TransactionsEventStoreRepositoryCustomImpl<T> implements TransactionsEventStoreRepositoryCustom<T> {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final TransactionReadCoalescer transactionReadCoalescer;
+
+    @Autowired
+    public TransactionsEventStoreRepositoryCustomImpl(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            TransactionReadCoalescer transactionReadCoalescer
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.transactionReadCoalescer = transactionReadCoalescer;
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S event) {
+        return Mono.deferContextual(
+                context -> PendingEventWrites.from(context)
+                        .map(pendingWrites -> {
+                            pendingWrites.addEvent(event);
+                            return Mono.just(event);
+                        })
+                        .orElseGet(
+                                () -> reactiveMongoTemplate
+                                        .save(
+                                                event,
+                                                reactiveMongoTemplate.getCollectionName(BaseTransactionEvent.class)
+                                        )
+                                        .doOnNext(this::invalidateReads)
+                        )
+        );
+    }
+
+    private void invalidateReads(Object savedEvent) {
+        if (savedEvent instanceof BaseTransactionEvent<?> event) {
+            transactionReadCoalescer.invalidate(event.getTransactionId());
+        }
+    }
+}
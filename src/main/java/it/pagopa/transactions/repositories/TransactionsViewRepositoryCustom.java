@@ -0,0 +1,48 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.transactions.exceptions.AlreadyProcessedException;
+import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import reactor.core.publisher.Mono;
+
+public interface TransactionsViewRepositoryCustom {
+
+    /**
+     * Save the input view, overriding the default {@code save} so that the saved
+     * view is written through the transaction view cache
+     *
+     * @param view the view to be saved
+     * @param <S>  the view type
+     * @return the saved view
+     */
+    <S extends BaseTransactionView> Mono<S> save(S view);
+
+    /**
+     * Atomically apply the input field level update to a transaction view with a
+     * single {@code findAndModify} command
+     *
+     * @param update the update to be applied
+     * @return the updated view, a {@link TransactionNotFoundException} error if no
+     *         view exists for the transaction or an
+     *         {@link AlreadyProcessedException} error if the view status does not
+     *         match the update precondition
+     */
+    Mono<BaseTransactionView> updateFields(TransactionViewUpdate update);
+
+    /**
+     * Find a transaction view reading only the fields included by the input
+     * projection (plus the fields needed by the ownership check), so that large
+     * fields such as the payment notices are neither transferred nor decoded when
+     * not needed. Fields not included in the projection are left unset into the
+     * returned view. The view may be served from the transaction view cache, or
+     * read from a secondary according to the configured read preference
+     *
+     * @param transactionId the transaction id
+     * @param projection    the fields to be read
+     * @return the partially read view, empty if no view exists for the transaction
+     */
+    Mono<BaseTransactionView> findProjectedById(
+                                                String transactionId,
+                                                TransactionViewProjection projection
+    );
+}
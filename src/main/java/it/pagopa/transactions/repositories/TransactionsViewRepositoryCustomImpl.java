@@ -0,0 +1,184 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.ecommerce.commons.domain.TransactionId;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.transactions.exceptions.AlreadyProcessedException;
+import it.pagopa.transactions.exceptions.NotImplementedException;
+import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import it.pagopa.transactions.utils.MongoReadPreferences;
+import it.pagopa.transactions.utils.PendingEventWrites;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
+import it.pagopa.transactions.utils.TransactionStatusChanges;
+import it.pagopa.transactions.utils.TransactionViewCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link TransactionsViewRepositoryCustom} implementation based on
+ * {@link ReactiveMongoTemplate}, picked up by Spring Data as a fragment of
+ * {@link TransactionsViewRepository}.
+ * <p>
+ * All the view writes and projected reads go through the
+ * {@link TransactionViewCache}, and view writes are notified through
+ * {@link TransactionStatusChanges}. Concurrent projected reads of the same
+ * transaction are coalesced by the {@link TransactionReadCoalescer}, and are
+ * performed with the read preference configured for {@code findProjectedById}
+ * (see {@link MongoReadPreferences})
+ */
+@Slf4j
+public class TransactionsViewRepositoryCustomImpl implements TransactionsViewRepositoryCustom {
+
+    static final String FIND_PROJECTED_BY_ID_METHOD = "findProjectedById";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final TransactionViewCache transactionViewCache;
+
+    private final TransactionStatusChanges transactionStatusChanges;
+
+    private final TransactionReadCoalescer transactionReadCoalescer;
+
+    private final MongoReadPreferences mongoReadPreferences;
+
+    @Autowired
+    public TransactionsViewRepositoryCustomImpl(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            TransactionViewCache transactionViewCache,
+            TransactionStatusChanges transactionStatusChanges,
+            TransactionReadCoalescer transactionReadCoalescer,
+            MongoReadPreferences mongoReadPreferences
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.transactionViewCache = transactionViewCache;
+        this.transactionStatusChanges = transactionStatusChanges;
+        this.transactionReadCoalescer = transactionReadCoalescer;
+        this.mongoReadPreferences = mongoReadPreferences;
+    }
+
+    @Override
+    public <S extends BaseTransactionView> Mono<S> save(S view) {
+        return reactiveMongoTemplate.save(view, reactiveMongoTemplate.getCollectionName(BaseTransactionView.class))
+                .flatMap(saved -> afterWrite(transactionIdOf(saved), saved).thenReturn(saved));
+    }
+
+    @Override
+    public Mono<BaseTransactionView> updateFields(TransactionViewUpdate update) {
+        Criteria criteria = Criteria.where("_id").is(update.transactionId());
+        if (!update.expectedStatuses().isEmpty()) {
+            criteria = criteria.and(TransactionViewUpdate.STATUS_FIELD).in(update.expectedStatuses());
+        }
+        Update mongoUpdate = new Update();
+        update.fields().forEach(
+                (
+                 field,
+                 value
+                ) -> {
+                    if (value == null) {
+                        mongoUpdate.unset(field);
+                    } else {
+                        mongoUpdate.set(field, value);
+                    }
+                }
+        );
+        return reactiveMongoTemplate.findAndModify(
+                Query.query(criteria),
+                mongoUpdate,
+                FindAndModifyOptions.options().returnNew(true),
+                BaseTransactionView.class
+        )
+                .flatMap(updated -> afterWrite(update.transactionId(), updated).thenReturn(updated))
+                .switchIfEmpty(Mono.defer(() -> updateFailure(update)));
+    }
+
+    @Override
+    public Mono<BaseTransactionView> findProjectedById(
+                                                       String transactionId,
+                                                       TransactionViewProjection projection
+    ) {
+        Query query = Query.query(Criteria.where("_id").is(transactionId));
+        // the type key is needed to read the view as the right document version
+        query.fields().include(DefaultMongoTypeMapper.DEFAULT_TYPE_KEY);
+        projection.fields().forEach(query.fields()::include);
+        TransactionViewProjection.OWNERSHIP_FIELDS.forEach(query.fields()::include);
+        return transactionReadCoalescer.view(
+                transactionId,
+                projection,
+                () -> transactionViewCache.find(
+                        transactionId,
+                        projection,
+                        knownStatus -> mongoReadPreferences.read(
+                                FIND_PROJECTED_BY_ID_METHOD,
+                                mongoOperations -> mongoOperations.findOne(query, BaseTransactionView.class),
+                                // a view whose status differs from the current version one may
+                                // have been read from a lagging secondary
+                                view -> knownStatus.map(status -> status == statusOf(view)).orElse(true)
+                        )
+                )
+        );
+    }
+
+    private Mono<Void> afterWrite(
+                                  String transactionId,
+                                  BaseTransactionView view
+    ) {
+        // status subscribers must read the view once it is cached, and reads in flight
+        // must no longer be shared by then. Within a view update performed in a
+        // multi-document transaction all of this waits for the commit
+        return PendingEventWrites.afterCommit(
+                transactionViewCache.writeThrough(view)
+                        .then(Mono.fromRunnable(() -> transactionReadCoalescer.invalidate(transactionId)))
+                        .then(Mono.defer(() -> transactionStatusChanges.publish(transactionId)))
+        );
+    }
+
+    private static String transactionIdOf(BaseTransactionView view) {
+        return switch (view) {
+            case it.pagopa.ecommerce.commons.documents.v1.Transaction t -> t.getTransactionId();
+            case it.pagopa.ecommerce.commons.documents.v2.Transaction t -> t.getTransactionId();
+            default -> throw new NotImplementedException(
+                    "Handling for transaction document: [%s] not implemented yet".formatted(view.getClass())
+            );
+        };
+    }
+
+    private static TransactionStatusDto statusOf(BaseTransactionView view) {
+        return switch (view) {
+            case it.pagopa.ecommerce.commons.documents.v1.Transaction t -> t.getStatus();
+            case it.pagopa.ecommerce.commons.documents.v2.Transaction t -> t.getStatus();
+            default -> throw new NotImplementedException(
+                    "Handling for transaction document: [%s] not implemented yet".formatted(view.getClass())
+            );
+        };
+    }
+
+    private Mono<BaseTransactionView> updateFailure(TransactionViewUpdate update) {
+        if (update.expectedStatuses().isEmpty()) {
+            return Mono.error(new TransactionNotFoundException(update.transactionId()));
+        }
+        // no document matched: tell apart a missing view from a status precondition
+        // failure with a further (and rare) lookup
+        return reactiveMongoTemplate.exists(
+                Query.query(Criteria.where("_id").is(update.transactionId())),
+                BaseTransactionView.class
+        )
+                .flatMap(exists -> {
+                    if (Boolean.TRUE.equals(exists)) {
+                        log.warn(
+                                "Transaction view for transactionId: [{}] not updated: status not in {}",
+                                update.transactionId(),
+                                update.expectedStatuses()
+                        );
+                        return Mono.error(new AlreadyProcessedException(new TransactionId(update.transactionId())));
+                    }
+                    return Mono.error(new TransactionNotFoundException(update.transactionId()));
+                });
+    }
+}
@@ -10,7 +10,6 @@ import it.pagopa.ecommerce.commons.documents.v2.Transaction;
 import it.pagopa.ecommerce.commons.domain.*;
 import it.pagopa.ecommerce.commons.domain.v1.TransactionEventCode;
 import it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.utils.UpdateTransactionStatusTracerUtils;
 import it.pagopa.generated.ecommerce.paymentmethods.v2.dto.*;
 import it.pagopa.generated.transactions.server.model.*;
@@ -24,6 +23,8 @@ import it.pagopa.transactions.commands.handlers.v2.TransactionSendClosureRequest
 import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.projections.handlers.v1.*;
 import it.pagopa.transactions.projections.handlers.v2.ClosureRequestedProjectionHandler;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import it.pagopa.transactions.utils.*;
@@ -115,12 +116,14 @@ public class TransactionsService {
     private final Integer paymentTokenValidity;
     private final EventVersion eventVersion;
 
-    private final PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper;
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper;
 
     private final ConfidentialMailUtils confidentialMailUtils;
 
     private final UpdateTransactionStatusTracerUtils updateTransactionStatusTracerUtils;
 
+    private final EventViewWrites eventViewWrites;
+
     @Autowired
     public TransactionsService(
             @Qualifier(
@@ -202,9 +205,10 @@ public class TransactionsService {
             TransactionsEventStoreRepository<Object> eventsRepository,
             @Value("${payment.token.validity}") Integer paymentTokenValidity,
             @Value("${ecommerce.event.version}") EventVersion eventVersion,
-            PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper,
+            PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper,
             ConfidentialMailUtils confidentialMailUtils,
-            UpdateTransactionStatusTracerUtils updateTransactionStatusTracerUtils
+            UpdateTransactionStatusTracerUtils updateTransactionStatusTracerUtils,
+            EventViewWrites eventViewWrites
     ) {
         this.transactionActivateHandlerV1 = transactionActivateHandlerV1;
         this.transactionActivateHandlerV2 = transactionActivateHandlerV2;
@@ -240,9 +244,10 @@ public class TransactionsService {
         this.eventsRepository = eventsRepository;
         this.paymentTokenValidity = paymentTokenValidity;
         this.eventVersion = eventVersion;
-        this.paymentRequestInfoRedisTemplateWrapper = paymentRequestInfoRedisTemplateWrapper;
+        this.paymentRequestInfoReactiveRedisTemplateWrapper = paymentRequestInfoReactiveRedisTemplateWrapper;
         this.confidentialMailUtils = confidentialMailUtils;
         this.updateTransactionStatusTracerUtils = updateTransactionStatusTracerUtils;
+        this.eventViewWrites = eventViewWrites;
     }
 
     @CircuitBreaker(name = "node-backend")
@@ -311,27 +316,28 @@ public class TransactionsService {
                             }
                     );
 
-            case V2 -> transactionActivateHandlerV2.handle(transactionActivateCommand)
-                    .doOnNext(
-                            args -> log.info(
-                                    "Transaction initialized for rptIds: {}",
-                                    transactionActivateCommand.getRptIds().stream().map(RptId::value).toList()
+            case V2 -> eventViewWrites.write(
+                    transactionActivateHandlerV2.handle(transactionActivateCommand)
+                            .doOnNext(
+                                    args -> log.info(
+                                            "Transaction initialized for rptIds: {}",
+                                            transactionActivateCommand.getRptIds().stream().map(RptId::value).toList()
+                                    )
                             )
+                            .flatMap(
+                                    es -> {
+                                        final Mono<BaseTransactionEvent<?>> transactionActivatedEvent = es
+                                                .getT1();
+                                        final String authToken = es.getT2();
+                                        return transactionActivatedEvent.map(t -> Tuples.of(t, authToken));
+                                    }
+                            ),
+                    eventWithAuthToken -> projectActivatedEventV2(
+                            (it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent) eventWithAuthToken
+                                    .getT1(),
+                            eventWithAuthToken.getT2()
                     )
-                    .flatMap(
-                            es -> {
-                                final Mono<BaseTransactionEvent<?>> transactionActivatedEvent = es
-                                        .getT1();
-                                final String authToken = es.getT2();
-                                return transactionActivatedEvent
-                                        .flatMap(
-                                                t -> projectActivatedEventV2(
-                                                        (it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent) t,
-                                                        authToken
-                                                )
-                                        );
-                            }
-                    );
+            );
 
         };
     }
@@ -343,11 +349,62 @@ public class TransactionsService {
                                                        UUID xUserId
     ) {
         log.info("Get Transaction Invoked with id {} ", transactionId);
-        return getBaseTransactionView(transactionId, xUserId)
+        return getBaseTransactionView(transactionId, xUserId, TransactionViewProjection.TRANSACTION_INFO)
                 .switchIfEmpty(Mono.error(new TransactionNotFoundException(transactionId)))
                 .map(this::buildTransactionInfoDtoFromView);
     }
 
+    @CircuitBreaker(name = "ecommerce-db")
+    @Retry(name = "getTransactionInfo")
+    public Mono<TransactionStatusInfoDto> getTransactionStatus(
+                                                               String transactionId,
+                                                               UUID xUserId
+    ) {
+        log.info("Get Transaction status Invoked with id {} ", transactionId);
+        return getBaseTransactionView(transactionId, xUserId, TransactionViewProjection.STATUS)
+                .switchIfEmpty(Mono.error(new TransactionNotFoundException(transactionId)))
+                .map(this::buildTransactionStatusInfoDtoFromView);
+    }
+
+    /**
+     * Read the current ETag of a transaction, from the view fields that can change
+     * after activation only
+     *
+     * @param transactionId the transaction id
+     * @param xUserId       the user id
+     * @return the transaction ETag, empty if the transaction is not found
+     */
+    @CircuitBreaker(name = "ecommerce-db")
+    @Retry(name = "getTransactionInfo")
+    public Mono<String> getTransactionETag(
+                                           String transactionId,
+                                           UUID xUserId
+    ) {
+        return getBaseTransactionView(transactionId, xUserId, TransactionViewProjection.VERSION)
+                .map(TransactionInfoETags::eTagOf);
+    }
+
+    private TransactionStatusInfoDto buildTransactionStatusInfoDtoFromView(BaseTransactionView baseTransactionView) {
+        return switch (baseTransactionView) {
+            case it.pagopa.ecommerce.commons.documents.v1.Transaction transaction -> new TransactionStatusInfoDto()
+                    .status(transactionsUtils.convertEnumerationV1(transaction.getStatus()))
+                    .sendPaymentResultOutcome(
+                            transaction.getSendPaymentResultOutcome() == null ? null
+                                    : TransactionStatusInfoDto.SendPaymentResultOutcomeEnum
+                                    .valueOf(transaction.getSendPaymentResultOutcome().name())
+                    );
+            case it.pagopa.ecommerce.commons.documents.v2.Transaction transaction -> new TransactionStatusInfoDto()
+                    .status(transactionsUtils.convertEnumerationV1(transaction.getStatus()))
+                    .sendPaymentResultOutcome(
+                            transaction.getSendPaymentResultOutcome() == null ? null
+                                    : TransactionStatusInfoDto.SendPaymentResultOutcomeEnum
+                                    .valueOf(transaction.getSendPaymentResultOutcome().name())
+                    )
+                    .gatewayAuthorizationStatus(transaction.getGatewayAuthorizationStatus());
+            default -> throw new IllegalStateException("Unexpected value: " + baseTransactionView);
+        };
+    }
+
     private TransactionInfoDto buildTransactionInfoDtoFromView(BaseTransactionView baseTransactionView) {
         return switch (baseTransactionView) {
             case it.pagopa.ecommerce.commons.documents.v1.Transaction transaction -> new TransactionInfoDto()
@@ -453,9 +510,11 @@ public class TransactionsService {
                                                         .handle((it.pagopa.ecommerce.commons.documents.v1.TransactionUserCanceledEvent) event));
 
                                 case it.pagopa.ecommerce.commons.documents.v2.Transaction t ->
-                                        transactionCancelHandlerV2
-                                                .handle(transactionCancelCommand).flatMap(event -> cancellationRequestProjectionHandlerV2
-                                                        .handle((it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent) event));
+                                        eventViewWrites.write(
+                                                transactionCancelHandlerV2.handle(transactionCancelCommand),
+                                                event -> cancellationRequestProjectionHandlerV2
+                                                        .handle((it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent) event)
+                                        );
                                 default ->
                                         Mono.error(new BadGatewayException("Error while processing request unexpected transaction version type", HttpStatus.BAD_GATEWAY));
                             };
@@ -705,31 +764,48 @@ public class TransactionsService {
                                                                 .handle(authorizationData)
                                                                 .thenReturn(res)
                                                 );
-                                case Transaction ignored -> requestAuthHandlerV2
-                                        .handle(transactionRequestAuthorizationCommand).doOnNext(
-                                                res -> log.info(
-                                                        "Requested authorization for transaction: {}",
-                                                        transactionDocument.getTransactionId()
-                                                )
-                                        )
-                                        .flatMap(
-                                                res -> authorizationProjectionHandlerV2
-                                                        .handle(authorizationData)
-                                                        .thenReturn(res)
-                                        );
+                                case Transaction ignored -> eventViewWrites.write(
+                                        requestAuthHandlerV2
+                                                .handle(transactionRequestAuthorizationCommand).doOnNext(
+                                                        res -> log.info(
+                                                                "Requested authorization for transaction: {}",
+                                                                transactionDocument.getTransactionId()
+                                                        )
+                                                ),
+                                        res -> authorizationProjectionHandlerV2
+                                                .handle(authorizationData)
+                                                .thenReturn(res)
+                                );
                                 default ->
                                         throw new NotImplementedException("Handling for transaction document: [%s] not implemented yet".formatted(transactionDocument.getClass()));
                             };
-                            return authPipeline.doOnSuccess(response -> transactionsUtils.getPaymentNotices(transactionDocument).forEach(paymentNotice -> {
-                                log.info("Invalidate cache for RptId : {}", paymentNotice.getRptId());
-                                paymentRequestInfoRedisTemplateWrapper.deleteById(paymentNotice.getRptId());
-                            }));
+                            return authPipeline.flatMap(response -> Flux.fromIterable(transactionsUtils.getPaymentNotices(transactionDocument))
+                                    .flatMap(paymentNotice -> {
+                                        log.info("Invalidate cache for RptId : {}", paymentNotice.getRptId());
+                                        return paymentRequestInfoReactiveRedisTemplateWrapper.deleteById(paymentNotice.getRptId());
+                                    })
+                                    .then(Mono.just(response)));
                         }
                 );
     }
 
-    private Mono<BaseTransactionView> getBaseTransactionView(String transactionId, UUID xUserId) {
-        return transactionsViewRepository.findById(transactionId)
+    private Mono<BaseTransactionView> getBaseTransactionView(
+                                                             String transactionId,
+                                                             UUID xUserId
+    ) {
+        return filterByOwner(transactionsViewRepository.findById(transactionId), xUserId);
+    }
+
+    private Mono<BaseTransactionView> getBaseTransactionView(
+                                                             String transactionId,
+                                                             UUID xUserId,
+                                                             TransactionViewProjection projection
+    ) {
+        return filterByOwner(transactionsViewRepository.findProjectedById(transactionId, projection), xUserId);
+    }
+
+    private Mono<BaseTransactionView> filterByOwner(Mono<BaseTransactionView> transactionView, UUID xUserId) {
+        return transactionView
                 .filter(transactionDocument -> switch (transactionDocument) {
                     case it.pagopa.ecommerce.commons.documents.v1.Transaction ignored -> xUserId == null;
                     case it.pagopa.ecommerce.commons.documents.v2.Transaction t ->
@@ -748,9 +824,23 @@ public class TransactionsService {
         TransactionId transactionId = new TransactionId(decodedTransactionId);
         log.info("UpdateTransactionAuthorization decoded transaction id: [{}]", transactionId.value());
 
-        Flux<BaseTransactionEvent<Object>> events = eventsRepository
-                .findByTransactionIdOrderByCreationDateAsc(transactionId.value())
-                .switchIfEmpty(Mono.error(new TransactionNotFoundException(transactionId.value())));
+        // a new loader is created for each (retried) subscription, so that retries
+        // read the event stream again
+        return Mono.defer(
+                () -> updateTransactionAuthorization(
+                        transactionId,
+                        updateAuthorizationRequestDto,
+                        transactionsUtils.aggregateLoader(transactionId)
+                )
+        );
+    }
+
+    private Mono<TransactionInfoDto> updateTransactionAuthorization(
+                                                                    TransactionId transactionId,
+                                                                    UpdateAuthorizationRequestDto updateAuthorizationRequestDto,
+                                                                    TransactionAggregateLoader aggregateLoader
+    ) {
+        Flux<BaseTransactionEvent<Object>> events = aggregateLoader.events();
 
         Mono<ZonedDateTime> authorizationRequestedCreationDate = events
                 .filter(
@@ -761,29 +851,33 @@ public class TransactionsService {
                 .map(authRequestedEvent -> ZonedDateTime.parse(authRequestedEvent.getCreationDate()))
                 .switchIfEmpty(Mono.error(new AlreadyProcessedException(transactionId)));
 
-        Mono<Tuple2<it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction, ZonedDateTime>> transactionV1 = transactionsUtils
-                .reduceEvents(
-                        events,
-                        new it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction(),
-                        it.pagopa.ecommerce.commons.domain.v1.Transaction::applyEvent,
-                        it.pagopa.ecommerce.commons.domain.v1.Transaction.class
-                )
-                .filter(t -> !(t instanceof it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction))
-                .cast(it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction.class)
-                .zipWith(authorizationRequestedCreationDate)
-                .onErrorResume(ClassCastException.class, e -> Mono.empty());
-
-        Mono<Tuple2<it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction, ZonedDateTime>> transactionV2 = transactionsUtils
-                .reduceEvents(
-                        events,
-                        new it.pagopa.ecommerce.commons.domain.v2.EmptyTransaction(),
-                        it.pagopa.ecommerce.commons.domain.v2.Transaction::applyEvent,
-                        it.pagopa.ecommerce.commons.domain.v2.Transaction.class
-                )
-                .filter(t -> !(t instanceof it.pagopa.ecommerce.commons.domain.v2.EmptyTransaction))
-                .cast(it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction.class)
-                .zipWith(authorizationRequestedCreationDate)
-                .onErrorResume(ClassCastException.class, e -> Mono.empty());
+        Mono<Tuple2<it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction, ZonedDateTime>> transactionV1 = TransactionAggregateLoader.memoize(
+                transactionsUtils
+                        .reduceEvents(
+                                events,
+                                new it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction(),
+                                it.pagopa.ecommerce.commons.domain.v1.Transaction::applyEvent,
+                                it.pagopa.ecommerce.commons.domain.v1.Transaction.class
+                        )
+                        .filter(t -> !(t instanceof it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction))
+                        .cast(it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction.class)
+                        .zipWith(authorizationRequestedCreationDate)
+                        .onErrorResume(ClassCastException.class, e -> Mono.empty())
+        );
+
+        Mono<Tuple2<it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction, ZonedDateTime>> transactionV2 = TransactionAggregateLoader.memoize(
+                transactionsUtils
+                        .reduceEvents(
+                                events,
+                                new it.pagopa.ecommerce.commons.domain.v2.EmptyTransaction(),
+                                it.pagopa.ecommerce.commons.domain.v2.Transaction::applyEvent,
+                                it.pagopa.ecommerce.commons.domain.v2.Transaction.class
+                        )
+                        .filter(t -> !(t instanceof it.pagopa.ecommerce.commons.domain.v2.EmptyTransaction))
+                        .cast(it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction.class)
+                        .zipWith(authorizationRequestedCreationDate)
+                        .onErrorResume(ClassCastException.class, e -> Mono.empty())
+        );
 
         Mono<Tuple4<String, String, Transaction.ClientId, Boolean>> txTracingDataV1 = transactionV1.map(Tuple2::getT1)
                 .map(t -> Tuples.of(
@@ -840,7 +934,8 @@ public class TransactionsService {
                         t -> this.updateTransactionAuthorizationStatusV1(
                                 t.getT1(),
                                 updateAuthorizationRequestDto,
-                                t.getT2()
+                                t.getT2(),
+                                aggregateLoader
                         )
                 );
 
@@ -849,7 +944,8 @@ public class TransactionsService {
                         t -> this.updateTransactionAuthorizationStatusV2(
                                 t.getT1(),
                                 updateAuthorizationRequestDto,
-                                t.getT2()
+                                t.getT2(),
+                                aggregateLoader
                         )
                 );
 
@@ -901,7 +997,8 @@ public class TransactionsService {
     private Mono<TransactionInfoDto> updateTransactionAuthorizationStatusV1(
                                                                             it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction transaction,
                                                                             UpdateAuthorizationRequestDto updateAuthorizationRequestDto,
-                                                                            ZonedDateTime authorizationRequestedTime
+                                                                            ZonedDateTime authorizationRequestedTime,
+                                                                            TransactionAggregateLoader aggregateLoader
     ) {
         UpdateAuthorizationStatusData updateAuthorizationStatusData = new UpdateAuthorizationStatusData(
                 transaction.getTransactionId(),
@@ -917,7 +1014,7 @@ public class TransactionsService {
         );
 
         Mono<it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction> baseTransaction = Mono.just(transaction);
-        return wasTransactionAuthorized(transaction.getTransactionId())
+        return wasTransactionAuthorized(aggregateLoader)
                 .<Either<TransactionInfoDto, Mono<BaseTransaction>>>flatMap(alreadyAuthorized -> {
                     if (Boolean.FALSE.equals(alreadyAuthorized)) {
                         return Mono.just(baseTransaction).map(Either::right);
@@ -980,7 +1077,8 @@ public class TransactionsService {
     private Mono<TransactionInfoDto> updateTransactionAuthorizationStatusV2(
                                                                             it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction transaction,
                                                                             UpdateAuthorizationRequestDto updateAuthorizationRequestDto,
-                                                                            ZonedDateTime authorizationRequestedTime
+                                                                            ZonedDateTime authorizationRequestedTime,
+                                                                            TransactionAggregateLoader aggregateLoader
     ) {
         UpdateAuthorizationStatusData updateAuthorizationStatusData = new UpdateAuthorizationStatusData(
                 transaction.getTransactionId(),
@@ -997,7 +1095,7 @@ public class TransactionsService {
 
         Mono<it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction> baseTransaction = Mono.just(transaction);
         return wasTransactionAuthorized(
-                transaction.getTransactionId()
+                aggregateLoader
         ).<Either<TransactionInfoDto, Mono<it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction>>>flatMap(
                 alreadyAuthorized -> {
                     if (Boolean.FALSE.equals(alreadyAuthorized)) {
@@ -1020,29 +1118,30 @@ public class TransactionsService {
                                 Mono::just,
                                 tx -> baseTransaction
                                         .flatMap(
-                                                t -> transactionUpdateAuthorizationHandlerV2
-                                                        .handle(transactionUpdateAuthorizationCommand)
-                                                        .doOnNext(
-                                                                authorizationStatusUpdatedEvent -> log.info(
-                                                                        "UpdateTransactionAuthorization requested for rptIds: {}",
-                                                                        transactionUpdateAuthorizationCommand
-                                                                                .getRptIds().stream().map(RptId::value)
-                                                                                .toList()
+                                                t -> eventViewWrites.write(
+                                                        transactionUpdateAuthorizationHandlerV2
+                                                                .handle(transactionUpdateAuthorizationCommand)
+                                                                .doOnNext(
+                                                                        authorizationStatusUpdatedEvent -> log.info(
+                                                                                "UpdateTransactionAuthorization requested for rptIds: {}",
+                                                                                transactionUpdateAuthorizationCommand
+                                                                                        .getRptIds().stream()
+                                                                                        .map(RptId::value)
+                                                                                        .toList()
+                                                                        )
                                                                 )
-                                                        )
-                                                        .doOnError(
-                                                                AlreadyProcessedException.class,
-                                                                exception -> log.error(
-                                                                        "UpdateTransactionAuthorization Error: requesting authorization update for transaction in state [{}]",
-                                                                        t.getStatus()
+                                                                .doOnError(
+                                                                        AlreadyProcessedException.class,
+                                                                        exception -> log.error(
+                                                                                "UpdateTransactionAuthorization Error: requesting authorization update for transaction in state [{}]",
+                                                                                t.getStatus()
+                                                                        )
                                                                 )
-                                                        )
-                                                        .cast(
-                                                                it.pagopa.ecommerce.commons.documents.v2.TransactionAuthorizationCompletedEvent.class
-                                                        )
-                                                        .flatMap(
-                                                                authorizationUpdateProjectionHandlerV2::handle
-                                                        )
+                                                                .cast(
+                                                                        it.pagopa.ecommerce.commons.documents.v2.TransactionAuthorizationCompletedEvent.class
+                                                                ),
+                                                        authorizationUpdateProjectionHandlerV2::handle
+                                                )
                                         )
 
                                         .cast(
@@ -1107,20 +1206,20 @@ public class TransactionsService {
                 transaction.getTransactionId()
         );
 
-        return transactionSendClosureRequestHandler
-                .handle(transactionClosureRequestCommand)
-                .doOnNext(
-                        closureSentRequestedEvent -> log.info(
-                                "Requested async transaction closure for rptIds: {}",
-                                transactionClosureRequestCommand.getRptIds().stream().map(RptId::value).toList()
-                        )
-                )
-                .flatMap(
-                        closureRequestedEvent -> closureRequestedProjectionHandler.handle(
-                                (it.pagopa.ecommerce.commons.documents.v2.TransactionClosureRequestedEvent) closureRequestedEvent
+        return eventViewWrites.write(
+                transactionSendClosureRequestHandler
+                        .handle(transactionClosureRequestCommand)
+                        .doOnNext(
+                                closureSentRequestedEvent -> log.info(
+                                        "Requested async transaction closure for rptIds: {}",
+                                        transactionClosureRequestCommand.getRptIds().stream().map(RptId::value).toList()
+                                )
+                        ),
+                closureRequestedEvent -> closureRequestedProjectionHandler.handle(
+                        (it.pagopa.ecommerce.commons.documents.v2.TransactionClosureRequestedEvent) closureRequestedEvent
 
-                        )
-                );
+                )
+        );
     }
 
     private TransactionInfoDto buildTransactionInfoDtoV1(
@@ -1211,7 +1310,7 @@ public class TransactionsService {
     }
 
     private Mono<Boolean> wasTransactionAuthorized(
-                                                   TransactionId transactionId
+                                                   TransactionAggregateLoader aggregateLoader
     ) {
         /*
          * @formatter:off
@@ -1226,15 +1325,13 @@ public class TransactionsService {
          * This can happen, for example, when a transaction expires before getting a payment gateway response
          * (for the EXPIRED state; if in REFUNDED that means the transaction was already refunded).
          *
+         * The search is performed on the events already loaded for the current request,
+         * avoiding a further event store query.
+         *
          * @formatter:on
          */
-        return eventsRepository
-                .findByTransactionIdAndEventCode(
-                        transactionId.value(),
-                        TransactionEventCode.TRANSACTION_AUTHORIZATION_COMPLETED_EVENT.toString()
-                )
-                .map(v -> true)
-                .switchIfEmpty(Mono.just(false));
+        return aggregateLoader
+                .hasEvent(TransactionEventCode.TRANSACTION_AUTHORIZATION_COMPLETED_EVENT.toString());
 
     }
 
@@ -1275,23 +1372,25 @@ public class TransactionsService {
                                             )
                                             .map(this::buildTransactionInfoDtoV1);
 
-                            case Transaction t -> transactionRequestUserReceiptHandlerV2
-                                    .handle(new TransactionAddUserReceiptCommand(
-                                            t.getPaymentNotices().stream().map(p -> new RptId(p.getRptId())).toList(),
-                                            new AddUserReceiptData(
-                                                    new TransactionId(transactionId),
-                                                    addUserReceiptRequest
-                                            )
-                                    ))
-                                    .doOnNext(
-                                            transactionUserReceiptRequestedEvent -> log.info(
-                                                    "AddUserReceipt [{}] for transactionId: [{}]",
-                                                    TransactionEventCode.TRANSACTION_USER_RECEIPT_REQUESTED_EVENT,
-                                                    transactionUserReceiptRequestedEvent.getTransactionId()
-                                            )
-                                    )
-                                    .flatMap(event -> transactionUserReceiptProjectionHandlerV2
-                                            .handle((it.pagopa.ecommerce.commons.documents.v2.TransactionUserReceiptRequestedEvent) event))
+                            case Transaction t -> eventViewWrites.write(
+                                    transactionRequestUserReceiptHandlerV2
+                                            .handle(new TransactionAddUserReceiptCommand(
+                                                    t.getPaymentNotices().stream().map(p -> new RptId(p.getRptId())).toList(),
+                                                    new AddUserReceiptData(
+                                                            new TransactionId(transactionId),
+                                                            addUserReceiptRequest
+                                                    )
+                                            ))
+                                            .doOnNext(
+                                                    transactionUserReceiptRequestedEvent -> log.info(
+                                                            "AddUserReceipt [{}] for transactionId: [{}]",
+                                                            TransactionEventCode.TRANSACTION_USER_RECEIPT_REQUESTED_EVENT,
+                                                            transactionUserReceiptRequestedEvent.getTransactionId()
+                                                    )
+                                            ),
+                                    event -> transactionUserReceiptProjectionHandlerV2
+                                            .handle((it.pagopa.ecommerce.commons.documents.v2.TransactionUserReceiptRequestedEvent) event)
+                            )
                                     .doOnNext(
                                             transaction -> log.info(
                                                     "AddUserReceipt transaction status updated [{}] for transactionId: [{}]",
@@ -19,8 +19,11 @@ import it.pagopa.transactions.exceptions.InvalidRequestException;
 import it.pagopa.transactions.exceptions.NotImplementedException;
 import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.projections.handlers.v2.TransactionsActivationProjectionHandler;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import it.pagopa.transactions.utils.ConfidentialMailUtils;
+import it.pagopa.transactions.utils.EventViewWrites;
+import it.pagopa.transactions.utils.TransactionInfoETags;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import it.pagopa.transactions.utils.WispDeprecation;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +31,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -49,6 +53,8 @@ public class TransactionsService {
 
     private final TransactionsViewRepository transactionsViewRepository;
 
+    private final EventViewWrites eventViewWrites;
+
     @Autowired
     public TransactionsService(
             @Qualifier(
@@ -59,13 +65,15 @@ public class TransactionsService {
             ) TransactionsActivationProjectionHandler transactionsActivationProjectionHandlerV2,
             TransactionsUtils transactionsUtils,
             ConfidentialMailUtils confidentialMailUtils,
-            TransactionsViewRepository transactionsViewRepository
+            TransactionsViewRepository transactionsViewRepository,
+            EventViewWrites eventViewWrites
     ) {
         this.transactionActivateHandlerV2 = transactionActivateHandlerV2;
         this.transactionsActivationProjectionHandlerV2 = transactionsActivationProjectionHandlerV2;
         this.transactionsUtils = transactionsUtils;
         this.confidentialMailUtils = confidentialMailUtils;
         this.transactionsViewRepository = transactionsViewRepository;
+        this.eventViewWrites = eventViewWrites;
     }
 
     @CircuitBreaker(name = "node-backend")
@@ -114,27 +122,27 @@ public class TransactionsService {
                 clientId
         );
 
-        return transactionActivateHandlerV2.handle(transactionActivateCommand)
-                .doOnNext(
-                        args -> log.info(
-                                "Transaction initialized for rptId [{}]",
-                                newTransactionRequestDto.getPaymentNotices().get(0).getRptId()
+        return eventViewWrites.write(
+                transactionActivateHandlerV2.handle(transactionActivateCommand)
+                        .doOnNext(
+                                args -> log.info(
+                                        "Transaction initialized for rptId [{}]",
+                                        newTransactionRequestDto.getPaymentNotices().get(0).getRptId()
+                                )
                         )
+                        .flatMap(
+                                es -> {
+                                    final Mono<BaseTransactionEvent<?>> transactionActivatedEvent = es
+                                            .getT1();
+                                    final String authToken = es.getT2();
+                                    return transactionActivatedEvent.map(t -> Tuples.of(t, authToken));
+                                }
+                        ),
+                eventWithAuthToken -> projectActivatedEvent(
+                        (it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent) eventWithAuthToken.getT1(),
+                        eventWithAuthToken.getT2()
                 )
-                .flatMap(
-                        es -> {
-                            final Mono<BaseTransactionEvent<?>> transactionActivatedEvent = es
-                                    .getT1();
-                            final String authToken = es.getT2();
-                            return transactionActivatedEvent
-                                    .flatMap(
-                                            t -> projectActivatedEvent(
-                                                    (it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent) t,
-                                                    authToken
-                                            )
-                                    );
-                        }
-                );
+        );
 
     }
 
@@ -216,13 +224,35 @@ public class TransactionsService {
                                                                                                         UUID xUserId
     ) {
         log.info("Get Transaction Invoked with id {} ", transactionId);
-        return getBaseTransactionView(transactionId, xUserId)
+        return getBaseTransactionView(transactionId, xUserId, TransactionViewProjection.TRANSACTION_INFO)
                 .switchIfEmpty(Mono.error(new TransactionNotFoundException(transactionId)))
                 .map(this::buildTransactionInfoDtoFromView);
     }
 
-    private Mono<BaseTransactionView> getBaseTransactionView(String transactionId, UUID xUserId) {
-        return transactionsViewRepository.findById(transactionId)
+    /**
+     * Read the current ETag of a transaction, from the view fields that can change
+     * after activation only
+     *
+     * @param transactionId the transaction id
+     * @param xUserId       the user id
+     * @return the transaction ETag, empty if the transaction is not found
+     */
+    @CircuitBreaker(name = "ecommerce-db")
+    @Retry(name = "getTransactionInfo")
+    public Mono<String> getTransactionETag(
+                                           String transactionId,
+                                           UUID xUserId
+    ) {
+        return getBaseTransactionView(transactionId, xUserId, TransactionViewProjection.VERSION)
+                .map(TransactionInfoETags::eTagOf);
+    }
+
+    private Mono<BaseTransactionView> getBaseTransactionView(
+                                                             String transactionId,
+                                                             UUID xUserId,
+                                                             TransactionViewProjection projection
+    ) {
+        return transactionsViewRepository.findProjectedById(transactionId, projection)
                 .filter(transactionDocument -> switch (transactionDocument) {
                     case it.pagopa.ecommerce.commons.documents.v1.Transaction ignored -> xUserId == null;
                     case it.pagopa.ecommerce.commons.documents.v2.Transaction t ->
@@ -11,6 +11,7 @@ import it.pagopa.transactions.commands.data.NewTransactionRequestData;
 import it.pagopa.transactions.commands.handlers.v2.TransactionActivateHandler;
 import it.pagopa.transactions.exceptions.InvalidRequestException;
 import it.pagopa.transactions.projections.handlers.v2.TransactionsActivationProjectionHandler;
+import it.pagopa.transactions.utils.EventViewWrites;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import it.pagopa.transactions.utils.WispDeprecation;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 import java.util.Objects;
 import java.util.Optional;
@@ -34,6 +36,8 @@ public class TransactionsService {
 
     private final TransactionsUtils transactionsUtils;
 
+    private final EventViewWrites eventViewWrites;
+
     @Autowired
     public TransactionsService(
             @Qualifier(
@@ -42,11 +46,13 @@ public class TransactionsService {
             @Qualifier(
                 TransactionsActivationProjectionHandler.QUALIFIER_NAME
             ) TransactionsActivationProjectionHandler transactionsActivationProjectionHandlerV2,
-            TransactionsUtils transactionsUtils
+            TransactionsUtils transactionsUtils,
+            EventViewWrites eventViewWrites
     ) {
         this.transactionActivateHandlerV2 = transactionActivateHandlerV2;
         this.transactionsActivationProjectionHandlerV2 = transactionsActivationProjectionHandlerV2;
         this.transactionsUtils = transactionsUtils;
+        this.eventViewWrites = eventViewWrites;
     }
 
     @CircuitBreaker(name = "node-backend")
@@ -95,27 +101,27 @@ public class TransactionsService {
                 clientId
         );
 
-        return transactionActivateHandlerV2.handle(transactionActivateCommand)
-                .doOnNext(
-                        args -> log.info(
-                                "Transaction initialized for rptId [{}]",
-                                newTransactionRequestDto.getPaymentNotices().get(0).getRptId()
+        return eventViewWrites.write(
+                transactionActivateHandlerV2.handle(transactionActivateCommand)
+                        .doOnNext(
+                                args -> log.info(
+                                        "Transaction initialized for rptId [{}]",
+                                        newTransactionRequestDto.getPaymentNotices().get(0).getRptId()
+                                )
                         )
+                        .flatMap(
+                                es -> {
+                                    final Mono<BaseTransactionEvent<?>> transactionActivatedEvent = es
+                                            .getT1();
+                                    final String authToken = es.getT2();
+                                    return transactionActivatedEvent.map(t -> Tuples.of(t, authToken));
+                                }
+                        ),
+                eventWithAuthToken -> projectActivatedEvent(
+                        (it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent) eventWithAuthToken.getT1(),
+                        eventWithAuthToken.getT2()
                 )
-                .flatMap(
-                        es -> {
-                            final Mono<BaseTransactionEvent<?>> transactionActivatedEvent = es
-                                    .getT1();
-                            final String authToken = es.getT2();
-                            return transactionActivatedEvent
-                                    .flatMap(
-                                            t -> projectActivatedEvent(
-                                                    (it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent) t,
-                                                    authToken
-                                            )
-                                    );
-                        }
-                );
+        );
 
     }
 
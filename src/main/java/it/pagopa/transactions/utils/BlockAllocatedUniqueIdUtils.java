@@ -0,0 +1,155 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.redis.templatewrappers.UniqueIdTemplateWrapper;
+import it.pagopa.ecommerce.commons.utils.UniqueIdUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unique id generator reserving blocks of ids from Redis instead of checking
+ * each generated id for uniqueness.
+ * <p>
+ * A shared Redis sequence is advanced by {@code blockSize} with a single
+ * {@code INCRBY} each time the local block runs out. Ids of the reserved block
+ * are then handed out locally without locking, so only one Redis round trip is
+ * needed every {@code blockSize} ids. Concurrent refills are coalesced, so a
+ * single block is reserved when many requests find the current one exhausted.
+ * <p>
+ * The sequence is seeded with the current time (in microseconds) when missing,
+ * so that ids keep increasing even if the sequence key is lost. Generated ids
+ * keep the format constraints of the ones generated by {@link UniqueIdUtils}
+ * (18 alphanumeric characters starting with {@code E}): the sequence value is
+ * encoded in base 36 and left padded with zeroes, which can never clash with
+ * legacy ids since they start with the (non-zero) millis timestamp.
+ */
+@Slf4j
+public class BlockAllocatedUniqueIdUtils extends UniqueIdUtils {
+
+    static final String SEQUENCE_KEY = "uniqueId:blockSequence";
+
+    static final String ID_PREFIX = "E";
+
+    static final int ID_LENGTH = 18;
+
+    private static final int ID_RADIX = 36;
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private final long blockSize;
+
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>(Block.EXHAUSTED);
+
+    private final SingleFlight<String, Block> blockRefills;
+
+    private final LongCounter refills;
+
+    private final DoubleHistogram refillDuration;
+
+    private static final class Block {
+
+        private static final Block EXHAUSTED = new Block(1, 0);
+
+        private final AtomicLong next;
+
+        private final long last;
+
+        private Block(
+                long first,
+                long last
+        ) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        private long nextValue() {
+            long value = next.getAndIncrement();
+            return value <= last ? value : -1;
+        }
+
+        private long remaining() {
+            return Math.max(0, last - next.get() + 1);
+        }
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param uniqueIdTemplateWrapper     wrapper used by the per-id generator
+     * @param reactiveStringRedisTemplate template used to reserve id blocks
+     * @param blockSize                   number of ids reserved with each refill
+     * @param openTelemetryMeter          meter used to record block refill metrics
+     */
+    public BlockAllocatedUniqueIdUtils(
+            UniqueIdTemplateWrapper uniqueIdTemplateWrapper,
+            ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+            long blockSize,
+            Meter openTelemetryMeter
+    ) {
+        super(uniqueIdTemplateWrapper);
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid unique id block size: [%s]".formatted(blockSize));
+        }
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.blockSize = blockSize;
+        this.blockRefills = new SingleFlight<>("uniqueid-block-refill", openTelemetryMeter);
+        this.refills = openTelemetryMeter.counterBuilder("ecommerce.uniqueid.block.refills")
+                .setDescription("Unique id blocks reserved from Redis")
+                .build();
+        this.refillDuration = openTelemetryMeter.histogramBuilder("ecommerce.uniqueid.block.refill.duration")
+                .setDescription("Time spent reserving unique id blocks from Redis")
+                .setUnit("ms")
+                .build();
+        openTelemetryMeter.gaugeBuilder("ecommerce.uniqueid.block.remaining")
+                .setDescription("Unique ids left in the current block")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(currentBlock.get().remaining()));
+    }
+
+    @Override
+    public Mono<String> generateUniqueId() {
+        return Mono.defer(() -> {
+            Block block = currentBlock.get();
+            long value = block.nextValue();
+            if (value >= 0) {
+                return Mono.just(formatId(value));
+            }
+            return refill(block).then(Mono.defer(this::generateUniqueId));
+        });
+    }
+
+    private Mono<Block> refill(Block exhausted) {
+        return blockRefills.execute(SEQUENCE_KEY, () -> {
+            Block current = currentBlock.get();
+            if (current != exhausted) {
+                // already refilled by a concurrent request
+                return Mono.just(current);
+            }
+            long startNanos = System.nanoTime();
+            return reactiveStringRedisTemplate.opsForValue()
+                    .setIfAbsent(SEQUENCE_KEY, String.valueOf(System.currentTimeMillis() * 1000))
+                    .then(reactiveStringRedisTemplate.opsForValue().increment(SEQUENCE_KEY, blockSize))
+                    .map(last -> {
+                        Block block = new Block(last - blockSize + 1, last);
+                        currentBlock.set(block);
+                        refills.add(1);
+                        refillDuration.record(Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+                        log.debug("Reserved unique id block: [{}, {}]", last - blockSize + 1, last);
+                        return block;
+                    });
+        });
+    }
+
+    static String formatId(long value) {
+        String encoded = Long.toString(value, ID_RADIX).toUpperCase(Locale.ROOT);
+        return ID_PREFIX + "0".repeat(ID_LENGTH - ID_PREFIX.length() - encoded.length()) + encoded;
+    }
+}
@@ -0,0 +1,344 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.domain.TransactionId;
+import it.pagopa.transactions.repositories.TransactionEventsSnapshot;
+import it.pagopa.transactions.repositories.TransactionEventsSnapshotRepository;
+import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Event stream loader backed by snapshots of the transaction event store.
+ * <p>
+ * Domain aggregates are built by folding events and are not persistable as
+ * such, so a snapshot stores the events the aggregate state depends on into a
+ * single document. Loading a transaction then costs a single document lookup
+ * plus a query for the events newer than the snapshot, regardless of how long
+ * the event stream has grown (e.g. for transactions going through closure
+ * retries).
+ * <p>
+ * Snapshots are compacted before being written: events left unapplied by both
+ * the v1 and v2 domain models (i.e. events the aggregate folds ignore, such as
+ * repeated retry events) are dropped, so that the snapshot document size is
+ * bounded by the number of transaction state transitions instead of growing
+ * with the event stream. Events within the clock skew margin of the last
+ * snapshot event are always kept, since they are used to discard the events
+ * already part of the snapshot when querying newer ones.
+ * <p>
+ * A snapshot is (re)written after one of the configured transitions, when
+ * enough events have been appended since the previous snapshot. Snapshots taken
+ * with a different snapshot format or domain model version are ignored and
+ * rebuilt from the full event stream. The domain model version must be
+ * explicitly configured: snapshots cannot be enabled without it, since
+ * snapshots compacted with a domain model could otherwise be folded with a
+ * different one.
+ * <p>
+ * Event creation dates are set by the writing service, so an event may be
+ * appended after a snapshot has been taken while carrying an earlier creation
+ * date (e.g. because of clock skew among services). Newer events are therefore
+ * queried starting from the last snapshot event creation date minus the
+ * configured clock skew margin, discarding the events already part of the
+ * snapshot by id, and merged into the snapshot events by creation date as done
+ * by the event store query. This assumes that an event is never appended with a
+ * creation date older than the last snapshot event one by more than the margin:
+ * such an event would be missed by snapshot loads until the snapshot is
+ * rebuilt.
+ */
+@Slf4j
+@Component
+public class EventStoreSnapshots {
+
+    /**
+     * Version of the snapshot format, to be increased for incompatible changes
+     */
+    static final int SNAPSHOT_VERSION = 2;
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private static final Attributes HIT_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "hit");
+
+    private static final Attributes MISS_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "miss");
+
+    private static final Attributes OUTDATED_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "outdated");
+
+    private final TransactionsEventStoreRepository<Object> eventStoreRepository;
+
+    private final TransactionEventsSnapshotRepository snapshotRepository;
+
+    private final boolean enabled;
+
+    private final Set<String> snapshotEventCodes;
+
+    private final int minNewEvents;
+
+    private final Duration clockSkewMargin;
+
+    private final String domainVersion;
+
+    private final LongCounter loads;
+
+    private final LongCounter saves;
+
+    private final LongHistogram eventsRead;
+
+    private record LoadedEvents(
+            List<BaseTransactionEvent<Object>> events,
+            int newEvents,
+            boolean outdatedSnapshot
+    ) {
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param eventStoreRepository  the event store repository
+     * @param snapshotRepository    the snapshot repository
+     * @param enabled               whether snapshots are used
+     * @param snapshotEventCodes    event codes after which a snapshot is taken
+     * @param minNewEvents          min number of events appended since the last
+     *                              snapshot for a new one to be taken
+     * @param clockSkewMarginMillis max clock skew among event writers, tolerated
+     *                              when querying events newer than a snapshot
+     * @param domainVersion         version of the domain model snapshots are taken
+     *                              with, required if snapshots are enabled
+     * @param openTelemetryMeter    meter used to record snapshot metrics
+     */
+    @Autowired
+    public EventStoreSnapshots(
+            TransactionsEventStoreRepository<Object> eventStoreRepository,
+            TransactionEventsSnapshotRepository snapshotRepository,
+            @Value("${eventStore.snapshots.enabled}") boolean enabled,
+            @Value("${eventStore.snapshots.eventCodes}") Set<String> snapshotEventCodes,
+            @Value("${eventStore.snapshots.minNewEvents}") int minNewEvents,
+            @Value("${eventStore.snapshots.clockSkewMarginMillis}") long clockSkewMarginMillis,
+            @Value("${eventStore.snapshots.domainVersion}") String domainVersion,
+            Meter openTelemetryMeter
+    ) {
+        if (enabled && (domainVersion == null || domainVersion.isBlank() || domainVersion.contains("@"))) {
+            throw new IllegalArgumentException(
+                    "Invalid event store snapshots domain version: [%s]".formatted(domainVersion)
+            );
+        }
+        this.eventStoreRepository = eventStoreRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.enabled = enabled;
+        this.snapshotEventCodes = snapshotEventCodes;
+        this.minNewEvents = minNewEvents;
+        this.clockSkewMargin = Duration.ofMillis(clockSkewMarginMillis);
+        this.domainVersion = domainVersion;
+        this.loads = openTelemetryMeter.counterBuilder("ecommerce.eventstore.snapshots.loads")
+                .setDescription("Event stream loads, by snapshot lookup result")
+                .build();
+        this.saves = openTelemetryMeter.counterBuilder("ecommerce.eventstore.snapshots.saved")
+                .setDescription("Event store snapshots written")
+                .build();
+        this.eventsRead = openTelemetryMeter.histogramBuilder("ecommerce.eventstore.snapshots.events.read")
+                .setDescription("Events read from the event store for each event stream load")
+                .ofLongs()
+                .build();
+    }
+
+    /**
+     * Whether event streams are loaded from snapshots
+     *
+     * @return true iff snapshots are enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load the event stream of the given transaction, ordered by creation date,
+     * from its snapshot (if any) and the events appended after it. A new snapshot
+     * is written when the stream ends with one of the configured transitions.
+     *
+     * @param transactionId the transaction id
+     * @return the transaction events
+     */
+    public Flux<BaseTransactionEvent<Object>> loadEvents(TransactionId transactionId) {
+        return snapshotRepository.findById(transactionId.value())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(snapshot -> loadEvents(transactionId, snapshot))
+                .flatMap(
+                        loadedEvents -> saveSnapshotIfNeeded(transactionId, loadedEvents)
+                                .thenReturn(loadedEvents.events())
+                )
+                .flatMapIterable(events -> events);
+    }
+
+    private Mono<LoadedEvents> loadEvents(
+                                          TransactionId transactionId,
+                                          Optional<TransactionEventsSnapshot> snapshot
+    ) {
+        Optional<TransactionEventsSnapshot> validSnapshot = snapshot.filter(this::isUpToDate);
+        if (validSnapshot.isEmpty()) {
+            loads.add(1, snapshot.isPresent() ? OUTDATED_ATTRIBUTES : MISS_ATTRIBUTES);
+            return eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(transactionId.value())
+                    .collectList()
+                    .doOnNext(events -> eventsRead.record(events.size()))
+                    .map(events -> new LoadedEvents(events, events.size(), snapshot.isPresent()));
+        }
+        TransactionEventsSnapshot currentSnapshot = validSnapshot.get();
+        Optional<String> newEventsFrom = newEventsFrom(currentSnapshot);
+        if (newEventsFrom.isEmpty()) {
+            loads.add(1, OUTDATED_ATTRIBUTES);
+            return eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(transactionId.value())
+                    .collectList()
+                    .doOnNext(events -> eventsRead.record(events.size()))
+                    .map(events -> new LoadedEvents(events, events.size(), true));
+        }
+        loads.add(1, HIT_ATTRIBUTES);
+        Set<String> snapshotEventIds = currentSnapshot.events().stream()
+                .map(BaseTransactionEvent::getId)
+                .collect(Collectors.toSet());
+        return eventStoreRepository
+                .findByTransactionIdAndCreationDateGreaterThanEqualOrderByCreationDateAsc(
+                        transactionId.value(),
+                        newEventsFrom.get()
+                )
+                // events created within the clock skew margin may already be part of the
+                // snapshot
+                .filter(event -> !snapshotEventIds.contains(event.getId()))
+                .collectList()
+                .map(newEvents -> {
+                    eventsRead.record(newEvents.size());
+                    List<BaseTransactionEvent<Object>> events = new ArrayList<>(currentSnapshot.events());
+                    events.addAll(newEvents);
+                    // stable sort: late events created before the last snapshot event are placed
+                    // as in the event store order, while snapshot events keep their order
+                    events.sort(Comparator.comparing(BaseTransactionEvent::getCreationDate));
+                    return new LoadedEvents(events, newEvents.size(), false);
+                });
+    }
+
+    /**
+     * Creation date events newer than the given snapshot are queried from, empty if
+     * the snapshot last event creation date cannot be parsed
+     */
+    private Optional<String> newEventsFrom(TransactionEventsSnapshot snapshot) {
+        try {
+            return Optional.of(
+                    ZonedDateTime.parse(snapshot.lastEventCreationDate()).minus(clockSkewMargin).toString()
+            );
+        } catch (DateTimeParseException e) {
+            log.warn(
+                    "Invalid last event creation date in snapshot for transactionId: [{}]: [{}]",
+                    snapshot.transactionId(),
+                    snapshot.lastEventCreationDate()
+            );
+            return Optional.empty();
+        }
+    }
+
+    private boolean isUpToDate(TransactionEventsSnapshot snapshot) {
+        return snapshot.snapshotVersion() == SNAPSHOT_VERSION && domainVersion.equals(snapshot.domainVersion());
+    }
+
+    private Mono<Void> saveSnapshotIfNeeded(
+                                            TransactionId transactionId,
+                                            LoadedEvents loadedEvents
+    ) {
+        List<BaseTransactionEvent<Object>> events = loadedEvents.events();
+        if (events.isEmpty() || loadedEvents.newEvents() == 0) {
+            return Mono.empty();
+        }
+        BaseTransactionEvent<Object> lastEvent = events.get(events.size() - 1);
+        boolean snapshotTransition = snapshotEventCodes.contains(lastEvent.getEventCode())
+                && loadedEvents.newEvents() >= minNewEvents;
+        if (!snapshotTransition && !loadedEvents.outdatedSnapshot()) {
+            return Mono.empty();
+        }
+        List<BaseTransactionEvent<Object>> snapshotEvents = compact(events, lastEvent.getCreationDate());
+        return snapshotRepository.save(
+                new TransactionEventsSnapshot(
+                        transactionId.value(),
+                        SNAPSHOT_VERSION,
+                        domainVersion,
+                        lastEvent.getCreationDate(),
+                        snapshotEvents
+                )
+        )
+                .doOnNext(snapshot -> {
+                    saves.add(1);
+                    log.debug(
+                            "Saved event store snapshot for transactionId: [{}] with [{}] out of [{}] events",
+                            transactionId.value(),
+                            snapshotEvents.size(),
+                            events.size()
+                    );
+                })
+                .onErrorResume(exception -> {
+                    // snapshots are an optimization only: the event store is still the source of
+                    // truth, so a failed write must not fail the command
+                    log.warn(
+                            "Error saving event store snapshot for transactionId: [%s]"
+                                    .formatted(transactionId.value()),
+                            exception
+                    );
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Drop the events that change neither the v1 nor the v2 aggregate, keeping the
+     * ones within the clock skew margin of the last event
+     */
+    private List<BaseTransactionEvent<Object>> compact(
+                                                       List<BaseTransactionEvent<Object>> events,
+                                                       String lastEventCreationDate
+    ) {
+        ZonedDateTime keepFrom;
+        try {
+            keepFrom = ZonedDateTime.parse(lastEventCreationDate).minus(clockSkewMargin);
+        } catch (DateTimeParseException e) {
+            return events;
+        }
+        List<BaseTransactionEvent<Object>> compacted = new ArrayList<>(events.size());
+        it.pagopa.ecommerce.commons.domain.v1.Transaction transactionV1 = new it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction();
+        it.pagopa.ecommerce.commons.domain.v2.Transaction transactionV2 = new it.pagopa.ecommerce.commons.domain.v2.EmptyTransaction();
+        for (BaseTransactionEvent<Object> event : events) {
+            it.pagopa.ecommerce.commons.domain.v1.Transaction nextTransactionV1 = transactionV1.applyEvent(event);
+            it.pagopa.ecommerce.commons.domain.v2.Transaction nextTransactionV2 = transactionV2.applyEvent(event);
+            boolean stateChanged = nextTransactionV1 != transactionV1 || nextTransactionV2 != transactionV2;
+            if (stateChanged || !isCreatedBefore(event, keepFrom)) {
+                compacted.add(event);
+            }
+            transactionV1 = nextTransactionV1;
+            transactionV2 = nextTransactionV2;
+        }
+        return compacted;
+    }
+
+    private static boolean isCreatedBefore(
+                                           BaseTransactionEvent<Object> event,
+                                           ZonedDateTime dateTime
+    ) {
+        try {
+            return ZonedDateTime.parse(event.getCreationDate()).isBefore(dateTime);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package it.pagopa.transactions.utils;
+
+import com.mongodb.MongoException;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Write of the events generated by a command together with the resulting
+ * transaction view update.
+ * <p>
+ * By default ({@link Mode#SEQUENTIAL}) command handlers save their events and
+ * the projection handler updates the view afterwards, with two sequential Mongo
+ * writes for each state transition. In the combined write modes the event store
+ * and queue outbox writes performed by the command handler are deferred (see
+ * {@link PendingEventWrites}) and performed together with the view update:
+ * <ul>
+ * <li>{@link Mode#TRANSACTION}: events, outbox messages and view are written in
+ * a single multi-document transaction. If any write fails nothing is persisted,
+ * so an event is never stored without its view update, and vice versa. This
+ * includes view update preconditions: a transition rejected with
+ * {@link it.pagopa.transactions.exceptions.AlreadyProcessedException} by the
+ * projection does not leave its event in the event store. Transactions aborted
+ * with a transient transaction error are retried once. The post-write actions
+ * of the view update (cache write-through and status change notifications) are
+ * deferred until the transaction commits, so that no reader is handed a view
+ * that may still be rolled back (see {@link PendingEventWrites#afterCommit}).
+ * Requires a deployment supporting multi-document transactions spanning the
+ * event store, outbox and view collections</li>
+ * <li>{@link Mode#CONCURRENT}: events (and then outbox messages) are written
+ * concurrently with the view update, so that the view update does not wait for
+ * the event write. Writes are not atomic: a view update failure leaves the
+ * event stored, as in sequential mode, while an event write failure after the
+ * view has been updated leaves the view ahead of the event store. The request
+ * fails in both cases</li>
+ * </ul>
+ * If the command pipeline fails or completes without an event to be projected,
+ * the deferred writes are performed on their own before propagating the
+ * outcome, as the command handler would have done.
+ * <p>
+ * Since queue messages sent before the combined write would be visible to
+ * consumers before their event, combined write modes require the queue outbox
+ * to be enabled: outbox messages are deferred too and relayed only once
+ * written.
+ * <p>
+ * Once the combined write terminates, the reads of the written transactions in
+ * flight are no longer shared (see {@link TransactionReadCoalescer}).
+ */
+@Slf4j
+@Component
+public class EventViewWrites {
+
+    /**
+     * Event and view write modes
+     */
+    public enum Mode {
+        /**
+         * Events are written by command handlers, then the view is updated
+         */
+        SEQUENTIAL,
+        /**
+         * Events and view are written concurrently
+         */
+        CONCURRENT,
+        /**
+         * Events and view are written in a single multi-document transaction
+         */
+        TRANSACTION
+    }
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final Mode mode;
+
+    private final TransactionReadCoalescer transactionReadCoalescer;
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveMongoTemplate    the Mongo template deferred writes are
+     *                                 performed with
+     * @param mode                     the event and view write mode
+     * @param queueOutboxEnabled       whether queue messages are written to the
+     *                                 outbox
+     * @param transactionReadCoalescer the coalescer of the transaction reads
+     *                                 invalidated by the deferred writes
+     */
+    @Autowired
+    public EventViewWrites(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("${eventStore.viewWrites.mode}") Mode mode,
+            @Value("${azurestorage.queues.outbox.enabled}") boolean queueOutboxEnabled,
+            TransactionReadCoalescer transactionReadCoalescer
+    ) {
+        this(
+                reactiveMongoTemplate,
+                mode == Mode.TRANSACTION
+                        ? TransactionalOperator.create(
+                                new ReactiveMongoTransactionManager(reactiveMongoTemplate.getMongoDatabaseFactory())
+                        )
+                        : null,
+                mode,
+                queueOutboxEnabled,
+                transactionReadCoalescer
+        );
+    }
+
+    EventViewWrites(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            TransactionalOperator transactionalOperator,
+            Mode mode,
+            boolean queueOutboxEnabled,
+            TransactionReadCoalescer transactionReadCoalescer
+    ) {
+        if (mode != Mode.SEQUENTIAL && !queueOutboxEnabled) {
+            throw new IllegalStateException(
+                    "Event and view write mode [%s] requires the queue outbox to be enabled".formatted(mode)
+            );
+        }
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.transactionalOperator = transactionalOperator;
+        this.mode = mode;
+        this.transactionReadCoalescer = transactionReadCoalescer;
+        log.info("Event and view write mode: [{}]", mode);
+    }
+
+    /**
+     * Run a command pipeline and project its event onto the transaction view,
+     * combining the event store and view writes according to the configured mode
+     *
+     * @param command    the command pipeline, returning the event to be projected
+     * @param projection the projection of the event onto the transaction view
+     * @param <E>        the command pipeline result type
+     * @param <R>        the projection result type
+     * @return the projection result
+     */
+    public <E, R> Mono<R> write(
+                                Mono<E> command,
+                                Function<? super E, ? extends Mono<R>> projection
+    ) {
+        if (mode == Mode.SEQUENTIAL) {
+            return command.flatMap(projection);
+        }
+        return Mono.defer(() -> {
+            PendingEventWrites pendingWrites = new PendingEventWrites();
+            return command
+                    .contextWrite(pendingWrites::bindTo)
+                    .onErrorResume(exception -> writePending(pendingWrites).then(Mono.error(exception)))
+                    .switchIfEmpty(Mono.defer(() -> writePending(pendingWrites).then(Mono.empty())))
+                    .flatMap(
+                            result -> combine(pendingWrites, Mono.defer(() -> projection.apply(result)))
+                    )
+                    .doOnTerminate(() -> invalidateReads(pendingWrites));
+        });
+    }
+
+    private <R> Mono<R> combine(
+                                PendingEventWrites pendingWrites,
+                                Mono<R> viewWrite
+    ) {
+        if (mode == Mode.CONCURRENT) {
+            return Mono.zipDelayError(writePending(pendingWrites).thenReturn(Boolean.TRUE), viewWrite)
+                    .map(Tuple2::getT2);
+        }
+        // the context is bound again by each attempt, discarding the actions of aborted
+        // ones
+        Mono<R> committed = transactionalOperator
+                .transactional(
+                        writePending(pendingWrites).then(viewWrite.contextWrite(pendingWrites::bindAfterCommitTo))
+                )
+                .retryWhen(Retry.max(1).filter(EventViewWrites::isTransientTransactionError));
+        return committed
+                .flatMap(result -> pendingWrites.runAfterCommitActions().thenReturn(result))
+                .switchIfEmpty(Mono.defer(() -> pendingWrites.runAfterCommitActions().then(Mono.empty())));
+    }
+
+    private void invalidateReads(PendingEventWrites pendingWrites) {
+        pendingWrites.events().stream()
+                .filter(BaseTransactionEvent.class::isInstance)
+                .map(event -> ((BaseTransactionEvent<?>) event).getTransactionId())
+                .distinct()
+                .forEach(transactionReadCoalescer::invalidate);
+    }
+
+    private Mono<Void> writePending(PendingEventWrites pendingWrites) {
+        // events first, so that an outbox message is never relayed before its event
+        return Mono.defer(() -> insertAll(pendingWrites.events(), BaseTransactionEvent.class))
+                .then(Mono.defer(() -> insertAll(pendingWrites.outboxMessages(), QueueOutboxMessage.class)));
+    }
+
+    private Mono<Void> insertAll(
+                                 List<Object> documents,
+                                 Class<?> documentClass
+    ) {
+        if (documents.isEmpty()) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.insert(documents, reactiveMongoTemplate.getCollectionName(documentClass))
+                .then();
+    }
+
+    static boolean isTransientTransactionError(Throwable exception) {
+        // driver exceptions may be wrapped by the Spring Data exception translation
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
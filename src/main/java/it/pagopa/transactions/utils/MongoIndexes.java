@@ -0,0 +1,450 @@
+package it.pagopa.transactions.utils;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Provisioning and verification of the indexes backing the hot Mongo queries.
+ * <p>
+ * Once the application is ready, the indexes the event store and queue outbox
+ * queries rely on are verified and the query plan of each hot query is checked:
+ * a missing index or a query planned as a collection scan (e.g. because an
+ * index has been dropped) is reported as unhealthy by
+ * {@link MongoIndexesHealthIndicator}. Missing indexes are only created when
+ * provisioning is explicitly enabled, and the queue outbox index and query are
+ * only required when the queue outbox is enabled.
+ * <p>
+ * Transaction views are looked up by {@code _id}, which is always indexed, so
+ * only their query plan is verified. Indexes already present with the same
+ * leading keys under a different name are considered as satisfying the
+ * requirement and are left untouched.
+ * <p>
+ * Provisioning runs in background so that application startup does not depend
+ * on Mongo availability: until it completes no status is available, and it is
+ * retried a few times on errors.
+ */
+@Slf4j
+@Component
+public class MongoIndexes {
+
+    private static final String TRANSACTION_ID_FIELD = "transactionId";
+
+    private static final String CREATION_DATE_FIELD = "creationDate";
+
+    private static final String EVENT_CODE_FIELD = "eventCode";
+
+    private static final String NEXT_ATTEMPT_AT_FIELD = "nextAttemptAt";
+
+    private static final String COLLECTION_SCAN_STAGE = "COLLSCAN";
+
+    /**
+     * Placeholder values used to plan hot queries, never expected to match any
+     * document
+     */
+    private static final String SAMPLE_TRANSACTION_ID = "00000000000000000000000000000000";
+
+    private static final String SAMPLE_EVENT_CODE = "TRANSACTION_AUTHORIZATION_COMPLETED_EVENT";
+
+    private static final int MAX_RETRIES = 5;
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    /**
+     * Index required by the hot queries
+     *
+     * @param documentClass the class of the documents stored in the indexed
+     *                      collection
+     * @param index         the index definition
+     */
+    record RequiredIndex(
+            Class<?> documentClass,
+            Index index
+    ) {
+    }
+
+    /**
+     * Hot query whose plan is verified
+     *
+     * @param name          the query name, as per the repository method
+     * @param documentClass the class of the documents stored in the queried
+     *                      collection
+     * @param filter        the query filter
+     * @param sort          the query sort
+     */
+    record HotQuery(
+            String name,
+            Class<?> documentClass,
+            Document filter,
+            Document sort
+    ) {
+    }
+
+    /**
+     * Provisioning outcome of a required index
+     */
+    public enum IndexState {
+        /**
+         * An index with the required keys was already present
+         */
+        PRESENT,
+        /**
+         * The index has been created
+         */
+        CREATED,
+        /**
+         * The index is missing and provisioning is disabled
+         */
+        MISSING
+    }
+
+    /**
+     * Status of a required index
+     *
+     * @param collection the indexed collection
+     * @param keys       the index keys
+     * @param state      the provisioning outcome
+     */
+    public record IndexStatus(
+            String collection,
+            List<String> keys,
+            IndexState state
+    ) {
+    }
+
+    /**
+     * Query plan of a hot query
+     *
+     * @param query          the query name
+     * @param collection     the queried collection
+     * @param stages         the stages of the winning plan, outermost first
+     * @param collectionScan whether the query is planned as a collection scan
+     */
+    public record QueryPlanStatus(
+            String query,
+            String collection,
+            List<String> stages,
+            boolean collectionScan
+    ) {
+    }
+
+    /**
+     * Outcome of index provisioning and verification
+     *
+     * @param verifiedAt when the verification has been performed
+     * @param indexes    the required indexes status
+     * @param queryPlans the hot query plans
+     */
+    public record Status(
+            Instant verifiedAt,
+            List<IndexStatus> indexes,
+            List<QueryPlanStatus> queryPlans
+    ) {
+        /**
+         * Whether all required indexes are present and no hot query is planned as a
+         * collection scan
+         *
+         * @return true if the indexes status is healthy
+         */
+        public boolean healthy() {
+            return indexes.stream().noneMatch(index -> index.state() == IndexState.MISSING)
+                    && queryPlans.stream().noneMatch(QueryPlanStatus::collectionScan);
+        }
+    }
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final boolean provisioningEnabled;
+
+    private final List<RequiredIndex> requiredIndexes;
+
+    private final List<HotQuery> hotQueries;
+
+    private final AtomicReference<Status> status = new AtomicReference<>();
+
+    private final AtomicReference<Throwable> verificationError = new AtomicReference<>();
+
+    private Disposable verification;
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveMongoTemplate the Mongo template indexes are managed with
+     * @param provisioningEnabled   whether missing indexes are created
+     * @param queueOutboxEnabled    whether the queue outbox is enabled, and so its
+     *                              index is required
+     */
+    @Autowired
+    public MongoIndexes(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("${mongo.indexes.provisioning.enabled}") boolean provisioningEnabled,
+            @Value("${azurestorage.queues.outbox.enabled}") boolean queueOutboxEnabled
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.provisioningEnabled = provisioningEnabled;
+        List<RequiredIndex> indexes = new ArrayList<>(
+                List.of(
+                        new RequiredIndex(
+                                BaseTransactionEvent.class,
+                                new Index().on(TRANSACTION_ID_FIELD, Sort.Direction.ASC)
+                                        .on(CREATION_DATE_FIELD, Sort.Direction.ASC)
+                                        .named("transactionId_1_creationDate_1")
+                        ),
+                        new RequiredIndex(
+                                BaseTransactionEvent.class,
+                                new Index().on(TRANSACTION_ID_FIELD, Sort.Direction.ASC)
+                                        .on(EVENT_CODE_FIELD, Sort.Direction.ASC)
+                                        .named("transactionId_1_eventCode_1")
+                        )
+                )
+        );
+        List<HotQuery> queries = new ArrayList<>(
+                List.of(
+                        new HotQuery(
+                                "findByTransactionIdOrderByCreationDateAsc",
+                                BaseTransactionEvent.class,
+                                new Document(TRANSACTION_ID_FIELD, SAMPLE_TRANSACTION_ID),
+                                new Document(CREATION_DATE_FIELD, 1)
+                        ),
+                        new HotQuery(
+                                "findByTransactionIdAndEventCode",
+                                BaseTransactionEvent.class,
+                                new Document(TRANSACTION_ID_FIELD, SAMPLE_TRANSACTION_ID)
+                                        .append(EVENT_CODE_FIELD, SAMPLE_EVENT_CODE),
+                                new Document()
+                        ),
+                        new HotQuery(
+                                "findByTransactionIdAndCreationDateGreaterThanEqualOrderByCreationDateAsc",
+                                BaseTransactionEvent.class,
+                                new Document(TRANSACTION_ID_FIELD, SAMPLE_TRANSACTION_ID)
+                                        .append(CREATION_DATE_FIELD, new Document("$gte", Instant.EPOCH.toString())),
+                                new Document(CREATION_DATE_FIELD, 1)
+                        ),
+                        new HotQuery(
+                                "findByTransactionId",
+                                BaseTransactionView.class,
+                                new Document("_id", SAMPLE_TRANSACTION_ID),
+                                new Document()
+                        )
+                )
+        );
+        if (queueOutboxEnabled) {
+            indexes.add(
+                    new RequiredIndex(
+                            QueueOutboxMessage.class,
+                            new Index().on(NEXT_ATTEMPT_AT_FIELD, Sort.Direction.ASC)
+                                    .named("nextAttemptAt_1")
+                    )
+            );
+            queries.add(
+                    new HotQuery(
+                            "claimPending",
+                            QueueOutboxMessage.class,
+                            new Document(NEXT_ATTEMPT_AT_FIELD, new Document("$lte", Date.from(Instant.EPOCH))),
+                            new Document(NEXT_ATTEMPT_AT_FIELD, 1)
+                    )
+            );
+        }
+        this.requiredIndexes = List.copyOf(indexes);
+        this.hotQueries = List.copyOf(queries);
+    }
+
+    /**
+     * Start index provisioning and verification in background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        verification = provisionAndVerify()
+                .doOnError(
+                        exception -> log.warn(
+                                "Error provisioning or verifying Mongo indexes, retrying in {}",
+                                RETRY_DELAY,
+                                exception
+                        )
+                )
+                .retryWhen(Retry.fixedDelay(MAX_RETRIES, RETRY_DELAY))
+                .subscribe(
+                        status -> {
+                        },
+                        exception -> {
+                            log.error("Mongo indexes could not be provisioned or verified", exception);
+                            verificationError.set(exception);
+                        }
+                );
+    }
+
+    @PreDestroy
+    void stop() {
+        if (verification != null) {
+            verification.dispose();
+        }
+    }
+
+    /**
+     * Latest indexes status
+     *
+     * @return the latest indexes status, empty if no verification has completed yet
+     */
+    public Optional<Status> status() {
+        return Optional.ofNullable(status.get());
+    }
+
+    /**
+     * Error that made provisioning and verification give up, if any
+     *
+     * @return the verification error
+     */
+    public Optional<Throwable> verificationError() {
+        return Optional.ofNullable(verificationError.get());
+    }
+
+    /**
+     * Provision the required indexes and verify the hot query plans
+     *
+     * @return the resulting indexes status
+     */
+    Mono<Status> provisionAndVerify() {
+        // indexes are provisioned before planning queries, so that plans reflect them
+        return Flux.fromIterable(requiredIndexes)
+                .concatMap(this::provision)
+                .collectList()
+                .zipWhen(indexes -> Flux.fromIterable(hotQueries).concatMap(this::explain).collectList())
+                .map(statuses -> new Status(Instant.now(), statuses.getT1(), statuses.getT2()))
+                .doOnNext(this::report);
+    }
+
+    private Mono<IndexStatus> provision(RequiredIndex requiredIndex) {
+        String collection = reactiveMongoTemplate.getCollectionName(requiredIndex.documentClass());
+        List<String> keys = List.copyOf(requiredIndex.index().getIndexKeys().keySet());
+        return reactiveMongoTemplate.indexOps(collection).getIndexInfo()
+                .any(indexInfo -> isCoveredBy(keys, indexInfo))
+                .flatMap(present -> {
+                    if (Boolean.TRUE.equals(present)) {
+                        return Mono.just(new IndexStatus(collection, keys, IndexState.PRESENT));
+                    }
+                    if (!provisioningEnabled) {
+                        return Mono.just(new IndexStatus(collection, keys, IndexState.MISSING));
+                    }
+                    log.info("Creating index {} on collection [{}]", keys, collection);
+                    return reactiveMongoTemplate.indexOps(collection).ensureIndex(requiredIndex.index())
+                            .thenReturn(new IndexStatus(collection, keys, IndexState.CREATED));
+                });
+    }
+
+    private Mono<QueryPlanStatus> explain(HotQuery hotQuery) {
+        String collection = reactiveMongoTemplate.getCollectionName(hotQuery.documentClass());
+        return reactiveMongoTemplate.getCollection(collection)
+                .flatMap(
+                        mongoCollection -> Mono.from(
+                                mongoCollection.find(hotQuery.filter())
+                                        .sort(hotQuery.sort())
+                                        .limit(1)
+                                        .explain(Document.class)
+                        )
+                )
+                .map(explain -> {
+                    Object queryPlanner = explain.get("queryPlanner");
+                    Object winningPlan = queryPlanner instanceof Document planner ? planner.get("winningPlan") : null;
+                    List<String> stages = planStages(winningPlan);
+                    return new QueryPlanStatus(
+                            hotQuery.name(),
+                            collection,
+                            stages,
+                            stages.contains(COLLECTION_SCAN_STAGE)
+                    );
+                });
+    }
+
+    private void report(Status verifiedStatus) {
+        status.set(verifiedStatus);
+        verificationError.set(null);
+        verifiedStatus.indexes().stream().filter(index -> index.state() == IndexState.MISSING).forEach(
+                index -> log.error("Missing index {} on collection [{}]", index.keys(), index.collection())
+        );
+        verifiedStatus.queryPlans().stream().filter(QueryPlanStatus::collectionScan).forEach(
+                plan -> log.error(
+                        "Query [{}] on collection [{}] is planned as a collection scan: {}",
+                        plan.query(),
+                        plan.collection(),
+                        plan.stages()
+                )
+        );
+        if (verifiedStatus.healthy()) {
+            log.info("Mongo indexes verified: {}", verifiedStatus);
+        }
+    }
+
+    /**
+     * Whether an existing index can serve queries on the input keys, i.e. the input
+     * keys are a prefix of the index keys. Partial indexes are not considered,
+     * since they may not cover all documents
+     */
+    static boolean isCoveredBy(
+                               List<String> keys,
+                               IndexInfo indexInfo
+    ) {
+        List<IndexField> indexFields = indexInfo.getIndexFields();
+        if (indexInfo.getPartialFilterExpression() != null || indexFields.size() < keys.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            IndexField indexField = indexFields.get(i);
+            if (!keys.get(i).equals(indexField.getKey()) || indexField.isHashed() || indexField.isGeo()
+                    || indexField.isText() || indexField.isWildcard()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stages of an explained query plan, outermost first. Nested plans (input
+     * stages, sharded plans) are visited depth first
+     */
+    static List<String> planStages(Object plan) {
+        List<String> stages = new ArrayList<>();
+        collectStages(plan, stages);
+        return stages;
+    }
+
+    private static void collectStages(
+                                      Object node,
+                                      List<String> stages
+    ) {
+        if (node instanceof Map<?, ?> map) {
+            if (map.get("stage")instanceof String stage) {
+                stages.add(stage);
+            }
+            map.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof Collection<?> collection) {
+            collection.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package it.pagopa.transactions.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Health indicator exposing the status of the indexes verified by
+ * {@link MongoIndexes} under {@code /actuator/health/mongoIndexes}.
+ * <p>
+ * Missing indexes and collection scans are always reported in the health
+ * details; they make the indicator (and the readiness group including it)
+ * {@code DOWN} only if configured to fail on them, otherwise they are just
+ * logged. The indicator status is {@code UNKNOWN} while verification is pending
+ * or if Mongo could not be reached, so that Mongo unavailability does not
+ * affect readiness.
+ */
+@Component
+public class MongoIndexesHealthIndicator implements ReactiveHealthIndicator {
+
+    private final MongoIndexes mongoIndexes;
+
+    private final boolean failOnCollectionScan;
+
+    /**
+     * Primary constructor
+     *
+     * @param mongoIndexes         the Mongo indexes verification
+     * @param failOnCollectionScan whether missing indexes and collection scans make
+     *                             the indicator down
+     */
+    @Autowired
+    public MongoIndexesHealthIndicator(
+            MongoIndexes mongoIndexes,
+            @Value("${mongo.indexes.failOnCollectionScan}") boolean failOnCollectionScan
+    ) {
+        this.mongoIndexes = mongoIndexes;
+        this.failOnCollectionScan = failOnCollectionScan;
+    }
+
+    @Override
+    public Mono<Health> health() {
+        return Mono.fromSupplier(
+                () -> mongoIndexes.status()
+                        .map(status -> {
+                            Health.Builder builder = status.healthy() || !failOnCollectionScan ? Health.up()
+                                    : Health.down();
+                            return builder
+                                    .withDetail("healthy", status.healthy())
+                                    .withDetail("verifiedAt", status.verifiedAt())
+                                    .withDetail("indexes", status.indexes())
+                                    .withDetail("queryPlans", status.queryPlans())
+                                    .build();
+                        })
+                        .orElseGet(
+                                () -> mongoIndexes.verificationError()
+                                        .map(exception -> Health.unknown().withException(exception).build())
+                                        .orElseGet(() -> Health.unknown().withDetail("verification", "pending").build())
+                        )
+        );
+    }
+}
@@ -0,0 +1,220 @@
+package it.pagopa.transactions.utils;
+
+import com.mongodb.ReadPreference;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Read preferences of the repository methods performing read-only queries.
+ * <p>
+ * Each configured repository method is read with its own read preference (e.g.
+ * {@code secondaryPreferred}) bounded by the configured max staleness, so that
+ * high-volume reads such as status polling can be served by secondaries.
+ * Methods that are not configured, and all the command side reads (e.g. event
+ * replays), keep the read preference of the Mongo connection string.
+ * <p>
+ * Since secondaries may lag behind the primary, results read from a non-primary
+ * member are retried on the primary when missing (e.g. a transaction just
+ * activated) or when found older than already known by the caller. Callers
+ * learn what is already known from the view versions written by the
+ * {@link TransactionViewCache}: without them a stale read could not be told
+ * apart, so non-primary read preferences are refused at startup unless the
+ * transaction view cache is enabled.
+ */
+@Slf4j
+@Component
+public class MongoReadPreferences {
+
+    private static final AttributeKey<String> METHOD_ATTRIBUTE_KEY = AttributeKey.stringKey("method");
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ReactiveMongoTemplate primaryMongoTemplate;
+
+    private final Map<String, MethodReads> methodReads;
+
+    private final LongCounter reads;
+
+    /**
+     * Mongo template performing the reads of a repository method, along with the
+     * attributes of the read outcomes
+     */
+    private record MethodReads(
+            ReactiveMongoTemplate mongoTemplate,
+            boolean primary,
+            Attributes upToDateAttributes,
+            Attributes staleAttributes,
+            Attributes missingAttributes
+    ) {
+        MethodReads(
+                String method,
+                ReactiveMongoTemplate mongoTemplate,
+                boolean primary
+        ) {
+            this(
+                    mongoTemplate,
+                    primary,
+                    Attributes.of(METHOD_ATTRIBUTE_KEY, method, RESULT_ATTRIBUTE_KEY, "up_to_date"),
+                    Attributes.of(METHOD_ATTRIBUTE_KEY, method, RESULT_ATTRIBUTE_KEY, "stale"),
+                    Attributes.of(METHOD_ATTRIBUTE_KEY, method, RESULT_ATTRIBUTE_KEY, "missing")
+            );
+        }
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveMongoTemplate the Mongo template configured with the
+     *                              connection string read preference
+     * @param methodReadPreferences read preference names by repository method
+     * @param maxStalenessSeconds   max staleness of the non-primary read
+     *                              preferences
+     * @param viewVersionsEnabled   whether view versions are written by the
+     *                              transaction view cache, required by non-primary
+     *                              read preferences
+     * @param openTelemetryMeter    meter used to record read outcomes
+     */
+    @Autowired
+    public MongoReadPreferences(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("#{${mongo.readPreference.methods}}") Map<String, String> methodReadPreferences,
+            @Value("${mongo.readPreference.maxStalenessSeconds}") long maxStalenessSeconds,
+            @Value("${transactionViewCache.enabled}") boolean viewVersionsEnabled,
+            Meter openTelemetryMeter
+    ) {
+        this(
+                reactiveMongoTemplate,
+                readPreference -> withReadPreference(reactiveMongoTemplate, readPreference),
+                methodReadPreferences,
+                maxStalenessSeconds,
+                viewVersionsEnabled,
+                openTelemetryMeter
+        );
+    }
+
+    MongoReadPreferences(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            Function<ReadPreference, ReactiveMongoTemplate> mongoTemplateFactory,
+            Map<String, String> methodReadPreferences,
+            long maxStalenessSeconds,
+            boolean viewVersionsEnabled,
+            Meter openTelemetryMeter
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.primaryMongoTemplate = mongoTemplateFactory.apply(ReadPreference.primary());
+        // templates share the Mongo client, so one for each read preference is cheap
+        Map<ReadPreference, ReactiveMongoTemplate> templates = new HashMap<>();
+        templates.put(ReadPreference.primary(), primaryMongoTemplate);
+        Map<String, MethodReads> readsByMethod = new HashMap<>();
+        methodReadPreferences.forEach(
+                (
+                 method,
+                 name
+                ) -> {
+                    ReadPreference readPreference = readPreference(name, maxStalenessSeconds);
+                    readsByMethod.put(
+                            method,
+                            new MethodReads(
+                                    method,
+                                    templates.computeIfAbsent(readPreference, mongoTemplateFactory),
+                                    readPreference.equals(ReadPreference.primary())
+                            )
+                    );
+                }
+        );
+        if (!viewVersionsEnabled && readsByMethod.values().stream().anyMatch(reads -> !reads.primary())) {
+            throw new IllegalStateException(
+                    "Non-primary read preferences %s require the transaction view cache to be enabled"
+                            .formatted(methodReadPreferences)
+            );
+        }
+        this.methodReads = Map.copyOf(readsByMethod);
+        this.reads = openTelemetryMeter.counterBuilder("ecommerce.mongo.routedreads")
+                .setDescription("Reads of repository methods with a configured read preference, by result")
+                .build();
+        log.info(
+                "Mongo read preferences by method: {}, max staleness: [{}] seconds",
+                methodReadPreferences,
+                maxStalenessSeconds
+        );
+    }
+
+    /**
+     * Perform the read of a repository method with its configured read preference.
+     * Values read from a non-primary member that are missing or not up to date are
+     * read again from the primary
+     *
+     * @param method   the repository method name
+     * @param read     the read, performed with the given Mongo operations
+     * @param upToDate whether a value read from a non-primary member is recent
+     *                 enough to be returned
+     * @param <T>      the read value type
+     * @return the read value
+     */
+    public <T> Mono<T> read(
+                            String method,
+                            Function<ReactiveMongoOperations, Mono<T>> read,
+                            Predicate<T> upToDate
+    ) {
+        MethodReads routing = methodReads.get(method);
+        if (routing == null) {
+            return Mono.defer(() -> read.apply(reactiveMongoTemplate));
+        }
+        if (routing.primary()) {
+            return Mono.defer(() -> read.apply(routing.mongoTemplate()));
+        }
+        return Mono.defer(() -> read.apply(routing.mongoTemplate()))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(value -> {
+                    if (value.isPresent() && upToDate.test(value.get())) {
+                        reads.add(1, routing.upToDateAttributes());
+                        return Mono.just(value.get());
+                    }
+                    reads.add(1, value.isPresent() ? routing.staleAttributes() : routing.missingAttributes());
+                    return read.apply(primaryMongoTemplate);
+                });
+    }
+
+    static ReadPreference readPreference(
+                                         String name,
+                                         long maxStalenessSeconds
+    ) {
+        ReadPreference readPreference = ReadPreference.valueOf(name);
+        // max staleness is not allowed for reads from the primary
+        return readPreference.equals(ReadPreference.primary())
+                ? readPreference
+                : ReadPreference.valueOf(name, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+
+    private static ReactiveMongoTemplate withReadPreference(
+                                                            ReactiveMongoTemplate reactiveMongoTemplate,
+                                                            ReadPreference readPreference
+    ) {
+        ReactiveMongoTemplate template = new ReactiveMongoTemplate(
+                reactiveMongoTemplate.getMongoDatabaseFactory(),
+                reactiveMongoTemplate.getConverter()
+        );
+        template.setReadPreference(readPreference);
+        return template;
+    }
+}
@@ -0,0 +1,275 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.ExclusiveLockDocument;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.ReactiveExclusiveLockDocumentWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent Nodo activations of the same payment notice with the
+ * same parameters (RptId, idempotency key, amount and idCart), so that a burst
+ * of identical activations (e.g. multiple tabs or client retries) results in a
+ * single activatePaymentNoticeV2 call whose outcome is shared among all the
+ * waiting callers. Activations with different parameters are never coalesced,
+ * so that each one still reaches Nodo, which rejects concurrent activations of
+ * the same notice by different transactions.
+ * <p>
+ * Coalescing is always performed in-process. When the distributed claim is
+ * enabled the activating pod also claims the activation on Redis: pods that
+ * find the claim already taken wait for the claim holder to write the activated
+ * {@link PaymentRequestInfo} into cache, falling back to a local activation if
+ * the claim is released or expires without a payment token activated with their
+ * idempotency key. The claim holder stores the activation outcome into cache
+ * and releases the claim as soon as the activation completes.
+ */
+@Slf4j
+@Component
+public class NodoActivationCoalescer {
+
+    private static final String CLAIM_HOLDER_NAME = "transactions-service";
+
+    private static final AttributeKey<String> CLAIM_OUTCOME_ATTRIBUTE_KEY = AttributeKey.stringKey("outcome");
+
+    private final SingleFlight<ActivationRequest, PaymentRequestInfo> activations;
+
+    private final boolean coalescingEnabled;
+
+    private final boolean distributedClaimEnabled;
+
+    private final Duration claimTtl;
+
+    private final Duration claimPollInterval;
+
+    private final ReactiveExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
+
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper;
+
+    private final LongCounter claims;
+
+    enum ClaimOutcome {
+        ACQUIRED,
+        REMOTE_ACTIVATED,
+        REMOTE_RELEASED,
+        REMOTE_TIMEOUT,
+        ERROR;
+
+        private final Attributes attributes = Attributes.of(CLAIM_OUTCOME_ATTRIBUTE_KEY, name().toLowerCase());
+    }
+
+    /**
+     * Parameters identifying a Nodo activation: only activations with equal
+     * parameters are coalesced
+     *
+     * @param rptId          the RptId to be activated
+     * @param idempotencyKey the activation idempotency key
+     * @param amount         the payment notice amount
+     * @param idCart         the cart id, if any
+     */
+    public record ActivationRequest(
+            RptId rptId,
+            IdempotencyKey idempotencyKey,
+            Integer amount,
+            String idCart
+    ) {
+        String claimId() {
+            return "nodo-activation-%s-%s-%s-%s".formatted(rptId.value(), idempotencyKey.rawValue(), amount, idCart);
+        }
+
+        boolean isActivatedBy(PaymentRequestInfo paymentRequestInfo) {
+            return paymentRequestInfo.paymentToken() != null && !paymentRequestInfo.paymentToken().isBlank()
+                    && idempotencyKey.equals(paymentRequestInfo.idempotencyKey());
+        }
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param coalescingEnabled                              whether concurrent
+     *                                                       identical activations
+     *                                                       are coalesced
+     * @param distributedClaimEnabled                        whether activations are
+     *                                                       also claimed on Redis
+     *                                                       across replicas
+     * @param claimTtlMillis                                 distributed claim
+     *                                                       duration
+     * @param claimPollIntervalMillis                        cache polling interval
+     *                                                       while waiting for
+     *                                                       another replica
+     *                                                       activation
+     * @param exclusiveLockDocumentWrapper                   wrapper used to store
+     *                                                       claims
+     * @param paymentRequestInfoReactiveRedisTemplateWrapper payment request info
+     *                                                       cache
+     * @param openTelemetryMeter                             meter used to record
+     *                                                       metrics
+     */
+    @Autowired
+    public NodoActivationCoalescer(
+            @Value("${nodo.activation.coalescing.enabled}") boolean coalescingEnabled,
+            @Value("${nodo.activation.distributedClaim.enabled}") boolean distributedClaimEnabled,
+            @Value("${nodo.activation.distributedClaim.ttlMillis}") long claimTtlMillis,
+            @Value("${nodo.activation.distributedClaim.pollIntervalMillis}") long claimPollIntervalMillis,
+            ReactiveExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper,
+            PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper,
+            Meter openTelemetryMeter
+    ) {
+        this.coalescingEnabled = coalescingEnabled;
+        this.distributedClaimEnabled = distributedClaimEnabled;
+        this.claimTtl = Duration.ofMillis(claimTtlMillis);
+        this.claimPollInterval = Duration.ofMillis(claimPollIntervalMillis);
+        this.exclusiveLockDocumentWrapper = exclusiveLockDocumentWrapper;
+        this.paymentRequestInfoReactiveRedisTemplateWrapper = paymentRequestInfoReactiveRedisTemplateWrapper;
+        this.activations = new SingleFlight<>("nodo-activation", openTelemetryMeter);
+        this.claims = openTelemetryMeter.counterBuilder("ecommerce.nodo.activation.claims")
+                .setDescription("Distributed Nodo activation claims by outcome")
+                .build();
+    }
+
+    /**
+     * Perform the given activation, or join the one already in progress with the
+     * same parameters
+     *
+     * @param request    the activation parameters
+     * @param activation supplier of the Nodo activation
+     * @return the activated payment request info
+     */
+    public Mono<PaymentRequestInfo> activate(
+                                             ActivationRequest request,
+                                             Supplier<Mono<PaymentRequestInfo>> activation
+    ) {
+        if (!coalescingEnabled) {
+            return Mono.defer(activation);
+        }
+        return activations.execute(
+                request,
+                distributedClaimEnabled ? () -> claimAndActivate(request, activation) : activation
+        );
+    }
+
+    private Mono<PaymentRequestInfo> claimAndActivate(
+                                                      ActivationRequest request,
+                                                      Supplier<Mono<PaymentRequestInfo>> activation
+    ) {
+        ExclusiveLockDocument claim = new ExclusiveLockDocument(request.claimId(), CLAIM_HOLDER_NAME);
+        return exclusiveLockDocumentWrapper.saveIfAbsent(claim, claimTtl)
+                .map(Optional::of)
+                .onErrorResume(exception -> {
+                    log.warn("Error claiming Nodo activation for RPT id: [{}]", request.rptId(), exception);
+                    claims.add(1, ClaimOutcome.ERROR.attributes);
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(claimed -> {
+                    log.debug(
+                            "Nodo activation claim for RPT id: [{}] acquired: [{}]",
+                            request.rptId(),
+                            claimed.orElse(null)
+                    );
+                    if (claimed.isEmpty()) {
+                        // a Redis failure must not prevent activation: degrade to pod-local coalescing
+                        // without releasing the claim, that may be held by another replica
+                        return Mono.defer(activation);
+                    }
+                    if (Boolean.TRUE.equals(claimed.get())) {
+                        claims.add(1, ClaimOutcome.ACQUIRED.attributes);
+                        // the claim is released as soon as the activation outcome is cached, so that
+                        // waiting replicas find it without blocking later activations until the claim
+                        // expires
+                        return Mono.defer(activation)
+                                .onErrorResume(exception -> releaseClaim(claim).then(Mono.error(exception)))
+                                .flatMap(
+                                        paymentRequestInfo -> cacheActivation(paymentRequestInfo)
+                                                .then(releaseClaim(claim))
+                                                .thenReturn(paymentRequestInfo)
+                                );
+                    }
+                    return awaitClaimHolderActivation(request, claim)
+                            .switchIfEmpty(Mono.defer(activation));
+                });
+    }
+
+    private Mono<PaymentRequestInfo> awaitClaimHolderActivation(
+                                                                ActivationRequest request,
+                                                                ExclusiveLockDocument claim
+    ) {
+        /* @formatter:off
+         *
+         * Each polling step returns:
+         *  - the cached payment request info => the claim holder completed the activation
+         *  - an empty Optional => the claim has been released, activation must be performed locally
+         *  - empty Mono => the claim holder is still activating, poll again
+         *
+         * @formatter:on
+         */
+        return Mono.defer(() -> pollClaimHolderActivation(request, claim))
+                .repeatWhenEmpty(repeats -> repeats.delayElements(claimPollInterval))
+                .timeout(claimTtl, Mono.fromSupplier(() -> {
+                    claims.add(1, ClaimOutcome.REMOTE_TIMEOUT.attributes);
+                    return Optional.<PaymentRequestInfo>empty();
+                }))
+                .onErrorResume(exception -> {
+                    log.warn("Error waiting for Nodo activation of RPT id: [{}]", request.rptId(), exception);
+                    claims.add(1, ClaimOutcome.ERROR.attributes);
+                    return Mono.just(Optional.<PaymentRequestInfo>empty());
+                })
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private Mono<Optional<PaymentRequestInfo>> pollClaimHolderActivation(
+                                                                         ActivationRequest request,
+                                                                         ExclusiveLockDocument claim
+    ) {
+        // only payment tokens activated with the same idempotency key can be shared
+        return paymentRequestInfoReactiveRedisTemplateWrapper.findById(request.rptId().value())
+                .filter(request::isActivatedBy)
+                .doOnNext(ignored -> claims.add(1, ClaimOutcome.REMOTE_ACTIVATED.attributes))
+                .map(Optional::of)
+                .switchIfEmpty(
+                        exclusiveLockDocumentWrapper.findById(claim.id())
+                                .hasElement()
+                                .flatMap(claimHeld -> {
+                                    if (Boolean.TRUE.equals(claimHeld)) {
+                                        return Mono.empty();
+                                    }
+                                    claims.add(1, ClaimOutcome.REMOTE_RELEASED.attributes);
+                                    return Mono.just(Optional.<PaymentRequestInfo>empty());
+                                })
+                );
+    }
+
+    private Mono<Void> cacheActivation(PaymentRequestInfo paymentRequestInfo) {
+        return paymentRequestInfoReactiveRedisTemplateWrapper.save(paymentRequestInfo)
+                .onErrorResume(exception -> {
+                    log.warn(
+                            "Error caching Nodo activation for RPT id: [{}]",
+                            paymentRequestInfo.id(),
+                            exception
+                    );
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> releaseClaim(ExclusiveLockDocument claim) {
+        return exclusiveLockDocumentWrapper.deleteById(claim.id())
+                .onErrorResume(exception -> {
+                    log.warn("Error releasing Nodo activation claim: [{}]", claim.id(), exception);
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,244 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Hedging policy for Nodo activation requests.
+ * <p>
+ * When the primary request has not answered within the configured latency
+ * percentile (computed over a sliding window of recent activations), an
+ * identical request is sent and the first accepted response wins, cancelling
+ * the other one. Since both requests carry the same idempotency key, Nodo
+ * handles them as the same activation. Hedged requests are capped by a budget
+ * expressed as a percentage of the total traffic, and no hedging is performed
+ * until enough latency samples have been collected.
+ */
+@Slf4j
+@Component
+public class NodoActivationHedger {
+
+    private static final AttributeKey<String> OUTCOME_ATTRIBUTE_KEY = AttributeKey.stringKey("outcome");
+
+    private static final Attributes PRIMARY_WON_ATTRIBUTES = Attributes.of(OUTCOME_ATTRIBUTE_KEY, "primary");
+
+    private static final Attributes HEDGE_WON_ATTRIBUTES = Attributes.of(OUTCOME_ATTRIBUTE_KEY, "hedge");
+
+    /**
+     * Max number of hedges that can be accumulated by the budget
+     */
+    private static final double MAX_BUDGET_TOKENS = 10;
+
+    private final boolean enabled;
+
+    private final double latencyPercentile;
+
+    private final double budgetRatio;
+
+    private final int minSamples;
+
+    private final Duration minDelay;
+
+    private final long[] latencyWindow;
+
+    private final int recomputeInterval;
+
+    private final LongCounter requests;
+
+    private final LongCounter hedges;
+
+    private final LongCounter wins;
+
+    private final LongCounter budgetExhausted;
+
+    private final NodoConcurrencyLimiter nodoConcurrencyLimiter;
+
+    private int samples;
+
+    private int nextSample;
+
+    private int samplesSinceRecompute;
+
+    private Duration hedgeDelay;
+
+    private double budgetTokens;
+
+    /**
+     * Primary constructor
+     *
+     * @param enabled                whether activation requests are hedged
+     * @param latencyPercentile      latency percentile after which the hedged
+     *                               request is sent
+     * @param budgetPercent          max percentage of requests that can be hedged
+     * @param windowSize             number of latency samples used to compute the
+     *                               percentile
+     * @param minSamples             number of samples needed before hedging
+     * @param minDelayMillis         lower bound for the hedging delay
+     * @param openTelemetryMeter     meter used to record hedging metrics
+     * @param nodoConcurrencyLimiter limiter the hedged requests are subject to
+     */
+    @Autowired
+    public NodoActivationHedger(
+            @Value("${nodo.activation.hedging.enabled}") boolean enabled,
+            @Value("${nodo.activation.hedging.latencyPercentile}") double latencyPercentile,
+            @Value("${nodo.activation.hedging.budgetPercent}") double budgetPercent,
+            @Value("${nodo.activation.hedging.windowSize}") int windowSize,
+            @Value("${nodo.activation.hedging.minSamples}") int minSamples,
+            @Value("${nodo.activation.hedging.minDelayMillis}") long minDelayMillis,
+            Meter openTelemetryMeter,
+            NodoConcurrencyLimiter nodoConcurrencyLimiter
+    ) {
+        if (latencyPercentile <= 0 || latencyPercentile >= 100) {
+            throw new IllegalArgumentException("Invalid hedging latency percentile: [%s]".formatted(latencyPercentile));
+        }
+        if (windowSize <= 0 || minSamples > windowSize) {
+            throw new IllegalArgumentException(
+                    "Invalid hedging window size: [%s], min samples: [%s]".formatted(windowSize, minSamples)
+            );
+        }
+        this.enabled = enabled;
+        this.nodoConcurrencyLimiter = nodoConcurrencyLimiter;
+        this.latencyPercentile = latencyPercentile;
+        this.budgetRatio = budgetPercent / 100;
+        this.minSamples = minSamples;
+        this.minDelay = Duration.ofMillis(minDelayMillis);
+        this.latencyWindow = new long[windowSize];
+        this.recomputeInterval = Math.max(1, windowSize / 10);
+        this.requests = openTelemetryMeter.counterBuilder("ecommerce.nodo.activation.hedging.requests")
+                .setDescription("Activation requests eligible for hedging")
+                .build();
+        this.hedges = openTelemetryMeter.counterBuilder("ecommerce.nodo.activation.hedging.hedged")
+                .setDescription("Hedged activation requests sent")
+                .build();
+        this.wins = openTelemetryMeter.counterBuilder("ecommerce.nodo.activation.hedging.wins")
+                .setDescription("Hedged activations completed, by winning request")
+                .build();
+        this.budgetExhausted = openTelemetryMeter.counterBuilder("ecommerce.nodo.activation.hedging.budget.exhausted")
+                .setDescription("Hedges not sent because of exhausted budget")
+                .build();
+    }
+
+    /**
+     * Whether activation requests are hedged
+     *
+     * @return true iff hedging is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Perform the given request, hedging it if the primary request is slower than
+     * the configured percentile. The first accepted response wins: a failure of one
+     * of the two requests is propagated only if the other one fails (or is not
+     * accepted) too, in which case the primary request error is returned. A primary
+     * request failing before the hedge is sent is propagated as is. The hedged
+     * request acquires its own {@link NodoConcurrencyLimiter} permit.
+     *
+     * @param request        supplier of the (idempotent) request
+     * @param acceptedResult predicate telling whether a hedged response can win
+     * @param <T>            the response type
+     * @return the first accepted response
+     */
+    public <T> Mono<T> hedge(
+                             Supplier<Mono<T>> request,
+                             Predicate<T> acceptedResult
+    ) {
+        return Mono.defer(() -> {
+            requests.add(1);
+            long startNanos = System.nanoTime();
+            Optional<Duration> delay = currentHedgeDelay();
+            AtomicBoolean hedgeSent = new AtomicBoolean();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<T> primary = request.get()
+                    .doOnNext(ignored -> {
+                        recordLatency(System.nanoTime() - startNanos);
+                        if (hedgeSent.get()) {
+                            wins.add(1, PRIMARY_WON_ATTRIBUTES);
+                        }
+                    })
+                    .doOnError(exception -> {
+                        recordLatency(System.nanoTime() - startNanos);
+                        primaryError.set(exception);
+                        primaryFailed.tryEmitEmpty();
+                    });
+            if (delay.isEmpty()) {
+                return primary;
+            }
+            Mono<T> hedged = Mono.delay(delay.get())
+                    // no hedge is sent once the primary request has already failed
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(ignored -> tryAcquireBudget())
+                    .flatMap(ignored -> {
+                        log.info("Sending hedged Nodo activation request after [{}] ms", delay.get().toMillis());
+                        hedges.add(1);
+                        hedgeSent.set(true);
+                        return nodoConcurrencyLimiter.execute(request);
+                    })
+                    .filter(acceptedResult)
+                    .doOnNext(ignored -> {
+                        // the primary is at least as slow as the hedged request winning time
+                        recordLatency(System.nanoTime() - startNanos);
+                        wins.add(1, HEDGE_WON_ATTRIBUTES);
+                    })
+                    .onErrorResume(exception -> {
+                        log.warn("Error performing hedged Nodo activation request", exception);
+                        return Mono.empty();
+                    });
+            return Mono.firstWithValue(primary, hedged)
+                    // neither request produced a value: report the primary request outcome
+                    .onErrorMap(exception -> Optional.ofNullable(primaryError.get()).orElse(exception));
+        });
+    }
+
+    private synchronized Optional<Duration> currentHedgeDelay() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + budgetRatio);
+        return Optional.ofNullable(hedgeDelay);
+    }
+
+    private boolean tryAcquireBudget() {
+        boolean acquired;
+        synchronized (this) {
+            acquired = budgetTokens >= 1;
+            if (acquired) {
+                budgetTokens -= 1;
+            }
+        }
+        if (!acquired) {
+            budgetExhausted.add(1);
+        }
+        return acquired;
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencyWindow[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % latencyWindow.length;
+        samples = Math.min(samples + 1, latencyWindow.length);
+        samplesSinceRecompute++;
+        if (samples >= minSamples && (hedgeDelay == null || samplesSinceRecompute >= recomputeInterval)) {
+            long[] sorted = Arrays.copyOf(latencyWindow, samples);
+            Arrays.sort(sorted);
+            int index = Math.min(samples - 1, (int) Math.ceil(latencyPercentile / 100 * samples) - 1);
+            Duration percentileLatency = Duration.ofNanos(sorted[Math.max(0, index)]);
+            hedgeDelay = percentileLatency.compareTo(minDelay) > 0 ? percentileLatency : minDelay;
+            samplesSinceRecompute = 0;
+        }
+    }
+}
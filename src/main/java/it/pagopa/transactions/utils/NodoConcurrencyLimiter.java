@@ -0,0 +1,264 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.transactions.exceptions.BadGatewayException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Pod-wide adaptive concurrency limiter for Nodo calls.
+ * <p>
+ * The limit follows an AIMD (additive increase, multiplicative decrease)
+ * policy: each call completed within the latency threshold while the limit is
+ * actually in use increases the limit by {@code 1/limit} (that is roughly by
+ * one every {@code limit} calls), while each failed or too slow call multiplies
+ * it by the backoff ratio. Calls exceeding the current limit are queued in FIFO
+ * order, with bounded queue size and wait time: rejected calls fail with a
+ * {@link BadGatewayException} without reaching Nodo.
+ */
+@Slf4j
+@Component
+public class NodoConcurrencyLimiter {
+
+    private static final AttributeKey<String> REJECTION_REASON_ATTRIBUTE_KEY = AttributeKey.stringKey("reason");
+
+    private static final Attributes QUEUE_FULL_ATTRIBUTES = Attributes.of(REJECTION_REASON_ATTRIBUTE_KEY, "queue_full");
+
+    private static final Attributes QUEUE_TIMEOUT_ATTRIBUTES = Attributes
+            .of(REJECTION_REASON_ATTRIBUTE_KEY, "queue_timeout");
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private final int maxQueueSize;
+
+    private final Duration maxQueueWait;
+
+    private final DoubleHistogram queueDuration;
+
+    private final LongCounter rejections;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private enum Outcome {
+        SUCCESS,
+        DROPPED,
+        IGNORED
+    }
+
+    private record Waiter(
+            Sinks.One<Permit> sink,
+            long enqueuedAtNanos
+    ) {
+    }
+
+    private final class Permit {
+        private final long startNanos = System.nanoTime();
+
+        private void release(Outcome outcome) {
+            NodoConcurrencyLimiter.this.release(
+                    outcome == Outcome.SUCCESS && System.nanoTime() - startNanos > latencyThresholdNanos
+                            ? Outcome.DROPPED
+                            : outcome
+            );
+        }
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param initialLimit           initial concurrency limit
+     * @param minLimit               lower bound for the concurrency limit
+     * @param maxLimit               upper bound for the concurrency limit
+     * @param backoffRatio           ratio applied to the limit for each failed or
+     *                               slow call
+     * @param latencyThresholdMillis latency above which a completed call is
+     *                               considered as a congestion signal
+     * @param maxQueueSize           max number of calls waiting for a permit
+     * @param maxQueueWaitMillis     max time a call waits for a permit
+     * @param openTelemetryMeter     meter used to record limiter metrics
+     */
+    @Autowired
+    public NodoConcurrencyLimiter(
+            @Value("${nodo.concurrencyLimiter.initialLimit}") int initialLimit,
+            @Value("${nodo.concurrencyLimiter.minLimit}") int minLimit,
+            @Value("${nodo.concurrencyLimiter.maxLimit}") int maxLimit,
+            @Value("${nodo.concurrencyLimiter.backoffRatio}") double backoffRatio,
+            @Value("${nodo.concurrencyLimiter.latencyThresholdMillis}") long latencyThresholdMillis,
+            @Value("${nodo.concurrencyLimiter.maxQueueSize}") int maxQueueSize,
+            @Value("${nodo.concurrencyLimiter.maxQueueWaitMillis}") long maxQueueWaitMillis,
+            Meter openTelemetryMeter
+    ) {
+        if (minLimit <= 0 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "Invalid Nodo concurrency limits: initial [%s], min [%s], max [%s]"
+                            .formatted(initialLimit, minLimit, maxLimit)
+            );
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid Nodo concurrency backoff ratio: [%s]".formatted(backoffRatio));
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = Duration.ofMillis(latencyThresholdMillis).toNanos();
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueWait = Duration.ofMillis(maxQueueWaitMillis);
+        openTelemetryMeter.gaugeBuilder("ecommerce.nodo.concurrency.limit")
+                .setDescription("Current Nodo concurrency limit")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(getLimit()));
+        openTelemetryMeter.gaugeBuilder("ecommerce.nodo.concurrency.inflight")
+                .setDescription("Nodo calls currently in flight")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(getInFlight()));
+        this.queueDuration = openTelemetryMeter.histogramBuilder("ecommerce.nodo.concurrency.queue.duration")
+                .setDescription("Time spent by Nodo calls waiting for a concurrency permit")
+                .setUnit("ms")
+                .build();
+        this.rejections = openTelemetryMeter.counterBuilder("ecommerce.nodo.concurrency.rejected")
+                .setDescription("Nodo calls rejected by the concurrency limiter")
+                .build();
+    }
+
+    /**
+     * Execute the given Nodo call once a concurrency permit is available
+     *
+     * @param call supplier of the Nodo call, subscribed once the permit is acquired
+     * @param <T>  the call result type
+     * @return the call result, or a {@link BadGatewayException} if no permit could
+     *         be acquired within the configured bounds
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return Mono.usingWhen(
+                acquire(),
+                permit -> Mono.defer(call),
+                permit -> Mono.fromRunnable(() -> permit.release(Outcome.SUCCESS)),
+                (
+                 permit,
+                 error
+                ) -> Mono.fromRunnable(() -> permit.release(Outcome.DROPPED)),
+                permit -> Mono.fromRunnable(() -> permit.release(Outcome.IGNORED))
+        );
+    }
+
+    /**
+     * Get the current concurrency limit
+     *
+     * @return the concurrency limit
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Get the number of calls currently holding a permit
+     *
+     * @return the in flight calls count
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.defer(() -> {
+            Waiter waiter;
+            synchronized (this) {
+                if (inFlight < (int) limit && queue.isEmpty()) {
+                    inFlight++;
+                    queueDuration.record(0);
+                    return Mono.just(new Permit());
+                }
+                if (queue.size() >= maxQueueSize) {
+                    rejections.add(1, QUEUE_FULL_ATTRIBUTES);
+                    return Mono.error(rejection("queue full"));
+                }
+                waiter = new Waiter(Sinks.one(), System.nanoTime());
+                queue.addLast(waiter);
+            }
+            return waiter.sink().asMono()
+                    .doOnCancel(() -> abandon(waiter))
+                    .timeout(maxQueueWait)
+                    .onErrorMap(TimeoutException.class, exception -> {
+                        rejections.add(1, QUEUE_TIMEOUT_ATTRIBUTES);
+                        return rejection("queue wait timeout");
+                    });
+        });
+    }
+
+    private void abandon(Waiter waiter) {
+        boolean waiting;
+        synchronized (this) {
+            waiting = queue.remove(waiter);
+        }
+        if (!waiting) {
+            // the permit has already been granted to the waiter that is no longer
+            // interested in it: give it back without affecting the limit
+            release(Outcome.IGNORED);
+        }
+    }
+
+    private void release(Outcome outcome) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            switch (outcome) {
+                case SUCCESS -> {
+                    // increase only when the limit is actually in use, otherwise it would grow
+                    // unbounded under low traffic
+                    if (inFlight * 2 >= limit) {
+                        limit = Math.min(maxLimit, limit + 1 / limit);
+                    }
+                }
+                case DROPPED -> limit = Math.max(minLimit, limit * backoffRatio);
+                case IGNORED -> {
+                    // no latency sample
+                }
+            }
+            inFlight--;
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                inFlight++;
+                granted.add(queue.pollFirst());
+            }
+        }
+        long now = System.nanoTime();
+        for (Waiter waiter : granted) {
+            queueDuration.record(Duration.ofNanos(now - waiter.enqueuedAtNanos()).toMillis());
+            waiter.sink().tryEmitValue(new Permit());
+        }
+    }
+
+    private BadGatewayException rejection(String reason) {
+        log.warn("Nodo call rejected by concurrency limiter: [{}], limit: [{}]", reason, getLimit());
+        return new BadGatewayException(
+                "Nodo concurrency limit reached: %s".formatted(reason),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+}
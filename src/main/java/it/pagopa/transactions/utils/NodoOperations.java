@@ -46,19 +46,27 @@ public class NodoOperations {
 
     private final OpenTelemetryUtils openTelemetryUtils;
 
+    private final NodoActivationCoalescer nodoActivationCoalescer;
+
+    private final NodoConcurrencyLimiter nodoConcurrencyLimiter;
+
     @Autowired
     public NodoOperations(
             NodeForPspClient nodeForPspClient,
             ObjectFactory objectFactoryNodeForPsp,
             NodoConfig nodoConfig,
             @Value("${nodo.allCCPOnTransferIbanEnabled}") boolean allCCPOnTransferIbanEnabled,
-            OpenTelemetryUtils openTelemetryUtils
+            OpenTelemetryUtils openTelemetryUtils,
+            NodoActivationCoalescer nodoActivationCoalescer,
+            NodoConcurrencyLimiter nodoConcurrencyLimiter
     ) {
         this.nodeForPspClient = nodeForPspClient;
         this.objectFactoryNodeForPsp = objectFactoryNodeForPsp;
         this.nodoConfig = nodoConfig;
         this.allCCPOnTransferIbanEnabled = allCCPOnTransferIbanEnabled;
         this.openTelemetryUtils = openTelemetryUtils;
+        this.nodoActivationCoalescer = nodoActivationCoalescer;
+        this.nodoConcurrencyLimiter = nodoConcurrencyLimiter;
     }
 
     public Mono<PaymentRequestInfo> activatePaymentRequest(
@@ -71,14 +79,19 @@ public class NodoOperations {
                                                            String dueDate,
                                                            Transaction.ClientId clientId
     ) {
-        return activatePaymentRequest(
-                rptId,
-                idempotencyKey,
-                amount,
-                transactionId,
-                paymentTokenTimeout,
-                idCart,
-                dueDate
+        // concurrent activations with the same parameters share a single Nodo call,
+        // while the client specific checks below are performed for each caller
+        return nodoActivationCoalescer.activate(
+                new NodoActivationCoalescer.ActivationRequest(rptId, idempotencyKey, amount, idCart),
+                () -> activatePaymentRequest(
+                        rptId,
+                        idempotencyKey,
+                        amount,
+                        transactionId,
+                        paymentTokenTimeout,
+                        idCart,
+                        dueDate
+                )
         )
                 .flatMap(paymentRequestInfo -> {
                     if (clientId == Transaction.ClientId.WISP_REDIRECT
@@ -144,8 +157,12 @@ public class NodoOperations {
         //
         // TODO Maybe here more values (all optional) can be passed such as Touchpoint
         // and PaymentMethod
-        return nodeForPspClient
-                .activatePaymentNoticeV2(objectFactoryNodeForPsp.createActivatePaymentNoticeV2Request(request))
+        return nodoConcurrencyLimiter
+                .execute(
+                        () -> nodeForPspClient.activatePaymentNoticeV2(
+                                objectFactoryNodeForPsp.createActivatePaymentNoticeV2Request(request)
+                        )
+                )
                 .flatMap(
                         activatePaymentNoticeV2Response -> {
                             String faultCode = Optional.ofNullable(activatePaymentNoticeV2Response.getFault())
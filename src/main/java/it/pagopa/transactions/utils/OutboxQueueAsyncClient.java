@@ -0,0 +1,42 @@
+package it.pagopa.transactions.utils;
+
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.serializer.JsonSerializer;
+import com.azure.storage.queue.models.SendMessageResult;
+import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.queues.QueueEvent;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Queue client writing messages to the {@link QueueOutbox} instead of sending
+ * them to Azure Storage
+ */
+final class OutboxQueueAsyncClient extends QueueAsyncClient {
+
+    private final String queueClientName;
+
+    private final QueueOutbox queueOutbox;
+
+    OutboxQueueAsyncClient(
+            String queueClientName,
+            com.azure.storage.queue.QueueAsyncClient azureQueueClient,
+            JsonSerializer jsonSerializer,
+            QueueOutbox queueOutbox
+    ) {
+        super(azureQueueClient, jsonSerializer);
+        this.queueClientName = queueClientName;
+        this.queueOutbox = queueOutbox;
+    }
+
+    @Override
+    public <T extends BaseTransactionEvent<?>> Mono<Response<SendMessageResult>> sendMessageWithResponse(
+                                                                                                         QueueEvent<T> event,
+                                                                                                         Duration visibilityTimeout,
+                                                                                                         Duration timeToLive
+    ) {
+        return queueOutbox.enqueue(queueClientName, event, visibilityTimeout, timeToLive);
+    }
+}
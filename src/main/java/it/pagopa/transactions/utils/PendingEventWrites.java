@@ -0,0 +1,125 @@
+package it.pagopa.transactions.utils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Event store and queue outbox documents whose write has been deferred by a
+ * command handler, to be performed together with the transaction view update by
+ * {@link EventViewWrites}.
+ * <p>
+ * Instances are bound to the Reactor context of the command pipeline: event
+ * store and outbox writes performed while an instance is bound are collected
+ * here instead of being sent to Mongo.
+ * <p>
+ * When the writes are performed in a multi-document transaction, instances are
+ * also bound to the context of the view update, to collect the actions that
+ * must only be run once the transaction has been committed (see
+ * {@link #afterCommit(Mono)}).
+ */
+public final class PendingEventWrites {
+
+    private static final String AFTER_COMMIT_CONTEXT_KEY = PendingEventWrites.class.getName() + ".afterCommit";
+
+    private final Queue<Object> events = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Object> outboxMessages = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Mono<Void>> afterCommitActions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Pending writes bound to the input Reactor context
+     *
+     * @param context the Reactor context
+     * @return the pending writes, if any are bound to the context
+     */
+    public static Optional<PendingEventWrites> from(ContextView context) {
+        return context.getOrEmpty(PendingEventWrites.class);
+    }
+
+    /**
+     * Bind this instance to the input Reactor context
+     *
+     * @param context the Reactor context
+     * @return the context with this instance bound
+     */
+    public Context bindTo(Context context) {
+        return context.put(PendingEventWrites.class, this);
+    }
+
+    /**
+     * Defer an event store write
+     *
+     * @param event the event to be written
+     */
+    public void addEvent(Object event) {
+        events.add(event);
+    }
+
+    /**
+     * Defer a queue outbox write
+     *
+     * @param outboxMessage the outbox message to be written
+     */
+    public void addOutboxMessage(Object outboxMessage) {
+        outboxMessages.add(outboxMessage);
+    }
+
+    /**
+     * Run the given action once the writes in progress are committed. The action is
+     * deferred if the current Reactor context belongs to a view update performed in
+     * a multi-document transaction, and run immediately otherwise.
+     *
+     * @param action the action to be run
+     * @return a Mono completing once the action has been run or deferred
+     */
+    public static Mono<Void> afterCommit(Mono<Void> action) {
+        return Mono.deferContextual(
+                context -> context.<PendingEventWrites>getOrEmpty(AFTER_COMMIT_CONTEXT_KEY)
+                        .map(pendingWrites -> {
+                            pendingWrites.afterCommitActions.add(action);
+                            return Mono.<Void>empty();
+                        })
+                        .orElse(action)
+        );
+    }
+
+    /**
+     * Bind this instance to the input Reactor context as the collector of the
+     * actions to be run after commit, discarding the ones collected by a previous
+     * (aborted) transaction attempt
+     *
+     * @param context the Reactor context
+     * @return the context with this instance bound
+     */
+    Context bindAfterCommitTo(Context context) {
+        afterCommitActions.clear();
+        return context.put(AFTER_COMMIT_CONTEXT_KEY, this);
+    }
+
+    /**
+     * Run the actions deferred until commit, in the order they were collected
+     *
+     * @return a Mono completing once all the actions have been run
+     */
+    Mono<Void> runAfterCommitActions() {
+        return Flux.fromIterable(List.copyOf(afterCommitActions))
+                .concatMap(action -> action)
+                .then();
+    }
+
+    List<Object> events() {
+        return List.copyOf(events);
+    }
+
+    List<Object> outboxMessages() {
+        return List.copyOf(outboxMessages);
+    }
+}
@@ -0,0 +1,182 @@
+package it.pagopa.transactions.utils;
+
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.rest.Response;
+import com.azure.core.http.rest.SimpleResponse;
+import com.azure.core.util.serializer.JsonSerializer;
+import com.azure.storage.queue.models.SendMessageResult;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.queues.QueueEvent;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import it.pagopa.transactions.repositories.QueueOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transactional outbox for queue messages.
+ * <p>
+ * When enabled, the queue clients used by command handlers write messages to
+ * the outbox collection instead of sending them to Azure Storage, so that the
+ * queue latency is not part of the HTTP response time anymore. Messages are
+ * then published in background by the {@link QueueOutboxRelay} with the queue
+ * client they have been enqueued with.
+ * <p>
+ * When disabled, queue clients send messages directly as before.
+ */
+@Slf4j
+@Component
+public class QueueOutbox {
+
+    private static final AttributeKey<String> QUEUE_CLIENT_ATTRIBUTE_KEY = AttributeKey.stringKey("queueClient");
+
+    private final QueueOutboxRepository queueOutboxRepository;
+
+    private final boolean enabled;
+
+    private final LongCounter enqueued;
+
+    private final Map<String, QueueAsyncClient> directQueueClients = new ConcurrentHashMap<>();
+
+    /**
+     * Primary constructor
+     *
+     * @param queueOutboxRepository the outbox repository
+     * @param enabled               whether queue messages are written to the outbox
+     * @param openTelemetryMeter    meter used to record outbox metrics
+     */
+    @Autowired
+    public QueueOutbox(
+            QueueOutboxRepository queueOutboxRepository,
+            @Value("${azurestorage.queues.outbox.enabled}") boolean enabled,
+            Meter openTelemetryMeter
+    ) {
+        this.queueOutboxRepository = queueOutboxRepository;
+        this.enabled = enabled;
+        this.enqueued = openTelemetryMeter.counterBuilder("ecommerce.queue.outbox.enqueued")
+                .setDescription("Queue messages written to the outbox, by queue client")
+                .build();
+    }
+
+    /**
+     * Whether queue messages are written to the outbox
+     *
+     * @return true iff the outbox is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Build the queue client to be used by command handlers. The returned client
+     * writes messages to the outbox if it is enabled, or sends them directly
+     * otherwise
+     *
+     * @param queueClientName  unique name of the queue client, used to resolve the
+     *                         client the relay publishes its messages with
+     * @param azureQueueClient the underlying Azure queue client
+     * @param jsonSerializer   the serializer for queue events
+     * @return the queue client
+     */
+    public QueueAsyncClient queueAsyncClient(
+                                             String queueClientName,
+                                             com.azure.storage.queue.QueueAsyncClient azureQueueClient,
+                                             JsonSerializer jsonSerializer
+    ) {
+        QueueAsyncClient directQueueClient = new QueueAsyncClient(azureQueueClient, jsonSerializer);
+        directQueueClients.put(queueClientName, directQueueClient);
+        if (!enabled) {
+            return directQueueClient;
+        }
+        log.info("Queue client [{}] configured to write messages to the outbox", queueClientName);
+        return new OutboxQueueAsyncClient(queueClientName, azureQueueClient, jsonSerializer, this);
+    }
+
+    /**
+     * Queue client sending messages directly to Azure Storage
+     *
+     * @param queueClientName the queue client name
+     * @return the queue client, if any has been built with the given name
+     */
+    public Optional<QueueAsyncClient> directQueueClient(String queueClientName) {
+        return Optional.ofNullable(directQueueClients.get(queueClientName));
+    }
+
+    /**
+     * Write a queue message to the outbox. The write is deferred when performed by
+     * a command pipeline run through {@link EventViewWrites} in a combined write
+     * mode, so that the message is written together with its event
+     *
+     * @param queueClientName   the queue client name
+     * @param queueEvent        the event to be sent, with its tracing info
+     * @param visibilityTimeout the message visibility timeout
+     * @param timeToLive        the message time to live, null for the queue default
+     * @param <T>               the event type
+     * @return a response with status 202 (accepted) once the message has been
+     *         written to the outbox
+     */
+    @SuppressWarnings("unchecked")
+    <T extends BaseTransactionEvent<?>> Mono<Response<SendMessageResult>> enqueue(
+                                                                                  String queueClientName,
+                                                                                  QueueEvent<T> queueEvent,
+                                                                                  Duration visibilityTimeout,
+                                                                                  Duration timeToLive
+    ) {
+        return Mono.defer(() -> {
+            Instant now = Instant.now();
+            QueueOutboxMessage message = new QueueOutboxMessage(
+                    UUID.randomUUID().toString(),
+                    queueClientName,
+                    (BaseTransactionEvent<Object>) queueEvent.event(),
+                    queueEvent.tracingInfo(),
+                    now,
+                    now.plus(Optional.ofNullable(visibilityTimeout).orElse(Duration.ZERO)),
+                    Optional.ofNullable(timeToLive).map(now::plus).orElse(null),
+                    0,
+                    now
+            );
+            return Mono.deferContextual(
+                    context -> PendingEventWrites.from(context)
+                            .map(pendingWrites -> {
+                                pendingWrites.addOutboxMessage(message);
+                                return Mono.just(message);
+                            })
+                            .orElseGet(() -> queueOutboxRepository.save(message))
+            );
+        })
+                .doOnNext(
+                        message -> {
+                            enqueued.add(1, Attributes.of(QUEUE_CLIENT_ATTRIBUTE_KEY, queueClientName));
+                            log.debug(
+                                    "Event [{}] for transactionId: [{}] written to the outbox of queue client [{}]",
+                                    message.event().getEventCode(),
+                                    message.event().getTransactionId(),
+                                    queueClientName
+                            );
+                        }
+                )
+                .<Response<SendMessageResult>>map(
+                        message -> new SimpleResponse<>(
+                                null,
+                                HttpStatus.ACCEPTED.value(),
+                                new HttpHeaders(),
+                                new SendMessageResult()
+                        )
+                );
+    }
+}
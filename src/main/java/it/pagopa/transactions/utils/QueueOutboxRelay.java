@@ -0,0 +1,269 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
+import it.pagopa.ecommerce.commons.queues.QueueEvent;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import it.pagopa.transactions.repositories.QueueOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Background relay publishing the messages written to the {@link QueueOutbox}.
+ * <p>
+ * Pending messages are polled, claimed and published with bounded concurrency,
+ * using the queue client they have been enqueued with. Visibility timeout and
+ * time to live are reduced by the time the message spent into the outbox, so
+ * that it becomes visible and expires when it would have if sent directly;
+ * messages already expired are discarded. Failed publishing attempts are
+ * retried with exponential backoff up to the configured max attempts, after
+ * which the message is left into the outbox for manual inspection.
+ * <p>
+ * Messages are published at least once: a message whose deletion fails after
+ * publishing is published again when its claim expires.
+ */
+@Slf4j
+@Component
+public class QueueOutboxRelay {
+
+    static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(5);
+
+    private static final AttributeKey<String> QUEUE_CLIENT_ATTRIBUTE_KEY = AttributeKey.stringKey("queueClient");
+
+    private static final AttributeKey<String> OUTCOME_ATTRIBUTE_KEY = AttributeKey.stringKey("outcome");
+
+    private final QueueOutbox queueOutbox;
+
+    private final QueueOutboxRepository queueOutboxRepository;
+
+    private final Duration pollInterval;
+
+    private final int batchSize;
+
+    private final int concurrency;
+
+    private final int maxAttempts;
+
+    private final Duration claimLease;
+
+    private final Duration retryBaseDelay;
+
+    private final LongCounter relayed;
+
+    private final LongHistogram relayDelay;
+
+    private Disposable relaySubscription;
+
+    /**
+     * Primary constructor
+     *
+     * @param queueOutbox           the queue outbox
+     * @param queueOutboxRepository the outbox repository
+     * @param pollIntervalMillis    interval between polls for pending messages
+     * @param batchSize             max number of messages claimed by each poll
+     * @param concurrency           max number of messages published concurrently
+     * @param maxAttempts           max publishing attempts for each message
+     * @param claimLeaseSeconds     how long a claimed message is reserved to this
+     *                              relay instance
+     * @param retryBaseDelayMillis  delay before the first retry, doubled at each
+     *                              further attempt
+     * @param openTelemetryMeter    meter used to record relay metrics
+     */
+    @Autowired
+    public QueueOutboxRelay(
+            QueueOutbox queueOutbox,
+            QueueOutboxRepository queueOutboxRepository,
+            @Value("${azurestorage.queues.outbox.pollIntervalMillis}") long pollIntervalMillis,
+            @Value("${azurestorage.queues.outbox.batchSize}") int batchSize,
+            @Value("${azurestorage.queues.outbox.concurrency}") int concurrency,
+            @Value("${azurestorage.queues.outbox.maxAttempts}") int maxAttempts,
+            @Value("${azurestorage.queues.outbox.claimLeaseSeconds}") long claimLeaseSeconds,
+            @Value("${azurestorage.queues.outbox.retryBaseDelayMillis}") long retryBaseDelayMillis,
+            Meter openTelemetryMeter
+    ) {
+        this.queueOutbox = queueOutbox;
+        this.queueOutboxRepository = queueOutboxRepository;
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.claimLease = Duration.ofSeconds(claimLeaseSeconds);
+        this.retryBaseDelay = Duration.ofMillis(retryBaseDelayMillis);
+        this.relayed = openTelemetryMeter.counterBuilder("ecommerce.queue.outbox.relayed")
+                .setDescription("Outbox messages processed by the relay, by queue client and outcome")
+                .build();
+        this.relayDelay = openTelemetryMeter.histogramBuilder("ecommerce.queue.outbox.relay.delay")
+                .setDescription("Time between a message being written to the outbox and its publishing")
+                .setUnit("ms")
+                .ofLongs()
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!queueOutbox.isEnabled()) {
+            return;
+        }
+        log.info(
+                "Starting queue outbox relay with poll interval: [{}], batch size: [{}], concurrency: [{}]",
+                pollInterval,
+                batchSize,
+                concurrency
+        );
+        relaySubscription = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(
+                        tick -> relayPendingMessages()
+                                .onErrorResume(exception -> {
+                                    log.warn("Error relaying queue outbox messages", exception);
+                                    return Mono.empty();
+                                }),
+                        1
+                )
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (relaySubscription != null) {
+            relaySubscription.dispose();
+        }
+    }
+
+    /**
+     * Publish all pending messages, claiming a new batch for as long as full
+     * batches are found
+     *
+     * @return a Mono completing once no more pending messages are found
+     */
+    Mono<Void> relayPendingMessages() {
+        return relayBatch()
+                .expand(relayedMessages -> relayedMessages == batchSize ? relayBatch() : Mono.empty())
+                .then();
+    }
+
+    private Mono<Long> relayBatch() {
+        return queueOutboxRepository.claimPending(Instant.now(), claimLease, batchSize)
+                .flatMap(
+                        message -> relay(message)
+                                .onErrorResume(exception -> {
+                                    // the message is claimed again once its lease expires
+                                    log.warn(
+                                            "Error updating outbox message [{}]",
+                                            message.id(),
+                                            exception
+                                    );
+                                    return Mono.just(message);
+                                }),
+                        concurrency
+                )
+                .count();
+    }
+
+    private Mono<QueueOutboxMessage> relay(QueueOutboxMessage message) {
+        Instant now = Instant.now();
+        if (message.expiresAt() != null && !message.expiresAt().isAfter(now)) {
+            log.warn(
+                    "Discarding expired outbox message [{}] for transactionId: [{}]",
+                    message.id(),
+                    message.event().getTransactionId()
+            );
+            return queueOutboxRepository.deleteById(message.id())
+                    .then(Mono.fromRunnable(() -> recordOutcome(message, "expired")))
+                    .thenReturn(message);
+        }
+        Optional<QueueAsyncClient> queueClient = queueOutbox.directQueueClient(message.queueClientName());
+        if (queueClient.isEmpty()) {
+            return recordFailure(
+                    message,
+                    new IllegalStateException(
+                            "No queue client found with name [%s]".formatted(message.queueClientName())
+                    )
+            );
+        }
+        Duration visibilityTimeout = Duration.between(now, message.visibleAt());
+        Duration timeToLive = Optional.ofNullable(message.expiresAt())
+                .map(expiresAt -> Duration.between(now, expiresAt))
+                .orElse(null);
+        return queueClient.get()
+                .sendMessageWithResponse(
+                        new QueueEvent<>(message.event(), message.tracingInfo()),
+                        visibilityTimeout.isNegative() ? Duration.ZERO : visibilityTimeout,
+                        timeToLive
+                )
+                .then(queueOutboxRepository.deleteById(message.id()))
+                .then(Mono.fromRunnable(() -> {
+                    recordOutcome(message, "published");
+                    relayDelay.record(
+                            Duration.between(message.createdAt(), Instant.now()).toMillis(),
+                            Attributes.of(QUEUE_CLIENT_ATTRIBUTE_KEY, message.queueClientName())
+                    );
+                }))
+                .thenReturn(message)
+                .onErrorResume(exception -> recordFailure(message, exception));
+    }
+
+    private Mono<QueueOutboxMessage> recordFailure(
+                                                   QueueOutboxMessage message,
+                                                   Throwable exception
+    ) {
+        int attempts = message.attempts() + 1;
+        boolean retry = attempts < maxAttempts;
+        if (retry) {
+            log.warn(
+                    "Error publishing outbox message [{}] for transactionId: [{}], attempt [{}] of [{}]",
+                    message.id(),
+                    message.event().getTransactionId(),
+                    attempts,
+                    maxAttempts,
+                    exception
+            );
+        } else {
+            log.error(
+                    "Error publishing outbox message [{}] for transactionId: [{}], no attempts left",
+                    message.id(),
+                    message.event().getTransactionId(),
+                    exception
+            );
+        }
+        return queueOutboxRepository
+                .recordFailedAttempt(message.id(), retry ? Instant.now().plus(retryDelay(attempts)) : null)
+                .then(Mono.fromRunnable(() -> recordOutcome(message, retry ? "retried" : "failed")))
+                .thenReturn(message);
+    }
+
+    Duration retryDelay(int attempts) {
+        Duration delay = retryBaseDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private void recordOutcome(
+                               QueueOutboxMessage message,
+                               String outcome
+    ) {
+        relayed.add(
+                1,
+                Attributes.of(
+                        QUEUE_CLIENT_ATTRIBUTE_KEY,
+                        message.queueClientName(),
+                        OUTCOME_ATTRIBUTE_KEY,
+                        outcome
+                )
+        );
+    }
+}
@@ -0,0 +1,111 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of the same keyed operation: while an
+ * operation for a given key is in flight, further callers for the same key
+ * subscribe to the in-flight execution instead of starting a new one. Outcomes
+ * (value, empty or error) are shared only with the callers that joined the
+ * in-flight execution: the key is released as soon as the operation terminates
+ * so no result is cached.
+ *
+ * @param <K> operation key type
+ * @param <V> operation result type
+ */
+public final class SingleFlight<K, V> {
+
+    private static final AttributeKey<String> NAME_ATTRIBUTE_KEY = AttributeKey.stringKey("name");
+
+    private static final AttributeKey<Boolean> COALESCED_ATTRIBUTE_KEY = AttributeKey.booleanKey("coalesced");
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongCounter requests;
+
+    private final Attributes executedAttributes;
+
+    private final Attributes coalescedAttributes;
+
+    /**
+     * Primary constructor
+     *
+     * @param name  name used to tell apart metrics of different instances
+     * @param meter meter used to record the coalescing rate
+     */
+    public SingleFlight(
+            String name,
+            Meter meter
+    ) {
+        this.requests = meter.counterBuilder("ecommerce.singleflight.requests")
+                .setDescription("Single flight requests, split into executed and coalesced ones")
+                .build();
+        this.executedAttributes = Attributes.of(NAME_ATTRIBUTE_KEY, name, COALESCED_ATTRIBUTE_KEY, false);
+        this.coalescedAttributes = Attributes.of(NAME_ATTRIBUTE_KEY, name, COALESCED_ATTRIBUTE_KEY, true);
+    }
+
+    /**
+     * Execute the operation for the given key, or join the execution already in
+     * flight for it. The operation is evaluated lazily at subscription time.
+     *
+     * @param key       the operation key
+     * @param operation supplier of the operation to be executed
+     * @return the (possibly shared) operation result
+     */
+    public Mono<V> execute(
+                           K key,
+                           Supplier<Mono<V>> operation
+    ) {
+        return Mono.defer(() -> {
+            Mono<V> candidate = shared(key, operation);
+            Mono<V> inProgress = inFlight.putIfAbsent(key, candidate);
+            if (inProgress == null) {
+                requests.add(1, executedAttributes);
+                return candidate;
+            }
+            requests.add(1, coalescedAttributes);
+            return inProgress;
+        });
+    }
+
+    /**
+     * Forget the execution in flight for the given key, if any: callers that
+     * already joined it still get its result, while further callers start a new
+     * execution. Used to stop sharing the result of reads started before a write
+     *
+     * @param key the operation key
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Get the number of keys that currently have an operation in flight
+     *
+     * @return the in flight operations count
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<V> shared(
+                           K key,
+                           Supplier<Mono<V>> operation
+    ) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = Mono.defer(operation)
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+}
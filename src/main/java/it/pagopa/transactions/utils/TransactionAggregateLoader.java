@@ -0,0 +1,121 @@
+package it.pagopa.transactions.utils;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.domain.TransactionId;
+import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Loader for the events of a single transaction, meant to be instantiated once
+ * per request.
+ * <p>
+ * Event streams read from the event store are cold: each subscriber triggers a
+ * new Mongo query. Operations deriving more than one value from the same stream
+ * (the v1 and v2 aggregates, the authorization requested date, the presence of
+ * a given event, ...) used to query the event store once per derived value.
+ * This loader reads the event stream once, on first subscription, and shares
+ * both the event list and the aggregates reduced from it with all subscribers.
+ * <p>
+ * Only successful outcomes are memoized: errors are propagated to the current
+ * subscribers and the next subscription performs a new read, so that retried
+ * operations are not handed a stale failure. For the same reason, a new loader
+ * must be created for each (retried) request instead of being kept around.
+ */
+public final class TransactionAggregateLoader {
+
+    private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final Mono<List<BaseTransactionEvent<Object>>> events;
+
+    private final Mono<it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction> transactionV1;
+
+    private final Mono<it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction> transactionV2;
+
+    /**
+     * Primary constructor
+     *
+     * @param transactionId the transaction id
+     * @param eventStream   the (cold) transaction event stream, ordered by creation
+     *                      date
+     */
+    public TransactionAggregateLoader(
+            TransactionId transactionId,
+            Flux<BaseTransactionEvent<Object>> eventStream
+    ) {
+        this.events = memoize(
+                eventStream
+                        .collectList()
+                        .filter(eventList -> !eventList.isEmpty())
+                        .switchIfEmpty(Mono.error(() -> new TransactionNotFoundException(transactionId.value())))
+        );
+        this.transactionV1 = memoize(
+                events().<it.pagopa.ecommerce.commons.domain.v1.Transaction>reduce(
+                        new it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction(),
+                        it.pagopa.ecommerce.commons.domain.v1.Transaction::applyEvent
+                )
+                        .cast(it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction.class)
+        );
+        this.transactionV2 = memoize(
+                events().<it.pagopa.ecommerce.commons.domain.v2.Transaction>reduce(
+                        new it.pagopa.ecommerce.commons.domain.v2.EmptyTransaction(),
+                        it.pagopa.ecommerce.commons.domain.v2.Transaction::applyEvent
+                )
+                        .cast(it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction.class)
+        );
+    }
+
+    /**
+     * Transaction events, ordered by creation date
+     *
+     * @return the transaction events, or a {@link TransactionNotFoundException}
+     *         error if no event exists for the transaction
+     */
+    public Flux<BaseTransactionEvent<Object>> events() {
+        return events.flatMapIterable(eventList -> eventList);
+    }
+
+    /**
+     * Transaction aggregate built with the v1 domain model
+     *
+     * @return the v1 transaction aggregate
+     */
+    public Mono<it.pagopa.ecommerce.commons.domain.v1.pojos.BaseTransaction> transactionV1() {
+        return transactionV1;
+    }
+
+    /**
+     * Transaction aggregate built with the v2 domain model
+     *
+     * @return the v2 transaction aggregate
+     */
+    public Mono<it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction> transactionV2() {
+        return transactionV2;
+    }
+
+    /**
+     * Whether an event with the given code has been stored for the transaction
+     *
+     * @param eventCode the event code
+     * @return true iff at least one event with the given code exists
+     */
+    public Mono<Boolean> hasEvent(String eventCode) {
+        return events.map(eventList -> eventList.stream().anyMatch(event -> eventCode.equals(event.getEventCode())));
+    }
+
+    /**
+     * Share the outcome of the input Mono with all its subscribers. Values and
+     * empty completions are replayed to later subscribers, while errors are not, so
+     * that the next subscription re-evaluates the source.
+     *
+     * @param source the Mono to be memoized
+     * @param <T>    the Mono value type
+     * @return the memoized Mono
+     */
+    public static <T> Mono<T> memoize(Mono<T> source) {
+        return source.cache(value -> FOREVER, exception -> Duration.ZERO, () -> FOREVER);
+    }
+}
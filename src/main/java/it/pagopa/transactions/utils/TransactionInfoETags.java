@@ -0,0 +1,159 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.ecommerce.commons.documents.v2.ClosureErrorData;
+import it.pagopa.transactions.exceptions.NotImplementedException;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Conditional GET support for transaction info and status requests.
+ * <p>
+ * The ETag of a transaction is derived from the view fields that can change
+ * after activation (see {@link TransactionViewProjection#VERSION}), so that it
+ * can be computed from a small projected read. Requests whose
+ * {@code If-None-Match} header matches the current ETag get a
+ * {@code 304 Not Modified} response, without building the response body.
+ */
+@Slf4j
+@Component
+public class TransactionInfoETags {
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private static final Attributes NOT_MODIFIED_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "not_modified");
+
+    private static final Attributes MODIFIED_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "modified");
+
+    private final boolean enabled;
+
+    private final LongCounter conditionalRequests;
+
+    /**
+     * Primary constructor
+     *
+     * @param enabled            whether ETags are returned and conditional requests
+     *                           are handled
+     * @param openTelemetryMeter meter used to record conditional request metrics
+     */
+    @Autowired
+    public TransactionInfoETags(
+            @Value("${transactionInfoETag.enabled}") boolean enabled,
+            Meter openTelemetryMeter
+    ) {
+        this.enabled = enabled;
+        this.conditionalRequests = openTelemetryMeter.counterBuilder("ecommerce.transactioninfo.conditionalrequests")
+                .setDescription("Transaction info requests carrying an If-None-Match header, by result")
+                .build();
+        log.info("Transaction info ETags enabled: [{}]", enabled);
+    }
+
+    /**
+     * Handle a conditional GET: the current ETag is read first and, if it matches
+     * the request {@code If-None-Match} header, a {@code 304 Not Modified} response
+     * is returned without reading the response body. Otherwise the body is read and
+     * returned along with the ETag. The ETag is read before the body, so that the
+     * returned body is never older than the returned ETag
+     *
+     * @param exchange     the exchange
+     * @param eTagRead     the current ETag read, empty if the transaction is not
+     *                     found
+     * @param responseRead the response body read
+     * @param <T>          the response body type
+     * @return the response
+     */
+    public <T> Mono<ResponseEntity<T>> conditionalGet(
+                                                      ServerWebExchange exchange,
+                                                      Supplier<Mono<String>> eTagRead,
+                                                      Supplier<Mono<T>> responseRead
+    ) {
+        if (!enabled) {
+            return responseRead.get().map(ResponseEntity::ok);
+        }
+        boolean conditional = !exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty();
+        return eTagRead.get()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(eTag -> {
+                    if (eTag.isPresent() && exchange.checkNotModified(eTag.get())) {
+                        conditionalRequests.add(1, NOT_MODIFIED_ATTRIBUTES);
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).<T>build());
+                    }
+                    if (conditional) {
+                        conditionalRequests.add(1, MODIFIED_ATTRIBUTES);
+                    }
+                    // not found transactions are reported by the response read
+                    return responseRead.get().map(
+                            body -> eTag.map(value -> ResponseEntity.ok().eTag(value).body(body))
+                                    .orElseGet(() -> ResponseEntity.ok(body))
+                    );
+                });
+    }
+
+    /**
+     * Compute the ETag of a transaction view
+     *
+     * @param view the view, including at least the
+     *             {@link TransactionViewProjection#VERSION} fields
+     * @return the view ETag
+     */
+    public static String eTagOf(BaseTransactionView view) {
+        Stream<Object> versionFields = switch (view) {
+            case it.pagopa.ecommerce.commons.documents.v1.Transaction transaction -> Stream.of(
+                    transaction.getStatus(),
+                    transaction.getFeeTotal(),
+                    transaction.getPaymentGateway(),
+                    transaction.getSendPaymentResultOutcome(),
+                    transaction.getAuthorizationCode(),
+                    transaction.getAuthorizationErrorCode()
+            );
+            case it.pagopa.ecommerce.commons.documents.v2.Transaction transaction -> Stream.of(
+                    transaction.getStatus(),
+                    transaction.getFeeTotal(),
+                    transaction.getPaymentGateway(),
+                    transaction.getSendPaymentResultOutcome(),
+                    transaction.getAuthorizationCode(),
+                    transaction.getAuthorizationErrorCode(),
+                    transaction.getGatewayAuthorizationStatus(),
+                    Optional.ofNullable(transaction.getClosureErrorData())
+                            .map(ClosureErrorData::getHttpErrorCode)
+                            .orElse(null),
+                    Optional.ofNullable(transaction.getClosureErrorData())
+                            .map(ClosureErrorData::getErrorDescription)
+                            .orElse(null)
+            );
+            default ->
+                    throw new NotImplementedException("Handling for transaction document version: [%s] not implemented yet".formatted(view.getClass()));
+        };
+        String version = versionFields.map(field -> Objects.toString(field, ""))
+                .collect(Collectors.joining("|", view.getClass().getPackageName() + "|", ""));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(version.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException exception) {
+            // SHA-256 is supported by every Java platform
+            throw new IllegalStateException(exception);
+        }
+    }
+}
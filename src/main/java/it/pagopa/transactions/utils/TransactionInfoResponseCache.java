@@ -0,0 +1,225 @@
+package it.pagopa.transactions.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cache of the serialized responses of transaction info and status
+ * requests for transactions in a final status.
+ * <p>
+ * Once a transaction reaches a final status its view never changes again, so
+ * the response built for it is cached, already serialized, under the request
+ * path and served by {@link TransactionInfoResponseCacheFilter} without any
+ * Mongo read or DTO build. Responses are populated by the controllers after the
+ * service has performed the ownership check, and each cached response records
+ * the user id of the request it has been built for: it is served only to
+ * requests with the same user id (or without a user id if it has been built for
+ * a request without one), other requests are handled by the controllers as
+ * usual. Cached responses keep the ETag returned by the controllers along with
+ * the body, so that conditional requests get the same outcome whether they are
+ * served from cache or not.
+ * <p>
+ * The cache is bounded by the total size of the cached responses and entries
+ * expire after a configurable TTL, which also bounds the effect of a
+ * misconfigured final status.
+ */
+@Slf4j
+@Component
+public class TransactionInfoResponseCache {
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private static final AttributeKey<String> CAUSE_ATTRIBUTE_KEY = AttributeKey.stringKey("cause");
+
+    private static final Attributes HIT_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "hit");
+
+    private static final Attributes MISS_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "miss");
+
+    /**
+     * Approximate per entry overhead, accounted in the cache weight together with
+     * the key and response sizes
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final Set<String> finalStatuses;
+
+    private final Cache<String, CachedResponse> cache;
+
+    private final LongCounter requests;
+
+    private final LongCounter evictions;
+
+    /**
+     * Serialized response, along with its ETag and the user id of the request it
+     * has been built for
+     *
+     * @param body   the serialized response body
+     * @param eTag   the response ETag, {@code null} if ETags are not enabled
+     * @param userId the user id of the request the response has been built for
+     */
+    public record CachedResponse(
+            byte[] body,
+            String eTag,
+            String userId
+    ) {
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param objectMapper       the object mapper used to serialize responses, the
+     *                           same used by the web layer
+     * @param enabled            whether the cache is enabled
+     * @param maxSizeBytes       max total size of the cached responses
+     * @param ttlSeconds         cached responses time to live
+     * @param finalStatuses      statuses whose responses never change
+     * @param openTelemetryMeter meter used to record cache metrics
+     */
+    @Autowired
+    public TransactionInfoResponseCache(
+            ObjectMapper objectMapper,
+            @Value("${transactionInfoResponseCache.enabled}") boolean enabled,
+            @Value("${transactionInfoResponseCache.maxSizeBytes}") long maxSizeBytes,
+            @Value("${transactionInfoResponseCache.ttlSeconds}") long ttlSeconds,
+            @Value("${transactionInfoResponseCache.finalStatuses}") Set<TransactionStatusDto> finalStatuses,
+            Meter openTelemetryMeter
+    ) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.finalStatuses = finalStatuses.stream().map(TransactionStatusDto::getValue).collect(Collectors.toSet());
+        this.requests = openTelemetryMeter.counterBuilder("ecommerce.transactioninfo.responsecache.requests")
+                .setDescription("Transaction info response cache lookups, by result")
+                .build();
+        this.evictions = openTelemetryMeter.counterBuilder("ecommerce.transactioninfo.responsecache.evictions")
+                .setDescription("Transaction info response cache evictions, by cause")
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher(
+                        (
+                         String key,
+                         CachedResponse value
+                        ) -> ENTRY_OVERHEAD_BYTES + key.length() * 2 + value.body().length
+                )
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .removalListener(
+                        (
+                         String key,
+                         CachedResponse value,
+                         RemovalCause cause
+                        ) -> {
+                            if (cause.wasEvicted()) {
+                                evictions.add(1, Attributes.of(CAUSE_ATTRIBUTE_KEY, cause.name().toLowerCase()));
+                            }
+                        }
+                )
+                .build();
+        openTelemetryMeter.gaugeBuilder("ecommerce.transactioninfo.responsecache.size")
+                .setDescription("Transaction info response cache estimated number of entries")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(cache.estimatedSize()));
+        openTelemetryMeter.gaugeBuilder("ecommerce.transactioninfo.responsecache.weight")
+                .setDescription("Transaction info response cache estimated memory usage")
+                .setUnit("By")
+                .ofLongs()
+                .buildWithCallback(
+                        measurement -> cache.policy().eviction()
+                                .ifPresent(eviction -> eviction.weightedSize().ifPresent(measurement::record))
+                );
+        log.info("Transaction info response cache enabled: [{}]", enabled);
+    }
+
+    /**
+     * Whether the cache is enabled
+     *
+     * @return true iff the cache is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Find the cached response for the input request
+     *
+     * @param request the request
+     * @param xUserId the request user id
+     * @return the cached response, empty if no response is cached for the request
+     *         path or if it has been built for another user
+     */
+    public Optional<CachedResponse> find(
+                                         ServerHttpRequest request,
+                                         UUID xUserId
+    ) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<CachedResponse> cachedResponse = Optional.ofNullable(cache.getIfPresent(keyOf(request)))
+                .filter(cached -> Objects.equals(cached.userId(), userIdOf(xUserId)));
+        requests.add(1, cachedResponse.isPresent() ? HIT_ATTRIBUTES : MISS_ATTRIBUTES);
+        return cachedResponse;
+    }
+
+    /**
+     * Cache the response built for the input request if the transaction is in a
+     * final status. Must be called only once the request ownership check has been
+     * performed
+     *
+     * @param request  the request
+     * @param xUserId  the request user id
+     * @param status   the transaction status, as returned into the response
+     * @param response the response body
+     * @param eTag     the response ETag, {@code null} if none has been returned
+     */
+    public void putIfFinal(
+                           ServerHttpRequest request,
+                           UUID xUserId,
+                           Object status,
+                           Object response,
+                           String eTag
+    ) {
+        if (!enabled || status == null || !finalStatuses.contains(status.toString())) {
+            return;
+        }
+        String key = keyOf(request);
+        try {
+            cache.put(
+                    key,
+                    new CachedResponse(objectMapper.writeValueAsBytes(response), eTag, userIdOf(xUserId))
+            );
+        } catch (JsonProcessingException exception) {
+            log.warn("Error serializing response for path: [{}], response not cached", key, exception);
+        }
+    }
+
+    private static String keyOf(ServerHttpRequest request) {
+        return request.getPath().value();
+    }
+
+    private static String userIdOf(UUID xUserId) {
+        return xUserId == null ? null : xUserId.toString();
+    }
+}
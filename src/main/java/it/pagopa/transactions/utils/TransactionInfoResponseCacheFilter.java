@@ -0,0 +1,91 @@
+package it.pagopa.transactions.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Web filter serving transaction info and status requests from the
+ * {@link TransactionInfoResponseCache}, short-circuiting the controllers on
+ * cache hits. Conditional requests matching the cached response ETag get a
+ * {@code 304 Not Modified} response, as they would from the controllers
+ */
+@Slf4j
+@Component
+public class TransactionInfoResponseCacheFilter implements WebFilter {
+
+    /**
+     * Header carrying the id of the user owning the transaction
+     */
+    public static final String HEADER_USER_ID = "x-user-id";
+
+    private static final List<PathPattern> CACHED_PATHS = List.of(
+            PathPatternParser.defaultInstance.parse("/transactions/{transactionId}"),
+            PathPatternParser.defaultInstance.parse("/transactions/{transactionId}/status"),
+            PathPatternParser.defaultInstance.parse("/v2/transactions/{transactionId}")
+    );
+
+    private final TransactionInfoResponseCache transactionInfoResponseCache;
+
+    /**
+     * Primary constructor
+     *
+     * @param transactionInfoResponseCache the cached responses
+     */
+    @Autowired
+    public TransactionInfoResponseCacheFilter(TransactionInfoResponseCache transactionInfoResponseCache) {
+        this.transactionInfoResponseCache = transactionInfoResponseCache;
+    }
+
+    @Override
+    public Mono<Void> filter(
+                             ServerWebExchange exchange,
+                             WebFilterChain chain
+    ) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!transactionInfoResponseCache.isEnabled() || request.getMethod() != HttpMethod.GET
+                || CACHED_PATHS.stream()
+                        .noneMatch(pattern -> pattern.matches(request.getPath().pathWithinApplication()))) {
+            return chain.filter(exchange);
+        }
+        Optional<UUID> xUserId;
+        try {
+            xUserId = Optional.ofNullable(request.getHeaders().getFirst(HEADER_USER_ID)).map(UUID::fromString);
+        } catch (IllegalArgumentException exception) {
+            // invalid user ids are rejected by the controllers
+            return chain.filter(exchange);
+        }
+        return transactionInfoResponseCache.find(request, xUserId.orElse(null))
+                .map(cachedResponse -> {
+                    log.debug("Serving cached response for path: [{}]", request.getPath().value());
+                    ServerHttpResponse response = exchange.getResponse();
+                    if (cachedResponse.eTag() != null) {
+                        response.getHeaders().setETag(cachedResponse.eTag());
+                        if (exchange.checkNotModified(cachedResponse.eTag())) {
+                            return response.setComplete();
+                        }
+                    }
+                    byte[] body = cachedResponse.body();
+                    response.setStatusCode(HttpStatus.OK);
+                    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    response.getHeaders().setContentLength(body.length);
+                    return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+                })
+                .orElseGet(() -> chain.filter(exchange));
+    }
+}
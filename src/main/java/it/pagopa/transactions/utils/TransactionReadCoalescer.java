@@ -0,0 +1,117 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent reads of the same transaction performed by this replica:
+ * while a view or event stream read for a transaction is in flight, further
+ * reads for the same transaction share its result instead of querying Mongo
+ * again (see {@link SingleFlight}, whose metrics report the coalescing rate).
+ * <p>
+ * Writes performed by this replica must {@link #invalidate(String)} the
+ * transaction once completed, so that reads started after a write never share
+ * the result of a read started before it.
+ */
+@Slf4j
+@Component
+public class TransactionReadCoalescer {
+
+    private final boolean enabled;
+
+    private final SingleFlight<ViewReadKey, BaseTransactionView> viewReads;
+
+    private final SingleFlight<String, List<BaseTransactionEvent<Object>>> eventReads;
+
+    private record ViewReadKey(
+            String transactionId,
+            TransactionViewProjection projection
+    ) {
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param enabled            whether concurrent reads are coalesced
+     * @param openTelemetryMeter meter used to record the coalescing rate
+     */
+    @Autowired
+    public TransactionReadCoalescer(
+            @Value("${transactionReads.coalescing.enabled}") boolean enabled,
+            Meter openTelemetryMeter
+    ) {
+        this.enabled = enabled;
+        this.viewReads = new SingleFlight<>("transaction-view-read", openTelemetryMeter);
+        this.eventReads = new SingleFlight<>("transaction-event-read", openTelemetryMeter);
+        log.info("Transaction reads coalescing enabled: [{}]", enabled);
+    }
+
+    /**
+     * Perform the given projected view read, or join the one in flight for the same
+     * transaction and projection. The returned view may be shared with other
+     * callers, so it must not be modified
+     *
+     * @param transactionId the transaction id
+     * @param projection    the read projection
+     * @param read          the view read
+     * @return the (possibly shared) view
+     */
+    public Mono<BaseTransactionView> view(
+                                          String transactionId,
+                                          TransactionViewProjection projection,
+                                          Supplier<Mono<BaseTransactionView>> read
+    ) {
+        if (!enabled) {
+            return Mono.defer(read);
+        }
+        return viewReads.execute(new ViewReadKey(transactionId, projection), read);
+    }
+
+    /**
+     * Perform the given event stream read, or join the one in flight for the same
+     * transaction. Events are collected before being shared, so that every caller
+     * gets the whole stream
+     *
+     * @param transactionId the transaction id
+     * @param read          the event stream read
+     * @return the (possibly shared) event stream
+     */
+    public Flux<BaseTransactionEvent<Object>> events(
+                                                     String transactionId,
+                                                     Supplier<Flux<BaseTransactionEvent<Object>>> read
+    ) {
+        if (!enabled) {
+            return Flux.defer(read);
+        }
+        return eventReads.execute(transactionId, () -> read.get().collectList())
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Stop sharing the reads in flight for a transaction, to be called once a write
+     * to the transaction events or view has completed
+     *
+     * @param transactionId the transaction id
+     */
+    public void invalidate(String transactionId) {
+        if (!enabled) {
+            return;
+        }
+        for (TransactionViewProjection projection : TransactionViewProjection.values()) {
+            viewReads.forget(new ViewReadKey(transactionId, projection));
+        }
+        eventReads.forget(transactionId);
+    }
+}
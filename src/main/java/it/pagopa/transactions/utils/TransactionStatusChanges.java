@@ -0,0 +1,308 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.transactions.exceptions.TooManySubscriptionsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Transaction status change notifications, used to stream status changes to
+ * clients instead of having them poll.
+ * <p>
+ * Each view write performed by this service publishes the transaction id on a
+ * Redis pub/sub channel, so that every replica can notify its local
+ * subscriptions for that transaction, kept by transaction id. Views are also
+ * updated by other services, which do not publish notifications: subscriptions
+ * re-read the status at a fixed interval too, so that such changes are picked
+ * up anyway. Streams end when the transaction reaches a final status or after a
+ * max duration, and clients are expected to reconnect in the latter case.
+ * <p>
+ * The number of subscriptions held by each replica is capped: subscriptions
+ * over the cap are rejected with a {@link TooManySubscriptionsException}.
+ */
+@Slf4j
+@Component
+public class TransactionStatusChanges {
+
+    /**
+     * Pub/sub channel used to broadcast transaction status changes
+     */
+    public static final String CHANNEL = "transaction-status-changes";
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private static final AttributeKey<String> SOURCE_ATTRIBUTE_KEY = AttributeKey.stringKey("source");
+
+    private static final Attributes ACCEPTED_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "accepted");
+
+    private static final Attributes REJECTED_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "rejected");
+
+    private static final Attributes PUBLISHED_ATTRIBUTES = Attributes.of(SOURCE_ATTRIBUTE_KEY, "published");
+
+    private static final Attributes RECEIVED_ATTRIBUTES = Attributes.of(SOURCE_ATTRIBUTE_KEY, "received");
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private final boolean pubSubEnabled;
+
+    private final int maxSubscriptions;
+
+    private final Duration pollInterval;
+
+    private final Duration maxDuration;
+
+    private final Set<String> finalStatuses;
+
+    private final Map<String, Subscribers> subscribersByTransactionId = new ConcurrentHashMap<>();
+
+    private final AtomicInteger activeSubscriptions = new AtomicInteger();
+
+    private final LongCounter subscriptions;
+
+    private final LongCounter notifications;
+
+    private Disposable channelSubscription;
+
+    /**
+     * Local subscribers of a transaction, notified through a shared sink
+     */
+    private static final class Subscribers {
+        private final Sinks.Many<Long> sink = Sinks.many().multicast().directBestEffort();
+
+        // only accessed within map compute functions
+        private int count;
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param reactiveRedisConnectionFactory the Redis connection factory
+     * @param pubSubEnabled                  whether status changes are published
+     *                                       and received through Redis pub/sub
+     * @param maxSubscriptions               max number of subscriptions held by
+     *                                       this replica
+     * @param pollIntervalMillis             interval at which subscriptions re-read
+     *                                       the transaction status
+     * @param maxDurationSeconds             max subscription duration
+     * @param finalStatuses                  statuses ending subscriptions
+     * @param openTelemetryMeter             meter used to record subscription
+     *                                       metrics
+     */
+    @Autowired
+    public TransactionStatusChanges(
+            ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+            @Value("${transactionStatusStream.pubSubEnabled}") boolean pubSubEnabled,
+            @Value("${transactionStatusStream.maxSubscriptions}") int maxSubscriptions,
+            @Value("${transactionStatusStream.pollIntervalMillis}") long pollIntervalMillis,
+            @Value("${transactionStatusStream.maxDurationSeconds}") long maxDurationSeconds,
+            @Value("${transactionStatusStream.finalStatuses}") Set<TransactionStatusDto> finalStatuses,
+            Meter openTelemetryMeter
+    ) {
+        this(
+                new ReactiveStringRedisTemplate(reactiveRedisConnectionFactory),
+                pubSubEnabled,
+                maxSubscriptions,
+                Duration.ofMillis(pollIntervalMillis),
+                Duration.ofSeconds(maxDurationSeconds),
+                finalStatuses,
+                openTelemetryMeter
+        );
+    }
+
+    TransactionStatusChanges(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            boolean pubSubEnabled,
+            int maxSubscriptions,
+            Duration pollInterval,
+            Duration maxDuration,
+            Set<TransactionStatusDto> finalStatuses,
+            Meter openTelemetryMeter
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.pubSubEnabled = pubSubEnabled;
+        this.maxSubscriptions = maxSubscriptions;
+        this.pollInterval = pollInterval;
+        this.maxDuration = maxDuration;
+        this.finalStatuses = finalStatuses.stream().map(TransactionStatusDto::getValue).collect(Collectors.toSet());
+        this.subscriptions = openTelemetryMeter.counterBuilder("ecommerce.transactionstatus.subscriptions")
+                .setDescription("Transaction status subscription requests, by result")
+                .build();
+        this.notifications = openTelemetryMeter.counterBuilder("ecommerce.transactionstatus.notifications")
+                .setDescription("Transaction status change notifications, by source")
+                .build();
+        openTelemetryMeter.gaugeBuilder("ecommerce.transactionstatus.subscriptions.active")
+                .setDescription("Transaction status subscriptions currently held by this replica")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(activeSubscriptions.get()));
+    }
+
+    /**
+     * Start listening for status changes published by all the replicas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void listen() {
+        if (!pubSubEnabled || channelSubscription != null) {
+            return;
+        }
+        channelSubscription = redisTemplate.listenToChannel(CHANNEL)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onChange)
+                .doOnError(exception -> log.warn("Transaction status changes subscription error", exception))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        if (channelSubscription != null) {
+            channelSubscription.dispose();
+            channelSubscription = null;
+        }
+    }
+
+    /**
+     * Notify all the replicas that the status of a transaction may have changed
+     *
+     * @param transactionId the transaction id
+     * @return a Mono completing once the notification has been published
+     */
+    public Mono<Void> publish(String transactionId) {
+        if (!pubSubEnabled) {
+            return Mono.empty();
+        }
+        return redisTemplate.convertAndSend(CHANNEL, transactionId)
+                .doOnNext(ignored -> notifications.add(1, PUBLISHED_ATTRIBUTES))
+                .onErrorResume(exception -> {
+                    // subscribers will pick up the change with their next status read
+                    log.warn("Error publishing status change for transactionId: [{}]", transactionId, exception);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Check whether a new subscription can be accepted by this replica
+     *
+     * @return an empty Mono, or a {@link TooManySubscriptionsException} error if
+     *         the subscriptions cap has been reached
+     */
+    public Mono<Void> checkCapacity() {
+        return Mono.defer(() -> {
+            if (activeSubscriptions.get() >= maxSubscriptions) {
+                subscriptions.add(1, REJECTED_ATTRIBUTES);
+                return Mono.error(new TooManySubscriptionsException(maxSubscriptions));
+            }
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Stream the status of a transaction, starting from its current status. A new
+     * status is read as soon as change notifications are subscribed (picking up
+     * changes made after the current status has been read), each time a change is
+     * notified for the transaction and at the configured poll interval, and emitted
+     * only if different from the previous one. The stream ends when a final status
+     * is emitted or after the configured max duration
+     *
+     * @param transactionId the transaction id
+     * @param current       the current transaction status
+     * @param read          the status read
+     * @param statusOf      status extractor, used to detect final statuses
+     * @param <T>           the status type
+     * @return the status stream, erroring with a
+     *         {@link TooManySubscriptionsException} if the subscriptions cap has
+     *         been reached
+     */
+    public <T> Flux<T> stream(
+                              String transactionId,
+                              T current,
+                              Supplier<Mono<T>> read,
+                              Function<T, ?> statusOf
+    ) {
+        if (isFinal(statusOf.apply(current))) {
+            return Flux.just(current);
+        }
+        Flux<T> updates = changes(transactionId)
+                .onBackpressureLatest()
+                .concatMap(ignored -> read.get(), 1);
+        return Flux.concat(Mono.just(current), updates)
+                .distinctUntilChanged()
+                .takeUntil(status -> isFinal(statusOf.apply(status)))
+                .take(maxDuration);
+    }
+
+    private Flux<Long> changes(String transactionId) {
+        return Flux.defer(() -> {
+            if (activeSubscriptions.incrementAndGet() > maxSubscriptions) {
+                activeSubscriptions.decrementAndGet();
+                subscriptions.add(1, REJECTED_ATTRIBUTES);
+                return Flux.error(new TooManySubscriptionsException(maxSubscriptions));
+            }
+            subscriptions.add(1, ACCEPTED_ATTRIBUTES);
+            Subscribers subscribers = subscribersByTransactionId.compute(
+                    transactionId,
+                    (
+                     key,
+                     existing
+                    ) -> {
+                        Subscribers updated = existing == null ? new Subscribers() : existing;
+                        updated.count++;
+                        return updated;
+                    }
+            );
+            // the first tick comes right after registration, so that a change notified
+            // between the current status read and this subscription is not missed
+            return Flux.merge(subscribers.sink.asFlux(), Flux.interval(Duration.ZERO, pollInterval))
+                    .doFinally(signal -> {
+                        activeSubscriptions.decrementAndGet();
+                        subscribersByTransactionId.computeIfPresent(
+                                transactionId,
+                                (
+                                 key,
+                                 existing
+                                ) -> --existing.count == 0 ? null : existing
+                        );
+                    });
+        });
+    }
+
+    private void onChange(String transactionId) {
+        notifications.add(1, RECEIVED_ATTRIBUTES);
+        Subscribers subscribers = subscribersByTransactionId.get(transactionId);
+        if (subscribers != null) {
+            // notifications are received sequentially, so emissions are never concurrent
+            subscribers.sink.tryEmitNext(System.currentTimeMillis());
+        }
+    }
+
+    private boolean isFinal(Object status) {
+        return status != null && finalStatuses.contains(status.toString());
+    }
+}
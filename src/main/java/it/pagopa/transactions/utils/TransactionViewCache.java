@@ -0,0 +1,331 @@
+package it.pagopa.transactions.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
+import it.pagopa.transactions.repositories.TransactionViewVersion;
+import it.pagopa.transactions.repositories.TransactionViewVersionTemplateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Write-through cache of the transaction views read to serve transaction info
+ * and status requests.
+ * <p>
+ * Views are kept in an in-process, size bounded cache, validated against a
+ * {@link TransactionViewVersion} shared by all the replicas through Redis: each
+ * view write performed by this service stores the written view locally and a
+ * new version in Redis, so that the copies held by the other replicas are no
+ * longer served. Reads are served from the local copy only if its version is
+ * the current one, and from Mongo otherwise.
+ * <p>
+ * Views are also updated by other services (e.g. closure outcomes and
+ * expirations), which do not write versions, and any status can be changed this
+ * way: a transaction in {@code ACTIVATED} or {@code AUTHORIZATION_REQUESTED}
+ * status can still be expired by the scheduler. Versions therefore expire after
+ * a short TTL, so that such updates are picked up within that TTL. A longer TTL
+ * can be configured for write-through statuses, which must only be statuses no
+ * other service ever moves a transaction out of; none is configured by default.
+ * <p>
+ * Cached views are returned as read from Mongo, so ownership checks are still
+ * performed by the callers on each read. Mongo reads are given the status of
+ * the current view version, if any, so that reads served by a lagging secondary
+ * can be told apart and retried on the primary (see
+ * {@link MongoReadPreferences}). Redis errors are logged and make reads fall
+ * back to Mongo, never failing the request.
+ */
+@Slf4j
+@Component
+public class TransactionViewCache {
+
+    private static final AttributeKey<String> RESULT_ATTRIBUTE_KEY = AttributeKey.stringKey("result");
+
+    private static final Attributes HIT_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "hit");
+
+    private static final Attributes MISS_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "miss");
+
+    private static final Attributes FRESH_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "fresh");
+
+    private static final Attributes STALE_ATTRIBUTES = Attributes.of(RESULT_ATTRIBUTE_KEY, "stale");
+
+    private final TransactionViewVersionTemplateWrapper transactionViewVersionTemplateWrapper;
+
+    private final boolean enabled;
+
+    private final Set<TransactionStatusDto> writeThroughStatuses;
+
+    private final Duration writeThroughTtl;
+
+    private final Duration ttl;
+
+    private final double verificationSampleRate;
+
+    private final Cache<String, LocalEntry> localCache;
+
+    private final LongCounter requests;
+
+    private final LongCounter verifications;
+
+    private final DoubleHistogram entryAge;
+
+    /**
+     * Cached view, along with the fields read from Mongo ({@code null} for full
+     * views) and the version it has been read or written with
+     */
+    private record LocalEntry(
+            BaseTransactionView view,
+            Set<String> fields,
+            String version
+    ) {
+        boolean covers(TransactionViewProjection projection) {
+            return fields == null || fields.containsAll(projection.fields());
+        }
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param transactionViewVersionTemplateWrapper the Redis wrapper for view
+     *                                              versions
+     * @param enabled                               whether the cache is enabled
+     * @param localMaxSize                          max number of in-process cached
+     *                                              views
+     * @param writeThroughStatuses                  statuses only changed by this
+     *                                              service
+     * @param writeThroughTtlSeconds                version TTL for views in a
+     *                                              write-through status
+     * @param ttlMillis                             version TTL for views in any
+     *                                              other status
+     * @param verificationSampleRate                fraction of cache hits verified
+     *                                              against Mongo to measure
+     *                                              staleness
+     * @param openTelemetryMeter                    meter used to record cache
+     *                                              metrics
+     */
+    @Autowired
+    public TransactionViewCache(
+            TransactionViewVersionTemplateWrapper transactionViewVersionTemplateWrapper,
+            @Value("${transactionViewCache.enabled}") boolean enabled,
+            @Value("${transactionViewCache.localMaxSize}") long localMaxSize,
+            @Value("${transactionViewCache.writeThroughStatuses}") Set<TransactionStatusDto> writeThroughStatuses,
+            @Value("${transactionViewCache.writeThroughTtlSeconds}") long writeThroughTtlSeconds,
+            @Value("${transactionViewCache.ttlMillis}") long ttlMillis,
+            @Value("${transactionViewCache.verificationSampleRate}") double verificationSampleRate,
+            Meter openTelemetryMeter
+    ) {
+        this.transactionViewVersionTemplateWrapper = transactionViewVersionTemplateWrapper;
+        this.enabled = enabled;
+        this.writeThroughStatuses = Set.copyOf(writeThroughStatuses);
+        this.writeThroughTtl = Duration.ofSeconds(writeThroughTtlSeconds);
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.verificationSampleRate = verificationSampleRate;
+        // local copies are useless once their version has expired
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(writeThroughTtl.compareTo(ttl) > 0 ? writeThroughTtl : ttl)
+                .build();
+        this.requests = openTelemetryMeter.counterBuilder("ecommerce.transactionview.cache.requests")
+                .setDescription("Transaction view cache lookups, by result")
+                .build();
+        this.verifications = openTelemetryMeter.counterBuilder("ecommerce.transactionview.cache.verifications")
+                .setDescription("Sampled cache hits verified against Mongo, by result")
+                .build();
+        this.entryAge = openTelemetryMeter.histogramBuilder("ecommerce.transactionview.cache.entry.age")
+                .setDescription("Time elapsed since the version of the views served from cache has been written")
+                .setUnit("ms")
+                .build();
+        openTelemetryMeter.gaugeBuilder("ecommerce.transactionview.cache.size")
+                .setDescription("Transaction view cache estimated size")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(localCache.estimatedSize()));
+        log.info("Transaction view cache enabled: [{}]", enabled);
+    }
+
+    /**
+     * Find a transaction view, serving it from cache if the cached copy is current
+     * and includes the projection fields, or reading it from Mongo otherwise
+     *
+     * @param transactionId the transaction id
+     * @param projection    the fields to be read
+     * @param mongoRead     the Mongo read performed on cache miss, given the status
+     *                      of the current view version, if any
+     * @return the view, empty if no view exists for the transaction
+     */
+    public Mono<BaseTransactionView> find(
+                                          String transactionId,
+                                          TransactionViewProjection projection,
+                                          Function<Optional<TransactionStatusDto>, Mono<BaseTransactionView>> mongoRead
+    ) {
+        if (!enabled) {
+            return mongoRead.apply(Optional.empty());
+        }
+        return transactionViewVersionTemplateWrapper.findByTransactionId(transactionId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(exception -> {
+                    log.warn("Error reading view version for transactionId: [{}]", transactionId, exception);
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(version -> lookup(transactionId, projection, version, mongoRead));
+    }
+
+    /**
+     * Store a view just written to Mongo, making it the current version for all the
+     * replicas
+     *
+     * @param view the written view
+     * @return a Mono completing once the view version has been written
+     */
+    public Mono<Void> writeThrough(BaseTransactionView view) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            String transactionId = transactionIdOf(view);
+            TransactionStatusDto status = statusOf(view);
+            if (transactionId == null || status == null) {
+                return Mono.empty();
+            }
+            TransactionViewVersion version = new TransactionViewVersion(
+                    transactionId,
+                    UUID.randomUUID().toString(),
+                    status,
+                    Instant.now().toEpochMilli()
+            );
+            localCache.invalidate(transactionId);
+            return transactionViewVersionTemplateWrapper.save(version, ttlFor(status))
+                    .doOnNext(saved -> {
+                        if (Boolean.TRUE.equals(saved)) {
+                            localCache.put(transactionId, new LocalEntry(view, null, version.version()));
+                        }
+                    })
+                    .onErrorResume(exception -> {
+                        // copies held by other replicas are dropped once their version expires
+                        log.warn("Error writing view version for transactionId: [{}]", transactionId, exception);
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    private Mono<BaseTransactionView> lookup(
+                                             String transactionId,
+                                             TransactionViewProjection projection,
+                                             Optional<TransactionViewVersion> version,
+                                             Function<Optional<TransactionStatusDto>, Mono<BaseTransactionView>> mongoRead
+    ) {
+        Optional<TransactionStatusDto> knownStatus = version.map(TransactionViewVersion::status);
+        if (version.isPresent()) {
+            LocalEntry entry = localCache.getIfPresent(transactionId);
+            if (entry != null && entry.version().equals(version.get().version()) && entry.covers(projection)) {
+                requests.add(1, HIT_ATTRIBUTES);
+                entryAge.record(Math.max(0, Instant.now().toEpochMilli() - version.get().writtenAt()));
+                verifySampled(transactionId, entry.view(), knownStatus, mongoRead);
+                return Mono.just(entry.view());
+            }
+        }
+        requests.add(1, MISS_ATTRIBUTES);
+        return mongoRead.apply(knownStatus)
+                .flatMap(view -> populate(transactionId, projection, view, version).thenReturn(view));
+    }
+
+    private Mono<Void> populate(
+                                String transactionId,
+                                TransactionViewProjection projection,
+                                BaseTransactionView view,
+                                Optional<TransactionViewVersion> version
+    ) {
+        if (version.isPresent()) {
+            // the view has been read after the version, so it is at least as recent
+            localCache.put(transactionId, new LocalEntry(view, projection.fields(), version.get().version()));
+            return Mono.empty();
+        }
+        TransactionStatusDto status = statusOf(view);
+        if (status == null) {
+            return Mono.empty();
+        }
+        TransactionViewVersion newVersion = new TransactionViewVersion(
+                transactionId,
+                UUID.randomUUID().toString(),
+                status,
+                Instant.now().toEpochMilli()
+        );
+        // a version written concurrently may belong to a more recent view
+        return transactionViewVersionTemplateWrapper.saveIfAbsent(newVersion, ttlFor(status))
+                .doOnNext(saved -> {
+                    if (Boolean.TRUE.equals(saved)) {
+                        localCache.put(
+                                transactionId,
+                                new LocalEntry(view, projection.fields(), newVersion.version())
+                        );
+                    }
+                })
+                .onErrorResume(exception -> {
+                    log.warn("Error writing view version for transactionId: [{}]", transactionId, exception);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void verifySampled(
+                               String transactionId,
+                               BaseTransactionView cached,
+                               Optional<TransactionStatusDto> knownStatus,
+                               Function<Optional<TransactionStatusDto>, Mono<BaseTransactionView>> mongoRead
+    ) {
+        if (verificationSampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= verificationSampleRate) {
+            return;
+        }
+        TransactionStatusDto cachedStatus = statusOf(cached);
+        mongoRead.apply(knownStatus)
+                .map(stored -> Objects.equals(statusOf(stored), cachedStatus) ? FRESH_ATTRIBUTES : STALE_ATTRIBUTES)
+                .defaultIfEmpty(STALE_ATTRIBUTES)
+                .subscribe(
+                        attributes -> verifications.add(1, attributes),
+                        exception -> log.debug(
+                                "Error verifying cached view for transactionId: [{}]",
+                                transactionId,
+                                exception
+                        )
+                );
+    }
+
+    private Duration ttlFor(TransactionStatusDto status) {
+        return writeThroughStatuses.contains(status) ? writeThroughTtl : ttl;
+    }
+
+    private static String transactionIdOf(BaseTransactionView view) {
+        return switch (view) {
+            case it.pagopa.ecommerce.commons.documents.v1.Transaction transaction -> transaction.getTransactionId();
+            case it.pagopa.ecommerce.commons.documents.v2.Transaction transaction -> transaction.getTransactionId();
+            default -> null;
+        };
+    }
+
+    private static TransactionStatusDto statusOf(BaseTransactionView view) {
+        return switch (view) {
+            case it.pagopa.ecommerce.commons.documents.v1.Transaction transaction -> transaction.getStatus();
+            case it.pagopa.ecommerce.commons.documents.v2.Transaction transaction -> transaction.getStatus();
+            default -> null;
+        };
+    }
+}
@@ -33,6 +33,10 @@ public class TransactionsUtils {
 
     private final TransactionsEventStoreRepository<Object> eventStoreRepository;
 
+    private final EventStoreSnapshots eventStoreSnapshots;
+
+    private final TransactionReadCoalescer transactionReadCoalescer;
+
     private final String warmUpNoticeCodePrefix;
 
     private static final Map<it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto, it.pagopa.generated.transactions.server.model.TransactionStatusDto> transactionStatusLookupMapV1 = new EnumMap<>(
@@ -54,9 +58,13 @@ public class TransactionsUtils {
     @Autowired
     public TransactionsUtils(
             TransactionsEventStoreRepository<Object> eventStoreRepository,
+            EventStoreSnapshots eventStoreSnapshots,
+            TransactionReadCoalescer transactionReadCoalescer,
             @Value("${warmup.request.newTransaction.noticeCodePrefix}") String warmUpNoticeCodePrefix
     ) {
         this.eventStoreRepository = eventStoreRepository;
+        this.eventStoreSnapshots = eventStoreSnapshots;
+        this.transactionReadCoalescer = transactionReadCoalescer;
         this.warmUpNoticeCodePrefix = warmUpNoticeCodePrefix;
     }
 
@@ -346,12 +354,29 @@ public class TransactionsUtils {
                                       BiFunction<A, ? super BaseTransactionEvent<?>, A> accumulator,
                                       Class<T> clazz
     ) {
-        return eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(transactionId.value())
+        return transactionReadCoalescer.events(transactionId.value(), () -> eventStream(transactionId))
                 .switchIfEmpty(Mono.error(new TransactionNotFoundException(transactionId.value())))
                 .reduce(initialValue, accumulator)
                 .cast(clazz);
     }
 
+    /**
+     * Create a loader sharing the events of the given transaction, and the
+     * aggregates built from them, among all the steps of a single request
+     *
+     * @param transactionId the transaction id
+     * @return the transaction aggregate loader
+     */
+    public TransactionAggregateLoader aggregateLoader(TransactionId transactionId) {
+        return new TransactionAggregateLoader(transactionId, eventStream(transactionId));
+    }
+
+    private Flux<BaseTransactionEvent<Object>> eventStream(TransactionId transactionId) {
+        return eventStoreSnapshots.isEnabled()
+                ? eventStoreSnapshots.loadEvents(transactionId)
+                : eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(transactionId.value());
+    }
+
     public <A, T> Mono<T> reduceEvents(
                                        Flux<BaseTransactionEvent<Object>> events,
                                        A initialValue,
@@ -0,0 +1,48 @@
+package it.pagopa.transactions.utils.redis;
+
+/**
+ * Format used to write documents to Redis. Documents are always read whatever
+ * format they have been written with.
+ */
+public enum RedisSerializationFormat {
+    /**
+     * Plain JSON, without header: the legacy format, readable by services not
+     * supporting versioned documents
+     */
+    JSON((byte) 0x00),
+    /**
+     * Binary Smile encoding, prefixed by the versioned header
+     */
+    SMILE((byte) 0x01);
+
+    private final byte code;
+
+    RedisSerializationFormat(byte code) {
+        this.code = code;
+    }
+
+    /**
+     * Get the code identifying this format in the versioned header
+     *
+     * @return the format code
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Get the format identified by the given versioned header code
+     *
+     * @param code the format code
+     * @return the format
+     * @throws IllegalArgumentException for unknown codes
+     */
+    public static RedisSerializationFormat fromCode(byte code) {
+        for (RedisSerializationFormat format : values()) {
+            if (format.code == code) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Redis serialization format code: [%s]".formatted(code));
+    }
+}
@@ -0,0 +1,134 @@
+package it.pagopa.transactions.utils.redis;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Redis value serializer writing documents in the configured
+ * {@link RedisSerializationFormat}.
+ * <p>
+ * Binary documents are prefixed by a three bytes header made of a magic byte,
+ * the header version and the format code. The magic byte can never start a
+ * UTF-8 JSON document, so values without header are read as legacy JSON, as
+ * written by
+ * {@link org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer}.
+ * This allows to switch format with a rolling deploy: documents written by
+ * either format are always readable, provided that all the readers have been
+ * upgraded before switching writes to a binary format.
+ * <p>
+ * Unknown properties are ignored when reading: documents of shared keyspaces
+ * (e.g. PaymentRequestInfo) are also written by other services through the
+ * commons serializer, and may carry derived properties (e.g. the RptId fiscal
+ * code and notice id) or properties added by newer commons releases.
+ *
+ * @param <T> the document type
+ */
+public class VersionedRedisSerializer<T> implements RedisSerializer<T> {
+
+    /**
+     * First byte of versioned documents, never found in UTF-8 encoded text
+     */
+    static final byte MAGIC = (byte) 0xFE;
+
+    /**
+     * Current header version
+     */
+    static final byte HEADER_VERSION = 1;
+
+    static final int HEADER_LENGTH = 3;
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(
+            SmileFactory.builder()
+                    // format is already identified by the versioned header
+                    .disable(SmileGenerator.Feature.WRITE_HEADER)
+                    .disable(SmileParser.Feature.REQUIRE_HEADER)
+                    .build()
+    )
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final RedisSerializationFormat format;
+
+    private final ObjectReader jsonReader;
+
+    private final ObjectReader smileReader;
+
+    private final ObjectWriter writer;
+
+    /**
+     * Primary constructor
+     *
+     * @param type   the document type
+     * @param format the format used to write documents
+     */
+    public VersionedRedisSerializer(
+            Class<T> type,
+            RedisSerializationFormat format
+    ) {
+        this.format = format;
+        this.jsonReader = JSON_MAPPER.readerFor(type);
+        this.smileReader = SMILE_MAPPER.readerFor(type);
+        this.writer = switch (format) {
+            case JSON -> JSON_MAPPER.writerFor(type);
+            case SMILE -> SMILE_MAPPER.writerFor(type);
+        };
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] payload = writer.writeValueAsBytes(value);
+            if (format == RedisSerializationFormat.JSON) {
+                return payload;
+            }
+            byte[] document = new byte[HEADER_LENGTH + payload.length];
+            document[0] = MAGIC;
+            document[1] = HEADER_VERSION;
+            document[2] = format.getCode();
+            System.arraycopy(payload, 0, document, HEADER_LENGTH, payload.length);
+            return document;
+        } catch (IOException e) {
+            throw new SerializationException("Could not write document: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] != MAGIC) {
+                return jsonReader.readValue(bytes);
+            }
+            if (bytes.length < HEADER_LENGTH || bytes[1] != HEADER_VERSION) {
+                throw new SerializationException(
+                        "Unsupported document header: %s"
+                                .formatted(Arrays.toString(Arrays.copyOf(bytes, Math.min(bytes.length, HEADER_LENGTH))))
+                );
+            }
+            ObjectReader reader = switch (RedisSerializationFormat.fromCode(bytes[2])) {
+                case JSON -> jsonReader;
+                case SMILE -> smileReader;
+            };
+            return reader.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Could not read document: " + e.getMessage(), e);
+        }
+    }
+}
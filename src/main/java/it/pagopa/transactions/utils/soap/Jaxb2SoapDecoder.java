@@ -10,30 +10,43 @@ import org.springframework.http.codec.xml.Jaxb2XmlDecoder;
 import org.springframework.lang.Nullable;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
-import org.springframework.ws.WebServiceMessage;
-import org.springframework.ws.WebServiceMessageFactory;
-import org.springframework.ws.client.core.WebServiceTemplate;
-import org.springframework.ws.support.DefaultStrategiesHelper;
+import org.springframework.util.xml.StaxUtils;
 import reactor.core.Exceptions;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.util.Map;
 
 public class Jaxb2SoapDecoder extends Jaxb2XmlDecoder {
 
-    private final JaxbContextContainer jaxbContexts = new JaxbContextContainer();
+    private static final String SOAP_BODY_LOCAL_NAME = "Body";
+
+    /**
+     * Input factory shared across decode invocations, with DTD and external
+     * entities support disabled
+     */
+    private static final XMLInputFactory INPUT_FACTORY = StaxUtils.createDefensiveInputFactory();
+
+    private final JaxbContextContainer jaxbContexts;
 
     public Jaxb2SoapDecoder() {
+        this(new JaxbContextContainer());
+    }
+
+    public Jaxb2SoapDecoder(JaxbContextContainer jaxbContexts) {
         super(
                 MimeTypeUtils.APPLICATION_XML,
                 MimeTypeUtils.TEXT_XML,
                 new MediaType("application", "*+xml"),
                 new MediaType("text", "*")
         );
+        this.jaxbContexts = jaxbContexts;
     }
 
     @Override
@@ -44,28 +57,56 @@ public class Jaxb2SoapDecoder extends Jaxb2XmlDecoder {
                          @Nullable Map<String, Object> hints
     ) throws DecodingException {
 
+        XMLStreamReader reader = null;
         try {
-
-            DefaultStrategiesHelper helper = new DefaultStrategiesHelper(WebServiceTemplate.class);
-            WebServiceMessageFactory messageFactory = helper.getDefaultStrategy(WebServiceMessageFactory.class);
-            WebServiceMessage message = messageFactory.createWebServiceMessage(dataBuffer.asInputStream());
-            return unmarshal(message, targetType.toClass());
+            reader = INPUT_FACTORY.createXMLStreamReader(dataBuffer.asInputStream());
+            moveToBodyPayload(reader);
+            return unmarshal(reader, targetType.toClass());
         } catch (Throwable ex) {
             ex = (ex.getCause() instanceof XMLStreamException ? ex.getCause() : ex);
             throw Exceptions.propagate(ex);
         } finally {
+            closeQuietly(reader);
             DataBufferUtils.release(dataBuffer);
         }
     }
 
+    /**
+     * Advance the input reader up to the first element contained into the SOAP
+     * Body, without building any in-memory representation of the envelope
+     *
+     * @param reader the reader positioned at the start of the SOAP message
+     * @throws XMLStreamException for malformed XML input
+     */
+    private void moveToBodyPayload(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && isSoapBody(reader)) {
+                if (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    return;
+                }
+                break;
+            }
+        }
+        throw new DecodingException("No payload found into SOAP Body");
+    }
+
+    private boolean isSoapBody(XMLStreamReader reader) {
+        String namespaceUri = reader.getNamespaceURI();
+        return SOAP_BODY_LOCAL_NAME.equals(reader.getLocalName())
+                && (SoapEnvelope.SOAP_11_NAMESPACE_URI.equals(namespaceUri)
+                        || SoapEnvelope.SOAP_12_NAMESPACE_URI.equals(namespaceUri));
+    }
+
     private Object unmarshal(
-                             WebServiceMessage message,
+                             XMLStreamReader reader,
                              Class<?> outputClass
     ) {
         try {
 
-            Unmarshaller unmarshaller = getUnmarshaller();
-            JAXBElement<?> jaxbElement = unmarshaller.unmarshal(message.getPayloadSource(), outputClass);
+            Unmarshaller unmarshaller = jaxbContexts.borrowUnmarshaller();
+            JAXBElement<?> jaxbElement = unmarshaller.unmarshal(reader, outputClass);
+            // unmarshaller is given back to the pool only after a successful unmarshalling
+            jaxbContexts.releaseUnmarshaller(unmarshaller);
             return jaxbElement.getValue();
         } catch (UnmarshalException ex) {
             throw new DecodingException("Could not unmarshal XML to " + outputClass, ex);
@@ -74,9 +115,14 @@ public class Jaxb2SoapDecoder extends Jaxb2XmlDecoder {
         }
     }
 
-    private Unmarshaller getUnmarshaller() throws JAXBException {
-
-        return jaxbContexts.createUnmarshaller();
+    private void closeQuietly(@Nullable XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // nothing to do here, the underlying buffer is released anyway
+            }
+        }
     }
 
 }
@@ -11,7 +11,6 @@ import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
-import org.w3c.dom.Document;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -20,10 +19,6 @@ import javax.xml.bind.MarshalException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.soap.MessageFactory;
-import javax.xml.soap.SOAPBody;
-import javax.xml.soap.SOAPMessage;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -32,7 +27,32 @@ import java.util.Map;
 
 public class Jaxb2SoapEncoder implements Encoder<Object> {
 
-    private final JaxbContextContainer jaxbContexts = new JaxbContextContainer();
+    /**
+     * SOAP 1.1 envelope opening, written as-is before the marshalled body content
+     */
+    static final byte[] SOAP_ENVELOPE_PREFIX = ("<soap:Envelope xmlns:soap=\"" + SoapEnvelope.SOAP_11_NAMESPACE_URI
+            + "\"><soap:Header/><soap:Body>").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * SOAP 1.1 envelope closing, written as-is after the marshalled body content
+     */
+    static final byte[] SOAP_ENVELOPE_SUFFIX = "</soap:Body></soap:Envelope>".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Initial buffer capacity, sized to hold a whole activatePaymentNoticeV2
+     * request without growing the buffer
+     */
+    private static final int INITIAL_BUFFER_SIZE = 2048;
+
+    private final JaxbContextContainer jaxbContexts;
+
+    public Jaxb2SoapEncoder() {
+        this(new JaxbContextContainer());
+    }
+
+    public Jaxb2SoapEncoder(JaxbContextContainer jaxbContexts) {
+        this.jaxbContexts = jaxbContexts;
+    }
 
     @Override
     public boolean canEncode(
@@ -70,35 +90,22 @@ public class Jaxb2SoapEncoder implements Encoder<Object> {
         return Mono.fromCallable(() -> {
 
             boolean release = true;
-            DataBuffer buffer = bufferFactory.allocateBuffer(1024);
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_BUFFER_SIZE);
             SoapEnvelope soapEnvelope = (SoapEnvelope) value;
-            OutputStream outputStream = buffer.asOutputStream();
-            Document doc = dbf.newDocumentBuilder().newDocument();
-            SOAPMessage soapMessage = MessageFactory.newInstance().createMessage();
 
             try {
+                OutputStream outputStream = buffer.asOutputStream();
 
-                /**
-                 * Marshal: body content into a xml Document.
+                /*
+                 * Marshal: body content is streamed as an XML fragment straight into the output
+                 * buffer, between the static SOAP 1.1 envelope opening and closing
                  */
-                getMarshaller().marshal(soapEnvelope.getBody(), doc);
-
-                /**
-                 * Clean: SOAP-ENV (SOAP1.2) into soap (SOAP1.1)
-                 */
-                soapMessage.getSOAPPart().getEnvelope().removeNamespaceDeclaration("SOAP-ENV");
-                soapMessage.getSOAPPart().getEnvelope().setPrefix("soap");
-                soapMessage.getSOAPHeader().setPrefix("soap");
-                soapMessage.getSOAPBody().setPrefix("soap");
-
-                /**
-                 * Marshal ending
-                 */
-                SOAPBody soapBody = soapMessage.getSOAPBody();
-                soapBody.addDocument(doc);
-                soapMessage.saveChanges();
-                soapMessage.writeTo(outputStream);
+                outputStream.write(SOAP_ENVELOPE_PREFIX);
+                Marshaller marshaller = jaxbContexts.borrowMarshaller();
+                marshaller.marshal(soapEnvelope.getBody(), outputStream);
+                // marshaller is given back to the pool only after a successful marshalling
+                jaxbContexts.releaseMarshaller(marshaller);
+                outputStream.write(SOAP_ENVELOPE_SUFFIX);
                 outputStream.flush();
 
                 release = false;
@@ -117,10 +124,4 @@ public class Jaxb2SoapEncoder implements Encoder<Object> {
             }
         }).flux();
     }
-
-    private Marshaller getMarshaller() throws JAXBException {
-        Marshaller marshaller = jaxbContexts.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_ENCODING, StandardCharsets.UTF_8.name());
-        return marshaller;
-    }
 }
@@ -1,14 +1,40 @@
 package it.pagopa.transactions.utils.soap;
 
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
-final class JaxbContextContainer {
+/**
+ * Holder of the JAXB context for Nodo generated classes together with bounded
+ * pools of pre-configured {@link Marshaller} and {@link Unmarshaller}
+ * instances. Borrowing never blocks: when a pool is empty a new instance is
+ * created and the exhaustion is recorded, while instances released to a full
+ * pool are dropped. A borrowed instance must be used by a single thread and
+ * released once the (synchronous) marshal/unmarshal operation is completed.
+ */
+public final class JaxbContextContainer {
 
     private static final String PACKAGE_NODE = "it.pagopa.generated.transactions.model";
 
+    public static final int DEFAULT_POOL_SIZE = 16;
+
+    private static final AttributeKey<String> POOL_TYPE_ATTRIBUTE_KEY = AttributeKey.stringKey("type");
+
+    private static final Attributes MARSHALLER_ATTRIBUTES = Attributes.of(POOL_TYPE_ATTRIBUTE_KEY, "marshaller");
+
+    private static final Attributes UNMARSHALLER_ATTRIBUTES = Attributes.of(POOL_TYPE_ATTRIBUTE_KEY, "unmarshaller");
+
     private static final JAXBContext jaxbContext;
 
     static {
@@ -19,12 +45,112 @@ final class JaxbContextContainer {
         }
     }
 
+    private final BlockingQueue<Marshaller> marshallers;
+
+    private final BlockingQueue<Unmarshaller> unmarshallers;
+
+    private final DoubleHistogram borrowDuration;
+
+    private final LongCounter poolExhausted;
+
+    @FunctionalInterface
+    private interface JaxbFactory<T> {
+        T create() throws JAXBException;
+    }
+
+    /**
+     * Build a container with default pool size and no metrics
+     */
+    public JaxbContextContainer() {
+        this(DEFAULT_POOL_SIZE, OpenTelemetry.noop().getMeter(JaxbContextContainer.class.getName()));
+    }
+
+    /**
+     * Primary constructor
+     *
+     * @param poolSize max number of idle instances retained for each pool
+     * @param meter    meter used to record pool metrics
+     */
+    public JaxbContextContainer(
+            int poolSize,
+            Meter meter
+    ) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Invalid JAXB pool size: [%s]".formatted(poolSize));
+        }
+        this.marshallers = new ArrayBlockingQueue<>(poolSize);
+        this.unmarshallers = new ArrayBlockingQueue<>(poolSize);
+        this.borrowDuration = meter.histogramBuilder("ecommerce.nodo.jaxb.pool.borrow.duration")
+                .setDescription("Time spent borrowing a JAXB marshaller/unmarshaller from pool")
+                .setUnit("ms")
+                .build();
+        this.poolExhausted = meter.counterBuilder("ecommerce.nodo.jaxb.pool.exhausted")
+                .setDescription("Borrow requests served by creating a new instance because the pool was empty")
+                .build();
+    }
+
+    /**
+     * Borrow a marshaller configured for UTF-8 encoded XML fragment output
+     *
+     * @return the pooled (or newly created) marshaller
+     * @throws JAXBException for errors creating a new marshaller
+     */
+    public Marshaller borrowMarshaller() throws JAXBException {
+        return borrow(marshallers, this::createMarshaller, MARSHALLER_ATTRIBUTES);
+    }
+
+    /**
+     * Give back a marshaller to the pool
+     *
+     * @param marshaller the marshaller to be released
+     */
+    public void releaseMarshaller(Marshaller marshaller) {
+        marshallers.offer(marshaller);
+    }
+
+    /**
+     * Borrow an unmarshaller
+     *
+     * @return the pooled (or newly created) unmarshaller
+     * @throws JAXBException for errors creating a new unmarshaller
+     */
+    public Unmarshaller borrowUnmarshaller() throws JAXBException {
+        return borrow(unmarshallers, this::createUnmarshaller, UNMARSHALLER_ATTRIBUTES);
+    }
+
+    /**
+     * Give back an unmarshaller to the pool
+     *
+     * @param unmarshaller the unmarshaller to be released
+     */
+    public void releaseUnmarshaller(Unmarshaller unmarshaller) {
+        unmarshallers.offer(unmarshaller);
+    }
+
     public Marshaller createMarshaller() throws JAXBException {
-        return jaxbContext.createMarshaller();
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, StandardCharsets.UTF_8.name());
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        return marshaller;
     }
 
     public Unmarshaller createUnmarshaller() throws JAXBException {
         return jaxbContext.createUnmarshaller();
     }
 
+    private <T> T borrow(
+                         BlockingQueue<T> pool,
+                         JaxbFactory<T> factory,
+                         Attributes attributes
+    ) throws JAXBException {
+        long start = System.nanoTime();
+        T pooled = pool.poll();
+        if (pooled == null) {
+            poolExhausted.add(1, attributes);
+            pooled = factory.create();
+        }
+        borrowDuration.record((System.nanoTime() - start) / 1_000_000d, attributes);
+        return pooled;
+    }
+
 }
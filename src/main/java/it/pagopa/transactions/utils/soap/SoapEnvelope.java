@@ -14,6 +14,9 @@ import javax.xml.bind.annotation.XmlRootElement;
 @Generated
 public class SoapEnvelope {
 
+    public static final String SOAP_11_NAMESPACE_URI = "http://schemas.xmlsoap.org/soap/envelope/";
+    public static final String SOAP_12_NAMESPACE_URI = "http://www.w3.org/2003/05/soap-envelope";
+
     private String header;
     private Object body;
 }
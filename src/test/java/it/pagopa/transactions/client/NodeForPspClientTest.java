@@ -1,11 +1,15 @@
 package it.pagopa.transactions.client;
 
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.generated.ecommerce.nodo.v2.dto.AdditionalPaymentInformationsDto;
 import it.pagopa.generated.ecommerce.nodo.v2.dto.ClosePaymentRequestV2Dto;
 import it.pagopa.generated.ecommerce.nodo.v2.dto.ClosePaymentResponseDto;
 import it.pagopa.generated.transactions.model.*;
 import it.pagopa.transactions.configurations.WebClientsConfig;
 import it.pagopa.transactions.exceptions.BadGatewayException;
+import it.pagopa.transactions.utils.NodoActivationHedger;
+import it.pagopa.transactions.utils.NodoConcurrencyLimiter;
+import it.pagopa.transactions.utils.soap.JaxbContextContainer;
 import it.pagopa.transactions.utils.soap.SoapEnvelope;
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
@@ -43,6 +47,7 @@ import java.util.function.Predicate;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -63,6 +68,20 @@ class NodeForPspClientTest {
     @Mock
     private ResponseSpec responseSpec;
 
+    @Mock
+    private NodoActivationHedger nodoActivationHedger;
+
+    private final NodoActivationHedger disabledHedger = new NodoActivationHedger(
+            false,
+            95,
+            5,
+            100,
+            10,
+            100,
+            OpenTelemetry.noop().getMeter("test"),
+            mock(NodoConcurrencyLimiter.class)
+    );
+
     private static MockWebServer mockWebServer;
 
     @BeforeAll
@@ -397,11 +416,13 @@ class NodeForPspClientTest {
                 new WebClientsConfig().nodoWebClient(
                         "http://localhost:9000",
                         10000,
-                        10000
+                        10000,
+                        new JaxbContextContainer()
                 ),
                 "/",
                 ecommerceClientId,
-                nodoPerPmUri
+                nodoPerPmUri,
+                disabledHedger
         );
         StepVerifier
                 .create(nodeForPspClient.closePaymentV2(closePaymentRequest))
@@ -439,11 +460,13 @@ class NodeForPspClientTest {
                 new WebClientsConfig().nodoWebClient(
                         "http://localhost:9000",
                         10000,
-                        10000
+                        10000,
+                        new JaxbContextContainer()
                 ),
                 "/",
                 ecommerceClientId,
-                nodoPerPmUri
+                nodoPerPmUri,
+                disabledHedger
         );
         StepVerifier
                 .create(nodeForPspClient.closePaymentV2(closePaymentRequest))
@@ -482,11 +505,13 @@ class NodeForPspClientTest {
                 new WebClientsConfig().nodoWebClient(
                         "http://localhost:9000",
                         10000,
-                        10000
+                        10000,
+                        new JaxbContextContainer()
                 ),
                 "/",
                 ecommerceClientId,
-                nodoPerPmUri
+                nodoPerPmUri,
+                disabledHedger
         );
         StepVerifier
                 .create(nodeForPspClient.closePaymentV2(closePaymentRequest))
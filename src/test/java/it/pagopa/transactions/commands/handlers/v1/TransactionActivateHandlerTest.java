@@ -14,7 +14,6 @@ import it.pagopa.ecommerce.commons.exceptions.JWTTokenGenerationException;
 import it.pagopa.ecommerce.commons.queues.QueueEvent;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
 import it.pagopa.ecommerce.commons.queues.TracingUtilsTests;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
 import it.pagopa.ecommerce.commons.utils.ConfidentialDataManager;
 import it.pagopa.ecommerce.commons.utils.ConfidentialDataManagerTest;
@@ -30,6 +29,7 @@ import it.pagopa.transactions.commands.data.NewTransactionRequestData;
 import it.pagopa.transactions.configurations.SecretsConfigurations;
 import it.pagopa.transactions.exceptions.InvalidNodoResponseException;
 import it.pagopa.transactions.projections.TransactionsProjection;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.utils.ConfidentialMailUtils;
 import it.pagopa.transactions.utils.NodoOperations;
@@ -49,6 +49,7 @@ import javax.crypto.SecretKey;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -59,8 +60,8 @@ import static org.mockito.ArgumentMatchers.*;
 @ExtendWith(MockitoExtension.class)
 class TransactionActivateHandlerTest {
 
-    private final PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper = Mockito
-            .mock(PaymentRequestInfoRedisTemplateWrapper.class);
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper = Mockito
+            .mock(PaymentRequestInfoReactiveRedisTemplateWrapper.class);
 
     private final TransactionsEventStoreRepository<TransactionActivatedData> transactionEventActivatedStoreRepository = Mockito
             .mock(TransactionsEventStoreRepository.class);
@@ -75,8 +76,6 @@ class TransactionActivateHandlerTest {
 
     private final int paymentTokenTimeout = 120;
 
-    private final int nodoParallelRequests = 5;
-
     private final int transientQueueEventsTtlSeconds = 30;
 
     private final String dueDate = "2031-12-31";
@@ -88,6 +87,9 @@ class TransactionActivateHandlerTest {
     @Captor
     private ArgumentCaptor<Duration> durationArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<PaymentRequestInfo>> paymentRequestInfosArgumentCaptor;
+
     @Captor
     private ArgumentCaptor<PaymentRequestInfo> paymentRequestInfoArgumentCaptor;
 
@@ -102,7 +104,7 @@ class TransactionActivateHandlerTest {
     private static final UUID userId = UUID.fromString(TransactionTestUtils.USER_ID);
 
     private final it.pagopa.transactions.commands.handlers.v1.TransactionActivateHandler handler = new TransactionActivateHandler(
-            paymentRequestInfoRedisTemplateWrapper,
+            paymentRequestInfoReactiveRedisTemplateWrapper,
             transactionEventActivatedStoreRepository,
             nodoOperations,
             jwtTokenUtils,
@@ -110,7 +112,6 @@ class TransactionActivateHandlerTest {
             paymentTokenTimeout,
             confidentialMailUtils,
             transientQueueEventsTtlSeconds,
-            nodoParallelRequests,
             tracingUtils,
             openTelemetryUtils,
             jwtSecretKey,
@@ -196,12 +197,12 @@ class TransactionActivateHandlerTest {
         transactionActivatedEvent.setData(transactionActivatedData);
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
         Mockito.when(transactionEventActivatedStoreRepository.save(any()))
                 .thenAnswer(args -> Mono.just(args.getArguments()[0]));
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
-                .save(paymentRequestInfoArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
         Mockito.when(
                 transactionActivatedQueueAsyncClient.sendMessageWithResponse(
                         any(QueueEvent.class),
@@ -225,8 +226,10 @@ class TransactionActivateHandlerTest {
                 .handle(command).block();
 
         /* asserts */
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(0)).save(any());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.never())
+                .saveAll(argThat(requestInfos -> !requestInfos.isEmpty()));
         Mockito.verify(openTelemetryUtils, Mockito.times(1)).addSpanWithAttributes(
                 eq(SpanLabelOpenTelemetry.REPEATED_ACTIVATION_SPAN_NAME),
                 argThat(
@@ -332,8 +335,9 @@ class TransactionActivateHandlerTest {
         transactionActivatedEvent.setData(transactionActivatedData);
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.saveAll(any())).thenReturn(Mono.just(true));
         Mockito.when(transactionEventActivatedStoreRepository.save(any()))
                 .thenAnswer(args -> Mono.just(args.getArguments()[0]));
         Mockito.when(
@@ -360,8 +364,10 @@ class TransactionActivateHandlerTest {
                 .handle(command).block();
 
         /* asserts */
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(0)).save(any());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.never())
+                .saveAll(argThat(requestInfos -> !requestInfos.isEmpty()));
         Mockito.verify(openTelemetryUtils, Mockito.times(0)).addSpanWithAttributes(any(), any());
         Mockito.verify(openTelemetryUtils, Mockito.times(1)).addErrorSpanWithException(
                 eq(SpanLabelOpenTelemetry.REPEATED_ACTIVATION_SPAN_NAME),
@@ -524,8 +530,9 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.saveAll(any())).thenReturn(Mono.just(true));
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(dueDate), any())
         )
@@ -615,11 +622,13 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoBeforeActivation));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoBeforeActivation)));
         Mockito.when(transactionEventActivatedStoreRepository.save(any()))
                 .thenAnswer(args -> Mono.just(args.getArguments()[0]));
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(dueDate), any())
@@ -649,7 +658,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -734,11 +744,13 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoBeforeActivation));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoBeforeActivation)));
         Mockito.when(transactionEventActivatedStoreRepository.save(any()))
                 .thenAnswer(args -> Mono.just(args.getArguments()[0]));
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
@@ -768,7 +780,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -838,11 +851,13 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.empty());
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of()));
         Mockito.when(transactionEventActivatedStoreRepository.save(any()))
                 .thenAnswer(args -> Mono.just(args.getArguments()[0]));
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
@@ -881,7 +896,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -1,6 +1,7 @@
 package it.pagopa.transactions.commands.handlers.v1;
 
 import com.azure.cosmos.implementation.BadRequestException;
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.documents.v1.TransactionAuthorizationRequestData;
 import it.pagopa.ecommerce.commons.documents.v1.TransactionEvent;
 import it.pagopa.ecommerce.commons.domain.*;
@@ -20,6 +21,8 @@ import it.pagopa.transactions.exceptions.AlreadyProcessedException;
 import it.pagopa.transactions.exceptions.BadGatewayException;
 import it.pagopa.transactions.repositories.TransactionTemplateWrapper;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
+import it.pagopa.transactions.utils.EventStoreSnapshots;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.AfterAll;
@@ -65,7 +68,12 @@ class TransactionRequestAuthorizationHandlerTest {
     private TransactionsEventStoreRepository<Object> eventStoreRepository = Mockito
             .mock(TransactionsEventStoreRepository.class);
 
-    private final TransactionsUtils transactionsUtils = new TransactionsUtils(eventStoreRepository, "3020");
+    private final TransactionsUtils transactionsUtils = new TransactionsUtils(
+            eventStoreRepository,
+            Mockito.mock(EventStoreSnapshots.class),
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test")),
+            "3020"
+    );
 
     private final UUID transactionIdUUID = UUID.randomUUID();
 
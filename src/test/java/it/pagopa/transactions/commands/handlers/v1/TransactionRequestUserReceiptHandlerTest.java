@@ -1,5 +1,6 @@
 package it.pagopa.transactions.commands.handlers.v1;
 
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
 import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
 import it.pagopa.ecommerce.commons.documents.v1.*;
@@ -16,6 +17,8 @@ import it.pagopa.transactions.commands.TransactionAddUserReceiptCommand;
 import it.pagopa.transactions.commands.data.AddUserReceiptData;
 import it.pagopa.transactions.exceptions.AlreadyProcessedException;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
+import it.pagopa.transactions.utils.EventStoreSnapshots;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -55,7 +58,12 @@ class TransactionRequestUserReceiptHandlerTest {
     private TransactionsEventStoreRepository<Object> eventStoreRepository = Mockito
             .mock(TransactionsEventStoreRepository.class);
 
-    private final TransactionsUtils transactionsUtils = new TransactionsUtils(eventStoreRepository, "3020");
+    private final TransactionsUtils transactionsUtils = new TransactionsUtils(
+            eventStoreRepository,
+            Mockito.mock(EventStoreSnapshots.class),
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test")),
+            "3020"
+    );
 
     private final int transientQueueEventsTtlSeconds = 30;
 
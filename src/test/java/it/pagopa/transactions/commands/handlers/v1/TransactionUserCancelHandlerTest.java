@@ -4,6 +4,7 @@ import com.azure.core.http.HttpHeaders;
 import com.azure.core.http.HttpRequest;
 import com.azure.core.http.rest.Response;
 import com.azure.storage.queue.models.SendMessageResult;
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
 import it.pagopa.ecommerce.commons.domain.TransactionId;
 import it.pagopa.ecommerce.commons.domain.v1.TransactionEventCode;
@@ -14,6 +15,8 @@ import it.pagopa.transactions.commands.TransactionUserCancelCommand;
 import it.pagopa.transactions.exceptions.AlreadyProcessedException;
 import it.pagopa.transactions.exceptions.TransactionNotFoundException;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
+import it.pagopa.transactions.utils.EventStoreSnapshots;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -46,7 +49,12 @@ class TransactionUserCancelHandlerTest {
 
     private TransactionsEventStoreRepository<Object> eventStoreRepository = Mockito
             .mock(TransactionsEventStoreRepository.class);
-    private final TransactionsUtils transactionsUtils = new TransactionsUtils(eventStoreRepository, "3020");
+    private final TransactionsUtils transactionsUtils = new TransactionsUtils(
+            eventStoreRepository,
+            Mockito.mock(EventStoreSnapshots.class),
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test")),
+            "3020"
+    );
 
     private final int transientQueueEventsTtlSeconds = 30;
 
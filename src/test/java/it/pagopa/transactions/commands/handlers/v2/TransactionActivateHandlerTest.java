@@ -16,7 +16,6 @@ import it.pagopa.ecommerce.commons.exceptions.JWTTokenGenerationException;
 import it.pagopa.ecommerce.commons.queues.QueueEvent;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
 import it.pagopa.ecommerce.commons.queues.TracingUtilsTests;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
 import it.pagopa.ecommerce.commons.utils.ConfidentialDataManager;
 import it.pagopa.ecommerce.commons.utils.ConfidentialDataManagerTest;
@@ -31,6 +30,7 @@ import it.pagopa.transactions.commands.data.NewTransactionRequestData;
 import it.pagopa.transactions.configurations.SecretsConfigurations;
 import it.pagopa.transactions.exceptions.InvalidNodoResponseException;
 import it.pagopa.transactions.projections.TransactionsProjection;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.utils.ConfidentialMailUtils;
 import it.pagopa.transactions.utils.NodoOperations;
@@ -51,8 +51,11 @@ import javax.crypto.SecretKey;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static it.pagopa.ecommerce.commons.v2.TransactionTestUtils.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -61,8 +64,8 @@ import static org.mockito.ArgumentMatchers.*;
 @ExtendWith(MockitoExtension.class)
 class TransactionActivateHandlerTest {
 
-    private final PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper = Mockito
-            .mock(PaymentRequestInfoRedisTemplateWrapper.class);
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper = Mockito
+            .mock(PaymentRequestInfoReactiveRedisTemplateWrapper.class);
 
     private final TransactionsEventStoreRepository<TransactionActivatedData> transactionEventActivatedStoreRepository = Mockito
             .mock(TransactionsEventStoreRepository.class);
@@ -77,8 +80,6 @@ class TransactionActivateHandlerTest {
 
     private final int paymentTokenTimeout = 120;
 
-    private final int nodoParallelRequests = 5;
-
     private final int transientQueueEventsTtlSeconds = 30;
 
     private final String dueDate = "2031-12-31";
@@ -88,6 +89,9 @@ class TransactionActivateHandlerTest {
     @Captor
     private ArgumentCaptor<Duration> durationArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<PaymentRequestInfo>> paymentRequestInfosArgumentCaptor;
+
     @Captor
     private ArgumentCaptor<PaymentRequestInfo> paymentRequestInfoArgumentCaptor;
 
@@ -108,7 +112,7 @@ class TransactionActivateHandlerTest {
     private ConfidentialDataManager confidentialDataManager = ConfidentialDataManagerTest.getMock();
 
     private final TransactionActivateHandler handler = new TransactionActivateHandler(
-            paymentRequestInfoRedisTemplateWrapper,
+            paymentRequestInfoReactiveRedisTemplateWrapper,
             transactionEventActivatedStoreRepository,
             nodoOperations,
             jwtTokenUtils,
@@ -116,7 +120,6 @@ class TransactionActivateHandlerTest {
             paymentTokenTimeout,
             confidentialMailUtils,
             transientQueueEventsTtlSeconds,
-            nodoParallelRequests,
             tracingUtils,
             openTelemetryUtils,
             jwtSecretKey,
@@ -211,11 +214,11 @@ class TransactionActivateHandlerTest {
         transactionActivatedEvent.setData(transactionActivatedData);
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
 
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
-                .save(paymentRequestInfoArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
         Mockito.when(
                 transactionActivatedQueueAsyncClient.sendMessageWithResponse(
                         any(QueueEvent.class),
@@ -238,8 +241,10 @@ class TransactionActivateHandlerTest {
                 .handle(command).block();
 
         /* asserts */
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(0)).save(any());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.never())
+                .saveAll(argThat(requestInfos -> !requestInfos.isEmpty()));
         Mockito.verify(openTelemetryUtils, Mockito.times(1)).addSpanWithAttributes(
                 eq(SpanLabelOpenTelemetry.REPEATED_ACTIVATION_SPAN_NAME),
                 argThat(
@@ -364,11 +369,11 @@ class TransactionActivateHandlerTest {
         transactionActivatedEvent.setData(transactionActivatedData);
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
 
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
-                .save(paymentRequestInfoArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
         Mockito.when(
                 transactionActivatedQueueAsyncClient.sendMessageWithResponse(
                         any(QueueEvent.class),
@@ -391,8 +396,10 @@ class TransactionActivateHandlerTest {
                 .handle(command).block();
 
         /* asserts */
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(0)).save(any());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.never())
+                .saveAll(argThat(requestInfos -> !requestInfos.isEmpty()));
         Mockito.verify(openTelemetryUtils, Mockito.times(1)).addSpanWithAttributes(
                 eq(SpanLabelOpenTelemetry.REPEATED_ACTIVATION_SPAN_NAME),
                 argThat(
@@ -502,8 +509,9 @@ class TransactionActivateHandlerTest {
         transactionActivatedEvent.setData(transactionActivatedData);
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.saveAll(any())).thenReturn(Mono.just(true));
 
         Mockito.when(
                 transactionActivatedQueueAsyncClient.sendMessageWithResponse(
@@ -527,8 +535,10 @@ class TransactionActivateHandlerTest {
                 .handle(command).block();
 
         /* asserts */
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(0)).save(any());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.never())
+                .saveAll(argThat(requestInfos -> !requestInfos.isEmpty()));
         Mockito.verify(openTelemetryUtils, Mockito.times(0)).addSpanWithAttributes(any(), any());
         Mockito.verify(openTelemetryUtils, Mockito.times(1)).addErrorSpanWithException(
                 eq(SpanLabelOpenTelemetry.REPEATED_ACTIVATION_SPAN_NAME),
@@ -691,8 +701,9 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoCached));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoCached)));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.saveAll(any())).thenReturn(Mono.just(true));
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(dueDate), any())
         )
@@ -782,10 +793,12 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoBeforeActivation));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoBeforeActivation)));
 
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(dueDate), any())
@@ -814,7 +827,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -899,10 +913,12 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.of(paymentRequestInfoBeforeActivation));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of(rptId.value(), paymentRequestInfoBeforeActivation)));
 
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
@@ -931,7 +947,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -1001,10 +1018,12 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.empty());
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of()));
 
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
@@ -1041,7 +1060,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -1051,6 +1071,215 @@ class TransactionActivateHandlerTest {
         assertEquals(dueDate, paymentRequestInfoArgumentCaptor.getValue().dueDate());
     }
 
+    @Test
+    void shouldBatchCacheAccessesForCartPaymentNotices() {
+        TransactionActivatedEvent transactionActivatedEvent = transactionActivateEvent();
+        PaymentNotice paymentNotice = transactionActivatedEvent.getData().getPaymentNotices().get(0);
+        TransactionId transactionId = new TransactionId(TRANSACTION_ID);
+        List<RptId> rptIds = List.of(
+                new RptId(paymentNotice.getRptId()),
+                new RptId("77777777777302016723749670036")
+        );
+        List<String> rptIdValues = rptIds.stream().map(RptId::value).toList();
+
+        TransactionActivateCommand command = new TransactionActivateCommand(
+                rptIds,
+                new NewTransactionRequestData(
+                        null,
+                        confidentialDataManager.encrypt(new Email(EMAIL_STRING)),
+                        null,
+                        null,
+                        rptIds.stream().map(
+                                rptId -> new it.pagopa.ecommerce.commons.domain.PaymentNotice(
+                                        null,
+                                        rptId,
+                                        new TransactionAmount(paymentNotice.getAmount()),
+                                        null,
+                                        null,
+                                        null,
+                                        false,
+                                        null,
+                                        null
+                                )
+                        ).toList()
+                ),
+                Transaction.ClientId.CHECKOUT.name(),
+                transactionId,
+                userId
+        );
+
+        /* preconditions */
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(rptIdValues))
+                .thenReturn(Mono.just(Map.of()));
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .save(paymentRequestInfoArgumentCaptor.capture());
+        Mockito.when(
+                nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
+        )
+                .thenAnswer(
+                        invocation -> {
+                            RptId rptId = invocation.getArgument(0);
+                            return Mono.just(
+                                    new PaymentRequestInfo(
+                                            rptId,
+                                            rptId.getFiscalCode(),
+                                            "paName",
+                                            paymentNotice.getDescription(),
+                                            paymentNotice.getAmount(),
+                                            null,
+                                            "paymentToken-%s".formatted(rptId.value()),
+                                            ZonedDateTime.now().toString(),
+                                            invocation.getArgument(1),
+                                            List.of(
+                                                    new PaymentTransferInfo(
+                                                            rptId.getFiscalCode(),
+                                                            false,
+                                                            paymentNotice.getAmount(),
+                                                            null
+                                                    )
+                                            ),
+                                            false,
+                                            null
+                                    )
+                            );
+                        }
+                );
+        Mockito.when(nodoOperations.getEcommerceFiscalCode()).thenReturn("77700000000");
+        Mockito.when(nodoOperations.generateRandomStringToIdempotencyKey()).thenReturn("aabbccddee");
+        Mockito.when(
+                jwtTokenUtils.generateToken(
+                        eq(jwtSecretKey),
+                        eq(tokenValidityTimeInSeconds),
+                        eq(new Claims(transactionId, null, null, userId))
+                )
+        )
+                .thenReturn(Either.right("authToken"));
+        Mockito.when(
+                transactionActivatedQueueAsyncClient.sendMessageWithResponse(
+                        any(QueueEvent.class),
+                        any(),
+                        any()
+                )
+        )
+                .thenReturn(Queues.QUEUE_SUCCESSFUL_RESPONSE);
+
+        /* run test */
+        Tuple2<Mono<BaseTransactionEvent<?>>, String> response = handler
+                .handle(command).block();
+
+        /* asserts */
+        TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
+        assertEquals(2, event.getData().getPaymentNotices().size());
+        // a single lookup for the whole cart and one batched write for placeholders,
+        // while activated payment request infos are cached as soon as they are received
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1)).findAllById(rptIdValues);
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1)).saveAll(any());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(2)).save(any());
+        Mockito.verify(nodoOperations, Mockito.times(2))
+                .activatePaymentRequest(any(), any(), any(), any(), any(), any(), any(), any());
+        List<PaymentRequestInfo> placeholders = paymentRequestInfosArgumentCaptor.getValue();
+        List<PaymentRequestInfo> activated = paymentRequestInfoArgumentCaptor.getAllValues();
+        assertEquals(
+                Set.copyOf(rptIds),
+                placeholders.stream().map(PaymentRequestInfo::id).collect(Collectors.toSet())
+        );
+        assertTrue(placeholders.stream().allMatch(requestInfo -> requestInfo.paymentToken() == null));
+        assertEquals(
+                Set.copyOf(rptIds),
+                activated.stream().map(PaymentRequestInfo::id).collect(Collectors.toSet())
+        );
+        assertTrue(activated.stream().allMatch(requestInfo -> requestInfo.paymentToken() != null));
+    }
+
+    @Test
+    void shouldCacheActivatedPaymentNoticesWhenCartActivationFails() {
+        TransactionActivatedEvent transactionActivatedEvent = transactionActivateEvent();
+        PaymentNotice paymentNotice = transactionActivatedEvent.getData().getPaymentNotices().get(0);
+        TransactionId transactionId = new TransactionId(TRANSACTION_ID);
+        RptId activatedRptId = new RptId(paymentNotice.getRptId());
+        RptId failedRptId = new RptId("77777777777302016723749670036");
+        List<RptId> rptIds = List.of(activatedRptId, failedRptId);
+        List<String> rptIdValues = rptIds.stream().map(RptId::value).toList();
+
+        TransactionActivateCommand command = new TransactionActivateCommand(
+                rptIds,
+                new NewTransactionRequestData(
+                        null,
+                        confidentialDataManager.encrypt(new Email(EMAIL_STRING)),
+                        null,
+                        null,
+                        rptIds.stream().map(
+                                rptId -> new it.pagopa.ecommerce.commons.domain.PaymentNotice(
+                                        null,
+                                        rptId,
+                                        new TransactionAmount(paymentNotice.getAmount()),
+                                        null,
+                                        null,
+                                        null,
+                                        false,
+                                        null,
+                                        null
+                                )
+                        ).toList()
+                ),
+                Transaction.ClientId.CHECKOUT.name(),
+                transactionId,
+                userId
+        );
+
+        /* preconditions */
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(rptIdValues))
+                .thenReturn(Mono.just(Map.of()));
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.saveAll(any())).thenReturn(Mono.just(true));
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .save(paymentRequestInfoArgumentCaptor.capture());
+        Mockito.when(
+                nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
+        )
+                .thenAnswer(
+                        invocation -> {
+                            RptId rptId = invocation.getArgument(0);
+                            if (failedRptId.equals(rptId)) {
+                                return Mono.delay(Duration.ofMillis(100))
+                                        .then(Mono.error(new InvalidNodoResponseException("activation error")));
+                            }
+                            return Mono.just(
+                                    new PaymentRequestInfo(
+                                            rptId,
+                                            rptId.getFiscalCode(),
+                                            "paName",
+                                            paymentNotice.getDescription(),
+                                            paymentNotice.getAmount(),
+                                            null,
+                                            "paymentToken-%s".formatted(rptId.value()),
+                                            ZonedDateTime.now().toString(),
+                                            invocation.getArgument(1),
+                                            List.of(),
+                                            false,
+                                            null
+                                    )
+                            );
+                        }
+                );
+        Mockito.when(nodoOperations.getEcommerceFiscalCode()).thenReturn("77700000000");
+        Mockito.when(nodoOperations.generateRandomStringToIdempotencyKey()).thenReturn("aabbccddee");
+
+        /* run test */
+        StepVerifier.create(handler.handle(command))
+                .expectError(InvalidNodoResponseException.class)
+                .verify();
+
+        /* asserts */
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1)).save(any());
+        assertEquals(activatedRptId, paymentRequestInfoArgumentCaptor.getValue().id());
+        assertEquals(
+                "paymentToken-%s".formatted(activatedRptId.value()),
+                paymentRequestInfoArgumentCaptor.getValue().paymentToken()
+        );
+    }
+
     @Test
     void shouldActivatePaymentRequestSavingCreditorReferenceId() {
         final var creditorReferenceId = UUID.randomUUID().toString();
@@ -1112,9 +1341,11 @@ class TransactionActivateHandlerTest {
         );
 
         /* preconditions */
-        Mockito.when(paymentRequestInfoRedisTemplateWrapper.findById(rptId.value()))
-                .thenReturn(Optional.empty());
-        Mockito.doNothing().when(paymentRequestInfoRedisTemplateWrapper)
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.findAllById(List.of(rptId.value())))
+                .thenReturn(Mono.just(Map.of()));
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
+                .saveAll(paymentRequestInfosArgumentCaptor.capture());
+        Mockito.doReturn(Mono.just(true)).when(paymentRequestInfoReactiveRedisTemplateWrapper)
                 .save(paymentRequestInfoArgumentCaptor.capture());
         Mockito.when(
                 nodoOperations.activatePaymentRequest(any(), any(), any(), any(), any(), any(), eq(null), any())
@@ -1151,7 +1382,8 @@ class TransactionActivateHandlerTest {
 
         /* asserts */
         TransactionActivatedEvent event = (TransactionActivatedEvent) response.getT1().block();
-        Mockito.verify(paymentRequestInfoRedisTemplateWrapper, Mockito.times(1)).findById(rptId.value());
+        Mockito.verify(paymentRequestInfoReactiveRedisTemplateWrapper, Mockito.times(1))
+                .findAllById(List.of(rptId.value()));
         assertNotNull(event.getTransactionId());
         assertNotNull(event.getEventCode());
         assertNotNull(event.getCreationDate());
@@ -19,8 +19,12 @@ import it.pagopa.generated.transactions.model.CtFaultBean;
 import it.pagopa.generated.transactions.server.model.*;
 import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.services.v1.TransactionsService;
+import it.pagopa.transactions.utils.TransactionInfoETags;
+import it.pagopa.transactions.utils.TransactionInfoResponseCache;
+import it.pagopa.transactions.utils.TransactionStatusChanges;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import it.pagopa.transactions.utils.UUIDUtils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -44,6 +48,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -56,6 +61,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -99,6 +105,15 @@ class TransactionsControllerTest {
     @MockBean
     private OpenTelemetryUtils openTelemetryUtils;
 
+    @MockBean
+    private TransactionInfoResponseCache transactionInfoResponseCache;
+
+    @MockBean
+    private TransactionInfoETags transactionInfoETags;
+
+    @MockBean
+    private TransactionStatusChanges transactionStatusChanges;
+
     private CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(
             Map.of("circuit-breaker-test", CircuitBreakerConfig.ofDefaults())
     );
@@ -116,6 +131,13 @@ class TransactionsControllerTest {
     private ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
     private final Integer paymentTokenValidityTime = 120;
 
+    @BeforeEach
+    void setUp() {
+        Mockito.lenient().when(transactionInfoETags.conditionalGet(any(), any(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<Mono<?>>>getArgument(2).get().map(ResponseEntity::ok)
+        );
+    }
+
     @Test
     void shouldGetOk() {
         TransactionId transactionId = new TransactionId(TransactionTestUtils.TRANSACTION_ID);
@@ -214,6 +236,182 @@ class TransactionsControllerTest {
         assertEquals(response, responseEntity.getBody());
     }
 
+    @Test
+    void shouldGetTransactionStatus() {
+        TransactionStatusInfoDto response = new TransactionStatusInfoDto()
+                .status(TransactionStatusDto.NOTIFIED_OK)
+                .sendPaymentResultOutcome(TransactionStatusInfoDto.SendPaymentResultOutcomeEnum.OK)
+                .gatewayAuthorizationStatus("EXECUTED");
+        String transactionId = new TransactionId(UUID.randomUUID()).value();
+
+        Mockito.when(transactionsService.getTransactionStatus(transactionId, null))
+                .thenReturn(Mono.just(response));
+        Mockito.when(mockExchange.getRequest())
+                .thenReturn(mockRequest);
+        Mockito.when(mockExchange.getRequest().getMethodValue())
+                .thenReturn("GET");
+        Mockito.when(mockExchange.getRequest().getURI())
+                .thenReturn(
+                        URI.create(String.join("/", "https://localhost/transactions", transactionId, "status"))
+                );
+
+        ResponseEntity<TransactionStatusInfoDto> responseEntity = transactionsController
+                .getTransactionStatus(transactionId, null, mockExchange).block();
+
+        verify(transactionsService, Mockito.times(1)).getTransactionStatus(transactionId, null);
+        verify(transactionInfoResponseCache, Mockito.times(1))
+                .putIfFinal(mockRequest, null, TransactionStatusDto.NOTIFIED_OK, response, null);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(response, responseEntity.getBody());
+    }
+
+    @Test
+    void shouldStreamTransactionStatusChanges() {
+        TransactionStatusInfoDto current = new TransactionStatusInfoDto()
+                .status(TransactionStatusDto.CLOSURE_REQUESTED);
+        TransactionStatusInfoDto updated = new TransactionStatusInfoDto()
+                .status(TransactionStatusDto.NOTIFIED_OK);
+        String transactionId = new TransactionId(UUID.randomUUID()).value();
+
+        Mockito.when(transactionStatusChanges.checkCapacity()).thenReturn(Mono.empty());
+        Mockito.when(transactionsService.getTransactionStatus(transactionId, null))
+                .thenReturn(Mono.just(current));
+        Mockito.when(
+                transactionStatusChanges.stream(eq(transactionId), eq(current), any(), any())
+        ).thenReturn(Flux.just(current, updated));
+        Mockito.when(mockExchange.getRequest())
+                .thenReturn(mockRequest);
+        Mockito.when(mockExchange.getRequest().getMethodValue())
+                .thenReturn("GET");
+        Mockito.when(mockExchange.getRequest().getURI())
+                .thenReturn(
+                        URI.create(
+                                String.join("/", "https://localhost/transactions", transactionId, "status", "events")
+                        )
+                );
+
+        ResponseEntity<Flux<TransactionStatusInfoDto>> responseEntity = transactionsController
+                .getTransactionStatusEvents(transactionId, null, mockExchange).block();
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        StepVerifier.create(responseEntity.getBody())
+                .expectNext(current)
+                .expectNext(updated)
+                .verifyComplete();
+        verify(transactionsService, Mockito.times(1)).getTransactionStatus(transactionId, null);
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableForTooManyStatusSubscriptions() {
+        String transactionId = new TransactionId(UUID.randomUUID()).value();
+        Mockito.when(transactionStatusChanges.checkCapacity())
+                .thenReturn(Mono.error(new TooManySubscriptionsException(10)));
+
+        webTestClient.get()
+                .uri("/transactions/{trnId}/status/events", Map.of("trnId", transactionId))
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectBody(ProblemJsonDto.class)
+                .value(problemJson -> assertEquals(503, problemJson.getStatus()));
+
+        verify(transactionsService, Mockito.never()).getTransactionStatus(any(), any());
+    }
+
+    @Test
+    void shouldReturnNotModifiedTransactionInfoForMatchingETag() {
+        String transactionId = new TransactionId(UUID.randomUUID()).value();
+        String eTag = "0123456789abcdef";
+
+        Mockito.when(transactionsService.getTransactionETag(transactionId, null))
+                .thenReturn(Mono.just(eTag));
+        Mockito.when(transactionInfoETags.conditionalGet(eq(mockExchange), any(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<Mono<String>>>getArgument(1).get()
+                        .map(
+                                current -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build()
+                        )
+        );
+        Mockito.when(mockExchange.getRequest())
+                .thenReturn(mockRequest);
+        Mockito.when(mockExchange.getRequest().getMethodValue())
+                .thenReturn("GET");
+        Mockito.when(mockExchange.getRequest().getURI())
+                .thenReturn(URI.create(String.join("/", "https://localhost/transactions", transactionId)));
+
+        ResponseEntity<TransactionInfoDto> responseEntity = transactionsController
+                .getTransactionInfo(transactionId, null, mockExchange).block();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("\"%s\"".formatted(eTag), responseEntity.getHeaders().getETag());
+        verify(transactionsService, Mockito.times(1)).getTransactionETag(transactionId, null);
+        verify(transactionsService, Mockito.never()).getTransactionInfo(any(), any());
+    }
+
+    @Test
+    void shouldServeCachedTransactionInfo() {
+        String transactionId = new TransactionId(UUID.randomUUID()).value();
+        UUID userId = UUID.randomUUID();
+        String cachedResponse = "{\"transactionId\":\"%s\",\"status\":\"NOTIFIED_OK\"}".formatted(transactionId);
+        Mockito.when(transactionInfoResponseCache.isEnabled()).thenReturn(true);
+        Mockito.when(transactionInfoResponseCache.find(any(), eq(userId)))
+                .thenReturn(
+                        Optional.of(
+                                new TransactionInfoResponseCache.CachedResponse(
+                                        cachedResponse.getBytes(),
+                                        "\"3f2a9c\"",
+                                        userId.toString()
+                                )
+                        )
+                );
+
+        webTestClient.get()
+                .uri("/transactions/{trnId}", Map.of("trnId", transactionId))
+                .header("x-user-id", userId.toString())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_JSON)
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"3f2a9c\"")
+                .expectBody(String.class)
+                .isEqualTo(cachedResponse);
+
+        verify(transactionsService, Mockito.never()).getTransactionInfo(any(), any());
+    }
+
+    @Test
+    void shouldServeNotModifiedForCachedTransactionInfo() {
+        String transactionId = new TransactionId(UUID.randomUUID()).value();
+        UUID userId = UUID.randomUUID();
+        String cachedResponse = "{\"transactionId\":\"%s\",\"status\":\"NOTIFIED_OK\"}".formatted(transactionId);
+        Mockito.when(transactionInfoResponseCache.isEnabled()).thenReturn(true);
+        Mockito.when(transactionInfoResponseCache.find(any(), eq(userId)))
+                .thenReturn(
+                        Optional.of(
+                                new TransactionInfoResponseCache.CachedResponse(
+                                        cachedResponse.getBytes(),
+                                        "\"3f2a9c\"",
+                                        userId.toString()
+                                )
+                        )
+                );
+
+        webTestClient.get()
+                .uri("/transactions/{trnId}", Map.of("trnId", transactionId))
+                .header("x-user-id", userId.toString())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3f2a9c\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"3f2a9c\"")
+                .expectBody()
+                .isEmpty();
+
+        verify(transactionsService, Mockito.never()).getTransactionInfo(any(), any());
+    }
+
     @Test
     void shouldCancelTransactionInfo() {
 
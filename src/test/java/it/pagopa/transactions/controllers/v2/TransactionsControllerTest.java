@@ -15,8 +15,11 @@ import it.pagopa.generated.transactions.model.CtFaultBean;
 import it.pagopa.generated.transactions.v2.server.model.*;
 import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.services.v2.TransactionsService;
+import it.pagopa.transactions.utils.TransactionInfoETags;
+import it.pagopa.transactions.utils.TransactionInfoResponseCache;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import it.pagopa.transactions.utils.UUIDUtils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -48,6 +51,7 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -86,6 +90,12 @@ class TransactionsControllerTest {
     @MockBean
     private OpenTelemetryUtils openTelemetryUtils;
 
+    @MockBean
+    private TransactionInfoResponseCache transactionInfoResponseCache;
+
+    @MockBean
+    private TransactionInfoETags transactionInfoETags;
+
     @Mock
     ServerWebExchange mockExchange;
 
@@ -99,6 +109,13 @@ class TransactionsControllerTest {
             Map.of("circuit-breaker-test", CircuitBreakerConfig.ofDefaults())
     );
 
+    @BeforeEach
+    void setUp() {
+        Mockito.lenient().when(transactionInfoETags.conditionalGet(any(), any(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<Mono<?>>>getArgument(2).get().map(ResponseEntity::ok)
+        );
+    }
+
     @Test
     void shouldGetOk() {
         TransactionId transactionId = new TransactionId(TransactionTestUtils.TRANSACTION_ID);
@@ -15,6 +15,7 @@ import it.pagopa.generated.transactions.model.CtFaultBean;
 import it.pagopa.generated.transactions.v2_1.server.model.*;
 import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.services.v2_1.TransactionsService;
+import it.pagopa.transactions.utils.TransactionInfoResponseCache;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import it.pagopa.transactions.utils.UUIDUtils;
 import org.junit.jupiter.api.Test;
@@ -82,6 +83,9 @@ class TransactionsControllerTest {
     @MockBean
     private OpenTelemetryUtils openTelemetryUtils;
 
+    @MockBean
+    private TransactionInfoResponseCache transactionInfoResponseCache;
+
     @Mock
     ServerWebExchange mockExchange;
 
@@ -10,13 +10,18 @@ import it.pagopa.ecommerce.commons.domain.v2.TransactionActivated;
 import it.pagopa.ecommerce.commons.generated.npg.v1.dto.OperationResultDto;
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
 import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 
 class AuthorizationUpdateProjectionHandlerTest {
@@ -91,10 +96,7 @@ class AuthorizationUpdateProjectionHandlerTest {
         /*
          * Preconditions
          */
-        Mockito.when(viewRepository.findById(transaction.getTransactionId().value()))
-                .thenReturn(Mono.just(Transaction.from(transaction)));
-
-        Mockito.when(viewRepository.save(expectedDocument)).thenReturn(Mono.just(expectedDocument));
+        Mockito.when(viewRepository.updateFields(any())).thenReturn(Mono.just(expectedDocument));
 
         /*
          * Test
@@ -106,10 +108,15 @@ class AuthorizationUpdateProjectionHandlerTest {
         /*
          * Assertions
          */
-        Mockito.verify(viewRepository, Mockito.times(1)).save(
+        Mockito.verify(viewRepository, Mockito.times(1)).updateFields(
                 argThat(
-                        savedTransaction -> ((Transaction) savedTransaction).getStatus()
-                                .equals(TransactionStatusDto.AUTHORIZATION_COMPLETED)
+                        update -> update.fields().equals(expectedUpdatedFields(expectedDocument))
+                                && update.expectedStatuses().equals(
+                                        EnumSet.of(
+                                                TransactionStatusDto.AUTHORIZATION_REQUESTED,
+                                                TransactionStatusDto.AUTHORIZATION_COMPLETED
+                                        )
+                                )
                 )
         );
     }
@@ -171,10 +178,7 @@ class AuthorizationUpdateProjectionHandlerTest {
         /*
          * Preconditions
          */
-        Mockito.when(viewRepository.findById(transaction.getTransactionId().value()))
-                .thenReturn(Mono.just(Transaction.from(transaction)));
-
-        Mockito.when(viewRepository.save(expectedDocument)).thenReturn(Mono.just(expectedDocument));
+        Mockito.when(viewRepository.updateFields(any())).thenReturn(Mono.just(expectedDocument));
 
         /*
          * Test
@@ -186,10 +190,15 @@ class AuthorizationUpdateProjectionHandlerTest {
         /*
          * Assertions
          */
-        Mockito.verify(viewRepository, Mockito.times(1)).save(
+        Mockito.verify(viewRepository, Mockito.times(1)).updateFields(
                 argThat(
-                        savedTransaction -> ((Transaction) savedTransaction).getStatus()
-                                .equals(TransactionStatusDto.AUTHORIZATION_COMPLETED)
+                        update -> update.fields().equals(expectedUpdatedFields(expectedDocument))
+                                && update.expectedStatuses().equals(
+                                        EnumSet.of(
+                                                TransactionStatusDto.AUTHORIZATION_REQUESTED,
+                                                TransactionStatusDto.AUTHORIZATION_COMPLETED
+                                        )
+                                )
                 )
         );
     }
@@ -253,10 +262,7 @@ class AuthorizationUpdateProjectionHandlerTest {
         /*
          * Preconditions
          */
-        Mockito.when(viewRepository.findById(transaction.getTransactionId().value()))
-                .thenReturn(Mono.just(Transaction.from(transaction)));
-
-        Mockito.when(viewRepository.save(expectedDocument)).thenReturn(Mono.just(expectedDocument));
+        Mockito.when(viewRepository.updateFields(any())).thenReturn(Mono.just(expectedDocument));
 
         /*
          * Test
@@ -268,11 +274,26 @@ class AuthorizationUpdateProjectionHandlerTest {
         /*
          * Assertions
          */
-        Mockito.verify(viewRepository, Mockito.times(1)).save(
+        Mockito.verify(viewRepository, Mockito.times(1)).updateFields(
                 argThat(
-                        savedTransaction -> ((Transaction) savedTransaction).getStatus()
-                                .equals(TransactionStatusDto.AUTHORIZATION_COMPLETED)
+                        update -> update.fields().equals(expectedUpdatedFields(expectedDocument))
+                                && update.expectedStatuses().equals(
+                                        EnumSet.of(
+                                                TransactionStatusDto.AUTHORIZATION_REQUESTED,
+                                                TransactionStatusDto.AUTHORIZATION_COMPLETED
+                                        )
+                                )
                 )
         );
     }
+
+    private static Map<String, Object> expectedUpdatedFields(Transaction expectedDocument) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(TransactionViewUpdate.STATUS_FIELD, TransactionStatusDto.AUTHORIZATION_COMPLETED);
+        fields.put("rrn", expectedDocument.getRrn());
+        fields.put("authorizationCode", expectedDocument.getAuthorizationCode());
+        fields.put("authorizationErrorCode", expectedDocument.getAuthorizationErrorCode());
+        fields.put("gatewayAuthorizationStatus", expectedDocument.getGatewayAuthorizationStatus());
+        return fields;
+    }
 }
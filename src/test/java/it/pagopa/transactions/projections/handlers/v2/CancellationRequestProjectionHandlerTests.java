@@ -5,9 +5,12 @@ import it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent;
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
 import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
 import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -16,7 +19,10 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +34,9 @@ public class CancellationRequestProjectionHandlerTests {
     @Mock
     private TransactionsViewRepository transactionsViewRepository;
 
+    @Captor
+    private ArgumentCaptor<TransactionViewUpdate> updateCaptor;
+
     @Test
     void shouldHandleProjection() {
         Transaction transaction = TransactionTestUtils
@@ -50,14 +59,23 @@ public class CancellationRequestProjectionHandlerTests {
                 TransactionTestUtils.USER_ID
         );
 
-        Mockito.when(transactionsViewRepository.findById(transaction.getTransactionId()))
-                .thenReturn(Mono.just(transaction));
-        Mockito.when(transactionsViewRepository.save(any()))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mockito.when(transactionsViewRepository.updateFields(updateCaptor.capture()))
+                .thenReturn(Mono.just(expected));
 
         StepVerifier.create(cancellationRequestProjectionHandler.handle(transactionUserCanceledEvent))
                 .expectNext(expected)
                 .verifyComplete();
+
+        TransactionViewUpdate update = updateCaptor.getValue();
+        assertEquals(transaction.getTransactionId(), update.transactionId());
+        assertEquals(
+                Map.of(TransactionViewUpdate.STATUS_FIELD, TransactionStatusDto.CANCELLATION_REQUESTED),
+                update.fields()
+        );
+        assertEquals(
+                EnumSet.of(TransactionStatusDto.ACTIVATED, TransactionStatusDto.CANCELLATION_REQUESTED),
+                update.expectedStatuses()
+        );
     }
 
     @Test
@@ -69,7 +87,8 @@ public class CancellationRequestProjectionHandlerTests {
                 transaction.getTransactionId()
         );
 
-        Mockito.when(transactionsViewRepository.findById(transaction.getTransactionId())).thenReturn(Mono.empty());
+        Mockito.when(transactionsViewRepository.updateFields(any()))
+                .thenReturn(Mono.error(new TransactionNotFoundException(transaction.getTransactionId())));
 
         StepVerifier.create(cancellationRequestProjectionHandler.handle(transactionUserCanceledEvent))
                 .expectError(TransactionNotFoundException.class)
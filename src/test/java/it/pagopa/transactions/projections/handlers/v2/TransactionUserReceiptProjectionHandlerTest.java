@@ -3,9 +3,12 @@ package it.pagopa.transactions.projections.handlers.v2;
 import it.pagopa.ecommerce.commons.documents.v2.Transaction;
 import it.pagopa.ecommerce.commons.documents.v2.TransactionUserReceiptData;
 import it.pagopa.ecommerce.commons.documents.v2.TransactionUserReceiptRequestedEvent;
+import it.pagopa.ecommerce.commons.domain.TransactionId;
 import it.pagopa.ecommerce.commons.domain.v2.TransactionActivated;
 import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
 import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.exceptions.AlreadyProcessedException;
+import it.pagopa.transactions.repositories.TransactionViewUpdate;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,7 +20,10 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 
 @ExtendWith(MockitoExtension.class)
@@ -56,10 +62,7 @@ class TransactionUserReceiptProjectionHandlerTest {
         /*
          * Preconditions
          */
-        Mockito.when(viewRepository.findById(transaction.getTransactionId()))
-                .thenReturn(Mono.just(transaction));
-
-        Mockito.when(viewRepository.save(expectedDocument)).thenReturn(Mono.just(expectedDocument));
+        Mockito.when(viewRepository.updateFields(any())).thenReturn(Mono.just(expectedDocument));
 
         /*
          * Test
@@ -72,10 +75,23 @@ class TransactionUserReceiptProjectionHandlerTest {
          * Assertions
          */
         Mockito.verify(viewRepository, Mockito.times(1))
-                .save(
+                .updateFields(
                         argThat(
-                                savedTransaction -> ((Transaction) savedTransaction).getStatus()
-                                        .equals(TransactionStatusDto.NOTIFICATION_REQUESTED)
+                                update -> update.fields().equals(
+                                        Map.of(
+                                                TransactionViewUpdate.STATUS_FIELD,
+                                                TransactionStatusDto.NOTIFICATION_REQUESTED,
+                                                "sendPaymentResultOutcome",
+                                                TransactionUserReceiptData.Outcome.OK
+                                        )
+                                )
+                                        && update.expectedStatuses().equals(
+                                                EnumSet.of(
+                                                        TransactionStatusDto.CLOSED,
+                                                        TransactionStatusDto.EXPIRED,
+                                                        TransactionStatusDto.NOTIFICATION_REQUESTED
+                                                )
+                                        )
                         )
                 );
     }
@@ -106,10 +122,7 @@ class TransactionUserReceiptProjectionHandlerTest {
         /*
          * Preconditions
          */
-        Mockito.when(viewRepository.findById(transaction.getTransactionId().value()))
-                .thenReturn(Mono.just(Transaction.from(transaction)));
-
-        Mockito.when(viewRepository.save(expectedDocument)).thenReturn(Mono.just(expectedDocument));
+        Mockito.when(viewRepository.updateFields(any())).thenReturn(Mono.just(expectedDocument));
 
         /*
          * Test
@@ -122,11 +135,87 @@ class TransactionUserReceiptProjectionHandlerTest {
          * Assertions
          */
         Mockito.verify(viewRepository, Mockito.times(1))
-                .save(
+                .updateFields(
                         argThat(
-                                savedTransaction -> ((Transaction) savedTransaction).getStatus()
-                                        .equals(TransactionStatusDto.NOTIFICATION_REQUESTED)
+                                update -> update.fields().equals(
+                                        Map.of(
+                                                TransactionViewUpdate.STATUS_FIELD,
+                                                TransactionStatusDto.NOTIFICATION_REQUESTED,
+                                                "sendPaymentResultOutcome",
+                                                TransactionUserReceiptData.Outcome.KO
+                                        )
+                                )
+                                        && update.expectedStatuses().equals(
+                                                EnumSet.of(
+                                                        TransactionStatusDto.CLOSED,
+                                                        TransactionStatusDto.EXPIRED,
+                                                        TransactionStatusDto.NOTIFICATION_REQUESTED
+                                                )
+                                        )
                         )
                 );
     }
+
+    @Test
+    void shouldHandleExpiredTransactionClosedBeforeExpiration() {
+        Transaction transaction = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.EXPIRED, ZonedDateTime.now());
+        Transaction expectedDocument = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.NOTIFICATION_REQUESTED, ZonedDateTime.now());
+        expectedDocument.setSendPaymentResultOutcome(TransactionUserReceiptData.Outcome.OK);
+
+        TransactionUserReceiptRequestedEvent event = TransactionTestUtils
+                .transactionUserReceiptRequestedEvent(
+                        TransactionTestUtils.transactionUserReceiptData(TransactionUserReceiptData.Outcome.OK)
+                );
+
+        /*
+         * Preconditions
+         */
+        Mockito.when(viewRepository.updateFields(any()))
+                .thenAnswer(invocation -> updateFromStatus(invocation.getArgument(0), transaction, expectedDocument));
+
+        /*
+         * Test
+         */
+        StepVerifier.create(transactionUserReceiptProjectionHandler.handle(event))
+                .expectNext(expectedDocument)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectUserReceiptForTransactionNotClosed() {
+        Transaction transaction = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_COMPLETED, ZonedDateTime.now());
+        Transaction expectedDocument = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.NOTIFICATION_REQUESTED, ZonedDateTime.now());
+
+        TransactionUserReceiptRequestedEvent event = TransactionTestUtils
+                .transactionUserReceiptRequestedEvent(
+                        TransactionTestUtils.transactionUserReceiptData(TransactionUserReceiptData.Outcome.OK)
+                );
+
+        /*
+         * Preconditions
+         */
+        Mockito.when(viewRepository.updateFields(any()))
+                .thenAnswer(invocation -> updateFromStatus(invocation.getArgument(0), transaction, expectedDocument));
+
+        /*
+         * Test
+         */
+        StepVerifier.create(transactionUserReceiptProjectionHandler.handle(event))
+                .expectError(AlreadyProcessedException.class)
+                .verify();
+    }
+
+    // applies the update status precondition as done by the view repository
+    private static Mono<Transaction> updateFromStatus(
+                                                      TransactionViewUpdate update,
+                                                      Transaction currentView,
+                                                      Transaction updatedView
+    ) {
+        return update.expectedStatuses().contains(currentView.getStatus()) ? Mono.just(updatedView)
+                : Mono.error(new AlreadyProcessedException(new TransactionId(update.transactionId())));
+    }
 }
@@ -0,0 +1,277 @@
+package it.pagopa.transactions.repositories;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NearCachedPaymentRequestInfoReactiveRedisTemplateWrapperTest {
+
+    private static final RptId RPT_ID = new RptId("77777777777302016723749670035");
+
+    private static final String REDIS_KEY = "keys:" + RPT_ID.value();
+
+    private static final Duration PAYMENT_TOKEN_VALIDITY = Duration.ofSeconds(900);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, PaymentRequestInfo> reactiveRedisTemplate = Mockito
+            .mock(ReactiveRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, String> invalidationRedisTemplate = Mockito
+            .mock(ReactiveRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, PaymentRequestInfo> valueOperations = Mockito
+            .mock(ReactiveValueOperations.class);
+
+    private final Sinks.Many<ReactiveSubscription.Message<String, String>> invalidations = Sinks.many().multicast()
+            .directBestEffort();
+
+    private NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper wrapper;
+
+    @BeforeEach
+    void setUp() {
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(reactiveRedisTemplate.getExpire(anyString())).thenReturn(Mono.just(PAYMENT_TOKEN_VALIDITY));
+        when(invalidationRedisTemplate.convertAndSend(any(), any())).thenReturn(Mono.just(1L));
+        Mockito.doReturn(Flux.from(invalidations.asFlux())).when(invalidationRedisTemplate)
+                .listenToChannel(NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper.INVALIDATION_CHANNEL);
+        wrapper = new NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper(
+                reactiveRedisTemplate,
+                invalidationRedisTemplate,
+                "keys",
+                PAYMENT_TOKEN_VALIDITY,
+                100,
+                Duration.ofSeconds(60),
+                OpenTelemetry.noop().getMeter("test")
+        );
+        wrapper.subscribeToInvalidations();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wrapper.close();
+    }
+
+    @Test
+    void shouldServeActivatedPaymentRequestInfoFromNearCache() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(1)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldNotNearCachePaymentRequestInfoWithoutPaymentToken() {
+        PaymentRequestInfo placeholder = paymentRequestInfo(null, null);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(placeholder));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(placeholder).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(placeholder).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldNotNearCachePaymentRequestInfoWithExpiredPaymentToken() {
+        PaymentRequestInfo expired = paymentRequestInfo(
+                "paymentToken",
+                ZonedDateTime.now().minus(PAYMENT_TOKEN_VALIDITY).minusSeconds(1)
+        );
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(expired));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(expired).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(expired).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldPopulateNearCacheOnSave() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.set(REDIS_KEY, activated, PAYMENT_TOKEN_VALIDITY)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.save(activated)).expectNext(true).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    void shouldNotNearCachePaymentRequestInfoBeyondRedisTtl() throws InterruptedException {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+        when(reactiveRedisTemplate.getExpire(REDIS_KEY)).thenReturn(Mono.just(Duration.ofMillis(100)));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        Thread.sleep(300);
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldNotNearCachePaymentRequestInfoWithoutRedisTtl() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+        when(reactiveRedisTemplate.getExpire(REDIS_KEY)).thenReturn(Mono.just(Duration.ZERO));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldPublishInvalidationOnSave() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.set(REDIS_KEY, activated, PAYMENT_TOKEN_VALIDITY)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.save(activated)).expectNext(true).verifyComplete();
+
+        verify(invalidationRedisTemplate, times(1)).convertAndSend(
+                eq(NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper.INVALIDATION_CHANNEL),
+                Mockito.argThat(message -> message.endsWith("|" + RPT_ID.value()))
+        );
+    }
+
+    @Test
+    void shouldEvictNearCacheEntryOnSaveWithoutPaymentToken() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        PaymentRequestInfo placeholder = paymentRequestInfo(null, null);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+        when(valueOperations.set(REDIS_KEY, placeholder, PAYMENT_TOKEN_VALIDITY)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        StepVerifier.create(wrapper.save(placeholder)).expectNext(true).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldQueryRedisOnlyForNearCacheMisses() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        String otherRptId = "77777777777302016723749670036";
+        when(valueOperations.set(REDIS_KEY, activated, PAYMENT_TOKEN_VALIDITY)).thenReturn(Mono.just(true));
+        when(valueOperations.multiGet(List.of("keys:" + otherRptId)))
+                .thenReturn(Mono.just(Collections.singletonList(null)));
+
+        StepVerifier.create(wrapper.save(activated)).expectNext(true).verifyComplete();
+        StepVerifier.create(wrapper.findAllById(List.of(RPT_ID.value(), otherRptId)))
+                .expectNext(Map.of(RPT_ID.value(), activated))
+                .verifyComplete();
+
+        verify(valueOperations, times(1)).multiGet(List.of("keys:" + otherRptId));
+    }
+
+    @Test
+    void shouldInvalidateLocallyAndPublishInvalidationOnDelete() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+        when(reactiveRedisTemplate.delete(REDIS_KEY)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        StepVerifier.create(wrapper.deleteById(RPT_ID.value())).expectNext(true).verifyComplete();
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+        verify(invalidationRedisTemplate, times(1)).convertAndSend(
+                eq(NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper.INVALIDATION_CHANNEL),
+                Mockito.argThat(message -> message.endsWith("|" + RPT_ID.value()))
+        );
+    }
+
+    @Test
+    void shouldDeleteEvenIfInvalidationPublishFails() {
+        when(reactiveRedisTemplate.delete(REDIS_KEY)).thenReturn(Mono.just(1L));
+        when(invalidationRedisTemplate.convertAndSend(any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Redis error")));
+
+        StepVerifier.create(wrapper.deleteById(RPT_ID.value())).expectNext(true).verifyComplete();
+    }
+
+    @Test
+    void shouldEvictEntryOnRemoteInvalidation() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        invalidations.tryEmitNext(
+                new ReactiveSubscription.ChannelMessage<>(
+                        NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper.INVALIDATION_CHANNEL,
+                        "other-instance|%s|%s".formatted(System.currentTimeMillis(), RPT_ID.value())
+                )
+        );
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(2)).get(REDIS_KEY);
+    }
+
+    @Test
+    void shouldIgnoreMalformedInvalidationMessages() {
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken", ZonedDateTime.now());
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(activated));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+        invalidations.tryEmitNext(
+                new ReactiveSubscription.ChannelMessage<>(
+                        NearCachedPaymentRequestInfoReactiveRedisTemplateWrapper.INVALIDATION_CHANNEL,
+                        "malformed"
+                )
+        );
+        StepVerifier.create(wrapper.findById(RPT_ID.value())).expectNext(activated).verifyComplete();
+
+        verify(valueOperations, times(1)).get(REDIS_KEY);
+    }
+
+    private static PaymentRequestInfo paymentRequestInfo(
+                                                         String paymentToken,
+                                                         ZonedDateTime activationDate
+    ) {
+        return new PaymentRequestInfo(
+                RPT_ID,
+                null,
+                null,
+                null,
+                null,
+                null,
+                paymentToken,
+                activationDate == null ? null : activationDate.toString(),
+                new IdempotencyKey("32009090901", "aabbccddee"),
+                List.of(),
+                false,
+                null
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package it.pagopa.transactions.repositories;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.repositories.ExclusiveLockDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.when;
+
+class ReactiveExclusiveLockDocumentWrapperTest {
+
+    private static final ExclusiveLockDocument LOCK = new ExclusiveLockDocument(
+            "POST-auth-request-transactionId",
+            "transactions-service"
+    );
+
+    private static final String LOCK_KEY = "exclusiveLocks:" + LOCK.id();
+
+    private static final Duration TTL = Duration.ofSeconds(900);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, ExclusiveLockDocument> reactiveRedisTemplate = Mockito
+            .mock(ReactiveRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, ExclusiveLockDocument> valueOperations = Mockito
+            .mock(ReactiveValueOperations.class);
+
+    private final ReactiveExclusiveLockDocumentWrapper wrapper = new ReactiveExclusiveLockDocumentWrapper(
+            reactiveRedisTemplate,
+            "exclusiveLocks",
+            Duration.ofSeconds(2),
+            OpenTelemetry.noop().getMeter("test")
+    );
+
+    @BeforeEach
+    void setUp() {
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void shouldAcquireFreeLock() {
+        when(valueOperations.setIfAbsent(LOCK_KEY, LOCK, TTL)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.saveIfAbsent(LOCK, TTL))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotAcquireHeldLock() {
+        when(valueOperations.setIfAbsent(LOCK_KEY, LOCK, TTL)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(wrapper.saveIfAbsent(LOCK, TTL))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldPropagateRedisErrorsAcquiringLock() {
+        when(valueOperations.setIfAbsent(LOCK_KEY, LOCK, TTL))
+                .thenReturn(Mono.error(new IllegalStateException("Redis error")));
+
+        StepVerifier.create(wrapper.saveIfAbsent(LOCK, TTL))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+}
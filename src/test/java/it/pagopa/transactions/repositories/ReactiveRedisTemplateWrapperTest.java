@@ -0,0 +1,206 @@
+package it.pagopa.transactions.repositories;
+
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReactiveRedisTemplateWrapperTest {
+
+    private static final RptId RPT_ID = new RptId("77777777777302016723749670035");
+
+    private static final Duration TTL = Duration.ofSeconds(900);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, PaymentRequestInfo> reactiveRedisTemplate = Mockito
+            .mock(ReactiveRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, PaymentRequestInfo> valueOperations = Mockito
+            .mock(ReactiveValueOperations.class);
+
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper wrapper = new PaymentRequestInfoReactiveRedisTemplateWrapper(
+            reactiveRedisTemplate,
+            "keys",
+            TTL
+    );
+
+    @Test
+    void shouldSaveEntityWithKeyspaceAndDefaultTtl() {
+        PaymentRequestInfo paymentRequestInfo = paymentRequestInfo();
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set("keys:" + RPT_ID.value(), paymentRequestInfo, TTL)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.save(paymentRequestInfo))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldSaveEntityWithCustomTtl() {
+        PaymentRequestInfo paymentRequestInfo = paymentRequestInfo();
+        Duration customTtl = Duration.ofSeconds(10);
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set("keys:" + RPT_ID.value(), paymentRequestInfo, customTtl))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.save(paymentRequestInfo, customTtl))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldSaveEntityIfAbsent() {
+        PaymentRequestInfo paymentRequestInfo = paymentRequestInfo();
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent("keys:" + RPT_ID.value(), paymentRequestInfo, TTL))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(wrapper.saveIfAbsent(paymentRequestInfo, TTL))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFindEntityById() {
+        PaymentRequestInfo paymentRequestInfo = paymentRequestInfo();
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("keys:" + RPT_ID.value())).thenReturn(Mono.just(paymentRequestInfo));
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value()))
+                .expectNext(paymentRequestInfo)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReturnEmptyForMissingEntity() {
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("keys:" + RPT_ID.value())).thenReturn(Mono.empty());
+
+        StepVerifier.create(wrapper.findById(RPT_ID.value()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldDeleteEntityById() {
+        when(reactiveRedisTemplate.delete("keys:" + RPT_ID.value())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(wrapper.deleteById(RPT_ID.value()))
+                .expectNext(true)
+                .verifyComplete();
+        verify(reactiveRedisTemplate).delete("keys:" + RPT_ID.value());
+    }
+
+    @Test
+    void shouldReturnFalseDeletingMissingEntity() {
+        when(reactiveRedisTemplate.delete("keys:" + RPT_ID.value())).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(wrapper.deleteById(RPT_ID.value()))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldGetEntityRemainingTtl() {
+        when(reactiveRedisTemplate.getExpire("keys:" + RPT_ID.value())).thenReturn(Mono.just(TTL));
+
+        StepVerifier.create(wrapper.getExpire(RPT_ID.value()))
+                .expectNext(TTL)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFindAllEntitiesWithSingleMultiGet() {
+        PaymentRequestInfo paymentRequestInfo = paymentRequestInfo();
+        String missingKey = "77777777777302016723749670036";
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("keys:" + RPT_ID.value(), "keys:" + missingKey)))
+                .thenReturn(Mono.just(Arrays.asList(paymentRequestInfo, null)));
+
+        StepVerifier.create(wrapper.findAllById(List.of(RPT_ID.value(), missingKey)))
+                .expectNext(Map.of(RPT_ID.value(), paymentRequestInfo))
+                .verifyComplete();
+        verify(valueOperations, times(1)).multiGet(any());
+    }
+
+    @Test
+    void shouldNotQueryRedisFindingNoEntities() {
+        StepVerifier.create(wrapper.findAllById(List.of()))
+                .expectNext(Map.of())
+                .verifyComplete();
+        verifyNoInteractions(reactiveRedisTemplate);
+    }
+
+    @Test
+    void shouldSaveAllEntitiesWithTtl() {
+        PaymentRequestInfo first = paymentRequestInfo();
+        RptId otherRptId = new RptId("77777777777302016723749670036");
+        PaymentRequestInfo second = paymentRequestInfo(otherRptId);
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set("keys:" + RPT_ID.value(), first, TTL)).thenReturn(Mono.just(true));
+        when(valueOperations.set("keys:" + otherRptId.value(), second, TTL)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(wrapper.saveAll(List.of(first, second)))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReturnFalseWhenAnyEntityIsNotSaved() {
+        PaymentRequestInfo first = paymentRequestInfo();
+        RptId otherRptId = new RptId("77777777777302016723749670036");
+        PaymentRequestInfo second = paymentRequestInfo(otherRptId);
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set("keys:" + RPT_ID.value(), first, TTL)).thenReturn(Mono.just(true));
+        when(valueOperations.set("keys:" + otherRptId.value(), second, TTL)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(wrapper.saveAll(List.of(first, second)))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotQueryRedisSavingNoEntities() {
+        StepVerifier.create(wrapper.saveAll(List.of()))
+                .expectNext(true)
+                .verifyComplete();
+        verifyNoInteractions(reactiveRedisTemplate);
+    }
+
+    private static PaymentRequestInfo paymentRequestInfo() {
+        return paymentRequestInfo(RPT_ID);
+    }
+
+    private static PaymentRequestInfo paymentRequestInfo(RptId rptId) {
+        return new PaymentRequestInfo(
+                rptId,
+                null,
+                null,
+                null,
+                null,
+                null,
+                "paymentToken",
+                null,
+                new IdempotencyKey("32009090901", "aabbccddee"),
+                List.of(),
+                false,
+                null
+        );
+    }
+}
@@ -0,0 +1,54 @@
+package it.pagopa.transactions.repositories;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.utils.PendingEventWrites;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionsEventStoreRepositoryCustomImplTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+
+    private final TransactionsEventStoreRepositoryCustomImpl<BaseTransactionEvent<Void>> repository = new TransactionsEventStoreRepositoryCustomImpl<>(
+            reactiveMongoTemplate,
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test"))
+    );
+
+    @Test
+    void shouldSaveEventRightAwayWithoutPendingWrites() {
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        when(reactiveMongoTemplate.getCollectionName(BaseTransactionEvent.class)).thenReturn("eventstore");
+        when(reactiveMongoTemplate.save(event, "eventstore")).thenReturn(Mono.just(event));
+
+        StepVerifier.create(repository.save(event))
+                .expectNext(event)
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate).save(event, "eventstore");
+    }
+
+    @Test
+    void shouldDeferEventSaveWithPendingWrites() {
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        PendingEventWrites pendingWrites = new PendingEventWrites();
+
+        StepVerifier.create(repository.save(event).contextWrite(pendingWrites::bindTo))
+                .expectNext(event)
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate, never()).save(any(), anyString());
+    }
+}
@@ -0,0 +1,317 @@
+package it.pagopa.transactions.repositories;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.ecommerce.commons.documents.v2.Transaction;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.exceptions.AlreadyProcessedException;
+import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import it.pagopa.transactions.utils.MongoReadPreferences;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
+import it.pagopa.transactions.utils.TransactionStatusChanges;
+import it.pagopa.transactions.utils.TransactionViewCache;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionsViewRepositoryCustomImplTest {
+
+    private static final String TRANSACTION_ID = TransactionTestUtils.TRANSACTION_ID;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+
+    private final TransactionViewCache transactionViewCache = Mockito.mock(TransactionViewCache.class);
+
+    private final TransactionStatusChanges transactionStatusChanges = Mockito.mock(TransactionStatusChanges.class);
+
+    private final MongoReadPreferences mongoReadPreferences = Mockito.mock(MongoReadPreferences.class);
+
+    private final TransactionsViewRepositoryCustomImpl repository = new TransactionsViewRepositoryCustomImpl(
+            reactiveMongoTemplate,
+            transactionViewCache,
+            transactionStatusChanges,
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test")),
+            mongoReadPreferences
+    );
+
+    private final ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+
+    private final ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionViewCache.find(any(), any(), any())).thenAnswer(
+                invocation -> invocation
+                        .<Function<Optional<TransactionStatusDto>, Mono<BaseTransactionView>>>getArgument(2)
+                        .apply(Optional.empty())
+        );
+        when(mongoReadPreferences.read(any(), any(), any())).thenAnswer(
+                invocation -> invocation.<Function<ReactiveMongoOperations, Mono<?>>>getArgument(1)
+                        .apply(reactiveMongoTemplate)
+        );
+        when(transactionViewCache.writeThrough(any())).thenReturn(Mono.empty());
+        when(transactionStatusChanges.publish(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void shouldUpdateOnlyGivenFields() {
+        Transaction updatedView = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_COMPLETED, ZonedDateTime.now());
+        when(
+                reactiveMongoTemplate.findAndModify(
+                        queryCaptor.capture(),
+                        updateCaptor.capture(),
+                        any(FindAndModifyOptions.class),
+                        eq(BaseTransactionView.class)
+                )
+        ).thenReturn(Mono.just(updatedView));
+
+        StepVerifier.create(
+                repository.updateFields(
+                        TransactionViewUpdate.forTransaction(TRANSACTION_ID)
+                                .status(TransactionStatusDto.AUTHORIZATION_COMPLETED)
+                                .set("rrn", "rrn")
+                                .set("authorizationErrorCode", null)
+                )
+        )
+                .expectNext(updatedView)
+                .verifyComplete();
+
+        assertEquals(new Document("_id", TRANSACTION_ID), queryCaptor.getValue().getQueryObject());
+        Document updateObject = updateCaptor.getValue().getUpdateObject();
+        assertEquals(
+                new Document("status", TransactionStatusDto.AUTHORIZATION_COMPLETED).append("rrn", "rrn"),
+                updateObject.get("$set")
+        );
+        assertEquals(new Document("authorizationErrorCode", 1), updateObject.get("$unset"));
+        verify(reactiveMongoTemplate, never()).exists(any(), eq(BaseTransactionView.class));
+        verify(transactionViewCache).writeThrough(updatedView);
+        verify(transactionStatusChanges).publish(TRANSACTION_ID);
+    }
+
+    @Test
+    void shouldUpdateOnlyFromExpectedStatuses() {
+        Transaction updatedView = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.CLOSURE_REQUESTED, ZonedDateTime.now());
+        when(
+                reactiveMongoTemplate.findAndModify(
+                        queryCaptor.capture(),
+                        any(Update.class),
+                        any(FindAndModifyOptions.class),
+                        eq(BaseTransactionView.class)
+                )
+        ).thenReturn(Mono.just(updatedView));
+
+        StepVerifier.create(
+                repository.updateFields(
+                        TransactionViewUpdate.forTransaction(TRANSACTION_ID)
+                                .status(TransactionStatusDto.CLOSURE_REQUESTED)
+                                .onlyFromStatuses(
+                                        TransactionStatusDto.AUTHORIZATION_COMPLETED,
+                                        TransactionStatusDto.CLOSURE_REQUESTED
+                                )
+                )
+        )
+                .expectNext(updatedView)
+                .verifyComplete();
+
+        Document queryObject = queryCaptor.getValue().getQueryObject();
+        assertEquals(TRANSACTION_ID, queryObject.get("_id"));
+        assertEquals(
+                Set.of(TransactionStatusDto.AUTHORIZATION_COMPLETED, TransactionStatusDto.CLOSURE_REQUESTED),
+                Set.copyOf((Collection<?>) queryObject.get("status", Document.class).get("$in"))
+        );
+    }
+
+    @Test
+    void shouldReturnTransactionNotFoundForMissingView() {
+        when(
+                reactiveMongoTemplate.findAndModify(
+                        any(Query.class),
+                        any(Update.class),
+                        any(FindAndModifyOptions.class),
+                        eq(BaseTransactionView.class)
+                )
+        ).thenReturn(Mono.empty());
+
+        StepVerifier.create(
+                repository.updateFields(
+                        TransactionViewUpdate.forTransaction(TRANSACTION_ID)
+                                .status(TransactionStatusDto.CANCELLATION_REQUESTED)
+                )
+        )
+                .expectError(TransactionNotFoundException.class)
+                .verify();
+        verify(reactiveMongoTemplate, never()).exists(any(), eq(BaseTransactionView.class));
+        verify(transactionViewCache, never()).writeThrough(any());
+        verify(transactionStatusChanges, never()).publish(any());
+    }
+
+    @Test
+    void shouldReturnTransactionNotFoundForMissingViewWithStatusPrecondition() {
+        when(
+                reactiveMongoTemplate.findAndModify(
+                        any(Query.class),
+                        any(Update.class),
+                        any(FindAndModifyOptions.class),
+                        eq(BaseTransactionView.class)
+                )
+        ).thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.exists(any(Query.class), eq(BaseTransactionView.class)))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(
+                repository.updateFields(
+                        TransactionViewUpdate.forTransaction(TRANSACTION_ID)
+                                .status(TransactionStatusDto.CANCELLATION_REQUESTED)
+                                .onlyFromStatuses(TransactionStatusDto.ACTIVATED)
+                )
+        )
+                .expectError(TransactionNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldReturnAlreadyProcessedForUnexpectedViewStatus() {
+        when(
+                reactiveMongoTemplate.findAndModify(
+                        any(Query.class),
+                        any(Update.class),
+                        any(FindAndModifyOptions.class),
+                        eq(BaseTransactionView.class)
+                )
+        ).thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.exists(any(Query.class), eq(BaseTransactionView.class)))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(
+                repository.updateFields(
+                        TransactionViewUpdate.forTransaction(TRANSACTION_ID)
+                                .status(TransactionStatusDto.CANCELLATION_REQUESTED)
+                                .onlyFromStatuses(TransactionStatusDto.ACTIVATED)
+                )
+        )
+                .expectError(AlreadyProcessedException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldReturnUpdatedDocument() {
+        Transaction updatedView = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.CANCELLATION_REQUESTED, ZonedDateTime.now());
+        ArgumentCaptor<FindAndModifyOptions> optionsCaptor = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        when(
+                reactiveMongoTemplate.findAndModify(
+                        any(Query.class),
+                        any(Update.class),
+                        optionsCaptor.capture(),
+                        eq(BaseTransactionView.class)
+                )
+        ).thenReturn(Mono.just(updatedView));
+
+        StepVerifier.create(
+                repository.updateFields(
+                        TransactionViewUpdate.forTransaction(TRANSACTION_ID)
+                                .status(TransactionStatusDto.CANCELLATION_REQUESTED)
+                )
+        )
+                .expectNext(updatedView)
+                .verifyComplete();
+
+        assertTrue(optionsCaptor.getValue().isReturnNew());
+        assertFalse(optionsCaptor.getValue().isUpsert());
+    }
+
+    @Test
+    void shouldReadOnlyProjectedAndOwnershipFields() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_REQUESTED, ZonedDateTime.now());
+        when(reactiveMongoTemplate.findOne(queryCaptor.capture(), eq(BaseTransactionView.class)))
+                .thenReturn(Mono.just(view));
+
+        StepVerifier.create(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.STATUS))
+                .expectNext(view)
+                .verifyComplete();
+
+        Query query = queryCaptor.getValue();
+        assertEquals(new Document("_id", TRANSACTION_ID), query.getQueryObject());
+        assertEquals(
+                new Document("_class", 1)
+                        .append("status", 1)
+                        .append("sendPaymentResultOutcome", 1)
+                        .append("gatewayAuthorizationStatus", 1)
+                        .append("userId", 1),
+                query.getFieldsObject()
+        );
+        verify(transactionViewCache)
+                .find(eq(TRANSACTION_ID), eq(TransactionViewProjection.STATUS), any());
+        verify(mongoReadPreferences)
+                .read(eq(TransactionsViewRepositoryCustomImpl.FIND_PROJECTED_BY_ID_METHOD), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldConsiderOnlyViewsWithKnownStatusUpToDate() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_REQUESTED, ZonedDateTime.now());
+        Transaction staleView = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
+        ArgumentCaptor<Predicate<BaseTransactionView>> upToDateCaptor = ArgumentCaptor.forClass(Predicate.class);
+        when(transactionViewCache.find(any(), any(), any())).thenAnswer(
+                invocation -> invocation
+                        .<Function<Optional<TransactionStatusDto>, Mono<BaseTransactionView>>>getArgument(2)
+                        .apply(Optional.of(TransactionStatusDto.AUTHORIZATION_REQUESTED))
+        );
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(BaseTransactionView.class)))
+                .thenReturn(Mono.just(view));
+
+        StepVerifier.create(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.STATUS))
+                .expectNext(view)
+                .verifyComplete();
+
+        verify(mongoReadPreferences).read(any(), any(), upToDateCaptor.capture());
+        assertTrue(upToDateCaptor.getValue().test(view));
+        assertFalse(upToDateCaptor.getValue().test(staleView));
+    }
+
+    @Test
+    void shouldWriteSavedViewThroughCacheAndPublishChange() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
+        when(reactiveMongoTemplate.getCollectionName(BaseTransactionView.class)).thenReturn("transactions-view");
+        when(reactiveMongoTemplate.save(view, "transactions-view")).thenReturn(Mono.just(view));
+
+        StepVerifier.create(repository.save(view))
+                .expectNext(view)
+                .verifyComplete();
+
+        verify(transactionViewCache).writeThrough(view);
+        verify(transactionStatusChanges).publish(TRANSACTION_ID);
+    }
+}
@@ -20,7 +20,9 @@ import it.pagopa.generated.transactions.model.CtFaultBean;
 import it.pagopa.generated.transactions.server.model.*;
 import it.pagopa.transactions.commands.handlers.v1.TransactionActivateHandler;
 import it.pagopa.transactions.exceptions.*;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
+import it.pagopa.transactions.utils.TransactionAggregateLoader;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
@@ -37,6 +39,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -243,7 +246,10 @@ class CircuitBreakerTest {
         /*
          * Preconditions
          */
-        Mockito.when(transactionsViewRepository.findById(any(String.class)))
+        Mockito.when(
+                transactionsViewRepository
+                        .findProjectedById(any(String.class), TransactionViewProjection.TRANSACTION_INFO)
+        )
                 .thenReturn(Mono.error(thrownException));
 
         StepVerifier
@@ -307,6 +313,8 @@ class CircuitBreakerTest {
         /*
          * Preconditions
          */
+        Mockito.when(transactionsUtils.aggregateLoader(any()))
+                .thenAnswer(invocation -> new TransactionAggregateLoader(invocation.getArgument(0), Flux.empty()));
         Mockito.when(transactionsUtils.reduceEvents(any(), any(), any(), any()))
                 .thenReturn(Mono.error(thrownException));
 
@@ -1,5 +1,6 @@
 package it.pagopa.transactions.services.v1;
 
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
 import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
 import it.pagopa.ecommerce.commons.documents.PaymentNotice;
@@ -17,7 +18,6 @@ import it.pagopa.ecommerce.commons.domain.*;
 import it.pagopa.ecommerce.commons.domain.v1.TransactionActivated;
 import it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.utils.ConfidentialDataManager;
 import it.pagopa.ecommerce.commons.utils.ConfidentialDataManagerTest;
 import it.pagopa.ecommerce.commons.utils.JwtTokenUtils;
@@ -33,9 +33,11 @@ import it.pagopa.transactions.configurations.AzureStorageConfig;
 import it.pagopa.transactions.exceptions.AlreadyProcessedException;
 import it.pagopa.transactions.exceptions.InvalidRequestException;
 import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import it.pagopa.transactions.utils.*;
+import it.pagopa.transactions.utils.TransactionAggregateLoader;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -45,6 +47,7 @@ import org.mockito.Captor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.redis.AutoConfigureDataRedis;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
@@ -166,12 +169,19 @@ class TransactionServiceTest {
 
     private final ConfidentialMailUtils confidentialMailUtils = new ConfidentialMailUtils(confidentialDataManager);
 
-    private final PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper = Mockito
-            .mock(PaymentRequestInfoRedisTemplateWrapper.class);
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper = Mockito
+            .mock(PaymentRequestInfoReactiveRedisTemplateWrapper.class);
 
     private final UpdateTransactionStatusTracerUtils updateTransactionStatusTracerUtils = Mockito
             .mock(UpdateTransactionStatusTracerUtils.class);
 
+    private final EventViewWrites eventViewWrites = new EventViewWrites(
+            Mockito.mock(ReactiveMongoTemplate.class),
+            EventViewWrites.Mode.SEQUENTIAL,
+            false,
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test"))
+    );
+
     private final TransactionsService transactionsServiceV1 = new TransactionsService(
             transactionActivateHandlerV1,
             transactionActivateHandlerV2,
@@ -207,9 +217,10 @@ class TransactionServiceTest {
             transactionsEventStoreRepository,
             10,
             EventVersion.V1,
-            paymentRequestInfoRedisTemplateWrapper,
+            paymentRequestInfoReactiveRedisTemplateWrapper,
             confidentialMailUtils,
-            updateTransactionStatusTracerUtils
+            updateTransactionStatusTracerUtils,
+            eventViewWrites
     );
 
     private final TransactionsService transactionsServiceV2 = new TransactionsService(
@@ -247,9 +258,10 @@ class TransactionServiceTest {
             transactionsEventStoreRepository,
             10,
             EventVersion.V2,
-            paymentRequestInfoRedisTemplateWrapper,
+            paymentRequestInfoReactiveRedisTemplateWrapper,
             confidentialMailUtils,
-            updateTransactionStatusTracerUtils
+            updateTransactionStatusTracerUtils,
+            eventViewWrites
     );
 
     @Test
@@ -586,6 +598,14 @@ class TransactionServiceTest {
         Mockito.when(transactionsUtils.getPaymentMethodTypeCode(any(BaseTransaction.class))).thenCallRealMethod();
         Mockito.when(transactionsUtils.isWalletPayment(any(BaseTransaction.class))).thenCallRealMethod();
 
+        Mockito.when(transactionsUtils.aggregateLoader(any())).thenAnswer(
+                invocation -> new TransactionAggregateLoader(
+                        invocation.getArgument(0),
+                        transactionsEventStoreRepository.findByTransactionIdOrderByCreationDateAsc(
+                                invocation.<TransactionId>getArgument(0).value()
+                        )
+                )
+        );
         /* test */
         StepVerifier.create(
                 transactionsServiceV1
@@ -9,7 +9,6 @@ import it.pagopa.ecommerce.commons.generated.npg.v1.dto.StateResponseDto;
 import it.pagopa.ecommerce.commons.generated.npg.v1.dto.WorkflowStateDto;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
 import it.pagopa.ecommerce.commons.redis.templatewrappers.ExclusiveLockDocumentWrapper;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.redis.templatewrappers.UniqueIdTemplateWrapper;
 import it.pagopa.ecommerce.commons.utils.JwtTokenUtils;
 import it.pagopa.ecommerce.commons.utils.OpenTelemetryUtils;
@@ -33,6 +32,9 @@ import it.pagopa.transactions.commands.handlers.v1.TransactionActivateHandler;
 import it.pagopa.transactions.commands.handlers.v1.TransactionSendClosureHandler;
 import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.projections.handlers.v1.TransactionsActivationProjectionHandler;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.ReactiveExclusiveLockDocumentWrapper;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import it.pagopa.transactions.utils.*;
@@ -50,6 +52,7 @@ import org.springframework.boot.test.autoconfigure.data.redis.AutoConfigureDataR
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.test.context.TestPropertySource;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Hooks;
@@ -102,7 +105,8 @@ import static org.mockito.Mockito.*;
             it.pagopa.transactions.projections.handlers.v1.TransactionsActivationProjectionHandler.class,
             it.pagopa.transactions.projections.handlers.v2.TransactionsActivationProjectionHandler.class,
             TransactionsEventStoreRepository.class,
-            UUIDUtils.class
+            UUIDUtils.class,
+            EventViewWrites.class
     }
 )
 @AutoConfigureDataRedis
@@ -110,6 +114,9 @@ class TransactionServiceTests {
     @MockBean
     private TransactionsViewRepository repository;
 
+    @MockBean
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
     @Autowired
     @Qualifier(it.pagopa.transactions.services.v1.TransactionsService.QUALIFIER_NAME)
     private it.pagopa.transactions.services.v1.TransactionsService transactionsServiceV1;
@@ -228,7 +235,7 @@ class TransactionServiceTests {
     private TracingUtils tracingUtils;
 
     @MockBean
-    private PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper;
+    private PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper;
 
     @MockBean
     private UniqueIdTemplateWrapper uniqueIdTemplateWrapper;
@@ -245,6 +252,9 @@ class TransactionServiceTests {
     @MockBean
     private ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
 
+    @MockBean
+    private ReactiveExclusiveLockDocumentWrapper reactiveExclusiveLockDocumentWrapper;
+
     final String TRANSACTION_ID = TransactionTestUtils.TRANSACTION_ID;
 
     private static final String NPG_URL_IFRAME = "http://iframe";
@@ -294,7 +304,8 @@ class TransactionServiceTests {
                 .authorizationCode("00")
                 .errorCode(null);
 
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.just(transaction));
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.just(transaction));
         when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
         assertEquals(
                 transactionsServiceV1.getTransactionInfo(TRANSACTION_ID, null).block(),
@@ -349,7 +360,8 @@ class TransactionServiceTests {
                 .authorizationCode(null)
                 .errorCode(null);
 
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.just(transaction));
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.just(transaction));
         when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
         assertEquals(
                 transactionsServiceV1.getTransactionInfo(TRANSACTION_ID, null).block(),
@@ -363,7 +375,8 @@ class TransactionServiceTests {
 
     @Test
     void getTransactionThrowsOnTransactionNotFound() {
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.empty());
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.empty());
 
         assertThrows(
                 TransactionNotFoundException.class,
@@ -468,6 +481,7 @@ class TransactionServiceTests {
         Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.deleteById(any())).thenReturn(Mono.just(true));
         Mockito.when(transactionsUtils.getTransactionTotalAmount(any())).thenCallRealMethod();
         Mockito.when(transactionsUtils.getRptId(any(), anyInt())).thenCallRealMethod();
 
@@ -494,7 +508,7 @@ class TransactionServiceTests {
         assertEquals(calculateFeeResponseDto.getPaymentMethodName(), captureData.paymentMethodName());
         // verify that cache delete is called for each payment notice
         transaction.getPaymentNotices().forEach(
-                paymentNotice -> verify(paymentRequestInfoRedisTemplateWrapper, times(1))
+                paymentNotice -> verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(1))
                         .deleteById(paymentNotice.getRptId())
         );
     }
@@ -522,7 +536,7 @@ class TransactionServiceTests {
                 }
         );
         // verify that cache delete is never called
-        verify(paymentRequestInfoRedisTemplateWrapper, times(0)).deleteById(any());
+        verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(0)).deleteById(any());
     }
 
     @Test
@@ -730,6 +744,7 @@ class TransactionServiceTests {
         Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.deleteById(any())).thenReturn(Mono.just(true));
 
         Mockito.when(transactionsUtils.getTransactionTotalAmount(any())).thenCallRealMethod();
 
@@ -751,7 +766,7 @@ class TransactionServiceTests {
                 .expectErrorMatches(exception -> exception instanceof PaymentNoticeAllCCPMismatchException)
                 .verify();
         // verify that cache delete is called for each payment notice
-        verify(paymentRequestInfoRedisTemplateWrapper, times(0)).deleteById(any());
+        verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(0)).deleteById(any());
     }
 
     static Stream<Arguments> v2ClientIdMapping() {
@@ -955,6 +970,7 @@ class TransactionServiceTests {
         Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.deleteById(any())).thenReturn(Mono.just(true));
         Mockito.when(transactionsUtils.getTransactionTotalAmount(any())).thenCallRealMethod();
         Mockito.when(transactionsUtils.getRptId(any(), anyInt())).thenCallRealMethod();
 
@@ -983,7 +999,7 @@ class TransactionServiceTests {
         assertEquals(calculateFeeResponseDto.getPaymentMethodName(), captureData.paymentMethodName());
         // verify that cache delete is called for each payment notice
         transaction.getPaymentNotices().forEach(
-                paymentNotice -> verify(paymentRequestInfoRedisTemplateWrapper, times(1))
+                paymentNotice -> verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(1))
                         .deleteById(paymentNotice.getRptId())
         );
     }
@@ -1055,6 +1071,7 @@ class TransactionServiceTests {
         Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.deleteById(any())).thenReturn(Mono.just(true));
         Mockito.when(transactionsUtils.getTransactionTotalAmount(any())).thenCallRealMethod();
         Mockito.when(transactionsUtils.getRptId(any(), anyInt())).thenCallRealMethod();
 
@@ -1084,7 +1101,7 @@ class TransactionServiceTests {
         assertEquals(calculateFeeResponseDto.getPaymentMethodName(), captureData.paymentMethodName());
         // verify that cache delete is called for each payment notice
         transaction.getPaymentNotices().forEach(
-                paymentNotice -> verify(paymentRequestInfoRedisTemplateWrapper, times(1))
+                paymentNotice -> verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(1))
                         .deleteById(paymentNotice.getRptId())
         );
     }
@@ -1165,6 +1182,7 @@ class TransactionServiceTests {
         Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
+        Mockito.when(paymentRequestInfoReactiveRedisTemplateWrapper.deleteById(any())).thenReturn(Mono.just(true));
         Mockito.when(transactionsUtils.getTransactionTotalAmount(any())).thenCallRealMethod();
         Mockito.when(transactionsUtils.getRptId(any(), anyInt())).thenCallRealMethod();
 
@@ -1194,7 +1212,7 @@ class TransactionServiceTests {
         assertEquals(calculateFeeResponseDto.getPaymentMethodName(), captureData.paymentMethodName());
         // verify that cache delete is called for each payment notice
         transaction.getPaymentNotices().forEach(
-                paymentNotice -> verify(paymentRequestInfoRedisTemplateWrapper, times(1))
+                paymentNotice -> verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(1))
                         .deleteById(paymentNotice.getRptId())
         );
     }
@@ -1,5 +1,6 @@
 package it.pagopa.transactions.services.v2;
 
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
 import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
 import it.pagopa.ecommerce.commons.documents.PaymentNotice;
@@ -14,8 +15,11 @@ import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
 import it.pagopa.generated.transactions.v2.server.model.*;
 import it.pagopa.transactions.exceptions.InvalidRequestException;
 import it.pagopa.transactions.exceptions.NotImplementedException;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import it.pagopa.transactions.utils.ConfidentialMailUtils;
+import it.pagopa.transactions.utils.EventViewWrites;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -24,6 +28,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.redis.AutoConfigureDataRedis;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.http.HttpStatus;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
@@ -58,13 +63,21 @@ class TransactionServiceTest {
 
     private final ConfidentialMailUtils confidentialMailUtils = new ConfidentialMailUtils(confidentialDataManager);
 
+    private final EventViewWrites eventViewWrites = new EventViewWrites(
+            Mockito.mock(ReactiveMongoTemplate.class),
+            EventViewWrites.Mode.SEQUENTIAL,
+            false,
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test"))
+    );
+
     @Autowired
     private final TransactionsService transactionsService = new TransactionsService(
             transactionActivateHandlerV2,
             transactionsActivationProjectionHandlerV2,
             transactionsUtils,
             confidentialMailUtils,
-            transactionsViewRepository
+            transactionsViewRepository,
+            eventViewWrites
     );
 
     @Test
@@ -459,7 +472,10 @@ class TransactionServiceTest {
                                 .authorizationCode("authorizationCode")
                                 .errorCode("authorizationErrorCode")
                 );
-        Mockito.when(transactionsViewRepository.findById(any(String.class))).thenReturn(Mono.just(transaction));
+        Mockito.when(
+                transactionsViewRepository
+                        .findProjectedById(any(String.class), TransactionViewProjection.TRANSACTION_INFO)
+        ).thenReturn(Mono.just(transaction));
         Mockito.when(transactionsUtils.convertEnumerationV2(any())).thenCallRealMethod();
 
         // test
@@ -493,7 +509,10 @@ class TransactionServiceTest {
         closureErrorData.setErrorDescription("errorDescription");
         closureErrorData.setErrorType(ClosureErrorData.ErrorType.KO_RESPONSE_RECEIVED);
         closureErrorData.setHttpErrorCode(HttpStatus.BAD_REQUEST);
-        Mockito.when(transactionsViewRepository.findById(any(String.class)))
+        Mockito.when(
+                transactionsViewRepository
+                        .findProjectedById(any(String.class), TransactionViewProjection.TRANSACTION_INFO)
+        )
                 .thenReturn(Mono.just(invalidBaseTransaction));
         Mockito.when(transactionsUtils.convertEnumerationV2(any())).thenCallRealMethod();
         String transactionId = TransactionTestUtils.TRANSACTION_ID;
@@ -12,7 +12,6 @@ import it.pagopa.ecommerce.commons.domain.v2.pojos.BaseTransaction;
 import it.pagopa.ecommerce.commons.generated.npg.v1.dto.*;
 import it.pagopa.ecommerce.commons.queues.TracingUtils;
 import it.pagopa.ecommerce.commons.redis.templatewrappers.ExclusiveLockDocumentWrapper;
-import it.pagopa.ecommerce.commons.redis.templatewrappers.PaymentRequestInfoRedisTemplateWrapper;
 import it.pagopa.ecommerce.commons.redis.templatewrappers.UniqueIdTemplateWrapper;
 import it.pagopa.ecommerce.commons.utils.JwtTokenUtils;
 import it.pagopa.ecommerce.commons.utils.OpenTelemetryUtils;
@@ -35,9 +34,13 @@ import it.pagopa.transactions.commands.TransactionUserCancelCommand;
 import it.pagopa.transactions.commands.data.AuthorizationRequestData;
 import it.pagopa.transactions.exceptions.*;
 import it.pagopa.transactions.projections.handlers.v2.TransactionsActivationProjectionHandler;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.ReactiveExclusiveLockDocumentWrapper;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
 import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
 import it.pagopa.transactions.repositories.TransactionsViewRepository;
 import it.pagopa.transactions.utils.*;
+import it.pagopa.transactions.utils.TransactionAggregateLoader;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -50,6 +53,7 @@ import org.springframework.boot.test.autoconfigure.data.redis.AutoConfigureDataR
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.test.context.TestPropertySource;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Hooks;
@@ -61,6 +65,7 @@ import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -100,7 +105,8 @@ import static org.mockito.Mockito.*;
             it.pagopa.transactions.projections.handlers.v1.TransactionsActivationProjectionHandler.class,
             it.pagopa.transactions.projections.handlers.v2.TransactionsActivationProjectionHandler.class,
             TransactionsEventStoreRepository.class,
-            UUIDUtils.class
+            UUIDUtils.class,
+            EventViewWrites.class
     }
 )
 @AutoConfigureDataRedis
@@ -108,6 +114,9 @@ class TransactionServiceTests {
     @MockBean
     private TransactionsViewRepository repository;
 
+    @MockBean
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
     @Autowired
     @Qualifier(it.pagopa.transactions.services.v1.TransactionsService.QUALIFIER_NAME)
     private it.pagopa.transactions.services.v1.TransactionsService transactionsServiceV1;
@@ -226,7 +235,7 @@ class TransactionServiceTests {
     private TracingUtils tracingUtils;
 
     @MockBean
-    private PaymentRequestInfoRedisTemplateWrapper paymentRequestInfoRedisTemplateWrapper;
+    private PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper;
 
     @MockBean
     private UniqueIdTemplateWrapper uniqueIdTemplateWrapper;
@@ -243,6 +252,9 @@ class TransactionServiceTests {
     @MockBean
     private ExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper;
 
+    @MockBean
+    private ReactiveExclusiveLockDocumentWrapper reactiveExclusiveLockDocumentWrapper;
+
     final String TRANSACTION_ID = TransactionTestUtils.TRANSACTION_ID;
     final String USER_ID = TransactionTestUtils.USER_ID;
 
@@ -293,7 +305,8 @@ class TransactionServiceTests {
                 .authorizationCode("00")
                 .errorCode(null);
 
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.just(transaction));
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.just(transaction));
         when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
         assertEquals(
                 transactionsServiceV1.getTransactionInfo(TRANSACTION_ID, UUID.fromString(USER_ID)).block(),
@@ -352,7 +365,8 @@ class TransactionServiceTests {
                 .authorizationCode("00")
                 .errorCode(null);
 
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.just(transaction));
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.just(transaction));
         when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
         assertEquals(
                 transactionsServiceV1.getTransactionInfo(TRANSACTION_ID, null).block(),
@@ -367,14 +381,34 @@ class TransactionServiceTests {
 
     @Test
     void getTransactionReturnsUnexpectedClassInstance() {
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.just(new BaseTransactionView() {
-        }));
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.just(new BaseTransactionView() {
+                }));
         StepVerifier
                 .create(transactionsServiceV1.getTransactionInfo(TRANSACTION_ID, null))
                 .expectErrorMatches(error -> error instanceof NotImplementedException)
                 .verify();
     }
 
+    @Test
+    void getTransactionETagReturnsETagOfOwnedTransaction() {
+        final Transaction transaction = TransactionTestUtils.transactionDocument(
+                it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto.ACTIVATED,
+                ZonedDateTime.now()
+        );
+
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.VERSION))
+                .thenReturn(Mono.just(transaction));
+
+        StepVerifier
+                .create(transactionsServiceV1.getTransactionETag(TRANSACTION_ID, UUID.fromString(USER_ID)))
+                .expectNext(TransactionInfoETags.eTagOf(transaction))
+                .verifyComplete();
+        StepVerifier
+                .create(transactionsServiceV1.getTransactionETag(TRANSACTION_ID, UUID.randomUUID()))
+                .verifyComplete();
+    }
+
     @Test
     void getTransactionReturnsTransactionDataOriginProvidedNoAdditionalFields() {
 
@@ -418,7 +452,8 @@ class TransactionServiceTests {
                 .authorizationCode(null)
                 .errorCode(null);
 
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.just(transaction));
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.just(transaction));
         when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
         assertEquals(
                 transactionsServiceV1.getTransactionInfo(TRANSACTION_ID, UUID.fromString(USER_ID)).block(),
@@ -433,7 +468,8 @@ class TransactionServiceTests {
 
     @Test
     void getTransactionThrowsOnTransactionNotFound() {
-        when(repository.findById(TRANSACTION_ID)).thenReturn(Mono.empty());
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO))
+                .thenReturn(Mono.empty());
 
         assertThrows(
                 TransactionNotFoundException.class,
@@ -442,6 +478,47 @@ class TransactionServiceTests {
         );
     }
 
+    @Test
+    void getTransactionStatusReturnsStatusFieldsOnly() {
+        final Transaction transaction = TransactionTestUtils.transactionDocument(
+                it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto.NOTIFIED_OK,
+                ZonedDateTime.now()
+        );
+        transaction.setSendPaymentResultOutcome(TransactionUserReceiptData.Outcome.OK);
+        transaction.setGatewayAuthorizationStatus("EXECUTED");
+
+        final TransactionStatusInfoDto expected = new TransactionStatusInfoDto()
+                .status(TransactionStatusDto.NOTIFIED_OK)
+                .sendPaymentResultOutcome(TransactionStatusInfoDto.SendPaymentResultOutcomeEnum.OK)
+                .gatewayAuthorizationStatus("EXECUTED");
+
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.STATUS))
+                .thenReturn(Mono.just(transaction));
+        when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
+
+        StepVerifier
+                .create(transactionsServiceV1.getTransactionStatus(TRANSACTION_ID, UUID.fromString(USER_ID)))
+                .expectNext(expected)
+                .verifyComplete();
+        verify(repository, never()).findById(TRANSACTION_ID);
+    }
+
+    @Test
+    void getTransactionStatusThrowsOnTransactionOwnedByOtherUser() {
+        final Transaction transaction = TransactionTestUtils.transactionDocument(
+                it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto.ACTIVATED,
+                ZonedDateTime.now()
+        );
+
+        when(repository.findProjectedById(TRANSACTION_ID, TransactionViewProjection.STATUS))
+                .thenReturn(Mono.just(transaction));
+
+        StepVerifier
+                .create(transactionsServiceV1.getTransactionStatus(TRANSACTION_ID, UUID.randomUUID()))
+                .expectError(TransactionNotFoundException.class)
+                .verify();
+    }
+
     @Test
     void getPaymentTokenByTransactionNotFound() {
 
@@ -536,7 +613,7 @@ class TransactionServiceTests {
         Mockito.when(paymentGatewayClient.requestNpgCardsAuthorization(any(), any()))
                 .thenReturn(Mono.just(stateResponseDto));
 
-        Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
+        Mockito.when(repository.updateFields(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
         Mockito.when(transactionsUtils.getTransactionTotalAmount(any())).thenCallRealMethod();
@@ -687,6 +764,8 @@ class TransactionServiceTests {
                 transactionDocument.getUserId()
         );
 
+        AtomicInteger eventStoreQueries = new AtomicInteger();
+
         /* preconditions */
 
         Mockito.when(transactionUpdateAuthorizationHandlerV2.handle(any()))
@@ -722,14 +801,18 @@ class TransactionServiceTests {
                                         TransactionTestUtils.transactionActivateEvent(),
                                         TransactionTestUtils.transactionAuthorizationRequestedEvent()
                                 )
-                        )
+                        ).doOnSubscribe(subscription -> eventStoreQueries.incrementAndGet())
                 );
         when(transactionsUtils.convertEnumerationV1(any())).thenCallRealMethod();
+        mockAggregateLoader();
         /* test */
         TransactionInfoDto transactionInfoResponse = transactionsServiceV1
                 .updateTransactionAuthorization(transactionIdDecoded, updateAuthorizationRequest).block();
 
         assertEquals(expectedResponse, transactionInfoResponse);
+        // events are read once and shared by all the update authorization steps
+        assertEquals(1, eventStoreQueries.get());
+        verify(transactionsEventStoreRepository, times(0)).findByTransactionIdAndEventCode(any(), any());
     }
 
     @Test
@@ -760,6 +843,7 @@ class TransactionServiceTests {
         )
                 .thenReturn(Mono.empty());
         Hooks.onOperatorDebug();
+        mockAggregateLoader();
         /* test */
         StepVerifier
                 .create(
@@ -972,7 +1056,7 @@ class TransactionServiceTests {
         Mockito.when(paymentGatewayClient.requestNpgCardsAuthorization(any(), any()))
                 .thenReturn(Mono.just(stateResponseDto));
 
-        Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
+        Mockito.when(repository.updateFields(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionsUtils.getPaymentNotices(any())).thenCallRealMethod();
 
@@ -1093,13 +1177,6 @@ class TransactionServiceTests {
                 transactionClosedEvent
         );
         /* preconditions */
-        Mockito.when(
-                transactionsEventStoreRepository.findByTransactionIdAndEventCode(
-                        transactionId.value(),
-                        TransactionEventCode.TRANSACTION_AUTHORIZATION_COMPLETED_EVENT.toString()
-                )
-        )
-                .thenReturn(Mono.just(transactionAuthorizationCompletedEvent));
         Mockito.when(transactionsUtils.reduceEvents(any(), any(), any(), any()))
                 .thenReturn(Mono.just(new it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction())).thenReturn(
                         Mono.just(
@@ -1110,13 +1187,16 @@ class TransactionServiceTests {
                 .thenReturn(
                         Flux.fromIterable(
                                 List.of(
-                                        TransactionTestUtils.transactionActivateEvent(),
-                                        TransactionTestUtils.transactionAuthorizationRequestedEvent()
+                                        transactionActivatedEvent,
+                                        transactionAuthorizationRequestedEvent,
+                                        transactionAuthorizationCompletedEvent,
+                                        transactionClosedEvent
                                 )
                         )
                 );
         when(transactionsUtils.convertEnumerationV1(any()))
                 .thenCallRealMethod();
+        mockAggregateLoader();
         /* test */
         TransactionInfoDto transactionInfoResponse = transactionsServiceV1
                 .updateTransactionAuthorization(transactionIdDecoded, updateAuthorizationRequest).block();
@@ -1179,13 +1259,6 @@ class TransactionServiceTests {
                 transactionAuthorizationCompletedEvent
         );
         /* preconditions */
-        Mockito.when(
-                transactionsEventStoreRepository.findByTransactionIdAndEventCode(
-                        transactionId.value(),
-                        TransactionEventCode.TRANSACTION_AUTHORIZATION_COMPLETED_EVENT.toString()
-                )
-        )
-                .thenReturn(Mono.just(transactionAuthorizationCompletedEvent));
         Mockito.when(transactionsUtils.reduceEvents(any(), any(), any(), any()))
                 .thenReturn(Mono.just(new it.pagopa.ecommerce.commons.domain.v1.EmptyTransaction())).thenReturn(
                         Mono.just(
@@ -1196,13 +1269,15 @@ class TransactionServiceTests {
                 .thenReturn(
                         Flux.fromIterable(
                                 List.of(
-                                        TransactionTestUtils.transactionActivateEvent(),
-                                        TransactionTestUtils.transactionAuthorizationRequestedEvent()
+                                        transactionActivatedEvent,
+                                        transactionAuthorizationRequestedEvent,
+                                        transactionAuthorizationCompletedEvent
                                 )
                         )
                 );
         when(transactionsUtils.convertEnumerationV1(any()))
                 .thenCallRealMethod();
+        mockAggregateLoader();
         /* test */
         TransactionInfoDto transactionInfoResponse = transactionsServiceV1
                 .updateTransactionAuthorization(transactionIdDecoded, updateAuthorizationRequest).block();
@@ -1297,7 +1372,7 @@ class TransactionServiceTests {
         Mockito.when(paymentGatewayClient.requestNpgCardsAuthorization(any(), any()))
                 .thenReturn(Mono.just(gatewayResponse));
 
-        Mockito.when(repository.save(any())).thenReturn(Mono.just(transaction));
+        Mockito.when(repository.updateFields(any())).thenReturn(Mono.just(transaction));
 
         Mockito.when(transactionRequestAuthorizationHandlerV2.handle(commandArgumentCaptor.capture()))
                 .thenReturn(Mono.just(requestAuthorizationResponse));
@@ -1320,4 +1395,15 @@ class TransactionServiceTests {
 
         assertEquals(clientId.getEffectiveClient().name(), calculateFeeRequest.getValue().getTouchpoint());
     }
+
+    private void mockAggregateLoader() {
+        when(transactionsUtils.aggregateLoader(any())).thenAnswer(
+                invocation -> new TransactionAggregateLoader(
+                        invocation.getArgument(0),
+                        transactionsEventStoreRepository.findByTransactionIdOrderByCreationDateAsc(
+                                invocation.<TransactionId>getArgument(0).value()
+                        )
+                )
+        );
+    }
 }
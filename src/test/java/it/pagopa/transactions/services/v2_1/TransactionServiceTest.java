@@ -1,5 +1,6 @@
 package it.pagopa.transactions.services.v2_1;
 
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
 import it.pagopa.ecommerce.commons.documents.PaymentNotice;
 import it.pagopa.ecommerce.commons.documents.PaymentTransferInformation;
@@ -11,10 +12,13 @@ import it.pagopa.ecommerce.commons.domain.*;
 import it.pagopa.ecommerce.commons.domain.v2.TransactionActivated;
 import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
 import it.pagopa.generated.transactions.v2_1.server.model.*;
+import it.pagopa.transactions.utils.EventViewWrites;
+import it.pagopa.transactions.utils.TransactionReadCoalescer;
 import it.pagopa.transactions.utils.TransactionsUtils;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.data.redis.AutoConfigureDataRedis;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -36,10 +40,18 @@ class TransactionServiceTest {
 
     private final TransactionsUtils transactionsUtils = Mockito.mock(TransactionsUtils.class);
 
+    private final EventViewWrites eventViewWrites = new EventViewWrites(
+            Mockito.mock(ReactiveMongoTemplate.class),
+            EventViewWrites.Mode.SEQUENTIAL,
+            false,
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test"))
+    );
+
     private final it.pagopa.transactions.services.v2_1.TransactionsService transactionsService = new TransactionsService(
             transactionActivateHandlerv2,
             transactionsActivationProjectionHandlerv2,
-            transactionsUtils
+            transactionsUtils,
+            eventViewWrites
     );
 
     @Test
@@ -0,0 +1,122 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.redis.templatewrappers.UniqueIdTemplateWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlockAllocatedUniqueIdUtilsTest {
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate = Mockito
+            .mock(ReactiveStringRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, String> valueOperations = Mockito
+            .mock(ReactiveValueOperations.class);
+
+    @BeforeEach
+    void setUp() {
+        when(reactiveStringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY), anyString()))
+                .thenReturn(Mono.just(false));
+    }
+
+    @Test
+    void shouldHandOutIdsFromReservedBlock() {
+        when(valueOperations.increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 3))
+                .thenReturn(Mono.just(1003L));
+        BlockAllocatedUniqueIdUtils uniqueIdUtils = uniqueIdUtils(3);
+
+        StepVerifier
+                .create(
+                        Flux.concat(
+                                List.of(
+                                        uniqueIdUtils.generateUniqueId(),
+                                        uniqueIdUtils.generateUniqueId(),
+                                        uniqueIdUtils.generateUniqueId()
+                                )
+                        )
+                )
+                .expectNext(BlockAllocatedUniqueIdUtils.formatId(1001))
+                .expectNext(BlockAllocatedUniqueIdUtils.formatId(1002))
+                .expectNext(BlockAllocatedUniqueIdUtils.formatId(1003))
+                .verifyComplete();
+        verify(valueOperations, times(1)).increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 3);
+    }
+
+    @Test
+    void shouldReserveNewBlockWhenCurrentOneIsExhausted() {
+        when(valueOperations.increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 2))
+                .thenReturn(Mono.just(1002L), Mono.just(2002L));
+        BlockAllocatedUniqueIdUtils uniqueIdUtils = uniqueIdUtils(2);
+
+        StepVerifier.create(Flux.range(0, 3).concatMap(i -> uniqueIdUtils.generateUniqueId()))
+                .expectNext(BlockAllocatedUniqueIdUtils.formatId(1001))
+                .expectNext(BlockAllocatedUniqueIdUtils.formatId(1002))
+                .expectNext(BlockAllocatedUniqueIdUtils.formatId(2001))
+                .verifyComplete();
+        verify(valueOperations, times(2)).increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 2);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentBlockRefills() {
+        when(valueOperations.increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 100))
+                .thenReturn(Mono.just(100L).delayElement(Duration.ofMillis(50)));
+        BlockAllocatedUniqueIdUtils uniqueIdUtils = uniqueIdUtils(100);
+
+        List<String> ids = Flux.range(0, 50)
+                .flatMap(i -> uniqueIdUtils.generateUniqueId())
+                .collectList()
+                .block();
+
+        assertEquals(50, new HashSet<>(ids).size());
+        verify(valueOperations, times(1)).increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 100);
+    }
+
+    @Test
+    void shouldPropagateRedisErrors() {
+        when(valueOperations.increment(BlockAllocatedUniqueIdUtils.SEQUENCE_KEY, 10))
+                .thenReturn(Mono.error(new IllegalStateException("Redis error")));
+        BlockAllocatedUniqueIdUtils uniqueIdUtils = uniqueIdUtils(10);
+
+        StepVerifier.create(uniqueIdUtils.generateUniqueId())
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldKeepOrderIdFormat() {
+        String id = BlockAllocatedUniqueIdUtils.formatId(System.currentTimeMillis() * 1000);
+
+        assertEquals(BlockAllocatedUniqueIdUtils.ID_LENGTH, id.length());
+        assertTrue(id.matches("E[0-9A-Z]{17}"));
+        assertEquals("E0000000000000000Z", BlockAllocatedUniqueIdUtils.formatId(35));
+    }
+
+    private BlockAllocatedUniqueIdUtils uniqueIdUtils(long blockSize) {
+        return new BlockAllocatedUniqueIdUtils(
+                Mockito.mock(UniqueIdTemplateWrapper.class),
+                reactiveStringRedisTemplate,
+                blockSize,
+                OpenTelemetry.noop().getMeter("test")
+        );
+    }
+}
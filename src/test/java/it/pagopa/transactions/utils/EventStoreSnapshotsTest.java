@@ -0,0 +1,348 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.domain.TransactionId;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.TransactionEventsSnapshot;
+import it.pagopa.transactions.repositories.TransactionEventsSnapshotRepository;
+import it.pagopa.transactions.repositories.TransactionsEventStoreRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventStoreSnapshotsTest {
+
+    private static final TransactionId TRANSACTION_ID = new TransactionId(TransactionTestUtils.TRANSACTION_ID);
+
+    private static final String DOMAIN_VERSION = "1.0.0";
+
+    @SuppressWarnings("unchecked")
+    private final TransactionsEventStoreRepository<Object> eventStoreRepository = Mockito
+            .mock(TransactionsEventStoreRepository.class);
+
+    private final TransactionEventsSnapshotRepository snapshotRepository = Mockito
+            .mock(TransactionEventsSnapshotRepository.class);
+
+    private final EventStoreSnapshots eventStoreSnapshots = new EventStoreSnapshots(
+            eventStoreRepository,
+            snapshotRepository,
+            true,
+            Set.of("TRANSACTION_CLOSURE_ERROR_EVENT"),
+            2,
+            5000,
+            DOMAIN_VERSION,
+            OpenTelemetry.noop().getMeter("test")
+    );
+
+    @Test
+    void shouldLoadFullStreamAndSaveSnapshotAfterConfiguredTransition() {
+        List<BaseTransactionEvent<Object>> events = List.of(
+                event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z"),
+                event("2", "TRANSACTION_CLOSURE_ERROR_EVENT", "2023-01-01T00:00:01Z")
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.empty());
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.fromIterable(events));
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNextSequence(events)
+                .verifyComplete();
+
+        ArgumentCaptor<TransactionEventsSnapshot> snapshotCaptor = ArgumentCaptor
+                .forClass(TransactionEventsSnapshot.class);
+        verify(snapshotRepository, times(1)).save(snapshotCaptor.capture());
+        assertEquals(events, snapshotCaptor.getValue().events());
+        assertEquals("2023-01-01T00:00:01Z", snapshotCaptor.getValue().lastEventCreationDate());
+        assertEquals(EventStoreSnapshots.SNAPSHOT_VERSION, snapshotCaptor.getValue().snapshotVersion());
+    }
+
+    @Test
+    void shouldNotSaveSnapshotForOtherTransitions() {
+        List<BaseTransactionEvent<Object>> events = List.of(
+                event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z"),
+                event("2", "TRANSACTION_AUTHORIZATION_REQUESTED_EVENT", "2023-01-01T00:00:01Z")
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.empty());
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.fromIterable(events));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNextSequence(events)
+                .verifyComplete();
+
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldLoadOnlyEventsNewerThanSnapshot() {
+        BaseTransactionEvent<Object> activated = event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z");
+        BaseTransactionEvent<Object> closureError = event(
+                "2",
+                "TRANSACTION_CLOSURE_ERROR_EVENT",
+                "2023-01-01T00:00:01Z"
+        );
+        BaseTransactionEvent<Object> closureRetried = event(
+                "3",
+                "TRANSACTION_CLOSURE_RETRIED_EVENT",
+                "2023-01-01T00:00:02Z"
+        );
+        TransactionEventsSnapshot snapshot = snapshot(
+                EventStoreSnapshots.SNAPSHOT_VERSION,
+                List.of(activated, closureError)
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.just(snapshot));
+        when(
+                eventStoreRepository.findByTransactionIdAndCreationDateGreaterThanEqualOrderByCreationDateAsc(
+                        TRANSACTION_ID.value(),
+                        "2022-12-31T23:59:56Z"
+                )
+        ).thenReturn(Flux.just(activated, closureError, closureRetried));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNext(activated, closureError, closureRetried)
+                .verifyComplete();
+
+        verify(eventStoreRepository, never()).findByTransactionIdOrderByCreationDateAsc(anyString());
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldLoadEventsAppendedAfterSnapshotWithEarlierCreationDate() {
+        BaseTransactionEvent<Object> activated = event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z");
+        BaseTransactionEvent<Object> closureError = event(
+                "2",
+                "TRANSACTION_CLOSURE_ERROR_EVENT",
+                "2023-01-01T00:00:10Z"
+        );
+        // written by a service whose clock lags behind, after the snapshot was taken
+        BaseTransactionEvent<Object> lateEvent = event(
+                "3",
+                "TRANSACTION_USER_RECEIPT_REQUESTED_EVENT",
+                "2023-01-01T00:00:08Z"
+        );
+        TransactionEventsSnapshot snapshot = snapshot(
+                EventStoreSnapshots.SNAPSHOT_VERSION,
+                List.of(activated, closureError)
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.just(snapshot));
+        when(
+                eventStoreRepository.findByTransactionIdAndCreationDateGreaterThanEqualOrderByCreationDateAsc(
+                        TRANSACTION_ID.value(),
+                        "2023-01-01T00:00:05Z"
+                )
+        ).thenReturn(Flux.just(lateEvent, closureError));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNext(activated, lateEvent, closureError)
+                .verifyComplete();
+
+        verify(eventStoreRepository, never()).findByTransactionIdOrderByCreationDateAsc(anyString());
+    }
+
+    @Test
+    void shouldRebuildOutdatedSnapshot() {
+        List<BaseTransactionEvent<Object>> events = List.of(
+                event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z"),
+                event("2", "TRANSACTION_AUTHORIZATION_REQUESTED_EVENT", "2023-01-01T00:00:01Z")
+        );
+        TransactionEventsSnapshot outdatedSnapshot = snapshot(
+                EventStoreSnapshots.SNAPSHOT_VERSION - 1,
+                events.subList(0, 1)
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.just(outdatedSnapshot));
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.fromIterable(events));
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNextSequence(events)
+                .verifyComplete();
+
+        ArgumentCaptor<TransactionEventsSnapshot> snapshotCaptor = ArgumentCaptor
+                .forClass(TransactionEventsSnapshot.class);
+        verify(snapshotRepository, times(1)).save(snapshotCaptor.capture());
+        assertEquals(EventStoreSnapshots.SNAPSHOT_VERSION, snapshotCaptor.getValue().snapshotVersion());
+        assertEquals(events, snapshotCaptor.getValue().events());
+    }
+
+    @Test
+    void shouldLoadEventsEvenIfSnapshotCannotBeSaved() {
+        List<BaseTransactionEvent<Object>> events = List.of(
+                event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z"),
+                event("2", "TRANSACTION_CLOSURE_ERROR_EVENT", "2023-01-01T00:00:01Z")
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.empty());
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.fromIterable(events));
+        when(snapshotRepository.save(any())).thenReturn(Mono.error(new RuntimeException("Mongo error")));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNextSequence(events)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRebuildSnapshotTakenWithDifferentDomainVersion() {
+        List<BaseTransactionEvent<Object>> events = List.of(
+                event("1", "TRANSACTION_ACTIVATED_EVENT", "2023-01-01T00:00:00Z"),
+                event("2", "TRANSACTION_CLOSURE_ERROR_EVENT", "2023-01-01T00:00:01Z")
+        );
+        TransactionEventsSnapshot snapshot = new TransactionEventsSnapshot(
+                TRANSACTION_ID.value(),
+                EventStoreSnapshots.SNAPSHOT_VERSION,
+                "0.9.0",
+                "2023-01-01T00:00:01Z",
+                events
+        );
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.just(snapshot));
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.fromIterable(events));
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNextSequence(events)
+                .verifyComplete();
+
+        ArgumentCaptor<TransactionEventsSnapshot> snapshotCaptor = ArgumentCaptor
+                .forClass(TransactionEventsSnapshot.class);
+        verify(snapshotRepository, times(1)).save(snapshotCaptor.capture());
+        assertEquals(DOMAIN_VERSION, snapshotCaptor.getValue().domainVersion());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCompactSnapshotToStateChangingEvents() {
+        BaseTransactionEvent<Object> activated = (BaseTransactionEvent<Object>) (BaseTransactionEvent<?>) TransactionTestUtils
+                .transactionActivateEvent();
+        activated.setCreationDate("2023-01-01T00:00:00Z");
+        // events not applied by the domain models, dropped unless within the clock
+        // skew margin of the last event
+        BaseTransactionEvent<Object> oldRetry = event("2", "TRANSACTION_CLOSURE_RETRIED_EVENT", "2023-01-01T00:00:01Z");
+        BaseTransactionEvent<Object> recentRetry = event(
+                "3",
+                "TRANSACTION_CLOSURE_RETRIED_EVENT",
+                "2023-01-01T00:00:30Z"
+        );
+        BaseTransactionEvent<Object> closureError = event(
+                "4",
+                "TRANSACTION_CLOSURE_ERROR_EVENT",
+                "2023-01-01T00:00:32Z"
+        );
+        List<BaseTransactionEvent<Object>> events = List.of(activated, oldRetry, recentRetry, closureError);
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.empty());
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.fromIterable(events));
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .expectNextSequence(events)
+                .verifyComplete();
+
+        ArgumentCaptor<TransactionEventsSnapshot> snapshotCaptor = ArgumentCaptor
+                .forClass(TransactionEventsSnapshot.class);
+        verify(snapshotRepository, times(1)).save(snapshotCaptor.capture());
+        assertEquals(List.of(activated, recentRetry, closureError), snapshotCaptor.getValue().events());
+        assertEquals("2023-01-01T00:00:32Z", snapshotCaptor.getValue().lastEventCreationDate());
+    }
+
+    @Test
+    void shouldNotEnableSnapshotsWithoutDomainVersion() {
+        Meter meter = OpenTelemetry.noop().getMeter("test");
+        Set<String> eventCodes = Set.of("TRANSACTION_CLOSURE_ERROR_EVENT");
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new EventStoreSnapshots(
+                        eventStoreRepository,
+                        snapshotRepository,
+                        true,
+                        eventCodes,
+                        2,
+                        5000,
+                        "@pagopa-ecommerce-commons.version@",
+                        meter
+                )
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new EventStoreSnapshots(
+                        eventStoreRepository,
+                        snapshotRepository,
+                        true,
+                        eventCodes,
+                        2,
+                        5000,
+                        "",
+                        meter
+                )
+        );
+        assertDoesNotThrow(
+                () -> new EventStoreSnapshots(
+                        eventStoreRepository,
+                        snapshotRepository,
+                        false,
+                        eventCodes,
+                        2,
+                        5000,
+                        "",
+                        meter
+                )
+        );
+    }
+
+    @Test
+    void shouldReturnEmptyStreamForUnknownTransaction() {
+        when(snapshotRepository.findById(TRANSACTION_ID.value())).thenReturn(Mono.empty());
+        when(eventStoreRepository.findByTransactionIdOrderByCreationDateAsc(TRANSACTION_ID.value()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(eventStoreSnapshots.loadEvents(TRANSACTION_ID))
+                .verifyComplete();
+
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    private static TransactionEventsSnapshot snapshot(
+                                                      int snapshotVersion,
+                                                      List<BaseTransactionEvent<Object>> events
+    ) {
+        return new TransactionEventsSnapshot(
+                TRANSACTION_ID.value(),
+                snapshotVersion,
+                DOMAIN_VERSION,
+                events.get(events.size() - 1).getCreationDate(),
+                events
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BaseTransactionEvent<Object> event(
+                                                      String id,
+                                                      String eventCode,
+                                                      String creationDate
+    ) {
+        BaseTransactionEvent<Object> event = Mockito.mock(BaseTransactionEvent.class);
+        when(event.getId()).thenReturn(id);
+        when(event.getEventCode()).thenReturn(eventCode);
+        when(event.getCreationDate()).thenReturn(creationDate);
+        return event;
+    }
+}
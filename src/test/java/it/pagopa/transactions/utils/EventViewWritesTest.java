@@ -0,0 +1,300 @@
+package it.pagopa.transactions.utils;
+
+import com.mongodb.MongoException;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.v2.TransactionUserCanceledEvent;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import it.pagopa.transactions.repositories.TransactionsEventStoreRepositoryCustomImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventViewWritesTest {
+
+    private static final String EVENTSTORE_COLLECTION = "eventstore";
+
+    private static final String OUTBOX_COLLECTION = "queue-outbox";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+
+    private final TransactionalOperator transactionalOperator = Mockito.mock(TransactionalOperator.class);
+
+    private final TransactionReadCoalescer transactionReadCoalescer = Mockito.mock(TransactionReadCoalescer.class);
+
+    private final TransactionsEventStoreRepositoryCustomImpl<BaseTransactionEvent<Void>> eventStoreRepository = new TransactionsEventStoreRepositoryCustomImpl<>(
+            reactiveMongoTemplate,
+            transactionReadCoalescer
+    );
+
+    private final Object outboxMessage = new Object();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        when(reactiveMongoTemplate.getCollectionName(BaseTransactionEvent.class)).thenReturn(EVENTSTORE_COLLECTION);
+        when(reactiveMongoTemplate.getCollectionName(QueueOutboxMessage.class)).thenReturn(OUTBOX_COLLECTION);
+        when(reactiveMongoTemplate.insert(anyCollection(), anyString()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void shouldRunCommandAndProjectionSequentially() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.SEQUENTIAL);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        when(reactiveMongoTemplate.save(event, EVENTSTORE_COLLECTION)).thenReturn(Mono.just(event));
+
+        StepVerifier.create(eventViewWrites.write(eventStoreRepository.save(event), e -> Mono.just("view")))
+                .expectNext("view")
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate).save(event, EVENTSTORE_COLLECTION);
+        verify(reactiveMongoTemplate, never()).insert(anyCollection(), anyString());
+        verify(transactionalOperator, never()).transactional(any(Mono.class));
+        verify(transactionReadCoalescer).invalidate(event.getTransactionId());
+    }
+
+    @Test
+    void shouldWriteEventsOutboxMessagesAndViewInTransaction() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.TRANSACTION);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        AtomicInteger viewWrites = new AtomicInteger();
+
+        StepVerifier.create(
+                eventViewWrites.write(
+                        command(event),
+                        e -> Mono.fromCallable(() -> {
+                            viewWrites.incrementAndGet();
+                            return "view";
+                        })
+                )
+        )
+                .expectNext("view")
+                .verifyComplete();
+
+        InOrder inOrder = Mockito.inOrder(transactionalOperator, reactiveMongoTemplate);
+        inOrder.verify(transactionalOperator).transactional(any(Mono.class));
+        inOrder.verify(reactiveMongoTemplate).insert(List.of(event), EVENTSTORE_COLLECTION);
+        inOrder.verify(reactiveMongoTemplate).insert(List.of(outboxMessage), OUTBOX_COLLECTION);
+        assertEquals(1, viewWrites.get());
+        verify(reactiveMongoTemplate, never()).save(any(), anyString());
+        verify(transactionReadCoalescer).invalidate(event.getTransactionId());
+    }
+
+    @Test
+    void shouldWriteEventsConcurrentlyWithView() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.CONCURRENT);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+
+        StepVerifier.create(eventViewWrites.write(command(event), e -> Mono.just("view")))
+                .expectNext("view")
+                .verifyComplete();
+
+        InOrder inOrder = Mockito.inOrder(reactiveMongoTemplate);
+        inOrder.verify(reactiveMongoTemplate).insert(List.of(event), EVENTSTORE_COLLECTION);
+        inOrder.verify(reactiveMongoTemplate).insert(List.of(outboxMessage), OUTBOX_COLLECTION);
+        verify(transactionalOperator, never()).transactional(any(Mono.class));
+    }
+
+    @Test
+    void shouldWriteEventsConcurrentlyEvenIfViewUpdateFails() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.CONCURRENT);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+
+        StepVerifier.create(
+                eventViewWrites.write(command(event), e -> Mono.error(new IllegalStateException("view error")))
+        )
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(reactiveMongoTemplate).insert(List.of(event), EVENTSTORE_COLLECTION);
+    }
+
+    @Test
+    void shouldWritePendingEventsWhenCommandFails() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.TRANSACTION);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        AtomicInteger viewWrites = new AtomicInteger();
+
+        StepVerifier.create(
+                eventViewWrites.write(
+                        eventStoreRepository.save(event).then(Mono.error(new IllegalStateException("command error"))),
+                        e -> Mono.fromRunnable(viewWrites::incrementAndGet)
+                )
+        )
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(reactiveMongoTemplate).insert(List.of(event), EVENTSTORE_COLLECTION);
+        verify(reactiveMongoTemplate, never()).insert(anyCollection(), eq(OUTBOX_COLLECTION));
+        verify(transactionalOperator, never()).transactional(any(Mono.class));
+        assertEquals(0, viewWrites.get());
+    }
+
+    @Test
+    void shouldWritePendingEventsWhenCommandCompletesEmpty() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.CONCURRENT);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+
+        StepVerifier.create(
+                eventViewWrites.write(eventStoreRepository.save(event).then(Mono.empty()), e -> Mono.just("view"))
+        )
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate).insert(List.of(event), EVENTSTORE_COLLECTION);
+    }
+
+    @Test
+    void shouldRetryTransactionOnTransientTransactionError() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.TRANSACTION);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        MongoException transientError = new MongoException("write conflict");
+        transientError.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        AtomicInteger viewWrites = new AtomicInteger();
+
+        StepVerifier.create(
+                eventViewWrites.write(
+                        command(event),
+                        e -> Mono.fromCallable(() -> {
+                            if (viewWrites.incrementAndGet() == 1) {
+                                throw new UncategorizedMongoDbException("write conflict", transientError);
+                            }
+                            return "view";
+                        })
+                )
+        )
+                .expectNext("view")
+                .verifyComplete();
+
+        assertEquals(2, viewWrites.get());
+        verify(reactiveMongoTemplate, times(2)).insert(List.of(event), EVENTSTORE_COLLECTION);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRunAfterCommitActionsOnceTransactionCommits() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.TRANSACTION);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        MongoException transientError = new MongoException("write conflict");
+        transientError.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        AtomicInteger viewWrites = new AtomicInteger();
+        AtomicInteger commits = new AtomicInteger();
+        List<Integer> commitsSeenByActions = new ArrayList<>();
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(
+                        invocation -> ((Mono<Object>) invocation.getArgument(0))
+                                .doOnSuccess(result -> commits.incrementAndGet())
+                );
+
+        StepVerifier.create(
+                eventViewWrites.write(
+                        command(event),
+                        e -> PendingEventWrites
+                                .afterCommit(Mono.fromRunnable(() -> commitsSeenByActions.add(commits.get())))
+                                .then(Mono.fromCallable(() -> {
+                                    if (viewWrites.incrementAndGet() == 1) {
+                                        throw new UncategorizedMongoDbException("write conflict", transientError);
+                                    }
+                                    return "view";
+                                }))
+                )
+        )
+                .expectNext("view")
+                .verifyComplete();
+
+        assertEquals(2, viewWrites.get());
+        // the action collected by the aborted attempt is discarded
+        assertEquals(List.of(1), commitsSeenByActions);
+    }
+
+    @Test
+    void shouldRunAfterCommitActionsInlineInSequentialMode() {
+        EventViewWrites eventViewWrites = eventViewWrites(EventViewWrites.Mode.SEQUENTIAL);
+        TransactionUserCanceledEvent event = TransactionTestUtils.transactionUserCanceledEvent();
+        when(reactiveMongoTemplate.save(event, EVENTSTORE_COLLECTION)).thenReturn(Mono.just(event));
+        List<String> steps = new ArrayList<>();
+
+        StepVerifier.create(
+                eventViewWrites.write(
+                        eventStoreRepository.save(event),
+                        e -> PendingEventWrites.afterCommit(Mono.fromRunnable(() -> steps.add("action")))
+                                .then(Mono.fromCallable(() -> {
+                                    steps.add("view");
+                                    return "view";
+                                }))
+                )
+        )
+                .expectNext("view")
+                .verifyComplete();
+
+        assertEquals(List.of("action", "view"), steps);
+    }
+
+    @Test
+    void shouldRecognizeTransientTransactionErrors() {
+        MongoException transientError = new MongoException("write conflict");
+        transientError.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+
+        assertTrue(EventViewWrites.isTransientTransactionError(transientError));
+        assertTrue(
+                EventViewWrites
+                        .isTransientTransactionError(new UncategorizedMongoDbException("error", transientError))
+        );
+        assertFalse(EventViewWrites.isTransientTransactionError(new MongoException("error")));
+        assertFalse(EventViewWrites.isTransientTransactionError(new IllegalStateException("error")));
+    }
+
+    @Test
+    void shouldRequireQueueOutboxForCombinedWrites() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> new EventViewWrites(
+                        reactiveMongoTemplate,
+                        transactionalOperator,
+                        EventViewWrites.Mode.CONCURRENT,
+                        false,
+                        transactionReadCoalescer
+                )
+        );
+    }
+
+    private Mono<TransactionUserCanceledEvent> command(TransactionUserCanceledEvent event) {
+        return eventStoreRepository.save(event)
+                .flatMap(
+                        savedEvent -> Mono.deferContextual(context -> {
+                            PendingEventWrites.from(context).orElseThrow().addOutboxMessage(outboxMessage);
+                            return Mono.just(savedEvent);
+                        })
+                );
+    }
+
+    private EventViewWrites eventViewWrites(EventViewWrites.Mode mode) {
+        return new EventViewWrites(reactiveMongoTemplate, transactionalOperator, mode, true, transactionReadCoalescer);
+    }
+}
@@ -0,0 +1,243 @@
+package it.pagopa.transactions.utils;
+
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoIndexesTest {
+
+    private static final String EVENTSTORE_COLLECTION = "eventstore";
+
+    private static final String VIEW_COLLECTION = "transactions-view";
+
+    private static final String OUTBOX_COLLECTION = "queue-outbox";
+
+    private static final Document INDEX_SCAN_PLAN = explain(
+            new Document("stage", "FETCH").append("inputStage", new Document("stage", "IXSCAN"))
+    );
+
+    private static final Document COLLECTION_SCAN_PLAN = explain(
+            new Document("stage", "SORT").append("inputStage", new Document("stage", "COLLSCAN"))
+    );
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+
+    private final ReactiveIndexOperations eventStoreIndexOperations = Mockito.mock(ReactiveIndexOperations.class);
+
+    private final ReactiveIndexOperations outboxIndexOperations = Mockito.mock(ReactiveIndexOperations.class);
+
+    private final FindPublisher<Document> findPublisher = mockFindPublisher();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        when(reactiveMongoTemplate.getCollectionName(BaseTransactionEvent.class)).thenReturn(EVENTSTORE_COLLECTION);
+        when(reactiveMongoTemplate.getCollectionName(BaseTransactionView.class)).thenReturn(VIEW_COLLECTION);
+        when(reactiveMongoTemplate.getCollectionName(QueueOutboxMessage.class)).thenReturn(OUTBOX_COLLECTION);
+        when(reactiveMongoTemplate.indexOps(EVENTSTORE_COLLECTION)).thenReturn(eventStoreIndexOperations);
+        when(reactiveMongoTemplate.indexOps(OUTBOX_COLLECTION)).thenReturn(outboxIndexOperations);
+        when(eventStoreIndexOperations.ensureIndex(any())).thenReturn(Mono.just("index"));
+        when(outboxIndexOperations.ensureIndex(any())).thenReturn(Mono.just("index"));
+        MongoCollection<Document> collection = Mockito.mock(MongoCollection.class);
+        when(collection.find(any(Bson.class))).thenReturn(findPublisher);
+        when(reactiveMongoTemplate.getCollection(any())).thenReturn(Mono.just(collection));
+        when(findPublisher.explain(Document.class)).thenReturn(Mono.just(INDEX_SCAN_PLAN));
+    }
+
+    @Test
+    void shouldCreateMissingIndexes() {
+        when(eventStoreIndexOperations.getIndexInfo()).thenReturn(Flux.just(index("_id")));
+        when(outboxIndexOperations.getIndexInfo()).thenReturn(Flux.just(index("_id")));
+
+        StepVerifier.create(new MongoIndexes(reactiveMongoTemplate, true, true).provisionAndVerify())
+                .assertNext(status -> {
+                    assertTrue(status.healthy());
+                    assertEquals(3, status.indexes().size());
+                    assertTrue(
+                            status.indexes().stream()
+                                    .allMatch(index -> index.state() == MongoIndexes.IndexState.CREATED)
+                    );
+                    assertEquals(5, status.queryPlans().size());
+                })
+                .verifyComplete();
+
+        verify(eventStoreIndexOperations, times(2)).ensureIndex(any());
+        verify(outboxIndexOperations).ensureIndex(any());
+    }
+
+    @Test
+    void shouldNotCreateIndexesCoveredByExistingOnes() {
+        when(eventStoreIndexOperations.getIndexInfo()).thenReturn(
+                Flux.just(
+                        index("_id"),
+                        index("transactionId", "creationDate"),
+                        index("transactionId", "eventCode", "creationDate")
+                )
+        );
+        when(outboxIndexOperations.getIndexInfo()).thenReturn(Flux.just(index("nextAttemptAt")));
+
+        StepVerifier.create(new MongoIndexes(reactiveMongoTemplate, true, true).provisionAndVerify())
+                .assertNext(
+                        status -> assertTrue(
+                                status.indexes().stream()
+                                        .allMatch(index -> index.state() == MongoIndexes.IndexState.PRESENT)
+                        )
+                )
+                .verifyComplete();
+
+        verify(eventStoreIndexOperations, never()).ensureIndex(any());
+        verify(outboxIndexOperations, never()).ensureIndex(any());
+    }
+
+    @Test
+    void shouldReportMissingIndexesAndCollectionScans() {
+        when(eventStoreIndexOperations.getIndexInfo()).thenReturn(Flux.just(index("_id")));
+        when(outboxIndexOperations.getIndexInfo()).thenReturn(Flux.just(index("nextAttemptAt")));
+        when(findPublisher.explain(Document.class)).thenReturn(Mono.just(COLLECTION_SCAN_PLAN));
+        MongoIndexes mongoIndexes = new MongoIndexes(reactiveMongoTemplate, false, true);
+
+        StepVerifier.create(mongoIndexes.provisionAndVerify())
+                .assertNext(status -> {
+                    assertFalse(status.healthy());
+                    assertEquals(
+                            2,
+                            status.indexes().stream()
+                                    .filter(index -> index.state() == MongoIndexes.IndexState.MISSING)
+                                    .count()
+                    );
+                    assertTrue(status.queryPlans().stream().allMatch(MongoIndexes.QueryPlanStatus::collectionScan));
+                })
+                .verifyComplete();
+
+        verify(eventStoreIndexOperations, never()).ensureIndex(any());
+        StepVerifier.create(new MongoIndexesHealthIndicator(mongoIndexes, true).health())
+                .assertNext(health -> assertEquals(Status.DOWN, health.getStatus()))
+                .verifyComplete();
+        StepVerifier.create(new MongoIndexesHealthIndicator(mongoIndexes, false).health())
+                .assertNext(health -> assertEquals(Status.UP, health.getStatus()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotRequireOutboxIndexWhenOutboxIsDisabled() {
+        when(eventStoreIndexOperations.getIndexInfo()).thenReturn(
+                Flux.just(index("transactionId", "creationDate"), index("transactionId", "eventCode"))
+        );
+
+        StepVerifier.create(new MongoIndexes(reactiveMongoTemplate, false, false).provisionAndVerify())
+                .assertNext(status -> {
+                    assertTrue(status.healthy());
+                    assertEquals(2, status.indexes().size());
+                    assertTrue(
+                            status.indexes().stream().noneMatch(index -> OUTBOX_COLLECTION.equals(index.collection()))
+                    );
+                    assertEquals(4, status.queryPlans().size());
+                    assertTrue(
+                            status.queryPlans().stream().noneMatch(plan -> OUTBOX_COLLECTION.equals(plan.collection()))
+                    );
+                })
+                .verifyComplete();
+
+        verify(outboxIndexOperations, never()).getIndexInfo();
+    }
+
+    @Test
+    void shouldReportUnknownHealthBeforeVerification() {
+        StepVerifier.create(
+                new MongoIndexesHealthIndicator(new MongoIndexes(reactiveMongoTemplate, true, true), true).health()
+        )
+                .assertNext(health -> assertEquals(Status.UNKNOWN, health.getStatus()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCollectNestedPlanStages() {
+        Document shardedPlan = new Document("stage", "SHARD_MERGE").append(
+                "shards",
+                List.of(
+                        new Document(
+                                "winningPlan",
+                                new Document("stage", "FETCH")
+                                        .append("inputStage", new Document("stage", "IXSCAN"))
+                        ),
+                        new Document("winningPlan", new Document("stage", "COLLSCAN"))
+                )
+        );
+
+        assertEquals(List.of("SHARD_MERGE", "FETCH", "IXSCAN", "COLLSCAN"), MongoIndexes.planStages(shardedPlan));
+        assertEquals(List.of(), MongoIndexes.planStages(null));
+    }
+
+    @Test
+    void shouldNotConsiderPartialOrDifferentIndexesAsCovering() {
+        List<String> keys = List.of("transactionId", "creationDate");
+
+        assertTrue(MongoIndexes.isCoveredBy(keys, index("transactionId", "creationDate", "eventCode")));
+        assertFalse(MongoIndexes.isCoveredBy(keys, index("creationDate", "transactionId")));
+        assertFalse(MongoIndexes.isCoveredBy(keys, index("transactionId")));
+        assertFalse(
+                MongoIndexes.isCoveredBy(
+                        keys,
+                        IndexInfo.indexInfoOf(
+                                new Document("key", new Document("transactionId", 1).append("creationDate", 1))
+                                        .append("name", "partial")
+                                        .append(
+                                                "partialFilterExpression",
+                                                new Document("eventCode", new Document("$exists", true))
+                                        )
+                        )
+                )
+        );
+    }
+
+    private static IndexInfo index(String... keys) {
+        return new IndexInfo(
+                Arrays.stream(keys).map(key -> IndexField.create(key, Sort.Direction.ASC)).toList(),
+                String.join("_", keys),
+                false,
+                false,
+                null
+        );
+    }
+
+    private static Document explain(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FindPublisher<Document> mockFindPublisher() {
+        FindPublisher<Document> findPublisher = Mockito.mock(FindPublisher.class);
+        when(findPublisher.sort(any())).thenReturn(findPublisher);
+        when(findPublisher.limit(anyInt())).thenReturn(findPublisher);
+        return findPublisher;
+    }
+}
@@ -0,0 +1,155 @@
+package it.pagopa.transactions.utils;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MongoReadPreferencesTest {
+
+    private static final String SECONDARY_METHOD = "findProjectedById";
+
+    private static final String PRIMARY_METHOD = "findById";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = Mockito.mock(ReactiveMongoTemplate.class);
+
+    private final Map<ReadPreference, ReactiveMongoTemplate> mongoTemplates = new HashMap<>();
+
+    private final List<ReactiveMongoOperations> readsWith = new ArrayList<>();
+
+    private final MongoReadPreferences mongoReadPreferences = new MongoReadPreferences(
+            reactiveMongoTemplate,
+            readPreference -> mongoTemplates
+                    .computeIfAbsent(readPreference, preference -> Mockito.mock(ReactiveMongoTemplate.class)),
+            Map.of(SECONDARY_METHOD, "secondaryPreferred", PRIMARY_METHOD, "primary"),
+            90,
+            true,
+            OpenTelemetry.noop().getMeter("test")
+    );
+
+    private Function<ReactiveMongoOperations, Mono<String>> read(String value) {
+        return mongoOperations -> Mono.fromSupplier(() -> {
+            readsWith.add(mongoOperations);
+            return value;
+        });
+    }
+
+    private ReactiveMongoTemplate mongoTemplate(ReadPreference readPreference) {
+        return mongoTemplates.get(readPreference);
+    }
+
+    @Test
+    void shouldReadWithConnectionStringPreferenceForUnconfiguredMethods() {
+        StepVerifier.create(mongoReadPreferences.read("findAll", read("value"), value -> false))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(List.of(reactiveMongoTemplate), readsWith);
+    }
+
+    @Test
+    void shouldReturnUpToDateValueReadWithMethodPreference() {
+        StepVerifier.create(mongoReadPreferences.read(SECONDARY_METHOD, read("value"), value -> true))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(
+                List.of(mongoTemplate(MongoReadPreferences.readPreference("secondaryPreferred", 90))),
+                readsWith
+        );
+    }
+
+    @Test
+    void shouldReadStaleValueAgainFromPrimary() {
+        StepVerifier.create(mongoReadPreferences.read(SECONDARY_METHOD, read("value"), value -> false))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(
+                List.of(
+                        mongoTemplate(MongoReadPreferences.readPreference("secondaryPreferred", 90)),
+                        mongoTemplate(ReadPreference.primary())
+                ),
+                readsWith
+        );
+    }
+
+    @Test
+    void shouldReadMissingValueAgainFromPrimary() {
+        Function<ReactiveMongoOperations, Mono<String>> read = mongoOperations -> {
+            readsWith.add(mongoOperations);
+            return mongoOperations == mongoTemplate(ReadPreference.primary()) ? Mono.just("value") : Mono.empty();
+        };
+
+        StepVerifier.create(mongoReadPreferences.read(SECONDARY_METHOD, read, value -> true))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(2, readsWith.size());
+        assertSame(mongoTemplate(ReadPreference.primary()), readsWith.get(1));
+    }
+
+    @Test
+    void shouldReadFromPrimaryOnlyOnceForPrimaryMethods() {
+        StepVerifier.create(mongoReadPreferences.read(PRIMARY_METHOD, read("value"), value -> false))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(List.of(mongoTemplate(ReadPreference.primary())), readsWith);
+    }
+
+    @Test
+    void shouldRefuseNonPrimaryReadPreferencesWithoutViewVersions() {
+        Map<String, String> methodReadPreferences = Map.of(SECONDARY_METHOD, "secondaryPreferred");
+        Meter meter = OpenTelemetry.noop().getMeter("test");
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> new MongoReadPreferences(
+                        reactiveMongoTemplate,
+                        readPreference -> reactiveMongoTemplate,
+                        methodReadPreferences,
+                        90,
+                        false,
+                        meter
+                )
+        );
+        assertDoesNotThrow(
+                () -> new MongoReadPreferences(
+                        reactiveMongoTemplate,
+                        readPreference -> reactiveMongoTemplate,
+                        Map.of(PRIMARY_METHOD, "primary"),
+                        90,
+                        false,
+                        meter
+                )
+        );
+    }
+
+    @Test
+    void shouldBoundStalenessOfNonPrimaryReadPreferences() {
+        ReadPreference readPreference = MongoReadPreferences.readPreference("secondaryPreferred", 90);
+
+        assertEquals(ReadPreference.secondaryPreferred().getName(), readPreference.getName());
+        assertEquals(90, ((TaggableReadPreference) readPreference).getMaxStaleness(TimeUnit.SECONDS));
+        assertEquals(ReadPreference.primary(), MongoReadPreferences.readPreference("primary", 90));
+    }
+}
@@ -0,0 +1,270 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.PaymentTransferInfo;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.ExclusiveLockDocument;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import it.pagopa.transactions.repositories.PaymentRequestInfoReactiveRedisTemplateWrapper;
+import it.pagopa.transactions.repositories.ReactiveExclusiveLockDocumentWrapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NodoActivationCoalescerTest {
+
+    private static final RptId RPT_ID = new RptId("77777777777302016723749670035");
+
+    private static final IdempotencyKey IDEMPOTENCY_KEY = new IdempotencyKey("32009090901", "aabbccddee");
+
+    private static final NodoActivationCoalescer.ActivationRequest ACTIVATION_REQUEST = new NodoActivationCoalescer.ActivationRequest(
+            RPT_ID,
+            IDEMPOTENCY_KEY,
+            100,
+            null
+    );
+
+    private static final String CLAIM_ID = "nodo-activation-%s-%s-100-null"
+            .formatted(RPT_ID.value(), IDEMPOTENCY_KEY.rawValue());
+
+    private final ReactiveExclusiveLockDocumentWrapper exclusiveLockDocumentWrapper = Mockito
+            .mock(ReactiveExclusiveLockDocumentWrapper.class);
+
+    private final PaymentRequestInfoReactiveRedisTemplateWrapper paymentRequestInfoReactiveRedisTemplateWrapper = Mockito
+            .mock(PaymentRequestInfoReactiveRedisTemplateWrapper.class);
+
+    private NodoActivationCoalescer nodoActivationCoalescer(
+                                                            boolean coalescingEnabled,
+                                                            boolean distributedClaimEnabled
+    ) {
+        return new NodoActivationCoalescer(
+                coalescingEnabled,
+                distributedClaimEnabled,
+                1000,
+                10,
+                exclusiveLockDocumentWrapper,
+                paymentRequestInfoReactiveRedisTemplateWrapper,
+                OpenTelemetry.noop().getMeter("test")
+        );
+    }
+
+    private static PaymentRequestInfo paymentRequestInfo(String paymentToken) {
+        return paymentRequestInfo(paymentToken, IDEMPOTENCY_KEY);
+    }
+
+    private static PaymentRequestInfo paymentRequestInfo(
+                                                         String paymentToken,
+                                                         IdempotencyKey idempotencyKey
+    ) {
+        return new PaymentRequestInfo(
+                RPT_ID,
+                RPT_ID.getFiscalCode(),
+                "paName",
+                "description",
+                100,
+                null,
+                paymentToken,
+                ZonedDateTime.now().toString(),
+                idempotencyKey,
+                List.of(new PaymentTransferInfo(RPT_ID.getFiscalCode(), false, 100, null)),
+                false,
+                null
+        );
+    }
+
+    @Test
+    void shouldCoalesceConcurrentActivationsWithSameParameters() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, false);
+        AtomicInteger activations = new AtomicInteger();
+        Sinks.One<PaymentRequestInfo> nodoResponse = Sinks.one();
+        Supplier<Mono<PaymentRequestInfo>> activation = () -> {
+            activations.incrementAndGet();
+            return nodoResponse.asMono();
+        };
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken");
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.activate(ACTIVATION_REQUEST, activation),
+                        coalescer.activate(ACTIVATION_REQUEST, activation)
+                )
+        )
+                .then(() -> nodoResponse.tryEmitValue(activated))
+                .expectNextMatches(results -> results.getT1() == activated && results.getT2() == activated)
+                .verifyComplete();
+
+        assertEquals(1, activations.get());
+        verify(exclusiveLockDocumentWrapper, times(0)).saveIfAbsent(any(), any());
+    }
+
+    @Test
+    void shouldNotCoalesceActivationsWhenDisabled() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(false, false);
+        AtomicInteger activations = new AtomicInteger();
+        Supplier<Mono<PaymentRequestInfo>> activation = () -> Mono.delay(Duration.ofMillis(10))
+                .map(ignored -> paymentRequestInfo("paymentToken" + activations.incrementAndGet()));
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.activate(ACTIVATION_REQUEST, activation),
+                        coalescer.activate(ACTIVATION_REQUEST, activation)
+                )
+        )
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, activations.get());
+    }
+
+    @Test
+    void shouldNotCoalesceConcurrentActivationsWithDifferentParameters() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, false);
+        AtomicInteger activations = new AtomicInteger();
+        Sinks.One<PaymentRequestInfo> nodoResponse = Sinks.one();
+        Supplier<Mono<PaymentRequestInfo>> activation = () -> {
+            activations.incrementAndGet();
+            return nodoResponse.asMono();
+        };
+        NodoActivationCoalescer.ActivationRequest otherTransactionRequest = new NodoActivationCoalescer.ActivationRequest(
+                RPT_ID,
+                new IdempotencyKey("32009090901", "ffgghhiijj"),
+                100,
+                null
+        );
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.activate(ACTIVATION_REQUEST, activation),
+                        coalescer.activate(otherTransactionRequest, activation)
+                )
+        )
+                .then(() -> nodoResponse.tryEmitValue(paymentRequestInfo("paymentToken")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, activations.get());
+    }
+
+    @Test
+    void shouldReleaseDistributedClaimOnceActivationIsCached() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, true);
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken");
+        when(exclusiveLockDocumentWrapper.saveIfAbsent(any(), any())).thenReturn(Mono.just(true));
+        when(exclusiveLockDocumentWrapper.deleteById(CLAIM_ID)).thenReturn(Mono.just(true));
+        when(paymentRequestInfoReactiveRedisTemplateWrapper.save(activated)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(coalescer.activate(ACTIVATION_REQUEST, () -> Mono.just(activated)))
+                .expectNext(activated)
+                .verifyComplete();
+
+        InOrder inOrder = inOrder(exclusiveLockDocumentWrapper, paymentRequestInfoReactiveRedisTemplateWrapper);
+        inOrder.verify(exclusiveLockDocumentWrapper, times(1)).saveIfAbsent(
+                argThat(claim -> CLAIM_ID.equals(claim.id()) && "transactions-service".equals(claim.holderName())),
+                eq(Duration.ofMillis(1000))
+        );
+        inOrder.verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(1)).save(activated);
+        inOrder.verify(exclusiveLockDocumentWrapper, times(1)).deleteById(CLAIM_ID);
+    }
+
+    @Test
+    void shouldReleaseDistributedClaimOnActivationError() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, true);
+        when(exclusiveLockDocumentWrapper.saveIfAbsent(any(), any())).thenReturn(Mono.just(true));
+        when(exclusiveLockDocumentWrapper.deleteById(CLAIM_ID)).thenReturn(Mono.just(true));
+
+        StepVerifier
+                .create(
+                        coalescer
+                                .activate(ACTIVATION_REQUEST, () -> Mono.error(new IllegalStateException("Nodo error")))
+                )
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(exclusiveLockDocumentWrapper, times(1)).deleteById(CLAIM_ID);
+    }
+
+    @Test
+    void shouldReturnClaimHolderActivationFromCache() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, true);
+        PaymentRequestInfo cached = paymentRequestInfo("paymentToken");
+        AtomicInteger activations = new AtomicInteger();
+        when(exclusiveLockDocumentWrapper.saveIfAbsent(any(), any())).thenReturn(Mono.just(false));
+        when(exclusiveLockDocumentWrapper.findById(CLAIM_ID)).thenReturn(
+                Mono.just(new ExclusiveLockDocument(CLAIM_ID, "transactions-service"))
+        );
+        when(paymentRequestInfoReactiveRedisTemplateWrapper.findById(RPT_ID.value()))
+                .thenReturn(Mono.just(paymentRequestInfo(null)))
+                .thenReturn(Mono.just(cached));
+
+        StepVerifier.create(coalescer.activate(ACTIVATION_REQUEST, () -> Mono.fromSupplier(() -> {
+            activations.incrementAndGet();
+            return paymentRequestInfo("otherPaymentToken");
+        })))
+                .expectNext(cached)
+                .verifyComplete();
+
+        assertEquals(0, activations.get());
+        verify(paymentRequestInfoReactiveRedisTemplateWrapper, times(2)).findById(RPT_ID.value());
+    }
+
+    @Test
+    void shouldIgnoreCachedActivationWithDifferentIdempotencyKey() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, true);
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken");
+        when(exclusiveLockDocumentWrapper.saveIfAbsent(any(), any())).thenReturn(Mono.just(false));
+        when(exclusiveLockDocumentWrapper.findById(CLAIM_ID)).thenReturn(Mono.empty());
+        when(paymentRequestInfoReactiveRedisTemplateWrapper.findById(RPT_ID.value())).thenReturn(
+                Mono.just(paymentRequestInfo("otherPaymentToken", new IdempotencyKey("32009090901", "ffgghhiijj")))
+        );
+
+        StepVerifier.create(coalescer.activate(ACTIVATION_REQUEST, () -> Mono.just(activated)))
+                .expectNext(activated)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldActivateLocallyWhenClaimIsReleasedWithoutActivation() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, true);
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken");
+        when(exclusiveLockDocumentWrapper.saveIfAbsent(any(), any())).thenReturn(Mono.just(false));
+        when(exclusiveLockDocumentWrapper.findById(CLAIM_ID)).thenReturn(Mono.empty());
+        when(paymentRequestInfoReactiveRedisTemplateWrapper.findById(RPT_ID.value())).thenReturn(Mono.empty());
+
+        StepVerifier.create(coalescer.activate(ACTIVATION_REQUEST, () -> Mono.just(activated)))
+                .expectNext(activated)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldActivateWhenDistributedClaimFails() {
+        NodoActivationCoalescer coalescer = nodoActivationCoalescer(true, true);
+        PaymentRequestInfo activated = paymentRequestInfo("paymentToken");
+        when(exclusiveLockDocumentWrapper.saveIfAbsent(any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Redis error")));
+
+        StepVerifier.create(coalescer.activate(ACTIVATION_REQUEST, () -> Mono.just(activated)))
+                .expectNext(activated)
+                .verifyComplete();
+
+        verify(exclusiveLockDocumentWrapper, times(0)).deleteById(any());
+    }
+}
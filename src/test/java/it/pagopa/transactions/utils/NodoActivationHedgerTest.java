@@ -0,0 +1,232 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NodoActivationHedgerTest {
+
+    private static final Meter METER = OpenTelemetry.noop().getMeter("test");
+
+    private static NodoActivationHedger hedger(double budgetPercent) {
+        return hedger(budgetPercent, new NodoConcurrencyLimiter(10, 1, 10, 0.5, 1000, 10, 1000, METER));
+    }
+
+    private static NodoActivationHedger hedger(
+                                               double budgetPercent,
+                                               NodoConcurrencyLimiter nodoConcurrencyLimiter
+    ) {
+        return new NodoActivationHedger(
+                true,
+                50,
+                budgetPercent,
+                10,
+                2,
+                10,
+                METER,
+                nodoConcurrencyLimiter
+        );
+    }
+
+    private static void warmUp(NodoActivationHedger hedger) {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(hedger.hedge(() -> Mono.just("warmup"), response -> true))
+                    .expectNext("warmup")
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void shouldNotHedgeBeforeCollectingMinSamples() {
+        NodoActivationHedger hedger = hedger(100);
+        AtomicInteger requests = new AtomicInteger();
+
+        StepVerifier.create(
+                hedger.hedge(
+                        () -> Mono.delay(Duration.ofMillis(100))
+                                .map(ignored -> "response" + requests.incrementAndGet()),
+                        response -> true
+                )
+        )
+                .expectNext("response1")
+                .verifyComplete();
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void shouldReturnHedgedResponseWhenPrimaryIsSlow() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> requests.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(10)).thenReturn("primary")
+                : Mono.just("hedged");
+
+        StepVerifier.create(hedger.hedge(request, response -> true))
+                .expectNext("hedged")
+                .verifyComplete();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void shouldDiscardNotAcceptedHedgedResponse() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> requests.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(200)).thenReturn("primary")
+                : Mono.just("KO");
+
+        StepVerifier.create(hedger.hedge(request, "OK"::equals))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void shouldDiscardFailedHedgedRequest() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> requests.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(200)).thenReturn("primary")
+                : Mono.error(new RuntimeException("hedge error"));
+
+        StepVerifier.create(hedger.hedge(request, response -> true))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldPropagatePrimaryError() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+
+        StepVerifier.create(
+                hedger.hedge(() -> Mono.<String>error(new IllegalStateException("primary error")), response -> true)
+        )
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldReturnHedgedResponseWhenPrimaryFails() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> requests.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(100)).then(Mono.error(new IllegalStateException("primary error")))
+                : Mono.delay(Duration.ofMillis(200)).thenReturn("hedged");
+
+        StepVerifier.create(hedger.hedge(request, response -> true))
+                .expectNext("hedged")
+                .verifyComplete();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void shouldPropagatePrimaryErrorWhenBothRequestsFail() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> requests.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(100)).then(Mono.error(new IllegalStateException("primary error")))
+                : Mono.delay(Duration.ofMillis(200)).then(Mono.error(new RuntimeException("hedge error")));
+
+        StepVerifier.create(hedger.hedge(request, response -> true))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void shouldNotHedgeAfterPrimaryFailure() {
+        NodoActivationHedger hedger = hedger(100);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> {
+            requests.incrementAndGet();
+            return Mono.error(new IllegalStateException("primary error"));
+        };
+
+        StepVerifier.create(hedger.hedge(request, response -> true))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void shouldAcquireConcurrencyPermitForHedgedRequest() {
+        NodoConcurrencyLimiter nodoConcurrencyLimiter = new NodoConcurrencyLimiter(1, 1, 1, 0.5, 1000, 0, 1000, METER);
+        NodoActivationHedger hedger = hedger(100, nodoConcurrencyLimiter);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+        Supplier<Mono<String>> request = () -> requests.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(200)).thenReturn("primary")
+                : Mono.just("hedged");
+
+        // the primary request holds the only permit, so the hedge is rejected
+        StepVerifier.create(nodoConcurrencyLimiter.execute(() -> hedger.hedge(request, response -> true)))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(1, requests.get());
+        assertEquals(0, nodoConcurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    void shouldNotHedgeWithoutBudget() {
+        NodoActivationHedger hedger = hedger(0);
+        warmUp(hedger);
+        AtomicInteger requests = new AtomicInteger();
+
+        StepVerifier.create(
+                hedger.hedge(
+                        () -> Mono.delay(Duration.ofMillis(200))
+                                .map(ignored -> "response" + requests.incrementAndGet()),
+                        response -> true
+                )
+        )
+                .expectNext("response1")
+                .verifyComplete();
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void shouldValidateConfiguration() {
+        NodoConcurrencyLimiter nodoConcurrencyLimiter = new NodoConcurrencyLimiter(
+                10,
+                1,
+                10,
+                0.5,
+                1000,
+                10,
+                1000,
+                METER
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new NodoActivationHedger(true, 100, 5, 10, 2, 10, METER, nodoConcurrencyLimiter)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new NodoActivationHedger(true, 95, 5, 10, 20, 10, METER, nodoConcurrencyLimiter)
+        );
+    }
+}
@@ -0,0 +1,145 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.transactions.exceptions.BadGatewayException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodoConcurrencyLimiterTest {
+
+    private static NodoConcurrencyLimiter limiter(
+                                                  int initialLimit,
+                                                  long latencyThresholdMillis,
+                                                  int maxQueueSize,
+                                                  long maxQueueWaitMillis
+    ) {
+        return new NodoConcurrencyLimiter(
+                initialLimit,
+                1,
+                10,
+                0.5,
+                latencyThresholdMillis,
+                maxQueueSize,
+                maxQueueWaitMillis,
+                OpenTelemetry.noop().getMeter("test")
+        );
+    }
+
+    @Test
+    void shouldExecuteCallWithinLimit() {
+        NodoConcurrencyLimiter limiter = limiter(2, 10000, 10, 1000);
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("response")))
+                .expectNext("response")
+                .verifyComplete();
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldQueueCallsExceedingLimit() {
+        NodoConcurrencyLimiter limiter = limiter(1, 10000, 10, 1000);
+        Sinks.One<String> firstResponse = Sinks.one();
+        Disposable first = limiter.execute(firstResponse::asMono).subscribe();
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("second")))
+                .then(() -> {
+                    assertEquals(1, limiter.getInFlight());
+                    firstResponse.tryEmitValue("first");
+                })
+                .expectNext("second")
+                .verifyComplete();
+
+        assertTrue(first.isDisposed());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldRejectCallsWhenQueueIsFull() {
+        NodoConcurrencyLimiter limiter = limiter(1, 10000, 0, 1000);
+        Disposable first = limiter.execute(Mono::never).subscribe();
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("second")))
+                .expectError(BadGatewayException.class)
+                .verify();
+
+        first.dispose();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldRejectCallsWaitingTooLong() {
+        NodoConcurrencyLimiter limiter = limiter(1, 10000, 10, 50);
+        Disposable first = limiter.execute(Mono::never).subscribe();
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("second")))
+                .expectError(BadGatewayException.class)
+                .verify(Duration.ofSeconds(5));
+
+        first.dispose();
+        assertEquals(0, limiter.getInFlight());
+        // a permit released after the queue timeout must be available again
+        StepVerifier.create(limiter.execute(() -> Mono.just("third")))
+                .expectNext("third")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldDecreaseLimitOnErrors() {
+        NodoConcurrencyLimiter limiter = limiter(8, 10000, 10, 1000);
+
+        StepVerifier.create(limiter.execute(() -> Mono.error(new RuntimeException("Nodo error"))))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void shouldDecreaseLimitOnSlowCalls() {
+        NodoConcurrencyLimiter limiter = limiter(8, 10, 10, 1000);
+
+        StepVerifier.create(limiter.execute(() -> Mono.delay(Duration.ofMillis(50)).thenReturn("slow")))
+                .expectNext("slow")
+                .verifyComplete();
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void shouldIncreaseLimitWhenInUse() {
+        NodoConcurrencyLimiter limiter = limiter(1, 10000, 10, 1000);
+
+        StepVerifier.create(limiter.execute(() -> Mono.just("response")))
+                .expectNext("response")
+                .verifyComplete();
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void shouldNotDecreaseLimitBelowMin() {
+        NodoConcurrencyLimiter limiter = limiter(1, 10000, 10, 1000);
+
+        StepVerifier.create(limiter.execute(() -> Mono.error(new RuntimeException("Nodo error"))))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void shouldValidateLimits() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(0, 10000, 10, 1000));
+        assertThrows(IllegalArgumentException.class, () -> limiter(11, 10000, 10, 1000));
+    }
+}
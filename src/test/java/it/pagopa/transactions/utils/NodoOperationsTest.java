@@ -1,5 +1,6 @@
 package it.pagopa.transactions.utils;
 
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.common.Attributes;
 import it.pagopa.ecommerce.commons.documents.v2.Transaction;
 import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
@@ -57,7 +58,26 @@ class NodoOperationsTest {
                 objectFactoryNodeForPsp,
                 nodoConfig,
                 lightAllCCPCheck,
-                openTelemetryUtils
+                openTelemetryUtils,
+                new NodoActivationCoalescer(
+                        true,
+                        false,
+                        0,
+                        0,
+                        null,
+                        null,
+                        OpenTelemetry.noop().getMeter("test")
+                ),
+                new NodoConcurrencyLimiter(
+                        10,
+                        1,
+                        100,
+                        0.9,
+                        10000,
+                        100,
+                        1000,
+                        OpenTelemetry.noop().getMeter("test")
+                )
         );
     }
 
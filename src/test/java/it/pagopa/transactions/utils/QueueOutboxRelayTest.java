@@ -0,0 +1,202 @@
+package it.pagopa.transactions.utils;
+
+import com.azure.core.http.rest.Response;
+import com.azure.storage.queue.models.SendMessageResult;
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.queues.QueueEvent;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import it.pagopa.transactions.repositories.QueueOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueOutboxRelayTest {
+
+    private static final String QUEUE_CLIENT_NAME = "transactionClosureRetryQueueAsyncClientV1";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final QueueOutbox queueOutbox = Mockito.mock(QueueOutbox.class);
+
+    private final QueueOutboxRepository queueOutboxRepository = Mockito.mock(QueueOutboxRepository.class);
+
+    private final QueueAsyncClient queueClient = Mockito.mock(QueueAsyncClient.class);
+
+    private final QueueOutboxRelay queueOutboxRelay = new QueueOutboxRelay(
+            queueOutbox,
+            queueOutboxRepository,
+            500,
+            10,
+            4,
+            MAX_ATTEMPTS,
+            30,
+            1000,
+            OpenTelemetry.noop().getMeter("test")
+    );
+
+    @Test
+    void shouldPublishMessageWithResidualVisibilityTimeoutAndTtl() {
+        QueueOutboxMessage message = message(Duration.ofMinutes(10), Duration.ofDays(7), 0);
+        when(queueOutbox.directQueueClient(QUEUE_CLIENT_NAME)).thenReturn(Optional.of(queueClient));
+        when(queueOutboxRepository.claimPending(any(), eq(Duration.ofSeconds(30)), eq(10)))
+                .thenReturn(Flux.just(message));
+        when(queueClient.sendMessageWithResponse(any(), any(), any())).thenReturn(queueSuccessfulResponse());
+        when(queueOutboxRepository.deleteById(message.id())).thenReturn(Mono.empty());
+
+        StepVerifier.create(queueOutboxRelay.relayPendingMessages())
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<QueueEvent<BaseTransactionEvent<Object>>> queueEventCaptor = ArgumentCaptor
+                .forClass(QueueEvent.class);
+        ArgumentCaptor<Duration> visibilityTimeoutCaptor = ArgumentCaptor.forClass(Duration.class);
+        ArgumentCaptor<Duration> ttlCaptor = ArgumentCaptor.forClass(Duration.class);
+        verify(queueClient).sendMessageWithResponse(
+                queueEventCaptor.capture(),
+                visibilityTimeoutCaptor.capture(),
+                ttlCaptor.capture()
+        );
+        assertSame(message.event(), queueEventCaptor.getValue().event());
+        // one minute has been spent into the outbox
+        assertTrue(visibilityTimeoutCaptor.getValue().compareTo(Duration.ofMinutes(9)) <= 0);
+        assertTrue(visibilityTimeoutCaptor.getValue().compareTo(Duration.ofMinutes(8)) > 0);
+        assertTrue(ttlCaptor.getValue().compareTo(Duration.ofDays(7).minusMinutes(1)) <= 0);
+        assertTrue(ttlCaptor.getValue().compareTo(Duration.ofDays(7).minusMinutes(2)) > 0);
+        verify(queueOutboxRepository).deleteById(message.id());
+        verify(queueOutboxRepository, never()).recordFailedAttempt(any(), any());
+    }
+
+    @Test
+    void shouldPublishMessageAlreadyDueImmediately() {
+        QueueOutboxMessage message = message(Duration.ZERO, null, 0);
+        when(queueOutbox.directQueueClient(QUEUE_CLIENT_NAME)).thenReturn(Optional.of(queueClient));
+        when(queueOutboxRepository.claimPending(any(), any(), anyInt())).thenReturn(Flux.just(message));
+        when(queueClient.sendMessageWithResponse(any(), any(), any())).thenReturn(queueSuccessfulResponse());
+        when(queueOutboxRepository.deleteById(message.id())).thenReturn(Mono.empty());
+
+        StepVerifier.create(queueOutboxRelay.relayPendingMessages())
+                .verifyComplete();
+
+        verify(queueClient).sendMessageWithResponse(any(), eq(Duration.ZERO), isNull());
+    }
+
+    @Test
+    void shouldDiscardExpiredMessages() {
+        QueueOutboxMessage message = message(Duration.ZERO, Duration.ofSeconds(30), 0);
+        when(queueOutboxRepository.claimPending(any(), any(), anyInt())).thenReturn(Flux.just(message));
+        when(queueOutboxRepository.deleteById(message.id())).thenReturn(Mono.empty());
+
+        StepVerifier.create(queueOutboxRelay.relayPendingMessages())
+                .verifyComplete();
+
+        verify(queueClient, never()).sendMessageWithResponse(any(), any(), any());
+        verify(queueOutboxRepository).deleteById(message.id());
+    }
+
+    @Test
+    void shouldScheduleRetryForFailedPublishing() {
+        QueueOutboxMessage message = message(Duration.ZERO, Duration.ofDays(7), 0);
+        when(queueOutbox.directQueueClient(QUEUE_CLIENT_NAME)).thenReturn(Optional.of(queueClient));
+        when(queueOutboxRepository.claimPending(any(), any(), anyInt())).thenReturn(Flux.just(message));
+        when(queueClient.sendMessageWithResponse(any(), any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Queue error")));
+        when(queueOutboxRepository.recordFailedAttempt(eq(message.id()), any())).thenReturn(Mono.empty());
+        Instant beforeRelay = Instant.now();
+
+        StepVerifier.create(queueOutboxRelay.relayPendingMessages())
+                .verifyComplete();
+
+        ArgumentCaptor<Instant> nextAttemptCaptor = ArgumentCaptor.forClass(Instant.class);
+        verify(queueOutboxRepository).recordFailedAttempt(eq(message.id()), nextAttemptCaptor.capture());
+        assertNotNull(nextAttemptCaptor.getValue());
+        assertTrue(nextAttemptCaptor.getValue().isAfter(beforeRelay.plusMillis(999)));
+        verify(queueOutboxRepository, never()).deleteById(message.id());
+    }
+
+    @Test
+    void shouldStopRetryingAfterMaxAttempts() {
+        QueueOutboxMessage message = message(Duration.ZERO, Duration.ofDays(7), MAX_ATTEMPTS - 1);
+        when(queueOutbox.directQueueClient(QUEUE_CLIENT_NAME)).thenReturn(Optional.of(queueClient));
+        when(queueOutboxRepository.claimPending(any(), any(), anyInt())).thenReturn(Flux.just(message));
+        when(queueClient.sendMessageWithResponse(any(), any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Queue error")));
+        when(queueOutboxRepository.recordFailedAttempt(eq(message.id()), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(queueOutboxRelay.relayPendingMessages())
+                .verifyComplete();
+
+        ArgumentCaptor<Instant> nextAttemptCaptor = ArgumentCaptor.forClass(Instant.class);
+        verify(queueOutboxRepository).recordFailedAttempt(eq(message.id()), nextAttemptCaptor.capture());
+        assertNull(nextAttemptCaptor.getValue());
+    }
+
+    @Test
+    void shouldRetryMessagesWithUnknownQueueClient() {
+        QueueOutboxMessage message = message(Duration.ZERO, Duration.ofDays(7), 0);
+        when(queueOutbox.directQueueClient(QUEUE_CLIENT_NAME)).thenReturn(Optional.empty());
+        when(queueOutboxRepository.claimPending(any(), any(), anyInt())).thenReturn(Flux.just(message));
+        when(queueOutboxRepository.recordFailedAttempt(eq(message.id()), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(queueOutboxRelay.relayPendingMessages())
+                .verifyComplete();
+
+        verify(queueOutboxRepository).recordFailedAttempt(eq(message.id()), any());
+    }
+
+    @Test
+    void shouldDoubleRetryDelayUpToMaxDelay() {
+        assertEquals(Duration.ofSeconds(1), queueOutboxRelay.retryDelay(1));
+        assertEquals(Duration.ofSeconds(2), queueOutboxRelay.retryDelay(2));
+        assertEquals(Duration.ofSeconds(4), queueOutboxRelay.retryDelay(3));
+        assertEquals(QueueOutboxRelay.MAX_RETRY_DELAY, queueOutboxRelay.retryDelay(30));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueueOutboxMessage message(
+                                              Duration visibilityTimeout,
+                                              Duration timeToLive,
+                                              int attempts
+    ) {
+        Instant createdAt = Instant.now().minus(Duration.ofMinutes(1));
+        return new QueueOutboxMessage(
+                "outboxMessageId",
+                QUEUE_CLIENT_NAME,
+                (BaseTransactionEvent<Object>) (BaseTransactionEvent<?>) TransactionTestUtils
+                        .transactionActivateEvent(),
+                null,
+                createdAt,
+                createdAt.plus(visibilityTimeout),
+                timeToLive == null ? null : createdAt.plus(timeToLive),
+                attempts,
+                createdAt
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Response<SendMessageResult>> queueSuccessfulResponse() {
+        return Mono.just((Response<SendMessageResult>) Mockito.mock(Response.class));
+    }
+}
@@ -0,0 +1,151 @@
+package it.pagopa.transactions.utils;
+
+import com.azure.core.util.serializer.JsonSerializer;
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.client.QueueAsyncClient;
+import it.pagopa.ecommerce.commons.documents.v2.TransactionActivatedEvent;
+import it.pagopa.ecommerce.commons.queues.QueueEvent;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.QueueOutboxMessage;
+import it.pagopa.transactions.repositories.QueueOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueOutboxTest {
+
+    private static final String QUEUE_CLIENT_NAME = "transactionActivatedQueueAsyncClientV2";
+
+    private final QueueOutboxRepository queueOutboxRepository = Mockito.mock(QueueOutboxRepository.class);
+
+    private final com.azure.storage.queue.QueueAsyncClient azureQueueClient = Mockito
+            .mock(com.azure.storage.queue.QueueAsyncClient.class);
+
+    private final JsonSerializer jsonSerializer = Mockito.mock(JsonSerializer.class);
+
+    @Test
+    void shouldBuildDirectQueueClientWhenDisabled() {
+        QueueOutbox queueOutbox = queueOutbox(false);
+
+        QueueAsyncClient queueClient = queueOutbox
+                .queueAsyncClient(QUEUE_CLIENT_NAME, azureQueueClient, jsonSerializer);
+
+        assertFalse(queueClient instanceof OutboxQueueAsyncClient);
+        assertSame(queueClient, queueOutbox.directQueueClient(QUEUE_CLIENT_NAME).orElseThrow());
+    }
+
+    @Test
+    void shouldWriteMessagesToOutboxWhenEnabled() {
+        QueueOutbox queueOutbox = queueOutbox(true);
+        when(queueOutboxRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        TransactionActivatedEvent event = TransactionTestUtils.transactionActivateEvent();
+
+        QueueAsyncClient queueClient = queueOutbox
+                .queueAsyncClient(QUEUE_CLIENT_NAME, azureQueueClient, jsonSerializer);
+
+        assertTrue(queueClient instanceof OutboxQueueAsyncClient);
+        assertFalse(
+                queueOutbox.directQueueClient(QUEUE_CLIENT_NAME).orElseThrow() instanceof OutboxQueueAsyncClient
+        );
+        StepVerifier.create(
+                queueClient.sendMessageWithResponse(
+                        new QueueEvent<>(event, null),
+                        Duration.ofSeconds(900),
+                        Duration.ofDays(7)
+                )
+        )
+                .assertNext(response -> assertEquals(202, response.getStatusCode()))
+                .verifyComplete();
+
+        ArgumentCaptor<QueueOutboxMessage> messageCaptor = ArgumentCaptor.forClass(QueueOutboxMessage.class);
+        verify(queueOutboxRepository).save(messageCaptor.capture());
+        QueueOutboxMessage message = messageCaptor.getValue();
+        assertEquals(QUEUE_CLIENT_NAME, message.queueClientName());
+        assertSame(event, message.event());
+        assertNull(message.tracingInfo());
+        assertEquals(message.createdAt().plus(Duration.ofSeconds(900)), message.visibleAt());
+        assertEquals(message.createdAt().plus(Duration.ofDays(7)), message.expiresAt());
+        assertEquals(message.createdAt(), message.nextAttemptAt());
+        assertEquals(0, message.attempts());
+        verify(azureQueueClient, never())
+                .sendMessageWithResponse(any(com.azure.core.util.BinaryData.class), any(), any());
+    }
+
+    @Test
+    void shouldUseQueueDefaultTtlForMessagesWithoutTtl() {
+        QueueOutbox queueOutbox = queueOutbox(true);
+        when(queueOutboxRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(
+                queueOutbox.enqueue(
+                        QUEUE_CLIENT_NAME,
+                        new QueueEvent<>(TransactionTestUtils.transactionActivateEvent(), null),
+                        null,
+                        null
+                )
+        )
+                .expectNextCount(1)
+                .verifyComplete();
+
+        ArgumentCaptor<QueueOutboxMessage> messageCaptor = ArgumentCaptor.forClass(QueueOutboxMessage.class);
+        verify(queueOutboxRepository).save(messageCaptor.capture());
+        assertEquals(messageCaptor.getValue().createdAt(), messageCaptor.getValue().visibleAt());
+        assertNull(messageCaptor.getValue().expiresAt());
+    }
+
+    @Test
+    void shouldDeferOutboxWriteWithPendingWrites() {
+        QueueOutbox queueOutbox = queueOutbox(true);
+        PendingEventWrites pendingWrites = new PendingEventWrites();
+
+        StepVerifier.create(
+                queueOutbox.enqueue(
+                        QUEUE_CLIENT_NAME,
+                        new QueueEvent<>(TransactionTestUtils.transactionActivateEvent(), null),
+                        Duration.ZERO,
+                        Duration.ofDays(7)
+                )
+                        .contextWrite(pendingWrites::bindTo)
+        )
+                .assertNext(response -> assertEquals(202, response.getStatusCode()))
+                .verifyComplete();
+
+        assertEquals(1, pendingWrites.outboxMessages().size());
+        verify(queueOutboxRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldPropagateOutboxWriteErrors() {
+        QueueOutbox queueOutbox = queueOutbox(true);
+        when(queueOutboxRepository.save(any())).thenReturn(Mono.error(new IllegalStateException("Mongo error")));
+
+        StepVerifier.create(
+                queueOutbox.enqueue(
+                        QUEUE_CLIENT_NAME,
+                        new QueueEvent<>(TransactionTestUtils.transactionActivateEvent(), null),
+                        Duration.ZERO,
+                        Duration.ofDays(7)
+                )
+        )
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    private QueueOutbox queueOutbox(boolean enabled) {
+        return new QueueOutbox(queueOutboxRepository, enabled, OpenTelemetry.noop().getMeter("test"));
+    }
+}
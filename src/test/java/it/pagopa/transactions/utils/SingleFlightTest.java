@@ -0,0 +1,125 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>(
+            "test",
+            OpenTelemetry.noop().getMeter("test")
+    );
+
+    @Test
+    void shouldCoalesceConcurrentExecutionsForSameKey() {
+        AtomicInteger invocations = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+        Supplier<Mono<String>> operation = () -> {
+            invocations.incrementAndGet();
+            return result.asMono();
+        };
+
+        StepVerifier.create(
+                Mono.zip(
+                        singleFlight.execute("key", operation),
+                        singleFlight.execute("key", operation)
+                )
+        )
+                .then(() -> {
+                    assertEquals(1, singleFlight.inFlightCount());
+                    result.tryEmitValue("value");
+                })
+                .expectNextMatches(values -> values.getT1().equals("value") && values.getT2().equals("value"))
+                .verifyComplete();
+
+        assertEquals(1, invocations.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void shouldNotCoalesceExecutionsForDifferentKeys() {
+        AtomicInteger invocations = new AtomicInteger();
+        Supplier<Mono<String>> operation = () -> Mono.fromSupplier(() -> "value" + invocations.incrementAndGet());
+
+        StepVerifier.create(
+                Mono.zip(
+                        singleFlight.execute("key1", operation),
+                        singleFlight.execute("key2", operation)
+                )
+        )
+                .expectNextMatches(values -> !values.getT1().equals(values.getT2()))
+                .verifyComplete();
+
+        assertEquals(2, invocations.get());
+    }
+
+    @Test
+    void shouldExecuteAgainAfterCompletion() {
+        AtomicInteger invocations = new AtomicInteger();
+        Supplier<Mono<String>> operation = () -> Mono.fromSupplier(() -> "value" + invocations.incrementAndGet());
+
+        StepVerifier.create(singleFlight.execute("key", operation))
+                .expectNext("value1")
+                .verifyComplete();
+        StepVerifier.create(singleFlight.execute("key", operation))
+                .expectNext("value2")
+                .verifyComplete();
+
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void shouldShareErrorWithCoalescedExecutions() {
+        AtomicInteger invocations = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+        Supplier<Mono<String>> operation = () -> {
+            invocations.incrementAndGet();
+            return result.asMono();
+        };
+
+        StepVerifier.create(
+                Flux.merge(
+                        singleFlight.execute("key", operation).onErrorResume(e -> Mono.just(e.getMessage())),
+                        singleFlight.execute("key", operation).onErrorResume(e -> Mono.just(e.getMessage()))
+                )
+        )
+                .then(() -> result.tryEmitError(new IllegalStateException("error")))
+                .expectNext("error", "error")
+                .verifyComplete();
+
+        assertEquals(1, invocations.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void shouldStartNewExecutionAfterForget() {
+        AtomicInteger invocations = new AtomicInteger();
+        Sinks.One<String> first = Sinks.one();
+        Supplier<Mono<String>> operation = () -> invocations.incrementAndGet() == 1 ? first.asMono()
+                : Mono.just("second");
+
+        StepVerifier.create(
+                Flux.merge(
+                        singleFlight.execute("key", operation),
+                        Mono.fromRunnable(() -> singleFlight.forget("key")),
+                        singleFlight.execute("key", operation)
+                )
+        )
+                .expectNext("second")
+                .then(() -> first.tryEmitValue("first"))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(2, invocations.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+}
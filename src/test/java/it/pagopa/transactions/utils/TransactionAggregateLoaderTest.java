@@ -0,0 +1,127 @@
+package it.pagopa.transactions.utils;
+
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.domain.TransactionId;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.exceptions.TransactionNotFoundException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionAggregateLoaderTest {
+
+    private static final TransactionId TRANSACTION_ID = new TransactionId(TransactionTestUtils.TRANSACTION_ID);
+
+    private final AtomicInteger eventStoreQueries = new AtomicInteger();
+
+    @Test
+    void shouldQueryEventStoreOnceForAllConsumers() {
+        TransactionAggregateLoader aggregateLoader = new TransactionAggregateLoader(
+                TRANSACTION_ID,
+                eventStream(
+                        List.of(
+                                TransactionTestUtils.transactionActivateEvent(),
+                                TransactionTestUtils.transactionAuthorizationRequestedEvent()
+                        )
+                )
+        );
+
+        StepVerifier.create(aggregateLoader.events())
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(aggregateLoader.transactionV2())
+                .assertNext(
+                        transaction -> assertEquals(
+                                TransactionStatusDto.AUTHORIZATION_REQUESTED,
+                                transaction.getStatus()
+                        )
+                )
+                .verifyComplete();
+        StepVerifier.create(aggregateLoader.transactionV2())
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(aggregateLoader.hasEvent("TRANSACTION_AUTHORIZATION_REQUESTED_EVENT"))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(aggregateLoader.hasEvent("TRANSACTION_AUTHORIZATION_COMPLETED_EVENT"))
+                .expectNext(false)
+                .verifyComplete();
+
+        assertEquals(1, eventStoreQueries.get());
+    }
+
+    @Test
+    void shouldShareEventsAmongConcurrentConsumers() {
+        TransactionAggregateLoader aggregateLoader = new TransactionAggregateLoader(
+                TRANSACTION_ID,
+                eventStream(List.of(TransactionTestUtils.transactionActivateEvent()))
+        );
+
+        StepVerifier.create(
+                Mono.zip(
+                        aggregateLoader.transactionV2(),
+                        aggregateLoader.hasEvent("TRANSACTION_ACTIVATED_EVENT"),
+                        aggregateLoader.events().count()
+                )
+        )
+                .assertNext(result -> {
+                    assertEquals(TransactionStatusDto.ACTIVATED, result.getT1().getStatus());
+                    assertEquals(true, result.getT2());
+                    assertEquals(1L, result.getT3());
+                })
+                .verifyComplete();
+
+        assertEquals(1, eventStoreQueries.get());
+    }
+
+    @Test
+    void shouldReturnTransactionNotFoundForEmptyEventStream() {
+        TransactionAggregateLoader aggregateLoader = new TransactionAggregateLoader(
+                TRANSACTION_ID,
+                eventStream(List.of())
+        );
+
+        StepVerifier.create(aggregateLoader.transactionV2())
+                .expectError(TransactionNotFoundException.class)
+                .verify();
+        StepVerifier.create(aggregateLoader.events())
+                .expectError(TransactionNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldNotMemoizeErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<BaseTransactionEvent<Object>> eventStream = Flux.defer(
+                () -> attempts.incrementAndGet() == 1
+                        ? Flux.error(new IllegalStateException("Mongo error"))
+                        : eventStream(List.of(TransactionTestUtils.transactionActivateEvent()))
+        );
+        TransactionAggregateLoader aggregateLoader = new TransactionAggregateLoader(TRANSACTION_ID, eventStream);
+
+        StepVerifier.create(aggregateLoader.transactionV2())
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(aggregateLoader.transactionV2())
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(aggregateLoader.events())
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<BaseTransactionEvent<Object>> eventStream(List<? extends BaseTransactionEvent<?>> events) {
+        return Flux.fromIterable((List<BaseTransactionEvent<Object>>) (List<?>) events)
+                .doOnSubscribe(subscription -> eventStoreQueries.incrementAndGet());
+    }
+}
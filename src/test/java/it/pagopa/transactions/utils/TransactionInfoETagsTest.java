@@ -0,0 +1,136 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.documents.v2.Transaction;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TransactionInfoETagsTest {
+
+    private static final String PATH = "/transactions/93cce28d3b7c4cb9975e6d856ecee89f";
+
+    private static final String ETAG = "0123456789abcdef";
+
+    private static final String RESPONSE = "response";
+
+    private final AtomicInteger responseReads = new AtomicInteger();
+
+    private final Supplier<Mono<String>> responseRead = () -> Mono.fromSupplier(() -> {
+        responseReads.incrementAndGet();
+        return RESPONSE;
+    });
+
+    private static TransactionInfoETags transactionInfoETags(boolean enabled) {
+        return new TransactionInfoETags(enabled, OpenTelemetry.noop().getMeter("test"));
+    }
+
+    @Test
+    void shouldReturnNotModifiedForMatchingETag() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"%s\"".formatted(ETAG))
+        );
+
+        StepVerifier.create(transactionInfoETags(true).conditionalGet(exchange, () -> Mono.just(ETAG), responseRead))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+                    assertEquals("\"%s\"".formatted(ETAG), response.getHeaders().getETag());
+                    assertNull(response.getBody());
+                })
+                .verifyComplete();
+        assertEquals(0, responseReads.get());
+    }
+
+    @Test
+    void shouldReturnResponseWithETagForNonMatchingETag() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"previous\"")
+        );
+
+        StepVerifier.create(transactionInfoETags(true).conditionalGet(exchange, () -> Mono.just(ETAG), responseRead))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertEquals("\"%s\"".formatted(ETAG), response.getHeaders().getETag());
+                    assertEquals(RESPONSE, response.getBody());
+                })
+                .verifyComplete();
+        assertEquals(1, responseReads.get());
+    }
+
+    @Test
+    void shouldReturnResponseWithETagForUnconditionalRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+
+        StepVerifier.create(transactionInfoETags(true).conditionalGet(exchange, () -> Mono.just(ETAG), responseRead))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertEquals("\"%s\"".formatted(ETAG), response.getHeaders().getETag());
+                    assertEquals(RESPONSE, response.getBody());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReadResponseWhenETagIsNotFound() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"%s\"".formatted(ETAG))
+        );
+        Supplier<Mono<String>> notFound = () -> Mono.error(new RuntimeException("not found"));
+
+        StepVerifier.create(transactionInfoETags(true).conditionalGet(exchange, Mono::empty, notFound))
+                .expectErrorMessage("not found")
+                .verify();
+    }
+
+    @Test
+    void shouldNotReadETagWhenDisabled() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"%s\"".formatted(ETAG))
+        );
+
+        StepVerifier
+                .create(
+                        transactionInfoETags(false).conditionalGet(
+                                exchange,
+                                () -> Mono.error(new IllegalStateException("unexpected ETag read")),
+                                responseRead
+                        )
+                )
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertNull(response.getHeaders().getETag());
+                    assertEquals(RESPONSE, response.getBody());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldChangeETagOnViewChange() {
+        Transaction transaction = TransactionTestUtils.transactionDocument(
+                TransactionStatusDto.AUTHORIZATION_REQUESTED,
+                ZonedDateTime.now()
+        );
+        String eTag = TransactionInfoETags.eTagOf(transaction);
+
+        assertEquals(eTag, TransactionInfoETags.eTagOf(transaction));
+        transaction.setGatewayAuthorizationStatus("EXECUTED");
+        String authorizedETag = TransactionInfoETags.eTagOf(transaction);
+        assertNotEquals(eTag, authorizedETag);
+        transaction.setStatus(TransactionStatusDto.AUTHORIZATION_COMPLETED);
+        assertNotEquals(authorizedETag, TransactionInfoETags.eTagOf(transaction));
+    }
+}
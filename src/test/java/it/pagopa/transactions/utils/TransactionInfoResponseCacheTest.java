@@ -0,0 +1,94 @@
+package it.pagopa.transactions.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionInfoResponseCacheTest {
+
+    private static final String PATH = "/transactions/" + UUID.randomUUID().toString().replace("-", "");
+
+    private static final String E_TAG = "\"3f2a9c\"";
+
+    private static final Map<String, String> RESPONSE = Map.of("status", "NOTIFIED_OK");
+
+    private final MockServerHttpRequest request = MockServerHttpRequest.get(PATH).build();
+
+    private static TransactionInfoResponseCache cache(boolean enabled) {
+        return new TransactionInfoResponseCache(
+                new ObjectMapper(),
+                enabled,
+                1024 * 1024,
+                3600,
+                Set.of(TransactionStatusDto.NOTIFIED_OK, TransactionStatusDto.CANCELED),
+                OpenTelemetry.noop().getMeter("test")
+        );
+    }
+
+    @Test
+    void shouldServeCachedResponseForFinalStatus() {
+        UUID userId = UUID.randomUUID();
+        TransactionInfoResponseCache cache = cache(true);
+
+        cache.putIfFinal(request, userId, TransactionStatusDto.NOTIFIED_OK, RESPONSE, E_TAG);
+
+        Optional<TransactionInfoResponseCache.CachedResponse> cached = cache
+                .find(MockServerHttpRequest.get(PATH).build(), userId);
+        assertTrue(cached.isPresent());
+        assertEquals("{\"status\":\"NOTIFIED_OK\"}", new String(cached.get().body(), StandardCharsets.UTF_8));
+        assertEquals(E_TAG, cached.get().eTag());
+    }
+
+    @Test
+    void shouldNotServeCachedResponseToOtherUsers() {
+        UUID userId = UUID.randomUUID();
+        TransactionInfoResponseCache cache = cache(true);
+
+        cache.putIfFinal(request, userId, TransactionStatusDto.NOTIFIED_OK, RESPONSE, null);
+
+        assertFalse(cache.find(request, UUID.randomUUID()).isPresent());
+        assertFalse(cache.find(request, null).isPresent());
+    }
+
+    @Test
+    void shouldNotServeResponseCachedWithoutUserToUsers() {
+        TransactionInfoResponseCache cache = cache(true);
+
+        cache.putIfFinal(request, null, TransactionStatusDto.CANCELED, RESPONSE, null);
+
+        assertTrue(cache.find(request, null).isPresent());
+        assertFalse(cache.find(request, UUID.randomUUID()).isPresent());
+    }
+
+    @Test
+    void shouldNotCacheResponseForNonFinalStatus() {
+        TransactionInfoResponseCache cache = cache(true);
+
+        cache.putIfFinal(request, null, TransactionStatusDto.CLOSURE_REQUESTED, RESPONSE, null);
+        cache.putIfFinal(request, null, null, RESPONSE, null);
+
+        assertFalse(cache.find(request, null).isPresent());
+    }
+
+    @Test
+    void shouldNotCacheResponseWhenDisabled() {
+        TransactionInfoResponseCache cache = cache(false);
+
+        cache.putIfFinal(request, null, TransactionStatusDto.NOTIFIED_OK, RESPONSE, null);
+
+        assertFalse(cache.isEnabled());
+        assertFalse(cache.find(request, null).isPresent());
+    }
+}
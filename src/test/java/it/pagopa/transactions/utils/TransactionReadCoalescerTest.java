@@ -0,0 +1,150 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionEvent;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionReadCoalescerTest {
+
+    private static final String TRANSACTION_ID = "93cce28d3b7c4cb9975e6d856ecee89f";
+
+    private final BaseTransactionView view = Mockito.mock(BaseTransactionView.class);
+
+    @SuppressWarnings("unchecked")
+    private final BaseTransactionEvent<Object> event = Mockito.mock(BaseTransactionEvent.class);
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private static TransactionReadCoalescer transactionReadCoalescer(boolean enabled) {
+        return new TransactionReadCoalescer(enabled, OpenTelemetry.noop().getMeter("test"));
+    }
+
+    private <T> Supplier<Mono<T>> pendingRead(Sinks.One<T> result) {
+        return () -> {
+            reads.incrementAndGet();
+            return result.asMono();
+        };
+    }
+
+    @Test
+    void shouldCoalesceConcurrentViewReads() {
+        TransactionReadCoalescer coalescer = transactionReadCoalescer(true);
+        Sinks.One<BaseTransactionView> result = Sinks.one();
+        Supplier<Mono<BaseTransactionView>> read = pendingRead(result);
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.STATUS, read),
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.STATUS, read)
+                )
+        )
+                .then(() -> result.tryEmitValue(view))
+                .expectNextMatches(views -> views.getT1() == view && views.getT2() == view)
+                .verifyComplete();
+
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void shouldNotCoalesceViewReadsWithDifferentProjections() {
+        TransactionReadCoalescer coalescer = transactionReadCoalescer(true);
+        Sinks.One<BaseTransactionView> result = Sinks.one();
+        Supplier<Mono<BaseTransactionView>> read = pendingRead(result);
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.STATUS, read),
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO, read)
+                )
+        )
+                .then(() -> result.tryEmitValue(view))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void shouldCoalesceConcurrentEventReads() {
+        TransactionReadCoalescer coalescer = transactionReadCoalescer(true);
+        Sinks.One<List<BaseTransactionEvent<Object>>> result = Sinks.one();
+        Supplier<Flux<BaseTransactionEvent<Object>>> read = () -> pendingRead(result).get()
+                .flatMapIterable(Function.identity());
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.events(TRANSACTION_ID, read).collectList(),
+                        coalescer.events(TRANSACTION_ID, read).collectList()
+                )
+        )
+                .then(() -> result.tryEmitValue(List.of(event, event)))
+                .expectNextMatches(events -> events.getT1().size() == 2 && events.getT2().size() == 2)
+                .verifyComplete();
+
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void shouldStartNewReadsAfterInvalidation() {
+        TransactionReadCoalescer coalescer = transactionReadCoalescer(true);
+        Sinks.One<BaseTransactionView> staleResult = Sinks.one();
+        Sinks.One<BaseTransactionView> freshResult = Sinks.one();
+        BaseTransactionView freshView = Mockito.mock(BaseTransactionView.class);
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.STATUS, pendingRead(staleResult)),
+                        Mono.fromRunnable(() -> coalescer.invalidate(TRANSACTION_ID))
+                                .then(
+                                        coalescer.view(
+                                                TRANSACTION_ID,
+                                                TransactionViewProjection.STATUS,
+                                                pendingRead(freshResult)
+                                        )
+                                )
+                )
+        )
+                .then(() -> {
+                    staleResult.tryEmitValue(view);
+                    freshResult.tryEmitValue(freshView);
+                })
+                .expectNextMatches(views -> views.getT1() == view && views.getT2() == freshView)
+                .verifyComplete();
+
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void shouldNotCoalesceReadsWhenDisabled() {
+        TransactionReadCoalescer coalescer = transactionReadCoalescer(false);
+        Supplier<Mono<BaseTransactionView>> read = () -> Mono.fromSupplier(() -> {
+            reads.incrementAndGet();
+            return view;
+        });
+
+        StepVerifier.create(
+                Mono.zip(
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.STATUS, read),
+                        coalescer.view(TRANSACTION_ID, TransactionViewProjection.STATUS, read)
+                )
+        )
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, reads.get());
+    }
+}
@@ -0,0 +1,233 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.transactions.exceptions.TooManySubscriptionsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionStatusChangesTest {
+
+    private static final String TRANSACTION_ID = "93cce28d3b7c4cb9975e6d856ecee89f";
+
+    private static final String ACTIVATED = TransactionStatusDto.ACTIVATED.getValue();
+
+    private static final String CLOSURE_REQUESTED = TransactionStatusDto.CLOSURE_REQUESTED.getValue();
+
+    private static final String NOTIFIED_OK = TransactionStatusDto.NOTIFIED_OK.getValue();
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, String> redisTemplate = Mockito.mock(ReactiveRedisTemplate.class);
+
+    private final Sinks.Many<ReactiveSubscription.Message<String, String>> messages = Sinks.many().multicast()
+            .directBestEffort();
+
+    private final AtomicReference<String> status = new AtomicReference<>(ACTIVATED);
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private final Supplier<Mono<String>> read = () -> Mono.fromSupplier(() -> {
+        reads.incrementAndGet();
+        return status.get();
+    });
+
+    private TransactionStatusChanges transactionStatusChanges;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.doReturn(Flux.from(messages.asFlux())).when(redisTemplate)
+                .listenToChannel(TransactionStatusChanges.CHANNEL);
+        transactionStatusChanges = transactionStatusChanges(true, 1, Duration.ofHours(1), Duration.ofHours(1));
+        transactionStatusChanges.listen();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionStatusChanges.stop();
+    }
+
+    private TransactionStatusChanges transactionStatusChanges(
+                                                              boolean pubSubEnabled,
+                                                              int maxSubscriptions,
+                                                              Duration pollInterval,
+                                                              Duration maxDuration
+    ) {
+        return new TransactionStatusChanges(
+                redisTemplate,
+                pubSubEnabled,
+                maxSubscriptions,
+                pollInterval,
+                maxDuration,
+                Set.of(TransactionStatusDto.NOTIFIED_OK),
+                OpenTelemetry.noop().getMeter("test")
+        );
+    }
+
+    private void notifyChange(String transactionId) {
+        messages.tryEmitNext(
+                new ReactiveSubscription.ChannelMessage<>(TransactionStatusChanges.CHANNEL, transactionId)
+        );
+    }
+
+    @Test
+    void shouldCompleteStreamForFinalStatus() {
+        StepVerifier.create(transactionStatusChanges.stream(TRANSACTION_ID, NOTIFIED_OK, read, Function.identity()))
+                .expectNext(NOTIFIED_OK)
+                .verifyComplete();
+
+        StepVerifier.create(transactionStatusChanges.checkCapacity()).verifyComplete();
+        assertEquals(0, reads.get());
+    }
+
+    @Test
+    void shouldStreamStatusChangesOnNotification() {
+        StepVerifier.create(transactionStatusChanges.stream(TRANSACTION_ID, ACTIVATED, read, Function.identity()))
+                .expectNext(ACTIVATED)
+                .then(() -> notifyChange("other-transaction-id"))
+                .then(() -> notifyChange(TRANSACTION_ID))
+                .then(() -> status.set(CLOSURE_REQUESTED))
+                .then(() -> notifyChange(TRANSACTION_ID))
+                .expectNext(CLOSURE_REQUESTED)
+                .then(() -> status.set(NOTIFIED_OK))
+                .then(() -> notifyChange(TRANSACTION_ID))
+                .expectNext(NOTIFIED_OK)
+                .verifyComplete();
+
+        // the status is read again once subscribed to changes, then on each
+        // notification
+        assertEquals(4, reads.get());
+        StepVerifier.create(transactionStatusChanges.checkCapacity()).verifyComplete();
+    }
+
+    @Test
+    void shouldStreamStatusChangedBeforeSubscribingToChanges() {
+        // the change is published after the caller has read the current status, but
+        // before the stream is subscribed
+        status.set(CLOSURE_REQUESTED);
+
+        StepVerifier.create(transactionStatusChanges.stream(TRANSACTION_ID, ACTIVATED, read, Function.identity()))
+                .expectNext(ACTIVATED)
+                .expectNext(CLOSURE_REQUESTED)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void shouldReadStatusAtPollInterval() {
+        TransactionStatusChanges polling = transactionStatusChanges(
+                false,
+                1,
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(60)
+        );
+
+        StepVerifier
+                .withVirtualTime(() -> polling.stream(TRANSACTION_ID, ACTIVATED, read, Function.identity()))
+                .expectNext(ACTIVATED)
+                .then(() -> status.set(CLOSURE_REQUESTED))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext(CLOSURE_REQUESTED)
+                .then(() -> status.set(NOTIFIED_OK))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext(NOTIFIED_OK)
+                .verifyComplete();
+
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    void shouldEndStreamAfterMaxDuration() {
+        TransactionStatusChanges polling = transactionStatusChanges(
+                false,
+                1,
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(60)
+        );
+
+        StepVerifier
+                .withVirtualTime(() -> polling.stream(TRANSACTION_ID, ACTIVATED, read, Function.identity()))
+                .expectNext(ACTIVATED)
+                .thenAwait(Duration.ofSeconds(60))
+                .verifyComplete();
+
+        StepVerifier.create(polling.checkCapacity()).verifyComplete();
+    }
+
+    @Test
+    void shouldRejectSubscriptionsOverCap() {
+        Disposable subscription = transactionStatusChanges
+                .stream(TRANSACTION_ID, ACTIVATED, read, Function.identity())
+                .subscribe();
+
+        StepVerifier.create(transactionStatusChanges.checkCapacity())
+                .expectError(TooManySubscriptionsException.class)
+                .verify();
+        StepVerifier.create(transactionStatusChanges.stream(TRANSACTION_ID, ACTIVATED, read, Function.identity()))
+                .expectNext(ACTIVATED)
+                .expectError(TooManySubscriptionsException.class)
+                .verify();
+
+        subscription.dispose();
+        StepVerifier.create(transactionStatusChanges.checkCapacity()).verifyComplete();
+    }
+
+    @Test
+    void shouldPublishChange() {
+        when(redisTemplate.convertAndSend(TransactionStatusChanges.CHANNEL, TRANSACTION_ID))
+                .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(transactionStatusChanges.publish(TRANSACTION_ID)).verifyComplete();
+
+        verify(redisTemplate, times(1)).convertAndSend(TransactionStatusChanges.CHANNEL, TRANSACTION_ID);
+    }
+
+    @Test
+    void shouldIgnorePublishErrors() {
+        when(redisTemplate.convertAndSend(TransactionStatusChanges.CHANNEL, TRANSACTION_ID))
+                .thenReturn(Mono.error(new RuntimeException("Redis unavailable")));
+
+        StepVerifier.create(transactionStatusChanges.publish(TRANSACTION_ID)).verifyComplete();
+    }
+
+    @Test
+    void shouldNotPublishChangeWhenPubSubDisabled() {
+        TransactionStatusChanges disabled = transactionStatusChanges(
+                false,
+                1,
+                Duration.ofHours(1),
+                Duration.ofHours(1)
+        );
+        disabled.listen();
+
+        StepVerifier.create(disabled.publish(TRANSACTION_ID)).verifyComplete();
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+        verify(redisTemplate, times(1)).listenToChannel(TransactionStatusChanges.CHANNEL);
+    }
+}
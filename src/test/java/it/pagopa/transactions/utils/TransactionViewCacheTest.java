@@ -0,0 +1,257 @@
+package it.pagopa.transactions.utils;
+
+import io.opentelemetry.api.OpenTelemetry;
+import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
+import it.pagopa.ecommerce.commons.documents.v2.Transaction;
+import it.pagopa.ecommerce.commons.generated.server.model.TransactionStatusDto;
+import it.pagopa.ecommerce.commons.v2.TransactionTestUtils;
+import it.pagopa.transactions.repositories.TransactionViewProjection;
+import it.pagopa.transactions.repositories.TransactionViewVersion;
+import it.pagopa.transactions.repositories.TransactionViewVersionTemplateWrapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionViewCacheTest {
+
+    private static final String TRANSACTION_ID = TransactionTestUtils.TRANSACTION_ID;
+
+    private static final Duration WRITE_THROUGH_TTL = Duration.ofSeconds(30);
+
+    private static final Duration TTL = Duration.ofMillis(1000);
+
+    private final TransactionViewVersionTemplateWrapper transactionViewVersionTemplateWrapper = Mockito
+            .mock(TransactionViewVersionTemplateWrapper.class);
+
+    private final AtomicInteger mongoReads = new AtomicInteger();
+
+    private final List<Optional<TransactionStatusDto>> knownStatuses = new ArrayList<>();
+
+    private TransactionViewCache cache(boolean enabled) {
+        return new TransactionViewCache(
+                transactionViewVersionTemplateWrapper,
+                enabled,
+                100,
+                Set.of(TransactionStatusDto.ACTIVATED, TransactionStatusDto.AUTHORIZATION_REQUESTED),
+                WRITE_THROUGH_TTL.toSeconds(),
+                TTL.toMillis(),
+                0,
+                OpenTelemetry.noop().getMeter("test")
+        );
+    }
+
+    private Function<Optional<TransactionStatusDto>, Mono<BaseTransactionView>> mongoRead(BaseTransactionView view) {
+        return knownStatus -> Mono.fromSupplier(() -> {
+            mongoReads.incrementAndGet();
+            knownStatuses.add(knownStatus);
+            return view;
+        });
+    }
+
+    private static TransactionViewVersion version(TransactionStatusDto status) {
+        return new TransactionViewVersion(TRANSACTION_ID, "version", status, Instant.now().toEpochMilli());
+    }
+
+    @Test
+    void shouldReadFromMongoWhenDisabled() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
+        TransactionViewCache cache = cache(false);
+
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+        StepVerifier.create(cache.writeThrough(view)).verifyComplete();
+
+        assertEquals(1, mongoReads.get());
+        assertEquals(List.of(Optional.empty()), knownStatuses);
+        Mockito.verifyNoInteractions(transactionViewVersionTemplateWrapper);
+    }
+
+    @Test
+    void shouldServeWrittenThroughViewFromCache() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
+        ArgumentCaptor<TransactionViewVersion> versionCaptor = ArgumentCaptor.forClass(TransactionViewVersion.class);
+        when(transactionViewVersionTemplateWrapper.save(versionCaptor.capture(), any(Duration.class)))
+                .thenReturn(Mono.just(true));
+        TransactionViewCache cache = cache(true);
+
+        StepVerifier.create(cache.writeThrough(view)).verifyComplete();
+        TransactionViewVersion written = versionCaptor.getValue();
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID))
+                .thenReturn(Mono.just(written));
+
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+
+        assertEquals(0, mongoReads.get());
+        assertEquals(TRANSACTION_ID, written.transactionId());
+        assertEquals(TransactionStatusDto.ACTIVATED, written.status());
+        verify(transactionViewVersionTemplateWrapper).save(written, WRITE_THROUGH_TTL);
+    }
+
+    @Test
+    void shouldUseShortTtlForStatusesChangedByOtherServices() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.CLOSURE_REQUESTED, ZonedDateTime.now());
+        when(transactionViewVersionTemplateWrapper.save(any(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(cache(true).writeThrough(view)).verifyComplete();
+
+        verify(transactionViewVersionTemplateWrapper).save(any(), eq(TTL));
+    }
+
+    @Test
+    void shouldPopulateCacheOnMissWithoutVersion() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_REQUESTED, ZonedDateTime.now());
+        ArgumentCaptor<TransactionViewVersion> versionCaptor = ArgumentCaptor.forClass(TransactionViewVersion.class);
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID)).thenReturn(Mono.empty());
+        when(transactionViewVersionTemplateWrapper.saveIfAbsent(versionCaptor.capture(), eq(WRITE_THROUGH_TTL)))
+                .thenReturn(Mono.just(true));
+        TransactionViewCache cache = cache(true);
+
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID))
+                .thenReturn(Mono.just(versionCaptor.getValue()));
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+
+        assertEquals(1, mongoReads.get());
+    }
+
+    @Test
+    void shouldNotCacheViewIfVersionWrittenConcurrently() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_REQUESTED, ZonedDateTime.now());
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID)).thenReturn(Mono.empty());
+        when(transactionViewVersionTemplateWrapper.saveIfAbsent(any(), any(Duration.class)))
+                .thenReturn(Mono.just(false));
+        TransactionViewCache cache = cache(true);
+
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID))
+                .thenReturn(Mono.just(version(TransactionStatusDto.AUTHORIZATION_REQUESTED)));
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+
+        assertEquals(2, mongoReads.get());
+    }
+
+    @Test
+    void shouldReadFromMongoWhenVersionChanges() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_REQUESTED, ZonedDateTime.now());
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID))
+                .thenReturn(Mono.just(version(TransactionStatusDto.AUTHORIZATION_REQUESTED)));
+        TransactionViewCache cache = cache(true);
+
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID))
+                .thenReturn(
+                        Mono.just(
+                                new TransactionViewVersion(
+                                        TRANSACTION_ID,
+                                        "newVersion",
+                                        TransactionStatusDto.CLOSURE_REQUESTED,
+                                        Instant.now().toEpochMilli()
+                                )
+                        )
+                );
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+
+        assertEquals(2, mongoReads.get());
+        assertEquals(
+                List.of(
+                        Optional.of(TransactionStatusDto.AUTHORIZATION_REQUESTED),
+                        Optional.of(TransactionStatusDto.CLOSURE_REQUESTED)
+                ),
+                knownStatuses
+        );
+        verify(transactionViewVersionTemplateWrapper, never()).saveIfAbsent(any(), any(Duration.class));
+    }
+
+    @Test
+    void shouldReadFromMongoWhenCachedViewDoesNotCoverProjection() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.AUTHORIZATION_REQUESTED, ZonedDateTime.now());
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID))
+                .thenReturn(Mono.just(version(TransactionStatusDto.AUTHORIZATION_REQUESTED)));
+        TransactionViewCache cache = cache(true);
+
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.TRANSACTION_INFO, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+
+        assertEquals(2, mongoReads.get());
+    }
+
+    @Test
+    void shouldFallBackToMongoOnRedisErrors() {
+        Transaction view = TransactionTestUtils
+                .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(anyString()))
+                .thenReturn(Mono.error(new RuntimeException("redis error")));
+        when(transactionViewVersionTemplateWrapper.saveIfAbsent(any(), any(Duration.class)))
+                .thenReturn(Mono.error(new RuntimeException("redis error")));
+        when(transactionViewVersionTemplateWrapper.save(any(), any(Duration.class)))
+                .thenReturn(Mono.error(new RuntimeException("redis error")));
+        TransactionViewCache cache = cache(true);
+
+        StepVerifier.create(cache.writeThrough(view)).verifyComplete();
+        StepVerifier.create(cache.find(TRANSACTION_ID, TransactionViewProjection.STATUS, mongoRead(view)))
+                .expectNext(view)
+                .verifyComplete();
+
+        assertEquals(1, mongoReads.get());
+    }
+
+    @Test
+    void shouldReturnEmptyForMissingView() {
+        when(transactionViewVersionTemplateWrapper.findByTransactionId(TRANSACTION_ID)).thenReturn(Mono.empty());
+
+        StepVerifier
+                .create(cache(true).find(TRANSACTION_ID, TransactionViewProjection.STATUS, knownStatus -> Mono.empty()))
+                .verifyComplete();
+
+        verify(transactionViewVersionTemplateWrapper, never()).saveIfAbsent(any(), any(Duration.class));
+    }
+}
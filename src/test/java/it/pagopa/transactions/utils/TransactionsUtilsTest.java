@@ -1,5 +1,6 @@
 package it.pagopa.transactions.utils;
 
+import io.opentelemetry.api.OpenTelemetry;
 import it.pagopa.ecommerce.commons.documents.BaseTransactionView;
 import it.pagopa.ecommerce.commons.documents.v1.Transaction;
 import it.pagopa.ecommerce.commons.documents.v1.TransactionActivatedEvent;
@@ -31,7 +32,12 @@ class TransactionsUtilsTest {
     private TransactionsEventStoreRepository<Object> eventStoreRepository = Mockito
             .mock(TransactionsEventStoreRepository.class);
 
-    private TransactionsUtils transactionsUtils = new TransactionsUtils(eventStoreRepository, "3020");
+    private TransactionsUtils transactionsUtils = new TransactionsUtils(
+            eventStoreRepository,
+            Mockito.mock(EventStoreSnapshots.class),
+            new TransactionReadCoalescer(false, OpenTelemetry.noop().getMeter("test")),
+            "3020"
+    );
 
     @Test
     void shouldReduceTransactionCorrectly() {
@@ -73,7 +79,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldCreateWarmupRequestCorrectlyForEmptyNoticeCodePrefix() {
-        TransactionsUtils utils = new TransactionsUtils(null, "");
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, "");
         NewTransactionRequestDto warmupRequest = utils.buildWarmupRequestV1();
         for (PaymentNoticeInfoDto p : warmupRequest.getPaymentNotices()) {
             assertNotNull(p.getRptId());
@@ -83,7 +89,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldCreateWarmupRequestCorrectlyForValuedNoticeCodePrefix() {
-        TransactionsUtils utils = new TransactionsUtils(null, "3020");
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, "3020");
         NewTransactionRequestDto warmupRequest = utils.buildWarmupRequestV1();
         for (PaymentNoticeInfoDto p : warmupRequest.getPaymentNotices()) {
             assertNotNull(p.getRptId());
@@ -96,7 +102,7 @@ class TransactionsUtilsTest {
     @Test
     void shouldCreateWarmupRequestCorrectlyForValuedNoticeCodePrefixLongerThanNoticeCodeLength() {
         String noticeCode = new RptId(TransactionTestUtils.RPT_ID).getNoticeId();
-        TransactionsUtils utils = new TransactionsUtils(null, noticeCode.concat("BBB"));
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, noticeCode.concat("BBB"));
         NewTransactionRequestDto warmupRequest = utils.buildWarmupRequestV1();
         for (PaymentNoticeInfoDto p : warmupRequest.getPaymentNotices()) {
             assertNotNull(p.getRptId());
@@ -108,7 +114,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetPaymentNoticesFromTransactionV1() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         assertNotNull(
                 utils.getPaymentNotices(
                         it.pagopa.ecommerce.commons.v1.TransactionTestUtils
@@ -119,7 +125,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetPaymentNoticesFromTransactionV2() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         assertNotNull(
                 utils.getPaymentNotices(
                         it.pagopa.ecommerce.commons.v2.TransactionTestUtils
@@ -130,7 +136,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetPaymentNoticesFromTransactionInvalidClass() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         assertThrows(
                 NotImplementedException.class,
                 () -> utils.getPaymentNotices(Mockito.mock(BaseTransactionView.class))
@@ -140,7 +146,7 @@ class TransactionsUtilsTest {
     @Test
     void shouldGetClientIdFromTransactionV1() {
         it.pagopa.ecommerce.commons.documents.v1.Transaction.ClientId clientId = Transaction.ClientId.CHECKOUT;
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v1.Transaction transaction = it.pagopa.ecommerce.commons.v1.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         transaction.setClientId(clientId);
@@ -152,7 +158,7 @@ class TransactionsUtilsTest {
     @Test
     void shouldGetClientIdFromTransactionV2() {
         it.pagopa.ecommerce.commons.documents.v2.Transaction.ClientId clientId = it.pagopa.ecommerce.commons.documents.v2.Transaction.ClientId.CHECKOUT;
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v2.Transaction transaction = it.pagopa.ecommerce.commons.v2.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         transaction.setClientId(clientId);
@@ -164,7 +170,7 @@ class TransactionsUtilsTest {
     @Test
     void shouldGetEffectiveClientIdFromTransactionV2() {
         it.pagopa.ecommerce.commons.documents.v2.Transaction.ClientId clientId = it.pagopa.ecommerce.commons.documents.v2.Transaction.ClientId.WISP_REDIRECT;
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v2.Transaction transaction = it.pagopa.ecommerce.commons.v2.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         transaction.setClientId(clientId);
@@ -175,13 +181,13 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetClientIdFromTransactionInvalidClass() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         assertThrows(NotImplementedException.class, () -> utils.getClientId(Mockito.mock(BaseTransactionView.class)));
     }
 
     @Test
     void shouldGetEmailFromTransactionV1() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v1.Transaction transaction = it.pagopa.ecommerce.commons.v1.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         Confidential<Email> email = utils.getEmail(transaction);
@@ -190,7 +196,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetEmailFromTransactionV2() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v2.Transaction transaction = it.pagopa.ecommerce.commons.v2.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         Confidential<Email> email = utils.getEmail(transaction);
@@ -199,13 +205,13 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetEmailFromTransactionInvalidClass() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         assertThrows(NotImplementedException.class, () -> utils.getEmail(Mockito.mock(BaseTransactionView.class)));
     }
 
     @Test
     void shouldGetTransactionTotalAmountV1() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v1.Transaction transaction = it.pagopa.ecommerce.commons.v1.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         int totalAmount = transaction.getPaymentNotices().stream()
@@ -218,7 +224,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetTransactionTotalAmountV2() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v2.Transaction transaction = it.pagopa.ecommerce.commons.v2.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         int totalAmount = transaction.getPaymentNotices().stream()
@@ -231,7 +237,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetRptIdV1() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v1.Transaction transaction = it.pagopa.ecommerce.commons.v1.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         RptId rptId = new RptId(transaction.getPaymentNotices().get(0).getRptId());
@@ -241,7 +247,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetRptIdV2() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v2.Transaction transaction = it.pagopa.ecommerce.commons.v2.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         RptId rptId = new RptId(transaction.getPaymentNotices().get(0).getRptId());
@@ -251,7 +257,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetIsAllCCPV1() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v1.Transaction transaction = it.pagopa.ecommerce.commons.v1.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         boolean isAllCcp = transaction.getPaymentNotices().get(0).isAllCCP();
@@ -261,7 +267,7 @@ class TransactionsUtilsTest {
 
     @Test
     void shouldGetIsAllCCPV2() {
-        TransactionsUtils utils = new TransactionsUtils(null, null);
+        TransactionsUtils utils = new TransactionsUtils(null, null, null, null);
         it.pagopa.ecommerce.commons.documents.v2.Transaction transaction = it.pagopa.ecommerce.commons.v2.TransactionTestUtils
                 .transactionDocument(TransactionStatusDto.ACTIVATED, ZonedDateTime.now());
         boolean isAllCcp = transaction.getPaymentNotices().get(0).isAllCCP();
@@ -0,0 +1,254 @@
+package it.pagopa.transactions.utils.redis;
+
+import it.pagopa.ecommerce.commons.domain.IdempotencyKey;
+import it.pagopa.ecommerce.commons.domain.PaymentTransferInfo;
+import it.pagopa.ecommerce.commons.domain.RptId;
+import it.pagopa.ecommerce.commons.repositories.PaymentRequestInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedRedisSerializerTest {
+
+    record Transfer(
+            String paFiscalCode,
+            Boolean digitalStamp,
+            Integer transferAmount,
+            String transferCategory
+    ) {
+    }
+
+    record Document(
+            String id,
+            String description,
+            Integer amount,
+            String paymentToken,
+            List<Transfer> transferList,
+            Boolean isAllCCP
+    ) {
+    }
+
+    private static final Document DOCUMENT = new Document(
+            "77777777777302016723749670035",
+            "Payment notice description",
+            12000,
+            "paymentToken",
+            List.of(
+                    new Transfer("77777777777", false, 10000, "9/0101100IM/"),
+                    new Transfer("77777777778", false, 2000, "9/0101100IM/")
+            ),
+            false
+    );
+
+    private static final RptId RPT_ID = new RptId("77777777777302016723749670035");
+
+    private static final PaymentRequestInfo PAYMENT_REQUEST_INFO = new PaymentRequestInfo(
+            RPT_ID,
+            RPT_ID.getFiscalCode(),
+            "paName",
+            "Payment notice description",
+            12000,
+            "2099-12-31",
+            "paymentToken",
+            "2024-01-01T10:00:00.000000000+01:00[Europe/Rome]",
+            new IdempotencyKey("32009090901", "aabbccddee"),
+            List.of(
+                    new PaymentTransferInfo(RPT_ID.getFiscalCode(), false, 10000, "9/0101100IM/"),
+                    new PaymentTransferInfo("77777777778", false, 2000, "9/0101100IM/")
+            ),
+            false,
+            "creditorReferenceId"
+    );
+
+    /*
+     * PaymentRequestInfo document of the shared "keys" keyspace as written by the
+     * commons PaymentRequestInfoRedisTemplateWrapper, along with the derived RptId
+     * properties and a property unknown to this release
+     */
+    private static final String COMMONS_PAYMENT_REQUEST_INFO_JSON = """
+            {
+              "id": {
+                "value": "77777777777302016723749670035",
+                "fiscalCode": "77777777777",
+                "noticeId": "302016723749670035"
+              },
+              "paFiscalCode": "77777777777",
+              "paName": "paName",
+              "description": "Payment notice description",
+              "amount": 12000,
+              "dueDate": "2099-12-31",
+              "paymentToken": "paymentToken",
+              "activationDate": "2024-01-01T10:00:00.000000000+01:00[Europe/Rome]",
+              "idempotencyKey": {
+                "rawValue": "32009090901_aabbccddee"
+              },
+              "transferList": [
+                {
+                  "paFiscalCode": "77777777777",
+                  "digitalStamp": false,
+                  "transferAmount": 10000,
+                  "transferCategory": "9/0101100IM/"
+                },
+                {
+                  "paFiscalCode": "77777777778",
+                  "digitalStamp": false,
+                  "transferAmount": 2000,
+                  "transferCategory": "9/0101100IM/"
+                }
+              ],
+              "isAllCCP": false,
+              "creditorReferenceId": "creditorReferenceId",
+              "newerProperty": "value"
+            }
+            """;
+
+    @ParameterizedTest
+    @EnumSource(RedisSerializationFormat.class)
+    void shouldRoundTripDocuments(RedisSerializationFormat format) {
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                format
+        );
+
+        assertEquals(DOCUMENT, serializer.deserialize(serializer.serialize(DOCUMENT)));
+    }
+
+    @Test
+    void shouldWriteLegacyJsonWithoutHeader() {
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.JSON
+        );
+
+        assertArrayEquals(
+                new Jackson2JsonRedisSerializer<>(Document.class).serialize(DOCUMENT),
+                serializer.serialize(DOCUMENT)
+        );
+    }
+
+    @Test
+    void shouldWriteSmileDocumentsWithVersionedHeader() {
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.SMILE
+        );
+
+        byte[] document = serializer.serialize(DOCUMENT);
+
+        assertEquals(VersionedRedisSerializer.MAGIC, document[0]);
+        assertEquals(VersionedRedisSerializer.HEADER_VERSION, document[1]);
+        assertEquals(RedisSerializationFormat.SMILE.getCode(), document[2]);
+        assertTrue(
+                document.length < new Jackson2JsonRedisSerializer<>(Document.class)
+                        .serialize(DOCUMENT).length
+        );
+    }
+
+    @Test
+    void shouldReadLegacyJsonDocumentsInBinaryMode() {
+        byte[] legacyDocument = new Jackson2JsonRedisSerializer<>(Document.class)
+                .serialize(DOCUMENT);
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.SMILE
+        );
+
+        assertEquals(DOCUMENT, serializer.deserialize(legacyDocument));
+    }
+
+    @Test
+    void shouldReadBinaryDocumentsInJsonMode() {
+        byte[] smileDocument = new VersionedRedisSerializer<>(Document.class, RedisSerializationFormat.SMILE)
+                .serialize(DOCUMENT);
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.JSON
+        );
+
+        assertEquals(DOCUMENT, serializer.deserialize(smileDocument));
+    }
+
+    @Test
+    void shouldFailReadingUnsupportedHeaderVersion() {
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.SMILE
+        );
+        byte[] document = serializer.serialize(DOCUMENT);
+        document[1] = 2;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(document));
+    }
+
+    @Test
+    void shouldFailReadingUnknownFormat() {
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.SMILE
+        );
+        byte[] document = serializer.serialize(DOCUMENT);
+        document[2] = 0x7F;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(document));
+    }
+
+    @Test
+    void shouldHandleMissingValues() {
+        VersionedRedisSerializer<Document> serializer = new VersionedRedisSerializer<>(
+                Document.class,
+                RedisSerializationFormat.SMILE
+        );
+
+        assertArrayEquals(new byte[0], serializer.serialize(null));
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RedisSerializationFormat.class)
+    void shouldRoundTripPaymentRequestInfo(RedisSerializationFormat format) {
+        VersionedRedisSerializer<PaymentRequestInfo> serializer = new VersionedRedisSerializer<>(
+                PaymentRequestInfo.class,
+                format
+        );
+
+        assertEquals(PAYMENT_REQUEST_INFO, serializer.deserialize(serializer.serialize(PAYMENT_REQUEST_INFO)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RedisSerializationFormat.class)
+    void shouldReadPaymentRequestInfoWrittenByCommonsSerializer(RedisSerializationFormat format) {
+        VersionedRedisSerializer<PaymentRequestInfo> serializer = new VersionedRedisSerializer<>(
+                PaymentRequestInfo.class,
+                format
+        );
+
+        assertEquals(
+                PAYMENT_REQUEST_INFO,
+                serializer.deserialize(COMMONS_PAYMENT_REQUEST_INFO_JSON.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    @Test
+    void shouldWritePaymentRequestInfoReadableByCommonsSerializer() {
+        VersionedRedisSerializer<PaymentRequestInfo> serializer = new VersionedRedisSerializer<>(
+                PaymentRequestInfo.class,
+                RedisSerializationFormat.JSON
+        );
+        Jackson2JsonRedisSerializer<PaymentRequestInfo> commonsSerializer = new Jackson2JsonRedisSerializer<>(
+                PaymentRequestInfo.class
+        );
+
+        byte[] document = serializer.serialize(PAYMENT_REQUEST_INFO);
+
+        assertArrayEquals(commonsSerializer.serialize(PAYMENT_REQUEST_INFO), document);
+        assertEquals(PAYMENT_REQUEST_INFO, serializer.deserialize(document));
+    }
+}
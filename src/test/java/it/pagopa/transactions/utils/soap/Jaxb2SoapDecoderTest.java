@@ -0,0 +1,125 @@
+package it.pagopa.transactions.utils.soap;
+
+import it.pagopa.generated.transactions.model.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Jaxb2SoapDecoderTest {
+
+    private final Jaxb2SoapDecoder jaxb2SoapDecoder = new Jaxb2SoapDecoder();
+
+    private final Jaxb2SoapEncoder jaxb2SoapEncoder = new Jaxb2SoapEncoder();
+
+    private final ObjectFactory objectFactory = new ObjectFactory();
+
+    @Test
+    void shouldDecodeActivateResponseFromSoapBody() {
+        ActivatePaymentNoticeV2Response response = okResponse();
+        String soapMessage = encode(response);
+
+        ActivatePaymentNoticeV2Response decoded = decode(soapMessage);
+
+        assertEquals(StOutcome.OK, decoded.getOutcome());
+        assertEquals("paymentToken", decoded.getPaymentToken());
+        assertEquals(0, BigDecimal.valueOf(120).compareTo(decoded.getTotalAmount()));
+        assertEquals(1, decoded.getTransferList().getTransfer().size());
+        assertEquals(
+                "IT20U0760100899876113235567",
+                decoded.getTransferList().getTransfer().get(0).getIBAN()
+        );
+    }
+
+    @Test
+    void shouldDecodeActivateResponseWithNodoFault() {
+        ActivatePaymentNoticeV2Response response = objectFactory.createActivatePaymentNoticeV2Response();
+        CtFaultBean fault = objectFactory.createCtFaultBean();
+        fault.setFaultCode("PPT_PAGAMENTO_DUPLICATO");
+        fault.setFaultString("Pagamento duplicato");
+        fault.setId("NodoDeiPagamentiSPC");
+        response.setOutcome(StOutcome.KO);
+        response.setFault(fault);
+
+        ActivatePaymentNoticeV2Response decoded = decode(encode(response));
+
+        assertEquals(StOutcome.KO, decoded.getOutcome());
+        assertEquals("PPT_PAGAMENTO_DUPLICATO", decoded.getFault().getFaultCode());
+    }
+
+    @Test
+    void shouldDecodeEnvelopeWithDifferentPrefixAndXmlDeclaration() {
+        String soapMessage = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + encode(okResponse())
+                .replace("soap:", "soapenv:")
+                .replace("xmlns:soap=", "xmlns:soapenv=")
+                .replace("<soapenv:Header/>", "<soapenv:Header>\n</soapenv:Header>\n")
+                .replace("<soapenv:Body>", "<soapenv:Body>\n  ");
+
+        ActivatePaymentNoticeV2Response decoded = decode(soapMessage);
+
+        assertEquals("paymentToken", decoded.getPaymentToken());
+    }
+
+    @Test
+    void shouldFailDecodingEmptySoapBody() {
+        String soapMessage = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Header/><soap:Body></soap:Body></soap:Envelope>";
+
+        assertThrows(DecodingException.class, () -> decode(soapMessage));
+    }
+
+    private ActivatePaymentNoticeV2Response okResponse() {
+        ActivatePaymentNoticeV2Response response = objectFactory.createActivatePaymentNoticeV2Response();
+        CtTransferListPSPV2 transferList = objectFactory.createCtTransferListPSPV2();
+        CtTransferPSPV2 transfer = objectFactory.createCtTransferPSPV2();
+        transfer.setFiscalCodePA("77777777777");
+        transfer.setIBAN("IT20U0760100899876113235567");
+        transfer.setTransferAmount(BigDecimal.valueOf(120));
+        transfer.setRemittanceInformation("remittanceInformation");
+        transfer.setTransferCategory("transferCategory");
+        transferList.getTransfer().add(transfer);
+        response.setOutcome(StOutcome.OK);
+        response.setPaymentToken("paymentToken");
+        response.setFiscalCodePA("77777777777");
+        response.setTotalAmount(BigDecimal.valueOf(120));
+        response.setPaymentDescription("paymentDescription");
+        response.setTransferList(transferList);
+        return response;
+    }
+
+    private String encode(ActivatePaymentNoticeV2Response response) {
+        return DataBufferUtils.join(
+                jaxb2SoapEncoder.encode(
+                        Mono.just(new SoapEnvelope("", objectFactory.createActivatePaymentNoticeV2Response(response))),
+                        DefaultDataBufferFactory.sharedInstance,
+                        ResolvableType.forClass(SoapEnvelope.class),
+                        MimeTypeUtils.TEXT_XML,
+                        Map.of()
+                )
+        ).map(dataBuffer -> {
+            String value = dataBuffer.toString(StandardCharsets.UTF_8);
+            DataBufferUtils.release(dataBuffer);
+            return value;
+        }).block();
+    }
+
+    private ActivatePaymentNoticeV2Response decode(String soapMessage) {
+        DataBuffer dataBuffer = DefaultDataBufferFactory.sharedInstance
+                .wrap(soapMessage.getBytes(StandardCharsets.UTF_8));
+        return (ActivatePaymentNoticeV2Response) jaxb2SoapDecoder.decode(
+                dataBuffer,
+                ResolvableType.forClass(ActivatePaymentNoticeV2Response.class),
+                MimeTypeUtils.TEXT_XML,
+                Map.of()
+        );
+    }
+}
@@ -1,15 +1,27 @@
 package it.pagopa.transactions.utils.soap;
 
+import it.pagopa.generated.transactions.model.ActivatePaymentNoticeV2Request;
+import it.pagopa.generated.transactions.model.CtQrCode;
+import it.pagopa.generated.transactions.model.ObjectFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Mono;
 
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 class Jaxb2SoapEncoderTest {
@@ -18,13 +30,50 @@ class Jaxb2SoapEncoderTest {
     private Jaxb2SoapEncoder jaxb2SoapEncoder = new Jaxb2SoapEncoder();
 
     @Test
-    void shouldConstructTransactionAmount()
-            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Method method = Jaxb2SoapEncoder.class.getDeclaredMethod("getMarshaller");
-        method.setAccessible(true);
-
-        Marshaller marshaller = (Marshaller) method.invoke(jaxb2SoapEncoder);
+    void shouldConstructTransactionAmount() throws JAXBException {
+        Marshaller marshaller = new JaxbContextContainer().borrowMarshaller();
 
         assertEquals(Boolean.TRUE, marshaller != null);
+        assertEquals("UTF-8", marshaller.getProperty(Marshaller.JAXB_ENCODING));
+        assertEquals(Boolean.TRUE, marshaller.getProperty(Marshaller.JAXB_FRAGMENT));
+    }
+
+    @Test
+    void shouldEncodeRequestIntoSoap11Envelope() {
+        ObjectFactory objectFactory = new ObjectFactory();
+        ActivatePaymentNoticeV2Request request = objectFactory.createActivatePaymentNoticeV2Request();
+        CtQrCode qrCode = new CtQrCode();
+        qrCode.setFiscalCode("77777777777");
+        qrCode.setNoticeNumber("302000100000009424");
+        request.setQrCode(qrCode);
+        request.setAmount(BigDecimal.valueOf(1200));
+        request.setIdempotencyKey("00000000000_1234567890");
+
+        String encoded = DataBufferUtils.join(
+                jaxb2SoapEncoder.encode(
+                        Mono.just(new SoapEnvelope("", objectFactory.createActivatePaymentNoticeV2Request(request))),
+                        DefaultDataBufferFactory.sharedInstance,
+                        ResolvableType.forClass(SoapEnvelope.class),
+                        MimeTypeUtils.TEXT_XML,
+                        Map.of()
+                )
+        ).map(this::readAndRelease).block();
+
+        assertTrue(
+                encoded.startsWith(
+                        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Header/><soap:Body>"
+                )
+        );
+        assertTrue(encoded.endsWith("</soap:Body></soap:Envelope>"));
+        assertTrue(encoded.contains("activatePaymentNoticeV2Request"));
+        assertTrue(encoded.contains("<noticeNumber>302000100000009424</noticeNumber>"));
+        assertTrue(encoded.contains("<idempotencyKey>00000000000_1234567890</idempotencyKey>"));
+        assertEquals(-1, encoded.indexOf("<?xml"));
+    }
+
+    private String readAndRelease(DataBuffer dataBuffer) {
+        String value = dataBuffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(dataBuffer);
+        return value;
     }
 }
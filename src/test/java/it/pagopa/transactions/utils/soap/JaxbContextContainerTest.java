@@ -0,0 +1,61 @@
+package it.pagopa.transactions.utils.soap;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JaxbContextContainerTest {
+
+    private final JaxbContextContainer jaxbContextContainer = new JaxbContextContainer(
+            1,
+            OpenTelemetry.noop().getMeter("test")
+    );
+
+    @Test
+    void shouldReuseReleasedMarshaller() throws JAXBException {
+        Marshaller marshaller = jaxbContextContainer.borrowMarshaller();
+        jaxbContextContainer.releaseMarshaller(marshaller);
+
+        assertSame(marshaller, jaxbContextContainer.borrowMarshaller());
+    }
+
+    @Test
+    void shouldReuseReleasedUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = jaxbContextContainer.borrowUnmarshaller();
+        jaxbContextContainer.releaseUnmarshaller(unmarshaller);
+
+        assertSame(unmarshaller, jaxbContextContainer.borrowUnmarshaller());
+    }
+
+    @Test
+    void shouldCreateNewInstanceWhenPoolIsExhausted() throws JAXBException {
+        Marshaller first = jaxbContextContainer.borrowMarshaller();
+        Marshaller second = jaxbContextContainer.borrowMarshaller();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void shouldDropInstancesReleasedToFullPool() throws JAXBException {
+        Marshaller first = jaxbContextContainer.borrowMarshaller();
+        Marshaller second = jaxbContextContainer.borrowMarshaller();
+        jaxbContextContainer.releaseMarshaller(first);
+        jaxbContextContainer.releaseMarshaller(second);
+
+        assertSame(first, jaxbContextContainer.borrowMarshaller());
+        assertNotSame(second, jaxbContextContainer.borrowMarshaller());
+    }
+
+    @Test
+    void shouldRejectInvalidPoolSize() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new JaxbContextContainer(0, OpenTelemetry.noop().getMeter("test"))
+        );
+    }
+}